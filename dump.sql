@@ -17,8 +17,8 @@ CREATE TABLE doctors (
 
 CREATE TABLE visits (
                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
-                        start_date_time DATETIME NOT NULL,
-                        end_date_time DATETIME NOT NULL,
+                        start_date_time BIGINT NOT NULL, -- epoch milliseconds
+                        end_date_time BIGINT NOT NULL,
                         patient_id BIGINT NOT NULL,
                         doctor_id BIGINT NOT NULL,
                         CONSTRAINT fk_patient FOREIGN KEY (patient_id) REFERENCES patients(id),
@@ -40,11 +40,11 @@ INSERT INTO doctors (first_name, last_name, timezone) VALUES
                                                           ('Sophia', 'Taylor', 'Europe/London');
 
 INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES
-                                                                               ('2025-09-15T10:00:00-04:00', '2025-09-15T10:30:00-04:00', 1, 1),
-                                                                               ('2025-09-15T11:00:00-04:00', '2025-09-15T11:30:00-04:00', 2, 1),
-                                                                               ('2025-09-15T12:00:00-04:00', '2025-09-15T12:45:00-04:00', 3, 2),
-                                                                               ('2025-09-16T09:00:00-04:00', '2025-09-16T09:30:00-04:00', 1, 2),
-                                                                               ('2025-09-16T15:00:00-04:00', '2025-09-16T15:30:00-04:00', 4, 3),
-                                                                               ('2025-09-16T16:00:00-04:00', '2025-09-16T16:30:00-04:00', 5, 3),
-                                                                               ('2025-09-17T10:00:00-04:00', '2025-09-17T10:30:00-04:00', 2, 2),
-                                                                               ('2025-09-17T11:00:00-04:00', '2025-09-17T11:30:00-04:00', 3, 3);
\ No newline at end of file
+                                                                               (1757944800000, 1757946600000, 1, 1), -- 2025-09-15T10:00:00-04:00 .. 10:30
+                                                                               (1757948400000, 1757950200000, 2, 1), -- 2025-09-15T11:00:00-04:00 .. 11:30
+                                                                               (1757952000000, 1757954700000, 3, 2), -- 2025-09-15T12:00:00-04:00 .. 12:45
+                                                                               (1758027600000, 1758029400000, 1, 2), -- 2025-09-16T09:00:00-04:00 .. 09:30
+                                                                               (1758049200000, 1758051000000, 4, 3), -- 2025-09-16T15:00:00-04:00 .. 15:30
+                                                                               (1758052800000, 1758054600000, 5, 3), -- 2025-09-16T16:00:00-04:00 .. 16:30
+                                                                               (1758117600000, 1758119400000, 2, 2), -- 2025-09-17T10:00:00-04:00 .. 10:30
+                                                                               (1758121200000, 1758123000000, 3, 3); -- 2025-09-17T11:00:00-04:00 .. 11:30
@@ -0,0 +1,82 @@
+// Overload test for the concurrency limiter: pushes listings well past what the database can serve while
+// bookings keep arriving at a steady rate.
+//
+//   k6 run loadtest/overload.js
+//   k6 run -e PEAK_RATE=2000 -e BASE_URL=http://localhost:8081 loadtest/overload.js
+//
+// With the limiter the excess is answered with fast 503s, so the p99 of admitted requests stays flat and
+// bookings keep succeeding. Run once more with --meditrack.limiter.enabled=false to see the collapse.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Rate, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const PEAK_RATE = parseInt(__ENV.PEAK_RATE || '1000', 10);
+
+const admittedListing = new Trend('admitted_listing_duration', true);
+const admittedBooking = new Trend('admitted_booking_duration', true);
+const shed = new Rate('shed');
+
+http.setResponseCallback(http.expectedStatuses(200, 400, 503));
+
+export const options = {
+    scenarios: {
+        listing: {
+            executor: 'ramping-arrival-rate',
+            startRate: 10,
+            timeUnit: '1s',
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+            stages: [
+                { duration: '30s', target: PEAK_RATE / 10 },
+                { duration: '30s', target: PEAK_RATE },
+                { duration: '2m', target: PEAK_RATE },
+                { duration: '30s', target: PEAK_RATE / 10 },
+            ],
+        },
+        booking: {
+            executor: 'constant-arrival-rate',
+            rate: 50,
+            timeUnit: '1s',
+            duration: '3m30s',
+            preAllocatedVUs: 50,
+            maxVUs: 500,
+            exec: 'book',
+        },
+    },
+    thresholds: {
+        'admitted_listing_duration': ['p(99)<1500'],
+        'admitted_booking_duration': ['p(99)<1000'],
+        'shed{scenario:booking}': ['rate<0.05'],
+        'http_req_failed': ['rate<0.01'],
+    },
+};
+
+export default function () {
+    const page = Math.floor(Math.random() * 50);
+    const res = http.get(`${BASE_URL}/api/patients?page=${page}&size=20`);
+    record(res, admittedListing);
+    check(res, { 'listing 200/503': (r) => r.status === 200 || r.status === 503 });
+}
+
+export function book() {
+    // random slots far in the future; overlaps come back as 400 and are expected
+    const start = new Date(Date.UTC(2030, 0, 1) + Math.floor(Math.random() * 5000000) * 60000);
+    const end = new Date(start.getTime() + 15 * 60000);
+    const body = JSON.stringify({
+        start: start.toISOString(),
+        end: end.toISOString(),
+        patientId: 1 + Math.floor(Math.random() * 5),
+        doctorId: 1 + Math.floor(Math.random() * 3),
+    });
+    const res = http.post(`${BASE_URL}/api/visits`, body, { headers: { 'Content-Type': 'application/json' } });
+    record(res, admittedBooking);
+    check(res, { 'booking 200/400': (r) => r.status === 200 || r.status === 400 });
+}
+
+function record(res, admitted) {
+    shed.add(res.status === 503);
+    if (res.status !== 503) {
+        admitted.add(res.timings.duration);
+    }
+}
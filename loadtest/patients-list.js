@@ -0,0 +1,57 @@
+// Side-by-side load test of the servlet (8081) and reactive (8082) listings.
+//
+//   k6 run -e BASE_URL=http://localhost:8081 loadtest/patients-list.js
+//   k6 run -e BASE_URL=http://localhost:8082 loadtest/patients-list.js
+//
+// Start both applications with the same heap (e.g. JAVA_TOOL_OPTIONS=-Xmx256m) against the same database.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+const VUS = parseInt(__ENV.VUS || '1000', 10);
+
+export const options = {
+    scenarios: {
+        listing: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+        },
+        booking: {
+            executor: 'constant-arrival-rate',
+            rate: 50,
+            timeUnit: '1s',
+            duration: '2m45s',
+            preAllocatedVUs: 50,
+            exec: 'book',
+        },
+    },
+    thresholds: {
+        'http_req_failed{scenario:listing}': ['rate<0.01'],
+        'http_req_duration{scenario:listing}': ['p(99)<2000'],
+    },
+};
+
+export default function () {
+    const page = Math.floor(Math.random() * 50);
+    const res = http.get(`${BASE_URL}/api/patients?page=${page}&size=20`);
+    check(res, { 'listing 200': (r) => r.status === 200 });
+}
+
+export function book() {
+    // random slots far in the future; overlaps come back as 400 and are expected
+    const start = new Date(Date.UTC(2030, 0, 1) + Math.floor(Math.random() * 5000000) * 60000);
+    const end = new Date(start.getTime() + 15 * 60000);
+    const body = JSON.stringify({
+        start: start.toISOString(),
+        end: end.toISOString(),
+        patientId: 1 + Math.floor(Math.random() * 5),
+        doctorId: 1 + Math.floor(Math.random() * 3),
+    });
+    const res = http.post(`${BASE_URL}/api/visits`, body, { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'booking 200/400': (r) => r.status === 200 || r.status === 400 });
+}
@@ -0,0 +1,12 @@
+package org.example.meditrack.reactive;
+
+/**
+ * One row of the reactive patient listing: a patient of the page joined with its latest visit per doctor.
+ * Patients without visits yield a single row whose visit columns are null. Visit times are epoch
+ * milliseconds, as stored.
+ */
+record ListingRow(long patientId, String firstName, String lastName,
+                  Long visitId, Long start, Long end,
+                  Long doctorId, String doctorFirstName, String doctorLastName, String timezone,
+                  int doctorPatientCount) {
+}
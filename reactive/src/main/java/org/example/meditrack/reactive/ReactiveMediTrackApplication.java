@@ -0,0 +1,12 @@
+package org.example.meditrack.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveMediTrackApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveMediTrackApplication.class, args);
+    }
+}
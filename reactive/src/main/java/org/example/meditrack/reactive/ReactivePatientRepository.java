@@ -0,0 +1,109 @@
+package org.example.meditrack.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * R2DBC counterpart of the listing queries in {@code PatientRepository}. The filter is assembled per call
+ * so that absent parameters drop their predicate instead of being bound as NULL, and the page rows come
+ * back ordered by patient id, which is what lets the service group them as they stream in.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactivePatientRepository {
+
+    private static final String SEARCH_PREDICATE =
+            " AND LOWER(CONCAT(p.first_name, ' ', p.last_name)) LIKE LOWER(CONCAT('%', :search, '%'))";
+
+    private static final String DOCTOR_PREDICATE =
+            " AND (EXISTS (SELECT 1 FROM visits fv WHERE fv.patient_id = p.id AND fv.doctor_id IN (:doctorIds))" +
+            " OR NOT EXISTS (SELECT 1 FROM visits fv WHERE fv.patient_id = p.id))";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<ListingRow> findPage(String search, List<Long> doctorIds, int offset, int pageSize) {
+        String sql = """
+            WITH page AS (
+                SELECT p.id, p.first_name, p.last_name
+                FROM patients p
+                WHERE 1 = 1""" + filter(search, doctorIds) + """
+
+                ORDER BY p.id
+                LIMIT :pageSize OFFSET :offset
+            )
+            SELECT pg.id, pg.first_name, pg.last_name,
+                   v.id AS visit_id, v.start_date_time, v.end_date_time,
+                   d.id AS doctor_id, d.first_name AS doctor_first_name, d.last_name AS doctor_last_name,
+                   d.timezone,
+                   COALESCE(ds.patient_count, 0) AS patient_count
+            FROM page pg
+            LEFT JOIN (
+                SELECT v1.patient_id, v1.doctor_id, v1.id, v1.start_date_time, v1.end_date_time,
+                       ROW_NUMBER() OVER (PARTITION BY v1.patient_id, v1.doctor_id
+                                          ORDER BY v1.start_date_time DESC, v1.id DESC) AS rn
+                FROM visits v1
+                JOIN page pv ON pv.id = v1.patient_id
+            ) v ON v.patient_id = pg.id AND v.rn = 1
+            LEFT JOIN doctors d ON d.id = v.doctor_id
+            LEFT JOIN (
+                SELECT doctor_id, COUNT(DISTINCT patient_id) AS patient_count
+                FROM visits
+                WHERE doctor_id IN (SELECT v2.doctor_id FROM visits v2 JOIN page ps ON ps.id = v2.patient_id)
+                GROUP BY doctor_id
+            ) ds ON ds.doctor_id = d.id
+            ORDER BY pg.id, d.id
+            """;
+
+        DatabaseClient.GenericExecuteSpec spec = bindFilter(databaseClient.sql(sql), search, doctorIds)
+                .bind("pageSize", pageSize)
+                .bind("offset", offset);
+
+        return spec.map((row, metadata) -> new ListingRow(
+                        row.get("id", Long.class),
+                        row.get("first_name", String.class),
+                        row.get("last_name", String.class),
+                        row.get("visit_id", Long.class),
+                        row.get("start_date_time", Long.class),
+                        row.get("end_date_time", Long.class),
+                        row.get("doctor_id", Long.class),
+                        row.get("doctor_first_name", String.class),
+                        row.get("doctor_last_name", String.class),
+                        row.get("timezone", String.class),
+                        row.get("patient_count", Long.class).intValue()))
+                .all();
+    }
+
+    public Mono<Long> count(String search, List<Long> doctorIds) {
+        String sql = "SELECT COUNT(*) AS total FROM patients p WHERE 1 = 1" + filter(search, doctorIds);
+        return bindFilter(databaseClient.sql(sql), search, doctorIds)
+                .map((row, metadata) -> row.get("total", Long.class))
+                .one();
+    }
+
+    private static String filter(String search, List<Long> doctorIds) {
+        String filter = "";
+        if (search != null) {
+            filter += SEARCH_PREDICATE;
+        }
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            filter += DOCTOR_PREDICATE;
+        }
+        return filter;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFilter(DatabaseClient.GenericExecuteSpec spec,
+                                                                String search, List<Long> doctorIds) {
+        if (search != null) {
+            spec = spec.bind("search", search);
+        }
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            spec = spec.bind("doctorIds", doctorIds);
+        }
+        return spec;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.meditrack.reactive;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.CreateVisitRequest;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ReactiveVisitController {
+
+    private final ReactiveVisitService visitService;
+
+    @PostMapping("/visits")
+    public Mono<ResponseEntity<Void>> createVisit(@Valid @RequestBody CreateVisitRequest request) {
+        return visitService.createVisit(request)
+                .then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @GetMapping(value = "/patients", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<PatientsListResponse> getPatients(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String doctorIds) {
+        return visitService.getPatients(page, size, search, parseDoctorIds(doctorIds));
+    }
+
+    /**
+     * Streaming variant of the listing: one {@link PatientResponse} per line, written as it is assembled.
+     * The total count is not part of the stream.
+     */
+    @GetMapping(value = "/patients", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PatientResponse> streamPatients(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String doctorIds) {
+        return visitService.streamPatients(page, size, search, parseDoctorIds(doctorIds));
+    }
+
+    private static List<Long> parseDoctorIds(String doctorIds) {
+        if (doctorIds == null || doctorIds.trim().isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(doctorIds.split(","))
+                .map(String::trim)
+                .map(Long::parseLong)
+                .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.meditrack.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Booking statements of the reactive module. Visit times are bound as epoch milliseconds, the column format
+ * of {@code InstantEpochMillisConverter}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveVisitRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Locks the doctor row like the servlet bookings do, so a booking from either stack waits for the other's
+     * overlap check and insert to commit.
+     */
+    public Mono<Boolean> lockDoctor(Long doctorId) {
+        return databaseClient.sql("SELECT id FROM doctors WHERE id = :id FOR UPDATE")
+                .bind("id", doctorId)
+                .map((row, metadata) -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Boolean> patientExists(Long patientId) {
+        return databaseClient.sql("SELECT id FROM patients WHERE id = :id")
+                .bind("id", patientId)
+                .map((row, metadata) -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Long> countOverlappingVisits(Long doctorId, Instant start, Instant end) {
+        return databaseClient.sql("""
+                SELECT COUNT(*) AS overlapping FROM visits v
+                WHERE v.doctor_id = :doctorId
+                AND v.start_date_time <= :end AND v.end_date_time >= :start
+                """)
+                .bind("doctorId", doctorId)
+                .bind("start", start.toEpochMilli())
+                .bind("end", end.toEpochMilli())
+                .map((row, metadata) -> row.get("overlapping", Long.class))
+                .one();
+    }
+
+    public Mono<Long> insertVisit(Long doctorId, Long patientId, Instant start, Instant end) {
+        return databaseClient.sql("""
+                INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id)
+                VALUES (:start, :end, :patientId, :doctorId)
+                """)
+                .bind("start", start.toEpochMilli())
+                .bind("end", end.toEpochMilli())
+                .bind("patientId", patientId)
+                .bind("doctorId", doctorId)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map((row, metadata) -> row.get("id", Long.class))
+                .one();
+    }
+
+    /**
+     * Keeps {@code last_visit_at}, the key of the servlet listing's {@code lastVisit} sort, at the latest visit
+     * start, like {@code PatientRepository.raiseLastVisitAt}.
+     */
+    public Mono<Void> raiseLastVisitAt(Long patientId, Instant start) {
+        return databaseClient.sql("UPDATE patients SET last_visit_at = GREATEST(last_visit_at, :start) WHERE id = :id")
+                .bind("start", start.toEpochMilli())
+                .bind("id", patientId)
+                .then();
+    }
+
+    /**
+     * Same outbox row the servlet {@code VisitService} writes, so listeners see bookings from both stacks.
+     */
+    public Mono<Void> insertCreatedEvent(Long visitId, Long doctorId, Long patientId, Instant start, Instant end) {
+        return databaseClient.sql("""
+                INSERT INTO visit_events (type, visit_id, patient_id, doctor_id,
+                                          start_date_time, end_date_time, created_at)
+                VALUES ('CREATED', :visitId, :patientId, :doctorId, :start, :end, :createdAt)
+                """)
+                .bind("visitId", visitId)
+                .bind("patientId", patientId)
+                .bind("doctorId", doctorId)
+                .bind("start", start.toEpochMilli())
+                .bind("end", end.toEpochMilli())
+                .bind("createdAt", LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                .then();
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.meditrack.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.CreateVisitRequest;
+import org.example.meditrack.dtos.DoctorResponse;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.dtos.VisitResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.Visit;
+import org.example.meditrack.services.IsoDateTimes;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking implementation of the servlet {@code VisitService} contract: same validation order, same
+ * error messages, same response shapes.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveVisitService {
+
+    private final ReactiveVisitRepository visitRepository;
+    private final ReactivePatientRepository patientRepository;
+
+    @Transactional
+    public Mono<Void> createVisit(CreateVisitRequest request) {
+        return visitRepository.lockDoctor(request.getDoctorId())
+                .flatMap(doctorExists -> {
+                    if (!doctorExists) {
+                        return Mono.error(new BusinessException("Doctor not found"));
+                    }
+                    return visitRepository.patientExists(request.getPatientId());
+                })
+                .flatMap(patientExists -> {
+                    if (!patientExists) {
+                        return Mono.error(new BusinessException("Patient not found"));
+                    }
+                    return book(request);
+                });
+    }
+
+    private Mono<Void> book(CreateVisitRequest request) {
+        Instant start = ZonedDateTime.parse(request.getStart()).toInstant();
+        Instant end = ZonedDateTime.parse(request.getEnd()).toInstant();
+
+        if (!start.isBefore(end)) {
+            return Mono.error(new BusinessException("Start time must be before end time"));
+        }
+        if (Duration.between(start, end).compareTo(Visit.MAX_LENGTH) > 0) {
+            return Mono.error(new BusinessException("A visit can last at most 24 hours"));
+        }
+
+        return visitRepository.countOverlappingVisits(request.getDoctorId(), start, end)
+                .flatMap(overlapping -> {
+                    if (overlapping > 0) {
+                        return Mono.error(new BusinessException("Doctor already has a visit scheduled at this time"));
+                    }
+                    return visitRepository.insertVisit(request.getDoctorId(), request.getPatientId(), start, end);
+                })
+                .flatMap(visitId -> visitRepository.insertCreatedEvent(
+                        visitId, request.getDoctorId(), request.getPatientId(), start, end))
+                .then(visitRepository.raiseLastVisitAt(request.getPatientId(), start));
+    }
+
+    public Mono<PatientsListResponse> getPatients(Integer page, Integer size, String search, List<Long> doctorIds) {
+        int actualSize = size != null ? size : 20;
+        int offset = (page != null ? page : 0) * actualSize;
+
+        // the count runs on its own connection while the page rows stream in
+        return Mono.zip(
+                        streamPatients(search, doctorIds, offset, actualSize).collectList(),
+                        patientRepository.count(search, doctorIds))
+                .map(tuple -> PatientsListResponse.builder()
+                        .data(tuple.getT1())
+                        // like the servlet listing, a page past the end reports no count
+                        .count(tuple.getT1().isEmpty() ? 0L : tuple.getT2())
+                        .build());
+    }
+
+    public Flux<PatientResponse> streamPatients(Integer page, Integer size, String search, List<Long> doctorIds) {
+        int actualSize = size != null ? size : 20;
+        return streamPatients(search, doctorIds, (page != null ? page : 0) * actualSize, actualSize);
+    }
+
+    /**
+     * Emits each patient as soon as the first row of the next patient (or the end of the result) arrives.
+     */
+    private Flux<PatientResponse> streamPatients(String search, List<Long> doctorIds, int offset, int pageSize) {
+        return Flux.defer(() -> {
+            Map<Long, DoctorResponse> doctors = new HashMap<>();
+            return patientRepository.findPage(search, doctorIds, offset, pageSize)
+                    .bufferUntilChanged(ListingRow::patientId)
+                    .map(rows -> toPatient(rows, doctors));
+        });
+    }
+
+    private static PatientResponse toPatient(List<ListingRow> rows, Map<Long, DoctorResponse> doctors) {
+        ListingRow first = rows.get(0);
+        List<VisitResponse> visits = new ArrayList<>(first.visitId() != null ? rows.size() : 0);
+        for (ListingRow row : rows) {
+            if (row.visitId() == null) {
+                continue;
+            }
+            DoctorResponse doctor = doctors.computeIfAbsent(row.doctorId(), id -> new DoctorResponse(
+                    row.doctorFirstName(), row.doctorLastName(), row.doctorPatientCount(), null));
+            ZoneId zone = IsoDateTimes.zone(row.timezone());
+            visits.add(new VisitResponse(
+                    IsoDateTimes.formatEpochMilli(row.start(), zone),
+                    IsoDateTimes.formatEpochMilli(row.end(), zone),
+                    doctor));
+        }
+        return new PatientResponse(first.firstName(), first.lastName(), visits);
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.meditrack.reactive;
+
+import org.example.meditrack.dtos.CreateVisitRequest;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class ReactiveVisitControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        for (String sql : List.of(
+                "DELETE FROM visit_events",
+                "DELETE FROM visits",
+                "DELETE FROM patients",
+                "DELETE FROM doctors",
+                "INSERT INTO doctors (id, first_name, last_name, timezone) VALUES (1, 'Gregory', 'House', 'America/New_York')",
+                "INSERT INTO doctors (id, first_name, last_name, timezone) VALUES (2, 'Lisa', 'Cuddy', 'Europe/Kyiv')",
+                "INSERT INTO patients (id, first_name, last_name) VALUES (1, 'John', 'Doe')",
+                "INSERT INTO patients (id, first_name, last_name) VALUES (2, 'Jane', 'Smith')",
+                "INSERT INTO patients (id, first_name, last_name) VALUES (3, 'Bob', 'Brown')",
+                "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (1704895200000, 1704898800000, 1, 1)",
+                "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (1707573600000, 1707577200000, 1, 1)",
+                "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (1705046400000, 1705050000000, 1, 2)",
+                "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (1704981600000, 1704985200000, 2, 1)")) {
+            databaseClient.sql(sql).then().block();
+        }
+    }
+
+    @Test
+    void createVisit_Success() {
+        // Given
+        CreateVisitRequest request = visitRequest("2024-03-01T10:00:00Z", "2024-03-01T11:00:00Z", 3L, 1L);
+
+        // When
+        webTestClient.post().uri("/api/visits")
+                .bodyValue(request)
+                .exchange()
+                // Then
+                .expectStatus().isOk();
+
+        Long events = databaseClient.sql("SELECT COUNT(*) AS n FROM visit_events WHERE patient_id = 3")
+                .map((row, metadata) -> row.get("n", Long.class))
+                .one()
+                .block();
+        assertEquals(1L, events);
+        Long lastVisitAt = databaseClient.sql("SELECT last_visit_at FROM patients WHERE id = 3")
+                .map((row, metadata) -> row.get("last_visit_at", Long.class))
+                .one()
+                .block();
+        assertEquals(1709287200000L, lastVisitAt);
+    }
+
+    @Test
+    void createVisit_OverlappingVisit_ReturnsBadRequest() {
+        // Given
+        CreateVisitRequest request = visitRequest("2024-01-10T14:30:00Z", "2024-01-10T15:30:00Z", 3L, 1L);
+
+        // When
+        webTestClient.post().uri("/api/visits")
+                .bodyValue(request)
+                .exchange()
+                // Then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Doctor already has a visit scheduled at this time");
+    }
+
+    @Test
+    void createVisit_DoctorNotFound_ReturnsBadRequest() {
+        // Given
+        CreateVisitRequest request = visitRequest("2024-03-01T10:00:00Z", "2024-03-01T11:00:00Z", 3L, 99L);
+
+        // When
+        webTestClient.post().uri("/api/visits")
+                .bodyValue(request)
+                .exchange()
+                // Then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Doctor not found");
+    }
+
+    @Test
+    void createVisit_MissingFields_ReturnsFieldErrors() {
+        // Given
+        CreateVisitRequest request = visitRequest("2024-03-01T10:00:00Z", "", 3L, null);
+
+        // When
+        webTestClient.post().uri("/api/visits")
+                .bodyValue(request)
+                .exchange()
+                // Then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.end").isEqualTo("End time is required")
+                .jsonPath("$.doctorId").isEqualTo("Doctor ID is required");
+    }
+
+    @Test
+    void getPatients_ReturnsLatestVisitPerDoctor() {
+        // When
+        PatientsListResponse response = webTestClient.get().uri("/api/patients?page=0&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PatientsListResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        assertNotNull(response);
+        assertEquals(3L, response.getCount());
+        assertEquals(2, response.getData().size());
+
+        PatientResponse john = response.getData().get(0);
+        assertEquals("John", john.getFirstName());
+        assertEquals(2, john.getLastVisits().size());
+        assertEquals("2024-02-10T09:00:00-05:00", john.getLastVisits().get(0).getStart());
+        assertEquals(2, john.getLastVisits().get(0).getDoctor().getTotalPatients());
+        assertEquals("2024-01-12T10:00:00+02:00", john.getLastVisits().get(1).getStart());
+        assertEquals(1, john.getLastVisits().get(1).getDoctor().getTotalPatients());
+    }
+
+    @Test
+    void getPatients_WithSearchAndDoctorFilter() {
+        // When
+        PatientsListResponse response = webTestClient.get().uri("/api/patients?search=o&doctorIds=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PatientsListResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then: John has a visit with doctor 2, Bob has no visits at all
+        assertNotNull(response);
+        assertEquals(2L, response.getCount());
+        assertEquals(List.of("John", "Bob"),
+                response.getData().stream().map(PatientResponse::getFirstName).toList());
+    }
+
+    @Test
+    void streamPatients_EmitsOneElementPerPatient() {
+        // When
+        List<PatientResponse> patients = webTestClient.get().uri("/api/patients")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(PatientResponse.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // Then
+        assertNotNull(patients);
+        assertEquals(List.of("John", "Jane", "Bob"),
+                patients.stream().map(PatientResponse::getFirstName).toList());
+        assertTrue(patients.get(2).getLastVisits().isEmpty());
+    }
+
+    private static CreateVisitRequest visitRequest(String start, String end, Long patientId, Long doctorId) {
+        return CreateVisitRequest.builder()
+                .start(start)
+                .end(end)
+                .patientId(patientId)
+                .doctorId(doctorId)
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+CREATE TABLE patients (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    last_visit_at BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE doctors (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    timezone VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE visits (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    start_date_time BIGINT NOT NULL,
+    end_date_time BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    CONSTRAINT fk_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+    CONSTRAINT fk_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id)
+);
+
+CREATE INDEX idx_visit_doctor_time ON visits (doctor_id, start_date_time);
+CREATE INDEX idx_visit_patient ON visits (patient_id, start_date_time);
+
+CREATE TABLE visit_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    visit_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    start_date_time BIGINT NOT NULL,
+    end_date_time BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
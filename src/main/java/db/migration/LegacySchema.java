@@ -0,0 +1,50 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Schema lookups of the migrations that bring a database baselined at version 1 (created by the old
+ * {@code ddl-auto: update} setup or from dump.sql) up to the V1 schema. Unquoted names are stored in upper case
+ * by some databases, so both spellings are tried.
+ */
+final class LegacySchema {
+
+    private LegacySchema() {
+    }
+
+    static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of columns of the index, 0 if the table has no index of that name.
+     */
+    static int indexColumns(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase()}) {
+            int columns = 0;
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, name, false, false)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        columns++;
+                    }
+                }
+            }
+            if (columns > 0) {
+                return columns;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,90 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+/**
+ * Visit times: DATETIME -> BIGINT epoch milliseconds (see InstantEpochMillisConverter).
+ * <p>
+ * Only databases created by the old {@code ddl-auto: update} setup, which Flyway baselines at version 1, still
+ * have DATETIME columns; a schema created by V1 or from dump.sql already stores BIGINT and is left untouched,
+ * and one without the outbox gets it from V1.3. The DATETIME columns hold the UTC wall clock (the application
+ * connects with serverTimezone=UTC), so TIMESTAMPDIFF against the epoch gives the instant without depending
+ * on the session time zone. Run with the application stopped.
+ */
+public class V1_1__VisitTimesEpochMillis extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            if (storesDateTime(statement, "visits")) {
+                convertVisits(statement);
+            }
+            if (LegacySchema.tableExists(connection, "visit_events") && storesDateTime(statement, "visit_events")) {
+                convertVisitEvents(statement);
+            }
+        }
+    }
+
+    private static boolean storesDateTime(Statement statement, String table) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT start_date_time FROM " + table + " WHERE 1 = 0")) {
+            return rs.getMetaData().getColumnType(1) != Types.BIGINT;
+        }
+    }
+
+    // visits is rebuilt rather than altered in place: its time columns take part in indexes whose names differ
+    // between dump.sql and Hibernate-created schemas.
+    private static void convertVisits(Statement statement) throws SQLException {
+        statement.execute("""
+                CREATE TABLE visits_epoch (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    start_date_time BIGINT NOT NULL,
+                    end_date_time BIGINT NOT NULL,
+                    patient_id BIGINT NOT NULL,
+                    doctor_id BIGINT NOT NULL,
+                    CONSTRAINT fk_visit_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+                    CONSTRAINT fk_visit_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id),
+                    CONSTRAINT uk_visit_doctor_time UNIQUE (doctor_id, start_date_time, end_date_time),
+                    INDEX idx_visit_doctor_time (doctor_id, start_date_time),
+                    INDEX idx_visit_patient (patient_id, start_date_time),
+                    INDEX idx_visit_start_time (start_date_time)
+                )""");
+        statement.execute("""
+                INSERT INTO visits_epoch (id, start_date_time, end_date_time, patient_id, doctor_id)
+                SELECT id,
+                       TIMESTAMPDIFF(MICROSECOND, '1970-01-01 00:00:00', start_date_time) DIV 1000,
+                       TIMESTAMPDIFF(MICROSECOND, '1970-01-01 00:00:00', end_date_time) DIV 1000,
+                       patient_id,
+                       doctor_id
+                FROM visits""");
+        statement.execute("RENAME TABLE visits TO visits_datetime, visits_epoch TO visits");
+        statement.execute("DROP TABLE visits_datetime");
+    }
+
+    // Outbox rows carry the same times; no index covers them, so they are converted in place.
+    private static void convertVisitEvents(Statement statement) throws SQLException {
+        statement.execute("""
+                ALTER TABLE visit_events
+                    ADD COLUMN start_epoch_ms BIGINT NULL,
+                    ADD COLUMN end_epoch_ms BIGINT NULL""");
+        statement.execute("""
+                UPDATE visit_events
+                SET start_epoch_ms = TIMESTAMPDIFF(MICROSECOND, '1970-01-01 00:00:00', start_date_time) DIV 1000,
+                    end_epoch_ms = TIMESTAMPDIFF(MICROSECOND, '1970-01-01 00:00:00', end_date_time) DIV 1000""");
+        statement.execute("""
+                ALTER TABLE visit_events
+                    DROP COLUMN start_date_time,
+                    DROP COLUMN end_date_time""");
+        statement.execute("""
+                ALTER TABLE visit_events
+                    CHANGE COLUMN start_epoch_ms start_date_time BIGINT NOT NULL,
+                    CHANGE COLUMN end_epoch_ms end_date_time BIGINT NOT NULL""");
+    }
+}
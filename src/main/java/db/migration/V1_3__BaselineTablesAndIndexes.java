@@ -0,0 +1,67 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates the tables and indexes of V1 that a database baselined at version 1 may lack: dump.sql has neither
+ * the outbox nor the import jobs, and no secondary indexes besides those of its keys. Whatever already exists
+ * is left as is, so a schema created by V1 is unchanged.
+ */
+public class V1_3__BaselineTablesAndIndexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            if (!LegacySchema.tableExists(connection, "visit_events")) {
+                statement.execute("""
+                        CREATE TABLE visit_events (
+                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                            type VARCHAR(20) NOT NULL,
+                            visit_id BIGINT NOT NULL,
+                            patient_id BIGINT NOT NULL,
+                            doctor_id BIGINT NOT NULL,
+                            start_date_time BIGINT NOT NULL,
+                            end_date_time BIGINT NOT NULL,
+                            created_at DATETIME(6) NOT NULL
+                        )""");
+            }
+            if (!LegacySchema.tableExists(connection, "outbox_offsets")) {
+                statement.execute("""
+                        CREATE TABLE outbox_offsets (
+                            listener VARCHAR(100) PRIMARY KEY,
+                            last_event_id BIGINT NOT NULL
+                        )""");
+            }
+            if (!LegacySchema.tableExists(connection, "import_jobs")) {
+                statement.execute("""
+                        CREATE TABLE import_jobs (
+                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                            kind VARCHAR(20) NOT NULL,
+                            status VARCHAR(20) NOT NULL,
+                            committed_rows BIGINT NOT NULL,
+                            rejected_rows BIGINT NOT NULL,
+                            created_at DATETIME(6) NOT NULL,
+                            updated_at DATETIME(6) NOT NULL
+                        )""");
+            }
+
+            createIndexIfMissing(statement, "patients", "idx_patient_name", "first_name, last_name");
+            createIndexIfMissing(statement, "visits", "idx_visit_doctor_time", "doctor_id, start_date_time");
+            createIndexIfMissing(statement, "visits", "idx_visit_start_time", "start_date_time");
+            createIndexIfMissing(statement, "visit_events", "idx_visit_event_created", "created_at");
+        }
+    }
+
+    private static void createIndexIfMissing(Statement statement, String table, String index, String columns)
+            throws SQLException {
+        if (LegacySchema.indexColumns(statement.getConnection(), table, index) == 0) {
+            statement.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+}
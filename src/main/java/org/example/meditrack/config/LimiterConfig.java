@@ -0,0 +1,31 @@
+package org.example.meditrack.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.meditrack.limiter.ConcurrencyLimitFilter;
+import org.example.meditrack.limiter.ConcurrencyLimiter;
+import org.example.meditrack.limiter.GradientLimit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LimiterProperties.class)
+public class LimiterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "meditrack.limiter.enabled", havingValue = "true", matchIfMissing = true)
+    public ConcurrencyLimitFilter concurrencyLimitFilter(LimiterProperties properties, MeterRegistry meterRegistry) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                limiter("bookings", properties.getBookings()),
+                limiter("listings", properties.getListings()),
+                properties.getRetryAfterSeconds());
+        filter.bindTo(meterRegistry);
+        return filter;
+    }
+
+    private static ConcurrencyLimiter limiter(String name, LimiterProperties.Endpoint endpoint) {
+        return new ConcurrencyLimiter(name, new GradientLimit(
+                endpoint.getInitialLimit(), endpoint.getMinLimit(), endpoint.getMaxLimit()));
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.meditrack.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "meditrack.limiter")
+public class LimiterProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Sent as Retry-After with every 503 from the limiter.
+     */
+    private int retryAfterSeconds = 1;
+
+    private Endpoint bookings = new Endpoint(20, 4, 200);
+
+    private Endpoint listings = new Endpoint(20, 2, 200);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Endpoint {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.meditrack.config;
+
+import org.example.meditrack.sharding.ShardContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ListingConfig {
+
+    public static final String LISTING_EXECUTOR = "listingExecutor";
+
+    @Bean(name = LISTING_EXECUTOR)
+    public ThreadPoolTaskExecutor listingExecutor(@Value("${meditrack.listing.fan-out-threads:8}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 16);
+        executor.setThreadNamePrefix("listing-");
+        executor.setTaskDecorator(ShardContext::propagate);
+        executor.initialize();
+        return executor;
+    }
+}
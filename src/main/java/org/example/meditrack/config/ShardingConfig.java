@@ -0,0 +1,53 @@
+package org.example.meditrack.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.meditrack.sharding.ShardRouter;
+import org.example.meditrack.sharding.ShardRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        return new ShardRouter(properties.isEnabled() ? properties.getShards().size() : 1);
+    }
+
+    /**
+     * Replaces the auto-configured single data source. MySQL shards interleave their auto-increment ids
+     * per session, which is what lets {@link ShardRouter#shardOf} route by id.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "meditrack.sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardingProperties properties) {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("meditrack.sharding.enabled is set but no shards are configured");
+        }
+        List<HikariDataSource> targets = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + (shard.getName() != null ? shard.getName() : i));
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            if (shard.getUrl().startsWith("jdbc:mysql:")) {
+                dataSource.setConnectionInitSql("SET SESSION auto_increment_increment = " + shards.size()
+                        + ", auto_increment_offset = " + (i + 1));
+            }
+            targets.add(dataSource);
+        }
+        return new ShardRoutingDataSource(targets);
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.meditrack.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "meditrack.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * One database per clinic. The position in this list is the shard index and must not change once ids
+     * have been allocated.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
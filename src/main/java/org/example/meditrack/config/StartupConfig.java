@@ -0,0 +1,22 @@
+package org.example.meditrack.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * With deferred repositories, builds the entity manager factory on a background thread while the rest of
+     * the context refreshes. Boot only does this with its own applicationTaskExecutor, which is not created
+     * because {@link ListingConfig} defines an executor.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "deferred")
+    public EntityManagerFactoryBuilderCustomizer backgroundJpaBootstrap() {
+        return builder -> builder.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.meditrack.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.meditrack.tracing.TracingFilter;
+import org.example.meditrack.tracing.TracingJacksonHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.time.Duration;
+
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public TracingFilter tracingFilter(@Value("${meditrack.tracing.slow-query-threshold:0ms}") Duration threshold) {
+        return new TracingFilter(threshold);
+    }
+
+    /**
+     * Replaces Boot's Jackson converter, keeping the configured object mapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TracingJacksonHttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.meditrack.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.DoctorStatsResponse;
+import org.example.meditrack.dtos.StatsBackfillReport;
+import org.example.meditrack.services.DoctorScheduleService;
+import org.example.meditrack.services.DoctorStatsService;
+import org.example.meditrack.sharding.ShardRouter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/doctors")
+@RequiredArgsConstructor
+public class DoctorController {
+
+    private final DoctorScheduleService doctorScheduleService;
+    private final DoctorStatsService doctorStatsService;
+    private final ShardRouter shardRouter;
+
+    @GetMapping("/{id}/visits")
+    public ResponseEntity<StreamingResponseBody> getVisits(
+            @PathVariable Long id,
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        DoctorScheduleService.ScheduleRequest request = shardRouter.onShardOf(id,
+                () -> doctorScheduleService.prepareSchedule(id, from, to, cursor, limit));
+        // The body is written later on an async thread, which has to pick the shard again.
+        StreamingResponseBody body = out -> {
+            try (ShardRouter.Scope ignored = shardRouter.enterShardOf(id)) {
+                doctorScheduleService.writeSchedule(request, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<DoctorStatsResponse> getStats(
+            @PathVariable Long id,
+            @RequestParam String from,
+            @RequestParam String to) {
+        return ResponseEntity.ok(shardRouter.onShardOf(id, () -> doctorStatsService.getStats(id, from, to)));
+    }
+
+    @PostMapping("/stats/backfill")
+    public ResponseEntity<StatsBackfillReport> backfillStats() {
+        return ResponseEntity.ok(doctorStatsService.backfill());
+    }
+}
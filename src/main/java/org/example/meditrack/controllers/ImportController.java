@@ -0,0 +1,45 @@
+package org.example.meditrack.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.ImportReport;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.ImportJob;
+import org.example.meditrack.services.ImportRecordReader;
+import org.example.meditrack.services.ImportService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final ImportService importService;
+
+    @PostMapping("/{kind}")
+    public ResponseEntity<ImportReport> importData(
+            @PathVariable String kind,
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) Long jobId,
+            HttpServletRequest request) throws IOException {
+
+        ImportReport report = importService.importData(
+                parse(ImportJob.Kind.class, kind, "import kind"),
+                parse(ImportRecordReader.Format.class, format, "import format"),
+                request.getInputStream(),
+                jobId);
+        return ResponseEntity.ok(report);
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String description) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Unknown " + description + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.meditrack.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.services.OutboxDispatcher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final OutboxDispatcher outboxDispatcher;
+
+    @PostMapping("/listeners/{name}/replay")
+    public ResponseEntity<Void> replay(@PathVariable String name, @RequestParam long from) {
+        outboxDispatcher.replayFrom(name, from);
+        return ResponseEntity.ok().build();
+    }
+}
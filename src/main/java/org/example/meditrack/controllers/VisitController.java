@@ -2,9 +2,28 @@ package org.example.meditrack.controllers;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.CompactPatientsListResponse;
 import org.example.meditrack.dtos.CreateVisitRequest;
+import org.example.meditrack.dtos.CreateVisitSeriesRequest;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientLookupRequest;
+import org.example.meditrack.dtos.PatientLookupResponse;
+import org.example.meditrack.dtos.PatientSort;
+import org.example.meditrack.dtos.PatientVisitsResponse;
 import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.dtos.RescheduleVisitRequest;
+import org.example.meditrack.dtos.VisitSeriesResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.services.CompactListEncoder;
+import org.example.meditrack.services.DoctorStatsService;
+import org.example.meditrack.services.ListingCoalescer;
+import org.example.meditrack.services.PatientHistoryService;
+import org.example.meditrack.services.PatientLookupService;
+import org.example.meditrack.services.VisitSeriesService;
 import org.example.meditrack.services.VisitService;
+import org.example.meditrack.sharding.ShardRouter;
+import org.example.meditrack.tracing.Phase;
+import org.example.meditrack.tracing.Trace;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,19 +37,48 @@ import java.util.stream.Collectors;
 public class VisitController {
 
     private final VisitService visitService;
+    private final ListingCoalescer listingCoalescer;
+    private final VisitSeriesService visitSeriesService;
+    private final PatientHistoryService patientHistoryService;
+    private final PatientLookupService patientLookupService;
+    private final ShardRouter shardRouter;
 
     @PostMapping("/visits")
     public ResponseEntity<Void> createVisit(@Valid @RequestBody CreateVisitRequest request) {
-        visitService.createVisit(request);
+        shardRouter.onShardOf(request.getDoctorId(), () -> visitService.createVisit(request));
         return ResponseEntity.ok().build();
     }
 
+    @PatchMapping("/visits/{id}")
+    public ResponseEntity<Void> rescheduleVisit(@PathVariable Long id,
+                                                @Valid @RequestBody RescheduleVisitRequest request) {
+        shardRouter.onShardOf(id, () -> visitService.rescheduleVisit(id, request));
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/visits/{id}")
+    public ResponseEntity<Void> cancelVisit(@PathVariable Long id) {
+        shardRouter.onShardOf(id, () -> visitService.cancelVisit(id));
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/visits/series")
+    public ResponseEntity<VisitSeriesResponse> createVisitSeries(@Valid @RequestBody CreateVisitSeriesRequest request) {
+        return ResponseEntity.ok(shardRouter.onShardOf(request.getDoctorId(),
+                () -> visitSeriesService.createSeries(request)));
+    }
+
     @GetMapping("/patients")
-    public ResponseEntity<PatientsListResponse> getPatients(
+    public ResponseEntity<?> getPatients(
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String search,
-            @RequestParam(required = false) String doctorIds) {
+            @RequestParam(required = false) String doctorIds,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer patientsWindow) {
 
         List<Long> doctorIdList = null;
         if (doctorIds != null && !doctorIds.trim().isEmpty()) {
@@ -40,7 +88,49 @@ public class VisitController {
                     .collect(Collectors.toList());
         }
 
-        PatientsListResponse response = visitService.getPatients(page, size, search, doctorIdList);
+        boolean compact = "compact".equals(format);
+        if (format != null && !compact && !"json".equals(format)) {
+            throw new BusinessException("Unknown format: " + format);
+        }
+        PatientFields projection = PatientFields.parse(fields);
+        PatientSort order = PatientSort.parse(sort);
+        if (patientsWindow != null && (patientsWindow < 1 || patientsWindow > DoctorStatsService.MAX_WINDOW_DAYS)) {
+            throw new BusinessException("'patientsWindow' must be between 1 and "
+                    + DoctorStatsService.MAX_WINDOW_DAYS + " days");
+        }
+        PatientsListResponse response;
+        if (order != null) {
+            if (page != null && page != 0) {
+                throw new BusinessException("Sorted listings continue with 'cursor' instead of 'page'");
+            }
+            response = listingCoalescer.getSortedPatients(order, cursor, size, search, doctorIdList, projection,
+                    patientsWindow);
+        } else {
+            if (cursor != null && !cursor.isBlank()) {
+                throw new BusinessException("'cursor' requires 'sort'");
+            }
+            response = listingCoalescer.getPatients(page, size, search, doctorIdList, projection, patientsWindow);
+        }
+        if (compact) {
+            Trace.Span encoding = Trace.current().begin(Phase.ENCODING);
+            CompactPatientsListResponse encoded = CompactListEncoder.encode(response, projection,
+                    patientsWindow != null);
+            encoding.end(encoded.getData().size());
+            return ResponseEntity.ok(encoded);
+        }
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/patients/lookup")
+    public ResponseEntity<PatientLookupResponse> lookupPatients(@Valid @RequestBody PatientLookupRequest request) {
+        return ResponseEntity.ok(patientLookupService.lookup(request.getIds()));
+    }
+
+    @GetMapping("/patients/{id}/visits")
+    public ResponseEntity<PatientVisitsResponse> getPatientVisits(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(shardRouter.onShardOf(id, () -> patientHistoryService.getHistory(id, cursor, limit)));
+    }
+}
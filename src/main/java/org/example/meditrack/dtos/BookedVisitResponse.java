@@ -0,0 +1,16 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class BookedVisitResponse {
+    private Long id;
+    private String start;
+    private String end;
+}
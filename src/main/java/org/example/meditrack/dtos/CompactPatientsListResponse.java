@@ -0,0 +1,29 @@
+package org.example.meditrack.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Array-of-arrays form of {@link PatientsListResponse} ({@code format=compact}). Every patient is an array
+ * of the values named in {@code columns}; visits are arrays named by {@code visitColumns}, and a visit's
+ * {@code doctor} is an index into {@code doctors}, so each doctor is sent once per page.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactPatientsListResponse {
+    private List<String> columns;
+    private List<String> visitColumns;
+    private List<String> doctorColumns;
+    private List<List<Object>> doctors;
+    private List<List<Object>> data;
+    private Long count;
+    private String nextCursor;
+}
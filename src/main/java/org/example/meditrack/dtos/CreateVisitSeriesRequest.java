@@ -0,0 +1,39 @@
+package org.example.meditrack.dtos;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A recurring booking: the first visit starts at {@code start}, a wall-clock time in the doctor's timezone
+ * (e.g. {@code 2025-10-20T10:00}; a time with an offset is converted to the doctor's zone), and repeats
+ * according to {@code rrule}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class CreateVisitSeriesRequest {
+
+    @NotBlank(message = "Start time is required")
+    private String start;
+
+    @NotNull(message = "Duration is required")
+    @Positive(message = "Duration must be positive")
+    @Max(value = 1440, message = "A visit can last at most 24 hours")
+    private Integer durationMinutes;
+
+    @NotBlank(message = "Recurrence rule is required")
+    private String rrule;
+
+    @NotNull(message = "Patient ID is required")
+    private Long patientId;
+
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+}
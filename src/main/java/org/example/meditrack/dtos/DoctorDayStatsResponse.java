@@ -0,0 +1,17 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class DoctorDayStatsResponse {
+    private String date;
+    private int visits;
+    private long bookedMinutes;
+    private int patients;
+}
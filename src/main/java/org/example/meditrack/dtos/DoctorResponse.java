@@ -1,5 +1,6 @@
 package org.example.meditrack.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,8 +10,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class DoctorResponse {
     private String firstName;
     private String lastName;
-    private int totalPatients;
+    private Integer totalPatients;
+    private Integer recentPatients;
 }
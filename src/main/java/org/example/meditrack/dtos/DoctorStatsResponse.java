@@ -0,0 +1,23 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class DoctorStatsResponse {
+    private Long doctorId;
+    private String timezone;
+    private String from;
+    private String to;
+    private long visits;
+    private long bookedMinutes;
+    private long patients;
+    private List<DoctorDayStatsResponse> days;
+}
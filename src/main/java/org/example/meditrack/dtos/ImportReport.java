@@ -0,0 +1,22 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ImportReport {
+    private Long jobId;
+    private String kind;
+    private String status;
+    private long inserted;
+    private long skipped;
+    private long rejected;
+    private List<String> errors;
+}
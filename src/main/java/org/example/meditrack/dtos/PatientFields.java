@@ -0,0 +1,74 @@
+package org.example.meditrack.dtos;
+
+import org.example.meditrack.exceptions.BusinessException;
+
+/**
+ * Parsed {@code fields=} projection of the patient listing. Paths follow the JSON property names of
+ * {@link PatientResponse}; the {@code lastVisits.} prefix may be left out, so {@code doctor.totalPatients}
+ * and {@code lastVisits.doctor.totalPatients} are the same field. A parent path selects all of its
+ * children, and {@code count} selects the total count.
+ */
+public record PatientFields(boolean firstName,
+                            boolean lastName,
+                            boolean visitStart,
+                            boolean visitEnd,
+                            boolean doctorFirstName,
+                            boolean doctorLastName,
+                            boolean doctorTotalPatients,
+                            boolean count) {
+
+    public static final PatientFields ALL = new PatientFields(true, true, true, true, true, true, true, true);
+
+    public static PatientFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        boolean[] selected = new boolean[8];
+        for (String raw : fields.split(",")) {
+            String path = raw.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            if (path.startsWith("lastVisits.")) {
+                path = path.substring("lastVisits.".length());
+            }
+            switch (path) {
+                case "firstName" -> selected[0] = true;
+                case "lastName" -> selected[1] = true;
+                case "lastVisits" -> {
+                    selected[2] = selected[3] = true;
+                    selected[4] = selected[5] = selected[6] = true;
+                }
+                case "start" -> selected[2] = true;
+                case "end" -> selected[3] = true;
+                case "doctor" -> selected[4] = selected[5] = selected[6] = true;
+                case "doctor.firstName" -> selected[4] = true;
+                case "doctor.lastName" -> selected[5] = true;
+                case "doctor.totalPatients" -> selected[6] = true;
+                case "count" -> selected[7] = true;
+                default -> throw new BusinessException("Unknown field: " + raw.trim());
+            }
+        }
+        return new PatientFields(selected[0], selected[1], selected[2], selected[3],
+                selected[4], selected[5], selected[6], selected[7]);
+    }
+
+    public boolean isAll() {
+        return equals(ALL);
+    }
+
+    public boolean doctor() {
+        return doctorFirstName || doctorLastName || doctorTotalPatients;
+    }
+
+    public boolean visits() {
+        return visitStart || visitEnd || doctor();
+    }
+
+    /**
+     * Visit times are formatted in the doctor's zone, so they need the doctors table as well.
+     */
+    public boolean doctorsTable() {
+        return visitStart || visitEnd || doctorFirstName || doctorLastName;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.meditrack.dtos;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class PatientLookupRequest {
+
+    public static final int MAX_IDS = 5000;
+
+    @NotEmpty(message = "Patient IDs are required")
+    @Size(max = MAX_IDS, message = "At most " + MAX_IDS + " patient IDs per lookup")
+    private List<@NotNull(message = "Patient ID must not be null") Long> ids;
+}
@@ -0,0 +1,22 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patients of a lookup keyed by id, in the order they were requested; ids without a patient are listed in
+ * {@code notFound}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class PatientLookupResponse {
+    private Map<Long, PatientResponse> patients;
+    private List<Long> notFound;
+}
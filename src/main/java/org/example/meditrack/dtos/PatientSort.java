@@ -0,0 +1,50 @@
+package org.example.meditrack.dtos;
+
+import org.example.meditrack.exceptions.BusinessException;
+
+/**
+ * Order of a sorted patient listing ({@code sort=}). Each order follows an index on {@code patients} and
+ * ends with the patient id, so positions are unique and pages continue from a cursor:
+ * <ul>
+ *     <li>{@code lastName} - last name, first name, id;</li>
+ *     <li>{@code firstName} - first name, last name, id;</li>
+ *     <li>{@code lastVisit} - most recent visit start first, then id descending; patients without visits last.</li>
+ * </ul>
+ */
+public enum PatientSort {
+    LAST_NAME("lastName"),
+    FIRST_NAME("firstName"),
+    LAST_VISIT("lastVisit");
+
+    private final String parameter;
+
+    PatientSort(String parameter) {
+        this.parameter = parameter;
+    }
+
+    /**
+     * @return the sort named by the parameter, or null for an unsorted listing
+     */
+    public static PatientSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return null;
+        }
+        for (PatientSort value : values()) {
+            if (value.parameter.equals(sort.trim())) {
+                return value;
+            }
+        }
+        throw new BusinessException("Unknown sort: " + sort.trim());
+    }
+
+    public String parameter() {
+        return parameter;
+    }
+
+    /**
+     * Whether the sort key is the pair of names rather than the latest visit time.
+     */
+    public boolean byName() {
+        return this != LAST_VISIT;
+    }
+}
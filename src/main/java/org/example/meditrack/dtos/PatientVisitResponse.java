@@ -5,17 +5,15 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.ZonedDateTime;
-
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Data
-public class VisitData {
-    private ZonedDateTime startDateTime;
-    private ZonedDateTime endDateTime;
+public class PatientVisitResponse {
+    private Long id;
+    private String start;
+    private String end;
+    private Long doctorId;
     private String doctorFirstName;
     private String doctorLastName;
-    private String timezone;
-    private Integer patientCount; 
 }
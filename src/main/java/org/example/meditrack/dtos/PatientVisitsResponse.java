@@ -7,16 +7,12 @@ import lombok.NoArgsConstructor;
 
 import java.util.List;
 
-@Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder
 @Data
-public class PatientData {
-    private String firstName;
-    private String lastName;
-    private List<VisitData> visits;
-
-    public void addVisit(VisitData visitData) {
-        this.visits.add(visitData);
-    }
-}
\ No newline at end of file
+public class PatientVisitsResponse {
+    private Long patientId;
+    private List<PatientVisitResponse> visits;
+    private String nextCursor;
+}
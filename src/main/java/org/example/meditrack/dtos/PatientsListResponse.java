@@ -1,5 +1,6 @@
 package org.example.meditrack.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,7 +12,9 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PatientsListResponse {
     private List<PatientResponse> data;
-    private long count;
+    private Long count;
+    private String nextCursor;
 }
@@ -0,0 +1,20 @@
+package org.example.meditrack.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class RescheduleVisitRequest {
+
+    @NotBlank(message = "Start time is required")
+    private String start;
+
+    @NotBlank(message = "End time is required")
+    private String end;
+}
@@ -0,0 +1,19 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ScheduleVisitResponse {
+    private Long id;
+    private String start;
+    private String end;
+    private Long patientId;
+    private String patientFirstName;
+    private String patientLastName;
+}
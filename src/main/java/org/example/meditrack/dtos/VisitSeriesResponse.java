@@ -0,0 +1,22 @@
+package org.example.meditrack.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The visits a series booked, in order, with times in the doctor's timezone.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class VisitSeriesResponse {
+    private Long doctorId;
+    private Long patientId;
+    private String timezone;
+    private List<BookedVisitResponse> visits;
+}
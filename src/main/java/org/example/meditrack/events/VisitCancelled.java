@@ -0,0 +1,10 @@
+package org.example.meditrack.events;
+
+import java.time.Instant;
+
+/**
+ * A visit was cancelled and its row deleted; {@code start} and {@code end} are the slot it held.
+ */
+public record VisitCancelled(long eventId, long visitId, long patientId, long doctorId,
+                             Instant start, Instant end) {
+}
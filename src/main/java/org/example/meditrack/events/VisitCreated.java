@@ -0,0 +1,11 @@
+package org.example.meditrack.events;
+
+import java.time.Instant;
+
+/**
+ * A visit was booked. {@code eventId} is the outbox offset; with at-least-once delivery the same event can
+ * arrive more than once, so listeners must be idempotent.
+ */
+public record VisitCreated(long eventId, long visitId, long patientId, long doctorId,
+                           Instant start, Instant end) {
+}
@@ -0,0 +1,22 @@
+package org.example.meditrack.events;
+
+/**
+ * Consumer of the visit outbox. Every bean implementing this interface is fed by the
+ * {@code OutboxDispatcher}, which keeps a separate offset per listener {@link #name()}.
+ * <p>
+ * Delivery is at-least-once and in event order. If a call throws, the listener's offset is not advanced
+ * and the same event is delivered again on the next poll.
+ */
+public interface VisitEventListener {
+
+    /**
+     * Stable identifier used to store the listener's offset; renaming it restarts the listener at the head.
+     */
+    String name();
+
+    void onVisitCreated(VisitCreated event);
+
+    void onVisitCancelled(VisitCancelled event);
+
+    void onVisitRescheduled(VisitRescheduled event);
+}
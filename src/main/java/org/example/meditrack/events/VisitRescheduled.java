@@ -0,0 +1,10 @@
+package org.example.meditrack.events;
+
+import java.time.Instant;
+
+/**
+ * A visit moved from the slot [previousStart, previousEnd] to [start, end] of the same doctor.
+ */
+public record VisitRescheduled(long eventId, long visitId, long patientId, long doctorId,
+                               Instant previousStart, Instant previousEnd, Instant start, Instant end) {
+}
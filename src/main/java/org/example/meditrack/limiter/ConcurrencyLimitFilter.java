@@ -0,0 +1,118 @@
+package org.example.meditrack.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Load shedding in front of the booking and listing endpoints; rescheduling and cancelling a visit count as
+ * bookings, and batch patient lookups as listings. Each has its own {@link ConcurrencyLimiter},
+ * and a request over its limit gets an immediate 503 with Retry-After instead of waiting for a Tomcat
+ * thread and a database connection. Bookings have priority: while the booking limit is exhausted, listings
+ * are shed as well so the database capacity they would use goes to bookings.
+ * <p>
+ * A 5xx response or an exception counts as a dropped request and backs the limit off.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String OVERLOADED_BODY = "{\"error\":\"Service is overloaded, retry later\"}";
+    private static final Pattern VISIT_PATH = Pattern.compile("/api/visits/\\d+");
+
+    private final ConcurrencyLimiter bookings;
+    private final ConcurrencyLimiter listings;
+    private final int retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter bookings, ConcurrencyLimiter listings, int retryAfterSeconds) {
+        this.bookings = bookings;
+        this.listings = listings;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Publishes {@code meditrack.limiter.limit}, {@code .inflight} and {@code .rejected}, tagged by endpoint.
+     */
+    public void bindTo(MeterRegistry registry) {
+        for (ConcurrencyLimiter limiter : List.of(bookings, listings)) {
+            Gauge.builder("meditrack.limiter.limit", limiter, ConcurrencyLimiter::getLimit)
+                    .tag("endpoint", limiter.getName())
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("meditrack.limiter.inflight", limiter, ConcurrencyLimiter::getInflight)
+                    .tag("endpoint", limiter.getName())
+                    .description("Requests currently admitted")
+                    .register(registry);
+            FunctionCounter.builder("meditrack.limiter.rejected", limiter, ConcurrencyLimiter::getRejected)
+                    .tag("endpoint", limiter.getName())
+                    .description("Requests answered with 503 by the limiter")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConcurrencyLimiter limiter = limiterFor(request);
+        if (limiter == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (limiter == listings && bookings.isSaturated()) {
+            listings.recordRejection();
+            reject(response, limiter);
+            return;
+        }
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            reject(response, limiter);
+            return;
+        }
+
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            permit.release(dropped);
+        }
+    }
+
+    private ConcurrencyLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("POST".equals(request.getMethod()) && (path.equals("/api/visits") || path.equals("/api/visits/series"))) {
+            return bookings;
+        }
+        // reschedules and cancellations wait on the same doctor locks as bookings
+        if (("PATCH".equals(request.getMethod()) || "DELETE".equals(request.getMethod()))
+                && VISIT_PATH.matcher(path).matches()) {
+            return bookings;
+        }
+        if ("GET".equals(request.getMethod()) && path.equals("/api/patients")
+                || "POST".equals(request.getMethod()) && path.equals("/api/patients/lookup")) {
+            return listings;
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, ConcurrencyLimiter limiter) throws IOException {
+        log.debug("Shedding {} request: {} in flight, limit {}",
+                limiter.getName(), limiter.getInflight(), limiter.getLimit());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(OVERLOADED_BODY);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.meditrack.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits requests while fewer than {@link GradientLimit#getLimit()} are in flight. Requests over the limit
+ * are not queued; the caller rejects them right away so they can be retried elsewhere or later.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final GradientLimit limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConcurrencyLimiter(String name, GradientLimit limit) {
+        this.name = name;
+        this.limit = limit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getBaselineNanos() {
+        return limit.getBaselineNanos();
+    }
+
+    public boolean isSaturated() {
+        return inflight.get() >= limit.getLimit();
+    }
+
+    /**
+     * @return a permit that must be released when the request completes, or null if the limit is reached
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit.getLimit()) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Counts a request that was turned away without trying to acquire, e.g. to give another endpoint priority.
+     */
+    public void recordRejection() {
+        rejected.incrementAndGet();
+    }
+
+    public final class Permit {
+        private final int inflightAtStart;
+        private final long startNanos;
+
+        private Permit(int inflightAtStart, long startNanos) {
+            this.inflightAtStart = inflightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        public void release(boolean dropped) {
+            inflight.decrementAndGet();
+            limit.onSample(System.nanoTime() - startNanos, inflightAtStart, dropped);
+        }
+    }
+}
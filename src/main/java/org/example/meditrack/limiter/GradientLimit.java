@@ -0,0 +1,80 @@
+package org.example.meditrack.limiter;
+
+/**
+ * Concurrency limit that follows observed latency, in the style of Netflix's gradient limit. A long-term
+ * moving average of the response time is the baseline; while recent samples stay close to it the limit
+ * grows by roughly its square root (the allowed queue), and as they rise above it the limit shrinks in
+ * proportion. Failed or timed-out requests back off multiplicatively, which keeps the AIMD behaviour
+ * when the database stops answering altogether.
+ * <p>
+ * The limit only grows while at least half of it is in use, so an idle endpoint does not drift to the
+ * maximum and then admit a burst the database cannot take.
+ */
+public class GradientLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile double limit;
+    private double longRttNanos;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Baseline response time the limit is measured against, or 0 before the first sample.
+     */
+    public synchronized long getBaselineNanos() {
+        return (long) longRttNanos;
+    }
+
+    /**
+     * Records a finished request.
+     *
+     * @param rttNanos time the request took
+     * @param inflight requests in flight when it started, including itself
+     * @param dropped  whether it failed in a way that suggests overload
+     */
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        double current = limit;
+        if (dropped) {
+            limit = Math.max(minLimit, current * BACKOFF);
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+            // after a long slow period the baseline is inflated; let it recover quickly once latency drops
+            if (longRttNanos / rttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+        }
+        if (inflight < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / rttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.meditrack.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a bulk import. {@code committedRows} counts accepted rows already written; a failed or
+ * interrupted import resumed with the same file skips that many accepted rows.
+ */
+@Entity
+@Table(name = "import_jobs")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ImportJob {
+
+    public enum Kind {
+        PATIENTS, DOCTORS, VISITS
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Kind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private long committedRows;
+
+    @Column(nullable = false)
+    private long rejectedRows;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,25 @@
+package org.example.meditrack.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.Instant;
+
+/**
+ * Stores an {@link Instant} as a BIGINT of milliseconds since the epoch. Unlike DATETIME, the value does
+ * not depend on the JVM default zone or the driver's session time zone, and range comparisons are plain
+ * integer comparisons.
+ */
+@Converter
+public class InstantEpochMillisConverter implements AttributeConverter<Instant, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Instant attribute) {
+        return attribute != null ? attribute.toEpochMilli() : null;
+    }
+
+    @Override
+    public Instant convertToEntityAttribute(Long dbData) {
+        return dbData != null ? Instant.ofEpochMilli(dbData) : null;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.meditrack.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last {@link VisitEvent} id successfully delivered to a listener.
+ */
+@Entity
+@Table(name = "outbox_offsets")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class OutboxOffset {
+    @Id
+    @Column(length = 100)
+    private String listener;
+
+    @Column(nullable = false)
+    private long lastEventId;
+}
@@ -12,7 +12,9 @@ import java.util.List;
 
 @Entity
 @Table(name = "patients", indexes = {
-        @Index(name = "idx_patient_name", columnList = "firstName, lastName")
+        @Index(name = "idx_patient_name", columnList = "firstName, lastName"),
+        @Index(name = "idx_patient_last_name", columnList = "lastName, firstName"),
+        @Index(name = "idx_patient_last_visit", columnList = "lastVisitAt")
 })
 @AllArgsConstructor
 @NoArgsConstructor
@@ -33,6 +35,13 @@ public class Patient {
     @Column(nullable = false)
     private String lastName;
 
+    /**
+     * Start of the latest visit in epoch milliseconds, 0 without visits. Maintained by SQL in the
+     * transactions that insert visits, never written through the entity.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long lastVisitAt;
+
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Visit> visits;
 }
\ No newline at end of file
@@ -7,12 +7,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
 
 @Entity
 @Table(name = "visits", indexes = {
         @Index(name = "idx_visit_doctor_time", columnList = "doctor_id, startDateTime"),
-        @Index(name = "idx_visit_patient", columnList = "patient_id"),
+        @Index(name = "idx_visit_patient", columnList = "patient_id, startDateTime"),
         @Index(name = "idx_visit_start_time", columnList = "startDateTime")
 })
 @NoArgsConstructor
@@ -20,17 +21,26 @@ import java.time.ZonedDateTime;
 @Builder
 @Data
 public class Visit {
+
+    /**
+     * Longest visit that can be booked. Calendar reads look back this far for visits running into a range.
+     */
+    public static final Duration MAX_LENGTH = Duration.ofHours(24);
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** Epoch milliseconds; see {@link InstantEpochMillisConverter}. */
     @NotNull
+    @Convert(converter = InstantEpochMillisConverter.class)
     @Column(nullable = false)
-    private ZonedDateTime startDateTime;
+    private Instant startDateTime;
 
     @NotNull
+    @Convert(converter = InstantEpochMillisConverter.class)
     @Column(nullable = false)
-    private ZonedDateTime endDateTime;
+    private Instant endDateTime;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
@@ -0,0 +1,67 @@
+package org.example.meditrack.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outbox row describing a change to a visit. Written in the same transaction as the change itself; the
+ * auto-increment id is the offset listeners track.
+ */
+@Entity
+@Table(name = "visit_events", indexes = {
+        @Index(name = "idx_visit_event_created", columnList = "createdAt")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class VisitEvent {
+
+    public enum Type {
+        CREATED,
+        CANCELLED,
+        RESCHEDULED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long visitId;
+
+    @Column(nullable = false)
+    private Long patientId;
+
+    @Column(nullable = false)
+    private Long doctorId;
+
+    @Convert(converter = InstantEpochMillisConverter.class)
+    @Column(nullable = false)
+    private Instant startDateTime;
+
+    @Convert(converter = InstantEpochMillisConverter.class)
+    @Column(nullable = false)
+    private Instant endDateTime;
+
+    /**
+     * The slot a {@code RESCHEDULED} visit moved away from; null for the other types.
+     */
+    @Convert(converter = InstantEpochMillisConverter.class)
+    private Instant previousStartDateTime;
+
+    @Convert(converter = InstantEpochMillisConverter.class)
+    private Instant previousEndDateTime;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
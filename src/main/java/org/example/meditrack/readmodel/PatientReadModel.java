@@ -0,0 +1,501 @@
+package org.example.meditrack.readmodel;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Columnar in-memory copy of what the patient listing reads: patients, doctors and the latest visit of every
+ * (patient, doctor) pair. Ids and visit times are primitive arrays, names and timezones are dictionary codes.
+ * <ul>
+ *     <li>Patients are kept sorted by id, the listing order.</li>
+ *     <li>Doctors are kept in the order they were added, with the number of distinct patients they have seen.</li>
+ *     <li>Pairs are appended as visits arrive; the pairs of one patient are chained through {@code nextPair}.
+ *     A pair is removed once the patient has no visit left with the doctor.</li>
+ * </ul>
+ * {@link #fetchRows} answers with the same rows as the single-query listing, so it shares the assembly code.
+ * Reads run concurrently under the read lock, updates take the write lock.
+ */
+public final class PatientReadModel {
+
+    static final int NONE = -1;
+    static final int DOCTORS = 0;
+    static final int PATIENTS = 1;
+    static final int VISITS = 2;
+    static final int EVENTS = 3;
+    static final int MARKS = 4;
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    final StringDictionary dictionary = new StringDictionary();
+
+    /**
+     * Highest id loaded per shard and table, {@code [shard * MARKS + DOCTORS|PATIENTS|VISITS|EVENTS]}; the
+     * events mark covers the cancellations and reschedules of the visit outbox.
+     */
+    final long[] highWater;
+
+    /**
+     * Per shard and table, an id that every lower id was committed and loaded before; catch-ups scan from the
+     * lower of this and the high-water mark. Raised by {@link ReadModelLoader} once a probe of the table maxima
+     * is older than the commit lag.
+     */
+    final long[] settled;
+
+    /**
+     * Table maxima probed by recent catch-ups, oldest first: {@code [probed at (epoch ms), marks...]}.
+     */
+    final ArrayDeque<long[]> probes = new ArrayDeque<>();
+
+    /**
+     * Start of the last catch-up that completed (epoch ms), 0 before the first.
+     */
+    long lastCatchUp;
+
+    long[] doctorIds = new long[64];
+    int[] doctorFirst = new int[64];
+    int[] doctorLast = new int[64];
+    int[] doctorZone = new int[64];
+    int[] doctorPatients = new int[64];
+    int doctorCount;
+    final Map<Long, Integer> doctorIndex = new HashMap<>();
+
+    long[] patientIds = new long[1024];
+    int[] patientFirst = new int[1024];
+    int[] patientLast = new int[1024];
+    int[] firstPair = new int[1024];
+    int patientCount;
+
+    long[] pairPatient = new long[1024];
+    int[] pairDoctor = new int[1024];
+    int[] nextPair = new int[1024];
+    long[] pairVisit = new long[1024];
+    long[] pairStart = new long[1024];
+    long[] pairEnd = new long[1024];
+    int pairCount;
+
+    public PatientReadModel(int shardCount) {
+        this.highWater = new long[shardCount * MARKS];
+        this.settled = new long[shardCount * MARKS];
+    }
+
+    public int shardCount() {
+        return highWater.length / MARKS;
+    }
+
+    public int patientCount() {
+        return patientCount;
+    }
+
+    public int doctorCount() {
+        return doctorCount;
+    }
+
+    public int pairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Rows shaped like the single-query listing, ordered by patient id:
+     * [patient_id, first_name, last_name, visit_id, start, end, doctor_id, doctor_first_name,
+     * doctor_last_name, timezone, patient_count, total]. The search matches {@code first_name + ' ' + last_name}
+     * case-insensitively like the SQL {@code LIKE}; the doctor filter keeps patients who visited one of the
+     * doctors or have no visits at all.
+     */
+    public List<Object[]> fetchRows(String search, List<Long> doctorIds, int offset, int pageSize) {
+        lock.readLock().lock();
+        try {
+            NameFilter names = search != null ? new NameFilter(search) : null;
+            boolean[] doctors = doctorFilter(doctorIds);
+
+            int[] page = new int[Math.max(0, Math.min(pageSize, patientCount - offset))];
+            int onPage = 0;
+            long total;
+            if (names == null && doctors == null) {
+                total = patientCount;
+                for (; onPage < page.length; onPage++) {
+                    page[onPage] = offset + onPage;
+                }
+            } else {
+                total = 0;
+                for (int patient = 0; patient < patientCount; patient++) {
+                    if ((names != null && !names.matches(patientFirst[patient], patientLast[patient]))
+                            || (doctors != null && !visitedAny(patient, doctors))) {
+                        continue;
+                    }
+                    if (total >= offset && onPage < page.length) {
+                        page[onPage++] = patient;
+                    }
+                    total++;
+                }
+            }
+
+            List<Object[]> rows = new ArrayList<>(onPage * 2);
+            for (int i = 0; i < onPage; i++) {
+                addRows(page[i], total, rows);
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addRows(int patient, long total, List<Object[]> rows) {
+        Long patientId = patientIds[patient];
+        String first = dictionary.decode(patientFirst[patient]);
+        String last = dictionary.decode(patientLast[patient]);
+        int[] pairs = pairsByDoctorId(patient);
+        if (pairs.length == 0) {
+            rows.add(new Object[]{patientId, first, last, null, null, null, null, null, null, null, 0, total});
+            return;
+        }
+        for (int pair : pairs) {
+            int doctor = pairDoctor[pair];
+            rows.add(new Object[]{
+                    patientId, first, last,
+                    pairVisit[pair], pairStart[pair], pairEnd[pair],
+                    doctorIds[doctor], dictionary.decode(doctorFirst[doctor]), dictionary.decode(doctorLast[doctor]),
+                    dictionary.decode(doctorZone[doctor]),
+                    doctorPatients[doctor],
+                    total
+            });
+        }
+    }
+
+    private int[] pairsByDoctorId(int patient) {
+        int count = 0;
+        for (int pair = firstPair[patient]; pair != NONE; pair = nextPair[pair]) {
+            count++;
+        }
+        int[] pairs = new int[count];
+        int size = 0;
+        for (int pair = firstPair[patient]; pair != NONE; pair = nextPair[pair]) {
+            int position = size++;
+            long doctorId = doctorIds[pairDoctor[pair]];
+            while (position > 0 && doctorIds[pairDoctor[pairs[position - 1]]] > doctorId) {
+                pairs[position] = pairs[position - 1];
+                position--;
+            }
+            pairs[position] = pair;
+        }
+        return pairs;
+    }
+
+    private boolean[] doctorFilter(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        boolean[] filter = new boolean[doctorCount];
+        for (Long id : ids) {
+            Integer doctor = doctorIndex.get(id);
+            if (doctor != null) {
+                filter[doctor] = true;
+            }
+        }
+        return filter;
+    }
+
+    private boolean visitedAny(int patient, boolean[] doctors) {
+        int pair = firstPair[patient];
+        if (pair == NONE) {
+            return true;
+        }
+        for (; pair != NONE; pair = nextPair[pair]) {
+            if (doctors[pairDoctor[pair]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds or renames a doctor. Caller holds the write lock.
+     */
+    void putDoctor(long id, String firstName, String lastName, String timezone) {
+        Integer existing = doctorIndex.get(id);
+        int doctor = existing != null ? existing : doctorCount;
+        if (existing == null) {
+            if (doctorCount == doctorIds.length) {
+                int capacity = doctorCount * 2;
+                doctorIds = Arrays.copyOf(doctorIds, capacity);
+                doctorFirst = Arrays.copyOf(doctorFirst, capacity);
+                doctorLast = Arrays.copyOf(doctorLast, capacity);
+                doctorZone = Arrays.copyOf(doctorZone, capacity);
+                doctorPatients = Arrays.copyOf(doctorPatients, capacity);
+            }
+            doctorIds[doctor] = id;
+            doctorIndex.put(id, doctor);
+            doctorCount++;
+        }
+        doctorFirst[doctor] = dictionary.encode(firstName);
+        doctorLast[doctor] = dictionary.encode(lastName);
+        doctorZone[doctor] = dictionary.encode(timezone);
+    }
+
+    /**
+     * Adds patients that are not in the model yet and restores the id order. Caller holds the write lock.
+     *
+     * @param rows [id, first_name, last_name]
+     */
+    void putPatients(List<Object[]> rows) {
+        int sorted = patientCount;
+        boolean inOrder = true;
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            if (indexOfPatient(id, sorted) >= 0) {
+                continue;
+            }
+            if (patientCount == patientIds.length) {
+                growPatients(patientCount * 2);
+            }
+            inOrder &= patientCount == 0 || patientIds[patientCount - 1] < id;
+            patientIds[patientCount] = id;
+            patientFirst[patientCount] = dictionary.encode((String) row[1]);
+            patientLast[patientCount] = dictionary.encode((String) row[2]);
+            firstPair[patientCount] = NONE;
+            patientCount++;
+        }
+        if (!inOrder) {
+            sortPatients();
+        }
+    }
+
+    /**
+     * Records a visit if it is the latest of its (patient, doctor) pair, ordered by start and then id like
+     * the listing query. Applying the same visit twice changes nothing. Caller holds the write lock.
+     *
+     * @return false if the patient or the doctor is not in the model yet
+     */
+    boolean applyVisit(long visitId, long patientId, long doctorId, long start, long end) {
+        int patient = indexOfPatient(patientId, patientCount);
+        Integer doctor = doctorIndex.get(doctorId);
+        if (patient < 0 || doctor == null) {
+            return false;
+        }
+        for (int pair = firstPair[patient]; pair != NONE; pair = nextPair[pair]) {
+            if (pairDoctor[pair] == doctor) {
+                if (start > pairStart[pair] || (start == pairStart[pair] && visitId >= pairVisit[pair])) {
+                    pairVisit[pair] = visitId;
+                    pairStart[pair] = start;
+                    pairEnd[pair] = end;
+                }
+                return true;
+            }
+        }
+        addPair(patient, patientId, doctor, visitId, start, end);
+        return true;
+    }
+
+    /**
+     * Entry for single visits booked on this node; see {@link #applyVisit}. Does not wait while a snapshot
+     * or a catch-up holds the lock, the booking request would wait with it; the next catch-up reads the
+     * visit from the table instead.
+     *
+     * @return false if the visit was not applied
+     */
+    public boolean tryApply(long visitId, long patientId, long doctorId, long start, long end) {
+        if (!lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            return applyVisit(visitId, patientId, doctorId, start, end);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the latest visit of a (patient, doctor) pair to the one the table holds after a cancellation or a
+     * reschedule, which can make an older visit the latest or leave the patient without visits to the doctor.
+     * Unlike {@link #applyVisit} the given visit replaces the pair's even if it starts earlier. Caller holds
+     * the write lock.
+     *
+     * @param visitId the pair's latest visit, or null to remove the pair
+     * @return false if the patient or the doctor is not in the model yet
+     */
+    boolean resetPair(long patientId, long doctorId, Long visitId, long start, long end) {
+        int patient = indexOfPatient(patientId, patientCount);
+        Integer doctor = doctorIndex.get(doctorId);
+        if (patient < 0 || doctor == null) {
+            return false;
+        }
+        int previous = NONE;
+        for (int pair = firstPair[patient]; pair != NONE; previous = pair, pair = nextPair[pair]) {
+            if (pairDoctor[pair] != doctor) {
+                continue;
+            }
+            if (visitId != null) {
+                pairVisit[pair] = visitId;
+                pairStart[pair] = start;
+                pairEnd[pair] = end;
+            } else {
+                if (previous == NONE) {
+                    firstPair[patient] = nextPair[pair];
+                } else {
+                    nextPair[previous] = nextPair[pair];
+                }
+                doctorPatients[doctor]--;
+                removePair(pair);
+            }
+            return true;
+        }
+        if (visitId != null) {
+            addPair(patient, patientId, doctor, visitId, start, end);
+        }
+        return true;
+    }
+
+    /**
+     * Entry for visits cancelled or moved on this node; see {@link #resetPair}. Like {@link #tryApply}, does
+     * not wait for the lock; the next catch-up reads the change from the outbox instead.
+     *
+     * @return false if the change was not applied
+     */
+    public boolean tryResetPair(long patientId, long doctorId, Long visitId, long start, long end) {
+        if (!lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            return resetPair(patientId, doctorId, visitId, start, end);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fills the slot of an unlinked pair with the last pair, so the pair columns stay dense for the snapshot.
+     */
+    private void removePair(int pair) {
+        int last = --pairCount;
+        if (pair == last) {
+            return;
+        }
+        pairPatient[pair] = pairPatient[last];
+        pairDoctor[pair] = pairDoctor[last];
+        pairVisit[pair] = pairVisit[last];
+        pairStart[pair] = pairStart[last];
+        pairEnd[pair] = pairEnd[last];
+        nextPair[pair] = nextPair[last];
+        int patient = indexOfPatient(pairPatient[pair], patientCount);
+        if (firstPair[patient] == last) {
+            firstPair[patient] = pair;
+            return;
+        }
+        int link = firstPair[patient];
+        while (nextPair[link] != last) {
+            link = nextPair[link];
+        }
+        nextPair[link] = pair;
+    }
+
+    void addPair(int patient, long patientId, int doctor, long visitId, long start, long end) {
+        if (pairCount == pairVisit.length) {
+            int capacity = pairCount * 2;
+            pairPatient = Arrays.copyOf(pairPatient, capacity);
+            pairDoctor = Arrays.copyOf(pairDoctor, capacity);
+            nextPair = Arrays.copyOf(nextPair, capacity);
+            pairVisit = Arrays.copyOf(pairVisit, capacity);
+            pairStart = Arrays.copyOf(pairStart, capacity);
+            pairEnd = Arrays.copyOf(pairEnd, capacity);
+        }
+        int pair = pairCount++;
+        pairPatient[pair] = patientId;
+        pairDoctor[pair] = doctor;
+        pairVisit[pair] = visitId;
+        pairStart[pair] = start;
+        pairEnd[pair] = end;
+        nextPair[pair] = firstPair[patient];
+        firstPair[patient] = pair;
+        doctorPatients[doctor]++;
+    }
+
+    int indexOfPatient(long id, int sortedCount) {
+        return Arrays.binarySearch(patientIds, 0, sortedCount, id);
+    }
+
+    void growPatients(int capacity) {
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        patientFirst = Arrays.copyOf(patientFirst, capacity);
+        patientLast = Arrays.copyOf(patientLast, capacity);
+        firstPair = Arrays.copyOf(firstPair, capacity);
+    }
+
+    /**
+     * Restores the id order after patients were appended out of order, e.g. interleaved ids of several shards.
+     * Ids are unique, so every patient's new position is found by a binary search in the sorted ids.
+     */
+    private void sortPatients() {
+        long[] ids = Arrays.copyOf(patientIds, patientCount);
+        Arrays.sort(ids);
+        int[] first = new int[patientIds.length];
+        int[] last = new int[patientIds.length];
+        int[] pairs = new int[patientIds.length];
+        for (int i = 0; i < patientCount; i++) {
+            int position = Arrays.binarySearch(ids, patientIds[i]);
+            first[position] = patientFirst[i];
+            last[position] = patientLast[i];
+            pairs[position] = firstPair[i];
+        }
+        System.arraycopy(ids, 0, patientIds, 0, patientCount);
+        patientFirst = first;
+        patientLast = last;
+        firstPair = pairs;
+    }
+
+    /**
+     * The name search of one request. Dictionary codes are matched once and remembered, so a name shared by
+     * many patients is compared once. A search with a space can span first and last name and is matched on the
+     * full name; one with the LIKE wildcards {@code %} or {@code _} is matched as a pattern.
+     */
+    private final class NameFilter {
+
+        private static final byte UNKNOWN = 0;
+        private static final byte MATCH = 1;
+        private static final byte NO_MATCH = 2;
+
+        private final String needle;
+        private final Pattern pattern;
+        private final boolean fullName;
+        private final byte[] codes;
+
+        NameFilter(String search) {
+            this.needle = search.toLowerCase(Locale.ROOT);
+            this.pattern = needle.indexOf('%') >= 0 || needle.indexOf('_') >= 0 ? likePattern(needle) : null;
+            this.fullName = pattern != null || needle.indexOf(' ') >= 0;
+            this.codes = fullName ? null : new byte[dictionary.size()];
+        }
+
+        boolean matches(int first, int last) {
+            if (fullName) {
+                String name = dictionary.lowered(first) + ' ' + dictionary.lowered(last);
+                return pattern != null ? pattern.matcher(name).find() : name.contains(needle);
+            }
+            return contains(first) || contains(last);
+        }
+
+        private boolean contains(int code) {
+            if (codes[code] == UNKNOWN) {
+                codes[code] = dictionary.lowered(code).contains(needle) ? MATCH : NO_MATCH;
+            }
+            return codes[code] == MATCH;
+        }
+
+        private static Pattern likePattern(String like) {
+            StringBuilder regex = new StringBuilder();
+            int literalStart = 0;
+            for (int i = 0; i < like.length(); i++) {
+                char c = like.charAt(i);
+                if (c == '%' || c == '_') {
+                    if (i > literalStart) {
+                        regex.append(Pattern.quote(like.substring(literalStart, i)));
+                    }
+                    regex.append(c == '%' ? ".*" : ".");
+                    literalStart = i + 1;
+                }
+            }
+            if (literalStart < like.length()) {
+                regex.append(Pattern.quote(like.substring(literalStart)));
+            }
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+    }
+}
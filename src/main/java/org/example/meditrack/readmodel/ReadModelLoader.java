@@ -0,0 +1,313 @@
+package org.example.meditrack.readmodel;
+
+import org.example.meditrack.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills a {@link PatientReadModel} from the database and keeps it caught up. Every shard is read table by
+ * table in id order from the model's marks, so a full load and a catch-up are the same scan.
+ * <p>
+ * Ids are allocated before commit, so a row with a lower id can become visible after a higher one was read,
+ * and a chunk of a bulk import can hold back thousands of ids at once. Like the outbox dispatcher, the scan
+ * therefore relies on time rather than an id distance: a transaction commits within the commit lag
+ * ({@code meditrack.outbox.commit-lag-ms}). Each catch-up first probes the table maxima. Every row with an id
+ * up to a probe taken at least the commit lag before the previous catch-up started had committed by then, so
+ * it was loaded, and the scan starts at that probe (the settled mark). Rows already in the model change
+ * nothing. Right after a full load there is no such probe yet, and the next catch-up scans from the start.
+ * A visit whose patient or doctor committed after those tables were read is not applied, and the high-water
+ * mark stays below it so the next catch-up picks it up.
+ * <p>
+ * Cancellations and reschedules change visits below the mark, which the scan does not read again. They are
+ * taken from the visit outbox instead: the latest visit of every (patient, doctor) pair named by such an
+ * event is looked up again, one probe of idx_visit_patient per pair rather than a scan of the visits.
+ */
+@Component
+public class ReadModelLoader {
+
+    private static final int VISITS_PER_LOCK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private boolean fetchSizeSet;
+
+    @Value("${meditrack.outbox.commit-lag-ms:5000}")
+    private long commitLagMs = 5000;
+
+    public ReadModelLoader(DataSource dataSource, ShardRouter shardRouter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+    }
+
+    public int shardCount() {
+        return shardRouter.shardCount();
+    }
+
+    public PatientReadModel load() {
+        PatientReadModel model = new PatientReadModel(shardRouter.shardCount());
+        // the scan reads the visits as they are now, so only the changes of events that may not have committed
+        // yet are needed from the outbox
+        Timestamp committedBefore = Timestamp.from(Instant.now().minusMillis(commitLagMs));
+        for (int shard = 0; shard < model.shardCount(); shard++) {
+            int mark = shard * PatientReadModel.MARKS + PatientReadModel.EVENTS;
+            List<Long> committed = shardRouter.onShard(shard, () -> jdbcTemplate.queryForList(
+                    "SELECT id FROM visit_events WHERE created_at < ? ORDER BY created_at DESC, id DESC LIMIT 1",
+                    Long.class, committedBefore));
+            model.highWater[mark] = committed.isEmpty() ? 0 : committed.get(0);
+            model.settled[mark] = model.highWater[mark];
+        }
+        catchUp(model);
+        return model;
+    }
+
+    /**
+     * Applies the rows added since the last load or catch-up.
+     *
+     * @return the number of visits read
+     */
+    public synchronized long catchUp(PatientReadModel model) {
+        if (!fetchSizeSet) {
+            String product = JdbcUtils.commonDatabaseName(
+                    shardRouter.onShard(0, () -> databaseProductName(jdbcTemplate.getDataSource())));
+            // Connector/J streams rows only with this fetch size; other drivers page with a positive one
+            jdbcTemplate.setFetchSize("MySQL".equals(product) ? Integer.MIN_VALUE : 1_000);
+            fetchSizeSet = true;
+        }
+        long started = System.currentTimeMillis();
+        long[] probe = probe(model);
+        settle(model);
+        long visits = 0;
+        for (int shard = 0; shard < model.shardCount(); shard++) {
+            int base = shard * PatientReadModel.MARKS;
+            visits += shardRouter.onShard(shard, () -> {
+                loadDoctors(model, base + PatientReadModel.DOCTORS);
+                loadPatients(model, base + PatientReadModel.PATIENTS);
+                long read = loadVisits(model, base + PatientReadModel.VISITS);
+                loadChangedPairs(model, base + PatientReadModel.EVENTS);
+                return read;
+            });
+        }
+        model.probes.addLast(probe);
+        model.lastCatchUp = started;
+        return visits;
+    }
+
+    /**
+     * Reads the maxima of every table; the probe time is taken after the queries, so every id probed was
+     * allocated before it.
+     *
+     * @return {@code [probed at (epoch ms), marks...]}
+     */
+    private long[] probe(PatientReadModel model) {
+        long[] probe = new long[1 + model.highWater.length];
+        for (int shard = 0; shard < model.shardCount(); shard++) {
+            // columns in mark order: DOCTORS, PATIENTS, VISITS, EVENTS
+            long[] maxima = shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT (SELECT COALESCE(MAX(id), 0) FROM doctors), (SELECT COALESCE(MAX(id), 0) FROM patients), "
+                            + "(SELECT COALESCE(MAX(id), 0) FROM visits), "
+                            + "(SELECT COALESCE(MAX(id), 0) FROM visit_events)",
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)}));
+            System.arraycopy(maxima, 0, probe, 1 + shard * PatientReadModel.MARKS, PatientReadModel.MARKS);
+        }
+        probe[0] = System.currentTimeMillis();
+        return probe;
+    }
+
+    /**
+     * Raises the settled marks to the newest probe taken at least the commit lag before the last completed
+     * catch-up started: everything up to it had committed by then, and that catch-up loaded it.
+     */
+    private void settle(PatientReadModel model) {
+        long[] settledProbe = null;
+        while (!model.probes.isEmpty() && model.probes.peekFirst()[0] <= model.lastCatchUp - commitLagMs) {
+            settledProbe = model.probes.pollFirst();
+        }
+        if (settledProbe != null) {
+            for (int mark = 0; mark < model.settled.length; mark++) {
+                model.settled[mark] = Math.max(model.settled[mark], settledProbe[1 + mark]);
+            }
+        }
+    }
+
+    private void loadDoctors(PatientReadModel model, int mark) {
+        List<Object[]> doctors = jdbcTemplate.query(
+                "SELECT id, first_name, last_name, timezone FROM doctors WHERE id > ? ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)},
+                from(model, mark));
+        model.lock.writeLock().lock();
+        try {
+            for (Object[] doctor : doctors) {
+                model.putDoctor((Long) doctor[0], (String) doctor[1], (String) doctor[2], (String) doctor[3]);
+                model.highWater[mark] = Math.max(model.highWater[mark], (Long) doctor[0]);
+            }
+        } finally {
+            model.lock.writeLock().unlock();
+        }
+    }
+
+    private void loadPatients(PatientReadModel model, int mark) {
+        List<Object[]> patients = jdbcTemplate.query(
+                "SELECT id, first_name, last_name FROM patients WHERE id > ? ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3)},
+                from(model, mark));
+        if (patients.isEmpty()) {
+            return;
+        }
+        model.lock.writeLock().lock();
+        try {
+            model.putPatients(patients);
+            model.highWater[mark] = Math.max(model.highWater[mark], (Long) patients.get(patients.size() - 1)[0]);
+        } finally {
+            model.lock.writeLock().unlock();
+        }
+    }
+
+    private long loadVisits(PatientReadModel model, int mark) {
+        VisitChunks chunks = new VisitChunks(model, mark);
+        jdbcTemplate.query(
+                "SELECT id, patient_id, doctor_id, start_date_time, end_date_time FROM visits WHERE id > ? ORDER BY id",
+                (RowCallbackHandler) rs -> chunks.add(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4),
+                        rs.getLong(5)),
+                from(model, mark));
+        chunks.flush();
+        return chunks.read;
+    }
+
+    /**
+     * Looks up again the pairs named by cancellations and reschedules. Looking a pair up twice changes
+     * nothing, so events below the mark are read again like the rows of the other tables.
+     */
+    private void loadChangedPairs(PatientReadModel model, int mark) {
+        Set<List<Long>> pairs = new LinkedHashSet<>();
+        long[] lastEvent = {model.highWater[mark]};
+        jdbcTemplate.query(
+                "SELECT id, patient_id, doctor_id FROM visit_events WHERE id > ? AND type <> 'CREATED' ORDER BY id",
+                (RowCallbackHandler) rs -> {
+                    pairs.add(List.of(rs.getLong(2), rs.getLong(3)));
+                    lastEvent[0] = Math.max(lastEvent[0], rs.getLong(1));
+                },
+                from(model, mark));
+        if (pairs.isEmpty()) {
+            return;
+        }
+        List<PairVisit> latest = new ArrayList<>(pairs.size());
+        for (List<Long> pair : pairs) {
+            latest.add(latestVisit(pair.get(0), pair.get(1)));
+        }
+        model.lock.writeLock().lock();
+        try {
+            boolean applied = true;
+            for (PairVisit visit : latest) {
+                applied &= model.resetPair(visit.patientId(), visit.doctorId(), visit.visitId(), visit.start(),
+                        visit.end());
+            }
+            // a pair whose patient is not loaded yet is looked up again on the next catch-up
+            if (applied) {
+                model.highWater[mark] = lastEvent[0];
+            }
+        } finally {
+            model.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up the latest visit of one pair after a visit of it was cancelled or moved on this node, and
+     * applies it unless the model is busy.
+     *
+     * @return false if the model was not updated; the next catch-up reads the change from the outbox
+     */
+    public boolean refreshPair(PatientReadModel model, long patientId, long doctorId) {
+        PairVisit visit = shardRouter.onShardOf(doctorId, () -> latestVisit(patientId, doctorId));
+        return model.tryResetPair(patientId, doctorId, visit.visitId(), visit.start(), visit.end());
+    }
+
+    private PairVisit latestVisit(long patientId, long doctorId) {
+        List<PairVisit> visits = jdbcTemplate.query(
+                "SELECT id, start_date_time, end_date_time FROM visits WHERE patient_id = ? AND doctor_id = ? "
+                        + "ORDER BY start_date_time DESC, id DESC LIMIT 1",
+                (rs, rowNum) -> new PairVisit(patientId, doctorId, rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                patientId, doctorId);
+        return visits.isEmpty() ? new PairVisit(patientId, doctorId, null, 0, 0) : visits.get(0);
+    }
+
+    private static long from(PatientReadModel model, int mark) {
+        return Math.min(model.settled[mark], model.highWater[mark]);
+    }
+
+    private static String databaseProductName(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The latest visit of a (patient, doctor) pair; {@code visitId} is null once the pair has no visits.
+     */
+    private record PairVisit(long patientId, long doctorId, Long visitId, long start, long end) {
+    }
+
+    /**
+     * Buffers streamed visits and applies them in chunks, so readers are not blocked for a whole scan.
+     */
+    private static final class VisitChunks {
+        private final PatientReadModel model;
+        private final int mark;
+        private final long[] columns = new long[VISITS_PER_LOCK * 5];
+        private int size;
+        private long read;
+        private boolean blocked;
+
+        VisitChunks(PatientReadModel model, int mark) {
+            this.model = model;
+            this.mark = mark;
+        }
+
+        void add(long id, long patientId, long doctorId, long start, long end) {
+            int at = size++ * 5;
+            columns[at] = id;
+            columns[at + 1] = patientId;
+            columns[at + 2] = doctorId;
+            columns[at + 3] = start;
+            columns[at + 4] = end;
+            read++;
+            if (size == VISITS_PER_LOCK) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size == 0) {
+                return;
+            }
+            model.lock.writeLock().lock();
+            try {
+                for (int at = 0; at < size * 5; at += 5) {
+                    long id = columns[at];
+                    if (!model.applyVisit(id, columns[at + 1], columns[at + 2], columns[at + 3], columns[at + 4])) {
+                        blocked = true;
+                    } else if (!blocked) {
+                        model.highWater[mark] = Math.max(model.highWater[mark], id);
+                    }
+                }
+            } finally {
+                model.lock.writeLock().unlock();
+            }
+            size = 0;
+        }
+    }
+}
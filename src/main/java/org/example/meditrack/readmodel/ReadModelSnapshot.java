@@ -0,0 +1,226 @@
+package org.example.meditrack.readmodel;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary snapshot of a {@link PatientReadModel}, written and read through memory-mapped regions so the columns
+ * move with bulk copies instead of per-value I/O. Layout, little-endian:
+ * <pre>
+ * magic, version, shard count, mark count, high-water marks, settled marks
+ * dictionary: size, total bytes, then (byte length, UTF-8 bytes) per string
+ * doctors:    count, ids, first names, last names, timezones
+ * patients:   count, ids, first names, last names
+ * pairs:      count, patient ids, doctors, visit ids, starts, ends
+ * </pre>
+ * Each column is mapped on its own, so the file may exceed the 2 GB limit of a single mapping. The pair
+ * chains and the doctor patient counts are rebuilt on load.
+ */
+public final class ReadModelSnapshot {
+
+    private static final int MAGIC = 0x4D54524D;
+    private static final int VERSION = 3;
+
+    private ReadModelSnapshot() {
+    }
+
+    /**
+     * Writes the model to a temporary file next to {@code path} and moves it into place, so a crash while
+     * writing leaves the previous snapshot intact. Updates to the model wait until the write completes.
+     */
+    public static void write(PatientReadModel model, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        model.lock.readLock().lock();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new Writer(channel);
+            MappedByteBuffer header = out.region(16L + 16L * model.highWater.length);
+            header.putInt(MAGIC).putInt(VERSION).putInt(model.shardCount()).putInt(model.highWater.length);
+            header.asLongBuffer().put(model.highWater).put(model.settled);
+
+            StringDictionary dictionary = model.dictionary;
+            byte[][] strings = new byte[dictionary.size()][];
+            long stringBytes = 0;
+            for (int code = 0; code < strings.length; code++) {
+                strings[code] = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+                stringBytes += 4 + strings[code].length;
+            }
+            out.count(strings.length);
+            out.region(8).putLong(stringBytes);
+            MappedByteBuffer dictionaryRegion = out.region(stringBytes);
+            for (byte[] string : strings) {
+                dictionaryRegion.putInt(string.length).put(string);
+            }
+
+            int doctors = model.doctorCount;
+            out.count(doctors);
+            out.longs(model.doctorIds, doctors);
+            out.ints(model.doctorFirst, doctors);
+            out.ints(model.doctorLast, doctors);
+            out.ints(model.doctorZone, doctors);
+
+            int patients = model.patientCount;
+            out.count(patients);
+            out.longs(model.patientIds, patients);
+            out.ints(model.patientFirst, patients);
+            out.ints(model.patientLast, patients);
+
+            int pairs = model.pairCount;
+            out.count(pairs);
+            out.longs(model.pairPatient, pairs);
+            out.ints(model.pairDoctor, pairs);
+            out.longs(model.pairVisit, pairs);
+            out.longs(model.pairStart, pairs);
+            out.longs(model.pairEnd, pairs);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            model.lock.readLock().unlock();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the model, or null if the snapshot was taken with a different shard count
+     * @throws IOException if the file is missing, truncated or not a snapshot of this version
+     */
+    public static PatientReadModel read(Path path, int shardCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader in = new Reader(channel);
+            MappedByteBuffer header = in.region(16);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a read model snapshot of version " + VERSION + ": " + path);
+            }
+            if (header.getInt() != shardCount) {
+                return null;
+            }
+            PatientReadModel model = new PatientReadModel(shardCount);
+            in.region(16L * header.getInt()).asLongBuffer().get(model.highWater).get(model.settled);
+
+            int strings = in.count();
+            MappedByteBuffer dictionaryRegion = in.region(in.region(8).getLong());
+            for (int code = 0; code < strings; code++) {
+                byte[] string = new byte[dictionaryRegion.getInt()];
+                dictionaryRegion.get(string);
+                model.dictionary.encode(new String(string, StandardCharsets.UTF_8));
+            }
+
+            int doctors = in.count();
+            long[] doctorIds = in.longs(doctors);
+            int[] doctorFirst = in.ints(doctors);
+            int[] doctorLast = in.ints(doctors);
+            int[] doctorZone = in.ints(doctors);
+            for (int doctor = 0; doctor < doctors; doctor++) {
+                model.putDoctor(doctorIds[doctor], model.dictionary.decode(doctorFirst[doctor]),
+                        model.dictionary.decode(doctorLast[doctor]), model.dictionary.decode(doctorZone[doctor]));
+            }
+
+            int patients = in.count();
+            model.growPatients(Math.max(patients, 1024));
+            in.longs(patients, model.patientIds);
+            in.ints(patients, model.patientFirst);
+            in.ints(patients, model.patientLast);
+            Arrays.fill(model.firstPair, PatientReadModel.NONE);
+            model.patientCount = patients;
+
+            int pairs = in.count();
+            long[] pairPatient = in.longs(pairs);
+            int[] pairDoctor = in.ints(pairs);
+            long[] pairVisit = in.longs(pairs);
+            long[] pairStart = in.longs(pairs);
+            long[] pairEnd = in.longs(pairs);
+            for (int pair = 0; pair < pairs; pair++) {
+                int patient = model.indexOfPatient(pairPatient[pair], patients);
+                if (patient < 0) {
+                    throw new IOException("Snapshot pair " + pair + " refers to unknown patient " + pairPatient[pair]);
+                }
+                model.addPair(patient, pairPatient[pair], pairDoctor[pair], pairVisit[pair], pairStart[pair],
+                        pairEnd[pair]);
+            }
+            return model;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated read model snapshot: " + path, e);
+        }
+    }
+
+    private static final class Writer {
+        private final FileChannel channel;
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        MappedByteBuffer region(long bytes) throws IOException {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes);
+            region.order(ByteOrder.LITTLE_ENDIAN);
+            position += bytes;
+            return region;
+        }
+
+        void count(int count) throws IOException {
+            region(4).putInt(count);
+        }
+
+        void longs(long[] values, int count) throws IOException {
+            region(8L * count).asLongBuffer().put(values, 0, count);
+        }
+
+        void ints(int[] values, int count) throws IOException {
+            region(4L * count).asIntBuffer().put(values, 0, count);
+        }
+    }
+
+    private static final class Reader {
+        private final FileChannel channel;
+        private long position;
+
+        Reader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        MappedByteBuffer region(long bytes) throws IOException {
+            if (position + bytes > channel.size()) {
+                throw new IOException("Truncated read model snapshot");
+            }
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+            region.order(ByteOrder.LITTLE_ENDIAN);
+            position += bytes;
+            return region;
+        }
+
+        int count() throws IOException {
+            return region(4).getInt();
+        }
+
+        long[] longs(int count) throws IOException {
+            return longs(count, new long[count]);
+        }
+
+        long[] longs(int count, long[] into) throws IOException {
+            region(8L * count).asLongBuffer().get(into, 0, count);
+            return into;
+        }
+
+        int[] ints(int count) throws IOException {
+            return ints(count, new int[count]);
+        }
+
+        int[] ints(int count, int[] into) throws IOException {
+            region(4L * count).asIntBuffer().get(into, 0, count);
+            return into;
+        }
+    }
+}
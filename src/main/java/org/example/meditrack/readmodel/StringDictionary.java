@@ -0,0 +1,46 @@
+package org.example.meditrack.readmodel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of the names and timezones in the {@link PatientReadModel}: each distinct string is
+ * stored once and referenced by an int code. The lower-case form used by the name search is kept alongside.
+ * Not thread-safe; the model guards it with its lock.
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[1024];
+    private String[] lowered = new String[1024];
+    private int size;
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            lowered = Arrays.copyOf(lowered, size * 2);
+        }
+        values[size] = value;
+        lowered[size] = value.toLowerCase(Locale.ROOT);
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    String lowered(int code) {
+        return lowered[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
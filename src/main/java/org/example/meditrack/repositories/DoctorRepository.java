@@ -1,9 +1,23 @@
 package org.example.meditrack.repositories;
 
+import jakarta.persistence.LockModeType;
 import org.example.meditrack.models.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+
+    /**
+     * Loads the doctor with {@code SELECT ... FOR UPDATE}. Bookings take this lock before their overlap check,
+     * so concurrent bookings for one doctor run one at a time until commit and cannot both pass the check.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Doctor d WHERE d.id = :id")
+    Optional<Doctor> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,9 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.models.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+}
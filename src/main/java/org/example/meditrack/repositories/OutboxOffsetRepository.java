@@ -0,0 +1,9 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.models.OutboxOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+}
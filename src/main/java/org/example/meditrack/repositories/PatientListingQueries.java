@@ -0,0 +1,28 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientSort;
+
+import java.util.List;
+
+/**
+ * Listing query whose SQL is built from the requested {@link PatientFields}, mixed into
+ * {@link PatientRepository}.
+ */
+public interface PatientListingQueries {
+
+    /**
+     * Same row layout as {@link PatientRepository#findAllPatientsWithDataOptimized}, with NULL in every
+     * column that was not requested. Joins and aggregates that only feed unrequested columns are left out.
+     */
+    List<Object[]> findPatientRows(String search, List<Long> doctorIds, PatientFields fields,
+                                   int offset, int pageSize);
+
+    /**
+     * Keyset page of the listing in the given order: the first {@code limit} patients after {@code after}
+     * (the sort key and id of the last patient already listed, null for the first page). Rows have the layout
+     * of {@link #findPatientRows} followed by the sort key of their patient, and are ordered by it.
+     */
+    List<Object[]> findSortedPatientRows(String search, List<Long> doctorIds, PatientFields fields,
+                                         PatientSort sort, List<Object> after, int limit);
+}
@@ -0,0 +1,244 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientSort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Builds the listing statement piece by piece from the same CTEs as the static queries in
+ * {@link PatientRepository}. Runs through JDBC so the NULL placeholder columns need no type mapping.
+ */
+class PatientListingQueriesImpl implements PatientListingQueries {
+
+    private static final int COLUMNS = 12;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    PatientListingQueriesImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Object[]> findPatientRows(String search, List<Long> doctorIds, PatientFields fields,
+                                          int offset, int pageSize) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("offset", offset)
+                .addValue("pageSize", pageSize);
+        return jdbcTemplate.query(buildSql(search, doctorIds, fields, params), params, rowMapper(COLUMNS));
+    }
+
+    @Override
+    public List<Object[]> findSortedPatientRows(String search, List<Long> doctorIds, PatientFields fields,
+                                                PatientSort sort, List<Object> after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("limit", limit);
+        return jdbcTemplate.query(buildSortedSql(search, doctorIds, fields, sort, after, params), params,
+                rowMapper(COLUMNS + sortColumns(sort).length));
+    }
+
+    static String buildSql(String search, List<Long> doctorIds, PatientFields fields, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("""
+                WITH base_patients AS (
+                    SELECT p.id as patient_id,
+                           p.first_name as patient_first_name,
+                           p.last_name as patient_last_name
+                    FROM patients p
+                    WHERE 1 = 1
+                """);
+        appendFilters(sql, search, doctorIds, params);
+        sql.append("),\n");
+        if (fields.count()) {
+            sql.append("""
+                    total_count AS (
+                        SELECT COUNT(*) as total FROM base_patients
+                    ),
+                    """);
+        }
+        sql.append("""
+                paginated_patients AS (
+                    SELECT *, ROW_NUMBER() OVER (ORDER BY patient_id) as row_num
+                    FROM base_patients
+                ),
+                filtered_patients AS (
+                    SELECT pp.patient_id, pp.patient_first_name, pp.patient_last_name
+                    FROM paginated_patients pp
+                    WHERE pp.row_num BETWEEN (:offset + 1) AND (:offset + :pageSize)
+                )
+                """);
+        appendSelect(sql, fields, false, "");
+        sql.append("ORDER BY fp.patient_id");
+        return sql.toString();
+    }
+
+    /**
+     * The page is read from the sort index: filters are checked row by row in index order, starting after the
+     * cursor, until {@code limit} patients match. Latest visits and doctor stats are computed for that page
+     * only, so a page deep into the order costs the same as the first one. The count, when requested, is
+     * the one part that still reads every matching patient.
+     */
+    static String buildSortedSql(String search, List<Long> doctorIds, PatientFields fields, PatientSort sort,
+                                 List<Object> after, MapSqlParameterSource params) {
+        String[] keys = sortColumns(sort);
+        String direction = sort == PatientSort.LAST_VISIT ? " DESC" : "";
+        StringBuilder sql = new StringBuilder("""
+                WITH filtered_patients AS (
+                    SELECT p.id as patient_id,
+                           p.first_name as patient_first_name,
+                           p.last_name as patient_last_name,
+                           p.last_visit_at as patient_last_visit_at
+                    FROM patients p
+                    WHERE 1 = 1
+                """);
+        appendFilters(sql, search, doctorIds, params);
+        if (after != null) {
+            sql.append("    AND ").append(afterCondition(keys, 0, direction.isEmpty() ? ">" : "<")).append('\n');
+            for (int i = 0; i < after.size(); i++) {
+                params.addValue("after" + i, after.get(i));
+            }
+        }
+        sql.append("    ORDER BY ").append(orderBy("p.", keys, direction)).append('\n')
+                .append("    LIMIT :limit\n")
+                .append(")");
+        if (fields.count()) {
+            sql.append("""
+                    ,
+                    total_count AS (
+                        SELECT COUNT(*) as total
+                        FROM patients p
+                        WHERE 1 = 1
+                    """);
+            appendFilters(sql, search, doctorIds, params);
+            sql.append(")");
+        }
+        sql.append('\n');
+        StringBuilder sortKey = new StringBuilder();
+        for (String key : keys) {
+            sortKey.append(", fp.patient_").append(key);
+        }
+        appendSelect(sql, fields, true, sortKey.toString());
+        sql.append("ORDER BY ").append(orderBy("fp.patient_", keys, direction));
+        return sql.toString();
+    }
+
+    /**
+     * Sort key columns of {@code patients}, in order; the id follows them in every sort.
+     */
+    private static String[] sortColumns(PatientSort sort) {
+        return switch (sort) {
+            case LAST_NAME -> new String[]{"last_name", "first_name"};
+            case FIRST_NAME -> new String[]{"first_name", "last_name"};
+            case LAST_VISIT -> new String[]{"last_visit_at"};
+        };
+    }
+
+    /**
+     * {@code (a, b, id) > (:after0, :after1, :after2)} spelled out as nested OR/AND, which MySQL turns into
+     * a range on the sort index (it does not for row constructor comparisons).
+     */
+    private static String afterCondition(String[] keys, int index, String operator) {
+        if (index == keys.length) {
+            return "p.id " + operator + " :after" + index;
+        }
+        String column = "p." + keys[index];
+        String parameter = ":after" + index;
+        return "(" + column + " " + operator + " " + parameter
+                + " OR (" + column + " = " + parameter + " AND " + afterCondition(keys, index + 1, operator) + "))";
+    }
+
+    private static String orderBy(String prefix, String[] keys, String direction) {
+        StringBuilder order = new StringBuilder();
+        for (String key : keys) {
+            order.append(prefix).append(key).append(direction).append(", ");
+        }
+        String id = prefix.equals("p.") ? "p.id" : "fp.patient_id";
+        return order.append(id).append(direction).toString();
+    }
+
+    private static void appendFilters(StringBuilder sql, String search, List<Long> doctorIds,
+                                      MapSqlParameterSource params) {
+        if (search != null) {
+            sql.append("    AND LOWER(CONCAT(p.first_name, ' ', p.last_name)) LIKE LOWER(CONCAT('%', :search, '%'))\n");
+            params.addValue("search", search);
+        }
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            sql.append("""
+                        AND (EXISTS (SELECT 1 FROM visits v WHERE v.patient_id = p.id AND v.doctor_id IN (:doctorIds))
+                             OR NOT EXISTS (SELECT 1 FROM visits v WHERE v.patient_id = p.id))
+                    """);
+            params.addValue("doctorIds", doctorIds);
+        }
+    }
+
+    /**
+     * The outer SELECT over {@code filtered_patients}, without ORDER BY. With {@code pageOnly} the latest
+     * visits and the doctor stats are computed for the patients of the page instead of all visits.
+     */
+    private static void appendSelect(StringBuilder sql, PatientFields fields, boolean pageOnly, String extraColumns) {
+        boolean visits = fields.visits();
+        boolean doctors = visits && fields.doctorsTable();
+        boolean doctorStats = visits && fields.doctorTotalPatients();
+        sql.append("SELECT fp.patient_id, ")
+                .append(fields.firstName() ? "fp.patient_first_name" : "NULL").append(", ")
+                .append(fields.lastName() ? "fp.patient_last_name" : "NULL").append(",\n       ")
+                .append(visits ? "v.id" : "NULL").append(", ")
+                .append(visits && fields.visitStart() ? "v.start_date_time" : "NULL").append(", ")
+                .append(visits && fields.visitEnd() ? "v.end_date_time" : "NULL").append(", ")
+                .append(visits ? "v.doctor_id" : "NULL").append(",\n       ")
+                .append(fields.doctorFirstName() && visits ? "d.first_name" : "NULL").append(", ")
+                .append(fields.doctorLastName() && visits ? "d.last_name" : "NULL").append(", ")
+                .append(doctors ? "d.timezone" : "NULL").append(",\n       ")
+                .append(doctorStats ? "COALESCE(doc_stats.patient_count, 0)" : "NULL").append(", ")
+                .append(fields.count() ? "tc.total" : "NULL").append(extraColumns).append('\n')
+                .append("FROM filtered_patients fp\n");
+        if (fields.count()) {
+            sql.append("CROSS JOIN total_count tc\n");
+        }
+        if (visits) {
+            sql.append("""
+                    LEFT JOIN (
+                        SELECT v1.patient_id, v1.doctor_id, v1.id, v1.start_date_time, v1.end_date_time,
+                               ROW_NUMBER() OVER (PARTITION BY v1.patient_id, v1.doctor_id ORDER BY v1.start_date_time DESC, v1.id DESC) as rn
+                        FROM visits v1
+                    """);
+            if (pageOnly) {
+                sql.append("    WHERE v1.patient_id IN (SELECT patient_id FROM filtered_patients)\n");
+            }
+            sql.append(") v ON fp.patient_id = v.patient_id AND v.rn = 1\n");
+        }
+        if (doctors) {
+            sql.append("LEFT JOIN doctors d ON v.doctor_id = d.id\n");
+        }
+        if (doctorStats) {
+            sql.append("""
+                    LEFT JOIN (
+                        SELECT doctor_id, COUNT(DISTINCT patient_id) as patient_count
+                        FROM visits
+                    """);
+            if (pageOnly) {
+                sql.append("""
+                            WHERE doctor_id IN (
+                                SELECT v2.doctor_id FROM visits v2
+                                WHERE v2.patient_id IN (SELECT patient_id FROM filtered_patients)
+                            )
+                        """);
+            }
+            sql.append("""
+                        GROUP BY doctor_id
+                    ) doc_stats ON v.doctor_id = doc_stats.doctor_id
+                    """);
+        }
+    }
+
+    private static RowMapper<Object[]> rowMapper(int columns) {
+        return (rs, rowNum) -> {
+            Object[] row = new Object[columns];
+            for (int i = 0; i < columns; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        };
+    }
+}
@@ -2,6 +2,7 @@ package org.example.meditrack.repositories;
 
 import org.example.meditrack.models.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientListingQueries {
 
     @Query(value = """
         WITH base_patients AS (
@@ -118,4 +119,138 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
             @Param("search") String search,
             @Param("offset") int offset,
             @Param("pageSize") int pageSize);
-}
\ No newline at end of file
+
+    @Query(value = """
+        SELECT p.id, p.first_name, p.last_name
+        FROM patients p
+        WHERE (:search IS NULL OR LOWER(CONCAT(p.first_name, ' ', p.last_name)) LIKE LOWER(CONCAT('%', :search, '%')))
+        ORDER BY p.id
+        LIMIT :pageSize OFFSET :offset
+        """, nativeQuery = true)
+    List<Object[]> findPatientPage(
+            @Param("search") String search,
+            @Param("offset") int offset,
+            @Param("pageSize") int pageSize);
+
+    @Query(value = """
+        SELECT p.id, p.first_name, p.last_name
+        FROM patients p
+        WHERE (:search IS NULL OR LOWER(CONCAT(p.first_name, ' ', p.last_name)) LIKE LOWER(CONCAT('%', :search, '%')))
+        AND (EXISTS (SELECT 1 FROM visits v WHERE v.patient_id = p.id AND v.doctor_id IN :doctorIds)
+             OR NOT EXISTS (SELECT 1 FROM visits v WHERE v.patient_id = p.id))
+        ORDER BY p.id
+        LIMIT :pageSize OFFSET :offset
+        """, nativeQuery = true)
+    List<Object[]> findPatientPageByDoctors(
+            @Param("search") String search,
+            @Param("doctorIds") List<Long> doctorIds,
+            @Param("offset") int offset,
+            @Param("pageSize") int pageSize);
+
+    @Query(value = """
+        SELECT COUNT(*)
+        FROM patients p
+        WHERE (:search IS NULL OR LOWER(CONCAT(p.first_name, ' ', p.last_name)) LIKE LOWER(CONCAT('%', :search, '%')))
+        """, nativeQuery = true)
+    long countPatients(@Param("search") String search);
+
+    @Query(value = """
+        SELECT COUNT(*)
+        FROM patients p
+        WHERE (:search IS NULL OR LOWER(CONCAT(p.first_name, ' ', p.last_name)) LIKE LOWER(CONCAT('%', :search, '%')))
+        AND (EXISTS (SELECT 1 FROM visits v WHERE v.patient_id = p.id AND v.doctor_id IN :doctorIds)
+             OR NOT EXISTS (SELECT 1 FROM visits v WHERE v.patient_id = p.id))
+        """, nativeQuery = true)
+    long countPatientsByDoctors(
+            @Param("search") String search,
+            @Param("doctorIds") List<Long> doctorIds);
+
+    @Query(value = """
+        SELECT v.patient_id, v.id as visit_id,
+               v.start_date_time,
+               v.end_date_time,
+               d.id as doctor_id,
+               d.first_name as doctor_first_name,
+               d.last_name as doctor_last_name,
+               d.timezone
+        FROM (
+            SELECT v1.patient_id, v1.doctor_id, v1.id, v1.start_date_time, v1.end_date_time,
+                   ROW_NUMBER() OVER (PARTITION BY v1.patient_id, v1.doctor_id ORDER BY v1.start_date_time DESC, v1.id DESC) as rn
+            FROM visits v1
+            WHERE v1.patient_id IN :patientIds
+        ) v
+        JOIN doctors d ON v.doctor_id = d.id
+        WHERE v.rn = 1
+        ORDER BY v.patient_id, v.doctor_id
+        """, nativeQuery = true)
+    List<Object[]> findLatestVisitsForPatients(@Param("patientIds") List<Long> patientIds);
+
+    @Query(value = """
+        SELECT doctor_id, COUNT(DISTINCT patient_id) as patient_count
+        FROM visits
+        WHERE doctor_id IN (
+            SELECT DISTINCT v1.doctor_id FROM visits v1 WHERE v1.patient_id IN :patientIds
+        )
+        GROUP BY doctor_id
+        """, nativeQuery = true)
+    List<Object[]> countDistinctPatientsForDoctorsOf(@Param("patientIds") List<Long> patientIds);
+
+    /**
+     * The given patients with their latest visit per doctor, in one statement: row layout of
+     * {@link #findAllPatientsWithDataOptimized} without the total. Doctor stats are computed only for the
+     * doctors these patients visited.
+     */
+    @Query(value = """
+        SELECT p.id as patient_id, p.first_name as patient_first_name, p.last_name as patient_last_name,
+               v.id as visit_id,
+               v.start_date_time,
+               v.end_date_time,
+               d.id as doctor_id,
+               d.first_name as doctor_first_name,
+               d.last_name as doctor_last_name,
+               d.timezone,
+               COALESCE(doc_stats.patient_count, 0) as patient_count
+        FROM patients p
+        LEFT JOIN (
+            SELECT v1.patient_id, v1.doctor_id, v1.id, v1.start_date_time, v1.end_date_time,
+                   ROW_NUMBER() OVER (PARTITION BY v1.patient_id, v1.doctor_id ORDER BY v1.start_date_time DESC, v1.id DESC) as rn
+            FROM visits v1
+            WHERE v1.patient_id IN :patientIds
+        ) v ON p.id = v.patient_id AND v.rn = 1
+        LEFT JOIN doctors d ON v.doctor_id = d.id
+        LEFT JOIN (
+            SELECT doctor_id, COUNT(DISTINCT patient_id) as patient_count
+            FROM visits
+            WHERE doctor_id IN (
+                SELECT DISTINCT v2.doctor_id FROM visits v2 WHERE v2.patient_id IN :patientIds
+            )
+            GROUP BY doctor_id
+        ) doc_stats ON d.id = doc_stats.doctor_id
+        WHERE p.id IN :patientIds
+        ORDER BY p.id, v.doctor_id
+        """, nativeQuery = true)
+    List<Object[]> findPatientsWithLatestVisits(@Param("patientIds") List<Long> patientIds);
+
+    /**
+     * Keeps {@code last_visit_at}, the key of the {@code lastVisit} sort, at the latest visit start.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE patients
+        SET last_visit_at = GREATEST(last_visit_at, :start)
+        WHERE id = :patientId
+        """, nativeQuery = true)
+    void raiseLastVisitAt(@Param("patientId") Long patientId, @Param("start") long start);
+
+    /**
+     * Sets {@code last_visit_at} again after a visit of the patient was cancelled or moved, where raising it
+     * is not enough. The latest start is the last entry of the patient in idx_visit_patient.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE patients
+        SET last_visit_at = COALESCE((SELECT MAX(v.start_date_time) FROM visits v WHERE v.patient_id = :patientId), 0)
+        WHERE id = :patientId
+        """, nativeQuery = true)
+    void resetLastVisitAt(@Param("patientId") Long patientId);
+}
@@ -0,0 +1,31 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.models.VisitEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface VisitEventRepository extends JpaRepository<VisitEvent, Long> {
+
+    /**
+     * Events after {@code id} written before {@code before}; see {@link org.example.meditrack.services.OutboxDispatcher}
+     * for why recent events are left out.
+     */
+    List<VisitEvent> findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(Long id, Instant before, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM VisitEvent e")
+    long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM VisitEvent e WHERE e.id <= :maxId AND e.createdAt < :before")
+    int deleteDelivered(@Param("maxId") long maxId, @Param("before") Instant before);
+}
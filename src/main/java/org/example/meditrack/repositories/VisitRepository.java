@@ -1,21 +1,110 @@
 package org.example.meditrack.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.example.meditrack.models.Visit;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VisitRepository extends JpaRepository<Visit, Long> {
 
+    /**
+     * Inclusive overlap (touching visits count as overlapping) as two integer comparisons, so the
+     * idx_visit_doctor_time range on start_date_time bounds the scan.
+     */
     @Query("SELECT COUNT(v) FROM Visit v WHERE v.doctor.id = :doctorId " +
-            "AND ((v.startDateTime BETWEEN :start AND :end) OR " +
-            "(v.endDateTime BETWEEN :start AND :end) OR " +
-            "(v.startDateTime <= :start AND v.endDateTime >= :end))")
+            "AND v.startDateTime <= :end AND v.endDateTime >= :start")
     long countOverlappingVisits(@Param("doctorId") Long doctorId,
-                                @Param("start") ZonedDateTime start,
-                                @Param("end") ZonedDateTime end);
+                                @Param("start") Instant start,
+                                @Param("end") Instant end);
+
+    /**
+     * {@link #countOverlappingVisits} without the visit being moved, so a reschedule into a slot that overlaps
+     * its own current one is allowed.
+     */
+    @Query("SELECT COUNT(v) FROM Visit v WHERE v.doctor.id = :doctorId " +
+            "AND v.startDateTime <= :end AND v.endDateTime >= :start AND v.id <> :visitId")
+    long countOverlappingVisitsExcluding(@Param("doctorId") Long doctorId,
+                                         @Param("start") Instant start,
+                                         @Param("end") Instant end,
+                                         @Param("visitId") Long visitId);
+
+    /**
+     * Locks the visit row and returns its doctor, so the doctor lock can be taken before the visit is read.
+     * A locking read sees the latest committed row and, unlike a plain read, does not yet fix the snapshot
+     * that later reads of the transaction, such as the overlap check, are served from.
+     */
+    @Query(value = "SELECT doctor_id FROM visits WHERE id = :visitId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockDoctorIdById(@Param("visitId") Long visitId);
+
+    /**
+     * [start, end] epoch milliseconds of the doctor's visits overlapping [from, to] (inclusive, as in
+     * {@link #countOverlappingVisits}), ordered by start. Lets a whole series be checked with one range scan.
+     */
+    @Query(value = """
+        SELECT v.start_date_time, v.end_date_time
+        FROM visits v
+        WHERE v.doctor_id = :doctorId
+        AND v.start_date_time <= :to AND v.end_date_time >= :from
+        ORDER BY v.start_date_time
+        """, nativeQuery = true)
+    List<Object[]> findVisitTimesOverlapping(@Param("doctorId") Long doctorId,
+                                             @Param("from") long from,
+                                             @Param("to") long to);
+
+    /**
+     * Visits overlapping [from, to): a range scan over idx_visit_doctor_time from {@code earliestStart}, which
+     * is {@code from} minus {@link org.example.meditrack.models.Visit#MAX_LENGTH}, resumed after the
+     * (start_date_time, id) keyset of the last row returned. Bounds are epoch milliseconds. The MIN_VALUE
+     * fetch size makes Connector/J stream rows instead of buffering the result set.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(value = """
+        SELECT v.id, v.start_date_time, v.end_date_time,
+               p.id as patient_id, p.first_name, p.last_name
+        FROM visits v
+        JOIN patients p ON p.id = v.patient_id
+        WHERE v.doctor_id = :doctorId
+        AND v.start_date_time >= :earliestStart AND v.start_date_time < :to
+        AND v.end_date_time > :from
+        AND (v.start_date_time > :afterStart OR (v.start_date_time = :afterStart AND v.id > :afterId))
+        ORDER BY v.start_date_time, v.id
+        LIMIT :limit
+        """, nativeQuery = true)
+    Stream<Object[]> streamDoctorSchedule(@Param("doctorId") Long doctorId,
+                                          @Param("earliestStart") long earliestStart,
+                                          @Param("from") long from,
+                                          @Param("to") long to,
+                                          @Param("afterStart") long afterStart,
+                                          @Param("afterId") long afterId,
+                                          @Param("limit") int limit);
+
+    /**
+     * One patient's visits, newest first, resumed before the (start_date_time, id) keyset of the last row
+     * returned. Served in index order by idx_visit_patient (patient_id, start_date_time), whose entries
+     * also carry the primary key.
+     */
+    @Query(value = """
+        SELECT v.id, v.start_date_time, v.end_date_time,
+               d.id as doctor_id, d.first_name, d.last_name, d.timezone
+        FROM visits v
+        JOIN doctors d ON d.id = v.doctor_id
+        WHERE v.patient_id = :patientId
+        AND (v.start_date_time < :beforeStart OR (v.start_date_time = :beforeStart AND v.id < :beforeId))
+        ORDER BY v.start_date_time DESC, v.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> findPatientHistory(@Param("patientId") Long patientId,
+                                      @Param("beforeStart") long beforeStart,
+                                      @Param("beforeId") long beforeId,
+                                      @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts an assembled patient page into {@link CompactPatientsListResponse}. The assembler already shares
+ * one {@link DoctorResponse} per doctor, so doctors are deduplicated by identity.
+ */
+public final class CompactListEncoder {
+
+    private CompactListEncoder() {
+    }
+
+    public static CompactPatientsListResponse encode(PatientsListResponse response, PatientFields fields) {
+        return encode(response, fields, false);
+    }
+
+    /**
+     * @param recentPatients whether the doctors carry {@code recentPatients}, counted over a patients window
+     */
+    public static CompactPatientsListResponse encode(PatientsListResponse response, PatientFields fields,
+                                                     boolean recentPatients) {
+        List<String> columns = new ArrayList<>(3);
+        if (fields.firstName()) {
+            columns.add("firstName");
+        }
+        if (fields.lastName()) {
+            columns.add("lastName");
+        }
+        List<String> visitColumns = null;
+        List<String> doctorColumns = null;
+        if (fields.visits()) {
+            columns.add("lastVisits");
+            visitColumns = new ArrayList<>(3);
+            if (fields.visitStart()) {
+                visitColumns.add("start");
+            }
+            if (fields.visitEnd()) {
+                visitColumns.add("end");
+            }
+            if (fields.doctor()) {
+                visitColumns.add("doctor");
+                doctorColumns = new ArrayList<>(3);
+                if (fields.doctorFirstName()) {
+                    doctorColumns.add("firstName");
+                }
+                if (fields.doctorLastName()) {
+                    doctorColumns.add("lastName");
+                }
+                if (fields.doctorTotalPatients()) {
+                    doctorColumns.add("totalPatients");
+                }
+                if (recentPatients) {
+                    doctorColumns.add("recentPatients");
+                }
+            }
+        }
+
+        Map<DoctorResponse, Integer> doctorIndexes = new IdentityHashMap<>();
+        List<List<Object>> doctors = fields.doctor() ? new ArrayList<>() : null;
+        List<List<Object>> data = new ArrayList<>(response.getData().size());
+        for (PatientResponse patient : response.getData()) {
+            List<Object> row = new ArrayList<>(columns.size());
+            if (fields.firstName()) {
+                row.add(patient.getFirstName());
+            }
+            if (fields.lastName()) {
+                row.add(patient.getLastName());
+            }
+            if (fields.visits()) {
+                List<Object> visits = new ArrayList<>(patient.getLastVisits().size());
+                for (VisitResponse visit : patient.getLastVisits()) {
+                    visits.add(encodeVisit(visit, fields, recentPatients, doctorIndexes, doctors));
+                }
+                row.add(visits);
+            }
+            data.add(row);
+        }
+
+        return CompactPatientsListResponse.builder()
+                .columns(columns)
+                .visitColumns(visitColumns)
+                .doctorColumns(doctorColumns)
+                .doctors(doctors)
+                .data(data)
+                .count(response.getCount())
+                .nextCursor(response.getNextCursor())
+                .build();
+    }
+
+    private static List<Object> encodeVisit(VisitResponse visit, PatientFields fields, boolean recentPatients,
+                                            Map<DoctorResponse, Integer> doctorIndexes, List<List<Object>> doctors) {
+        List<Object> row = new ArrayList<>(3);
+        if (fields.visitStart()) {
+            row.add(visit.getStart());
+        }
+        if (fields.visitEnd()) {
+            row.add(visit.getEnd());
+        }
+        if (fields.doctor()) {
+            row.add(doctorIndexes.computeIfAbsent(visit.getDoctor(), doctor -> {
+                List<Object> encoded = new ArrayList<>(3);
+                if (fields.doctorFirstName()) {
+                    encoded.add(doctor.getFirstName());
+                }
+                if (fields.doctorLastName()) {
+                    encoded.add(doctor.getLastName());
+                }
+                if (fields.doctorTotalPatients()) {
+                    encoded.add(doctor.getTotalPatients());
+                }
+                if (recentPatients) {
+                    encoded.add(doctor.getRecentPatients());
+                }
+                doctors.add(encoded);
+                return doctors.size() - 1;
+            }));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.meditrack.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.ScheduleVisitResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.Doctor;
+import org.example.meditrack.models.Visit;
+import org.example.meditrack.repositories.DoctorRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Doctor-centric calendar reads. The visits of a doctor overlapping [from, to), including one that started
+ * before {@code from} and runs into the range, are read with a range scan over idx_visit_doctor_time that
+ * starts {@link Visit#MAX_LENGTH} before {@code from}, and written to the response as they come off the
+ * cursor, so a week or a year of visits never has to be materialized. With a {@code limit} the result is a
+ * keyset page and carries a {@code nextCursor}.
+ */
+@Service
+@RequiredArgsConstructor
+public class DoctorScheduleService {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final DoctorRepository doctorRepository;
+    private final VisitRepository visitRepository;
+    private final ObjectMapper objectMapper;
+
+    public record ScheduleRequest(Doctor doctor, ZoneId zone, ZonedDateTime from, ZonedDateTime to,
+                                  VisitCursor after, Integer limit) {
+    }
+
+    @Transactional(readOnly = true)
+    public ScheduleRequest prepareSchedule(Long doctorId, String from, String to, String cursor, Integer limit) {
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new BusinessException("Doctor not found"));
+        ZoneId zone = ZoneId.of(doctor.getTimezone());
+
+        ZonedDateTime fromDateTime = parseBoundary(from, zone);
+        ZonedDateTime toDateTime = parseBoundary(to, zone);
+        if (!fromDateTime.isBefore(toDateTime)) {
+            throw new BusinessException("'from' must be before 'to'");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new BusinessException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        VisitCursor after = cursor != null && !cursor.isBlank() ? VisitCursor.decode(cursor) : null;
+        return new ScheduleRequest(doctor, zone, fromDateTime, toDateTime, after, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public void writeSchedule(ScheduleRequest request, OutputStream out) throws IOException {
+        ZoneId zone = request.zone();
+        Instant from = request.from().toInstant();
+        long afterStart = request.after() != null ? request.after().start().toEpochMilli() : Long.MIN_VALUE;
+        long afterId = request.after() != null ? request.after().id() : 0L;
+        Integer limit = request.limit();
+        int fetchLimit = limit != null ? limit + 1 : Integer.MAX_VALUE;
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+             Stream<Object[]> rows = visitRepository.streamDoctorSchedule(request.doctor().getId(),
+                     from.minus(Visit.MAX_LENGTH).toEpochMilli(), from.toEpochMilli(),
+                     request.to().toInstant().toEpochMilli(),
+                     afterStart, afterId, fetchLimit)) {
+            json.writeStartObject();
+            json.writeNumberField("doctorId", request.doctor().getId());
+            json.writeStringField("timezone", request.doctor().getTimezone());
+            json.writeStringField("from", IsoDateTimes.format(from, zone));
+            json.writeStringField("to", IsoDateTimes.format(request.to().toInstant(), zone));
+            json.writeArrayFieldStart("visits");
+
+            VisitCursor last = null;
+            boolean hasMore = false;
+            int written = 0;
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (limit != null && written == limit) {
+                    hasMore = true;
+                    break;
+                }
+                long visitId = ((Number) row[0]).longValue();
+                Instant start = Instant.ofEpochMilli(((Number) row[1]).longValue());
+                json.writeObject(ScheduleVisitResponse.builder()
+                        .id(visitId)
+                        .start(IsoDateTimes.format(start, zone))
+                        .end(IsoDateTimes.formatEpochMilli(((Number) row[2]).longValue(), zone))
+                        .patientId(((Number) row[3]).longValue())
+                        .patientFirstName((String) row[4])
+                        .patientLastName((String) row[5])
+                        .build());
+                last = new VisitCursor(start, visitId);
+                written++;
+            }
+
+            json.writeEndArray();
+            if (hasMore) {
+                json.writeStringField("nextCursor", last.encode());
+            } else {
+                json.writeNullField("nextCursor");
+            }
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Accepts either a full ISO offset date-time or a plain date, which is taken as the start of that day
+     * in the doctor's timezone.
+     */
+    private ZonedDateTime parseBoundary(String value, ZoneId zone) {
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(zone);
+            }
+            return ZonedDateTime.parse(value).withZoneSameInstant(zone);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid date: " + value);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.events.VisitCancelled;
+import org.example.meditrack.events.VisitCreated;
+import org.example.meditrack.events.VisitEventListener;
+import org.example.meditrack.events.VisitRescheduled;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Maintains {@code doctor_daily_stats}: visits, booked minutes and distinct patients per doctor and local day,
+ * with a {@link HyperLogLog} sketch of the day's patients for distinct counts over many days.
+ * A day is always recomputed from its visits rather than incremented, so a redelivered event or a replay
+ * leaves it unchanged. One doctor-day is a short range scan over idx_visit_doctor_time.
+ */
+@Component
+public class DoctorStatsRollup implements VisitEventListener {
+
+    /**
+     * One row of the rollup.
+     */
+    public record DayStats(LocalDate day, int visits, long bookedMinutes, int patients, byte[] patientSketch) {
+    }
+
+    private static final String UPSERT = """
+        INSERT INTO doctor_daily_stats (doctor_id, visit_date, visits, booked_minutes, patients, patient_sketch)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE visits = VALUES(visits), booked_minutes = VALUES(booked_minutes),
+                                patients = VALUES(patients), patient_sketch = VALUES(patient_sketch)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DoctorStatsRollup(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "doctor-daily-stats";
+    }
+
+    @Override
+    public void onVisitCreated(VisitCreated event) {
+        refreshDaysOf(event.doctorId(), event.start());
+    }
+
+    @Override
+    public void onVisitCancelled(VisitCancelled event) {
+        refreshDaysOf(event.doctorId(), event.start());
+    }
+
+    /**
+     * Both the day the visit left and the day it moved to, which may be the same.
+     */
+    @Override
+    public void onVisitRescheduled(VisitRescheduled event) {
+        refreshDaysOf(event.doctorId(), event.previousStart(), event.start());
+    }
+
+    private void refreshDaysOf(long doctorId, Instant... starts) {
+        refreshDaysOf(doctorId, Arrays.asList(starts));
+    }
+
+    /**
+     * Recomputes the days of a doctor on which the given visits start, once each, in one transaction. The doctor
+     * row is locked like a booking does, so no visit of the doctor commits between reading the visits and
+     * writing the days. Writers that bypass the outbox call it in their own transaction, which it joins.
+     */
+    public void refreshDaysOf(long doctorId, Collection<Instant> starts) {
+        transactionTemplate.executeWithoutResult(status -> {
+            String timezone = jdbcTemplate.queryForObject(
+                    "SELECT timezone FROM doctors WHERE id = ? FOR UPDATE", String.class, doctorId);
+            ZoneId zone = IsoDateTimes.zone(timezone);
+            Set<LocalDate> days = new TreeSet<>();
+            for (Instant start : starts) {
+                days.add(LocalDate.ofInstant(start, zone));
+            }
+            for (LocalDate day : days) {
+                refreshDay(doctorId, zone, day);
+            }
+        });
+    }
+
+    /**
+     * Recomputes one day of a doctor from the visits starting on it. Caller holds the doctor lock.
+     */
+    private void refreshDay(long doctorId, ZoneId zone, LocalDate day) {
+        List<DayStats> days = aggregate(doctorId, zone, day, day.plusDays(1));
+        if (days.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM doctor_daily_stats WHERE doctor_id = ? AND visit_date = ?",
+                    doctorId, Date.valueOf(day));
+            return;
+        }
+        DayStats stats = days.get(0);
+        jdbcTemplate.update(UPSERT, doctorId, Date.valueOf(day), stats.visits(), stats.bookedMinutes(),
+                stats.patients(), stats.patientSketch());
+    }
+
+    /**
+     * Rebuilds the days [from, to) of a doctor in one transaction. The doctor row is locked like a booking
+     * does, so no visit of the doctor commits between reading the visits and writing the days.
+     *
+     * @return the days written, those with at least one visit
+     */
+    public List<DayStats> rebuildDays(long doctorId, ZoneId zone, LocalDate from, LocalDate to) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT id FROM doctors WHERE id = ? FOR UPDATE", Long.class, doctorId);
+            List<DayStats> days = aggregate(doctorId, zone, from, to);
+            jdbcTemplate.update(
+                    "DELETE FROM doctor_daily_stats WHERE doctor_id = ? AND visit_date >= ? AND visit_date < ?",
+                    doctorId, Date.valueOf(from), Date.valueOf(to));
+            List<Object[]> rows = new ArrayList<>(days.size());
+            for (DayStats day : days) {
+                rows.add(new Object[]{doctorId, Date.valueOf(day.day()), day.visits(), day.bookedMinutes(),
+                        day.patients(), day.patientSketch()});
+            }
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+            return days;
+        });
+    }
+
+    /**
+     * Deletes the days of a doctor before its first or after its last visit, all of them if it has none. These
+     * days lie outside every range {@link #rebuildDays} is called with. The doctor row is locked like there.
+     */
+    public void pruneDays(long doctorId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            String timezone = jdbcTemplate.queryForObject(
+                    "SELECT timezone FROM doctors WHERE id = ? FOR UPDATE", String.class, doctorId);
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(start_date_time) AS first_start, MAX(start_date_time) AS last_start "
+                            + "FROM visits WHERE doctor_id = ?", doctorId);
+            if (range.get("first_start") == null) {
+                jdbcTemplate.update("DELETE FROM doctor_daily_stats WHERE doctor_id = ?", doctorId);
+                return;
+            }
+            ZoneId zone = IsoDateTimes.zone(timezone);
+            jdbcTemplate.update(
+                    "DELETE FROM doctor_daily_stats WHERE doctor_id = ? AND (visit_date < ? OR visit_date > ?)",
+                    doctorId, Date.valueOf(localDay((Number) range.get("first_start"), zone)),
+                    Date.valueOf(localDay((Number) range.get("last_start"), zone)));
+        });
+    }
+
+    /**
+     * The stored days in [from, to), oldest first; days without visits have no row.
+     */
+    public List<DayStats> findDays(long doctorId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("""
+                        SELECT visit_date, visits, booked_minutes, patients, patient_sketch
+                        FROM doctor_daily_stats
+                        WHERE doctor_id = ? AND visit_date >= ? AND visit_date < ?
+                        ORDER BY visit_date
+                        """,
+                (rs, rowNum) -> new DayStats(rs.getDate(1).toLocalDate(), rs.getInt(2), rs.getLong(3),
+                        rs.getInt(4), rs.getBytes(5)),
+                doctorId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Merges the patient sketches of each doctor over its last {@code days} local days, today included.
+     * The doctors' timezones differ, so the rows of the widest window are read in one range scan of the
+     * primary key per doctor and each is checked against its doctor's own today.
+     *
+     * @return a sketch per doctor with at least one day in its window
+     */
+    public Map<Long, HyperLogLog> mergeRecentDays(Collection<Long> doctorIds, int days) {
+        Map<Long, HyperLogLog> sketches = new HashMap<>();
+        if (doctorIds.isEmpty()) {
+            return sketches;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<String, LocalDate> todayByZone = new HashMap<>();
+        namedJdbcTemplate.query("""
+                        SELECT s.doctor_id, d.timezone, s.visit_date, s.patient_sketch
+                        FROM doctor_daily_stats s
+                        JOIN doctors d ON d.id = s.doctor_id
+                        WHERE s.doctor_id IN (:doctorIds) AND s.visit_date >= :from AND s.visit_date <= :to
+                        """,
+                new MapSqlParameterSource()
+                        .addValue("doctorIds", doctorIds)
+                        .addValue("from", Date.valueOf(today.minusDays(days)))
+                        .addValue("to", Date.valueOf(today.plusDays(1))),
+                (RowCallbackHandler) rs -> {
+                    LocalDate localToday = todayByZone.computeIfAbsent(rs.getString(2),
+                            timezone -> LocalDate.now(IsoDateTimes.zone(timezone)));
+                    LocalDate day = rs.getDate(3).toLocalDate();
+                    if (day.isAfter(localToday) || !day.isAfter(localToday.minusDays(days))) {
+                        return;
+                    }
+                    sketches.computeIfAbsent(rs.getLong(1), doctorId -> new HyperLogLog()).merge(rs.getBytes(4));
+                });
+        return sketches;
+    }
+
+    /**
+     * Streams the visits of [from, to) in start order and folds them into days, holding one day at a time.
+     */
+    private List<DayStats> aggregate(long doctorId, ZoneId zone, LocalDate from, LocalDate to) {
+        List<DayStats> days = new ArrayList<>();
+        DayAccumulator current = new DayAccumulator();
+        jdbcTemplate.query("""
+                        SELECT start_date_time, end_date_time, patient_id
+                        FROM visits
+                        WHERE doctor_id = ? AND start_date_time >= ? AND start_date_time < ?
+                        ORDER BY start_date_time
+                        """,
+                (RowCallbackHandler) rs -> {
+                    long start = rs.getLong(1);
+                    LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(start), zone);
+                    if (!day.equals(current.day)) {
+                        current.flushTo(days);
+                        current.day = day;
+                    }
+                    current.visits++;
+                    current.bookedMillis += rs.getLong(2) - start;
+                    current.patients.add(rs.getLong(3));
+                },
+                doctorId, startOf(from, zone), startOf(to, zone));
+        current.flushTo(days);
+        return days;
+    }
+
+    private static LocalDate localDay(Number epochMilli, ZoneId zone) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMilli.longValue()), zone);
+    }
+
+    private static long startOf(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static final class DayAccumulator {
+        private LocalDate day;
+        private int visits;
+        private long bookedMillis;
+        private final Set<Long> patients = new HashSet<>();
+
+        void flushTo(List<DayStats> days) {
+            if (visits > 0) {
+                HyperLogLog sketch = new HyperLogLog();
+                patients.forEach(sketch::add);
+                days.add(new DayStats(day, visits, bookedMillis / 60_000L, patients.size(), sketch.encode()));
+            }
+            visits = 0;
+            bookedMillis = 0;
+            patients.clear();
+        }
+    }
+}
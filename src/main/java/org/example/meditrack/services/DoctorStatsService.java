@@ -0,0 +1,165 @@
+package org.example.meditrack.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.meditrack.dtos.DoctorDayStatsResponse;
+import org.example.meditrack.dtos.DoctorStatsResponse;
+import org.example.meditrack.dtos.StatsBackfillReport;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.services.DoctorStatsRollup.DayStats;
+import org.example.meditrack.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Dashboard statistics per doctor, read from the {@code doctor_daily_stats} rollup instead of the visits:
+ * a year of one doctor is at most 366 rows, and its distinct patients are the merge of their sketches. The
+ * rollup follows bookings through the visit outbox and visit imports chunk by chunk; visits stored before the
+ * rollup existed are brought in by {@link #backfill()}.
+ */
+@Slf4j
+@Service
+public class DoctorStatsService {
+
+    public static final int MAX_DAYS = 366;
+    public static final int MAX_WINDOW_DAYS = 365;
+
+    private final DoctorStatsRollup rollup;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    @Value("${meditrack.stats.backfill-chunk-days:31}")
+    private int chunkDays = 31;
+
+    public DoctorStatsService(DoctorStatsRollup rollup, JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.rollup = rollup;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * @param from first local day, inclusive ({@code yyyy-MM-dd})
+     * @param to   last local day, exclusive
+     */
+    public DoctorStatsResponse getStats(Long doctorId, String from, String to) {
+        String timezone = jdbcTemplate.query("SELECT timezone FROM doctors WHERE id = ?",
+                        (rs, rowNum) -> rs.getString(1), doctorId)
+                .stream().findFirst()
+                .orElseThrow(() -> new BusinessException("Doctor not found"));
+        LocalDate fromDay = parseDay(from);
+        LocalDate toDay = parseDay(to);
+        if (!fromDay.isBefore(toDay)) {
+            throw new BusinessException("'from' must be before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(fromDay, toDay) > MAX_DAYS) {
+            throw new BusinessException("A stats range can span at most " + MAX_DAYS + " days");
+        }
+
+        List<DayStats> days = rollup.findDays(doctorId, fromDay, toDay);
+        List<DoctorDayStatsResponse> dayResponses = new ArrayList<>(days.size());
+        long visits = 0;
+        long bookedMinutes = 0;
+        HyperLogLog patients = new HyperLogLog();
+        for (DayStats day : days) {
+            visits += day.visits();
+            bookedMinutes += day.bookedMinutes();
+            patients.merge(day.patientSketch());
+            dayResponses.add(DoctorDayStatsResponse.builder()
+                    .date(day.day().toString())
+                    .visits(day.visits())
+                    .bookedMinutes(day.bookedMinutes())
+                    .patients(day.patients())
+                    .build());
+        }
+        return DoctorStatsResponse.builder()
+                .doctorId(doctorId)
+                .timezone(timezone)
+                .from(fromDay.toString())
+                .to(toDay.toString())
+                .visits(visits)
+                .bookedMinutes(bookedMinutes)
+                .patients(patients.estimate())
+                .days(dayResponses)
+                .build();
+    }
+
+    /**
+     * Distinct patients of each doctor over its last {@code days} local days, today included, estimated by
+     * merging at most {@value #MAX_WINDOW_DAYS} daily sketches per doctor instead of counting their visits.
+     * Doctors are read on the shard that holds their visits.
+     *
+     * @param days 1 to {@value #MAX_WINDOW_DAYS}
+     * @return the estimate per doctor; doctors without visits in the window are absent
+     */
+    public Map<Long, Integer> countRecentPatients(Collection<Long> doctorIds, int days) {
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long doctorId : doctorIds) {
+            idsByShard.computeIfAbsent(shardRouter.shardOf(doctorId), shard -> new ArrayList<>()).add(doctorId);
+        }
+        Map<Long, Integer> counts = new HashMap<>(doctorIds.size() * 2);
+        idsByShard.forEach((shard, shardIds) ->
+                shardRouter.onShard(shard, () -> rollup.mergeRecentDays(shardIds, days))
+                        .forEach((doctorId, sketch) -> counts.put(doctorId, (int) sketch.estimate())));
+        return counts;
+    }
+
+    /**
+     * Rebuilds the rollup of every doctor on every shard from the stored visits, {@code chunkDays} days of
+     * one doctor per transaction. Safe to run at any time and to run again; days without visits lose their row,
+     * including those outside a doctor's first and last visit and every day of a doctor without visits.
+     */
+    public StatsBackfillReport backfill() {
+        long started = System.nanoTime();
+        StatsBackfillReport report = StatsBackfillReport.builder().build();
+        shardRouter.onEachShard(() -> {
+            List<Map<String, Object>> doctors = jdbcTemplate.queryForList("""
+                    SELECT d.id, d.timezone, MIN(v.start_date_time) AS first_start, MAX(v.start_date_time) AS last_start
+                    FROM doctors d
+                    JOIN visits v ON v.doctor_id = d.id
+                    GROUP BY d.id, d.timezone
+                    ORDER BY d.id
+                    """);
+            for (Map<String, Object> doctor : doctors) {
+                long doctorId = ((Number) doctor.get("id")).longValue();
+                ZoneId zone = IsoDateTimes.zone((String) doctor.get("timezone"));
+                LocalDate first = localDay(((Number) doctor.get("first_start")).longValue(), zone);
+                LocalDate last = localDay(((Number) doctor.get("last_start")).longValue(), zone);
+                for (LocalDate chunk = first; !chunk.isAfter(last); chunk = chunk.plusDays(chunkDays)) {
+                    for (DayStats day : rollup.rebuildDays(doctorId, zone, chunk, chunk.plusDays(chunkDays))) {
+                        report.setDays(report.getDays() + 1);
+                        report.setVisits(report.getVisits() + day.visits());
+                    }
+                }
+                rollup.pruneDays(doctorId);
+                report.setDoctors(report.getDoctors() + 1);
+            }
+            jdbcTemplate.queryForList("""
+                    SELECT DISTINCT s.doctor_id
+                    FROM doctor_daily_stats s
+                    WHERE NOT EXISTS (SELECT 1 FROM visits v WHERE v.doctor_id = s.doctor_id)
+                    """, Long.class).forEach(rollup::pruneDays);
+        });
+        log.info("Stats backfill wrote {} days of {} doctors ({} visits) in {} ms", report.getDays(),
+                report.getDoctors(), report.getVisits(), (System.nanoTime() - started) / 1_000_000L);
+        return report;
+    }
+
+    private static LocalDate localDay(long epochMilli, ZoneId zone) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMilli), zone);
+    }
+
+    private static LocalDate parseDay(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("Invalid date: " + value);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.meditrack.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.meditrack.exceptions.BusinessException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for import files. Records are returned one at a time as values ordered like the
+ * requested columns, so nothing but the current record is held in memory.
+ * <ul>
+ *     <li>CSV: the first line is a header naming the columns (any order, case-insensitive); fields may be
+ *     double-quoted with {@code ""} as an escaped quote.</li>
+ *     <li>NDJSON: one JSON object per line; unknown properties are ignored.</li>
+ * </ul>
+ */
+public class ImportRecordReader implements Closeable {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Format format;
+    private final String[] columns;
+    private final BufferedReader csvReader;
+    private final JsonParser jsonParser;
+    private int[] csvColumnIndexes;
+    private long recordNumber;
+
+    public ImportRecordReader(Format format, InputStream in, String... columns) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        if (format == Format.CSV) {
+            this.csvReader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            this.jsonParser = null;
+            readCsvHeader();
+        } else {
+            this.csvReader = null;
+            this.jsonParser = JSON_FACTORY.createParser(in);
+        }
+    }
+
+    /**
+     * Line (CSV) or record (NDJSON) number of the record last returned by {@link #next()}, for error reports.
+     */
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return the values of the next record in column order (missing values are {@code null}),
+     * or {@code null} at the end of the input
+     */
+    public String[] next() throws IOException {
+        return format == Format.CSV ? nextCsv() : nextJson();
+    }
+
+    private void readCsvHeader() throws IOException {
+        String header = csvReader.readLine();
+        recordNumber = 1;
+        if (header == null) {
+            throw new BusinessException("CSV header is missing");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = splitCsv(header);
+        csvColumnIndexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            csvColumnIndexes[i] = -1;
+            for (int j = 0; j < names.size(); j++) {
+                if (names.get(j).trim().equalsIgnoreCase(columns[i])) {
+                    csvColumnIndexes[i] = j;
+                    break;
+                }
+            }
+            if (csvColumnIndexes[i] < 0) {
+                throw new BusinessException("CSV header is missing column '" + columns[i] + "'");
+            }
+        }
+    }
+
+    private String[] nextCsv() throws IOException {
+        String line;
+        do {
+            line = csvReader.readLine();
+            recordNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        List<String> fields = splitCsv(line);
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int index = csvColumnIndexes[i];
+            values[i] = index < fields.size() ? emptyToNull(fields.get(index).trim()) : null;
+        }
+        return values;
+    }
+
+    private String[] nextJson() throws IOException {
+        JsonToken token = jsonParser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        recordNumber++;
+        if (token != JsonToken.START_OBJECT) {
+            throw new BusinessException("Record " + recordNumber + ": expected a JSON object");
+        }
+        String[] values = new String[columns.length];
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = jsonParser.currentName();
+            JsonToken value = jsonParser.nextToken();
+            int index = columnIndex(name);
+            if (index >= 0 && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                values[index] = emptyToNull(jsonParser.getText().trim());
+            } else if (value.isStructStart()) {
+                jsonParser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private int columnIndex(String name) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (csvReader != null) {
+            csvReader.close();
+        }
+        if (jsonParser != null) {
+            jsonParser.close();
+        }
+    }
+}
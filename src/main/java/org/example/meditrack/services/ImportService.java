@@ -0,0 +1,629 @@
+package org.example.meditrack.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.meditrack.dtos.ImportReport;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.ImportJob;
+import org.example.meditrack.models.Visit;
+import org.example.meditrack.repositories.ImportJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Bulk loading of patients, doctors and visits from CSV or NDJSON.
+ * <p>
+ * Input is parsed as a stream and written in chunks, each chunk in its own transaction together with the
+ * job progress, so an interrupted import loses at most one chunk:
+ * <ul>
+ *     <li>patients and doctors: resuming a job skips the accepted rows it already committed;</li>
+ *     <li>visits: re-importing is idempotent, a visit identical to a stored one is skipped.</li>
+ * </ul>
+ * Visits are validated without a query per row: patient and doctor references are resolved against
+ * in-memory id sets, and overlaps are found by sorting the file per doctor and sweeping it together with
+ * the doctor's stored visits in the same time span (one range query per doctor).
+ * <p>
+ * The sweep reads without locks, so each visit chunk locks its doctors, like bookings do, and checks its rows
+ * against their stored visits once more before inserting; a booking committed since the sweep rejects the
+ * rows it overlaps. Imported visits write no outbox events. The chunk instead recomputes the
+ * {@code doctor_daily_stats} days it touched in its own transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_TIMEZONE_LENGTH = 50;
+    private static final int STORED_DUPLICATE = 1;
+    private static final int STORED_OVERLAP = 2;
+
+    private static final String[] PATIENT_COLUMNS = {"first_name", "last_name"};
+    private static final String[] DOCTOR_COLUMNS = {"first_name", "last_name", "timezone"};
+    private static final String[] VISIT_COLUMNS = {"start_date_time", "end_date_time", "patient_id", "doctor_id"};
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportBatchWriter batchWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PatientHistoryCache patientHistoryCache;
+    private final DoctorStatsRollup doctorStatsRollup;
+
+    @Value("${meditrack.import.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    public ImportReport importData(ImportJob.Kind kind, ImportRecordReader.Format format, InputStream in, Long jobId) {
+        ImportJob job = startJob(kind, jobId);
+        ChunkedInserter inserter;
+        try (ImportRecordReader reader = openReader(kind, format, in)) {
+            switch (kind) {
+                case PATIENTS -> inserter = importPatients(reader, job);
+                case DOCTORS -> inserter = importDoctors(reader, job);
+                default -> inserter = importVisits(reader, job);
+            }
+        } catch (IOException e) {
+            failJob(job);
+            throw new BusinessException("Failed to read import data: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            failJob(job);
+            throw e;
+        } finally {
+            if (kind == ImportJob.Kind.VISITS) {
+                // chunks commit as they go, so a failed import may have added visits as well
+                patientHistoryCache.clear();
+            }
+        }
+
+        job.setStatus(ImportJob.Status.COMPLETED);
+        job.setCommittedRows(inserter.committed);
+        job.setRejectedRows(inserter.rejected);
+        job.setUpdatedAt(Instant.now());
+        importJobRepository.save(job);
+        log.info("Import job {} ({}) completed: {} inserted, {} skipped, {} rejected",
+                job.getId(), kind, inserter.inserted, inserter.skipped, inserter.rejected);
+
+        return ImportReport.builder()
+                .jobId(job.getId())
+                .kind(kind.name())
+                .status(job.getStatus().name())
+                .inserted(inserter.inserted)
+                .skipped(inserter.skipped)
+                .rejected(inserter.rejected)
+                .errors(inserter.errors)
+                .build();
+    }
+
+    private ImportJob startJob(ImportJob.Kind kind, Long jobId) {
+        Instant now = Instant.now();
+        if (jobId == null) {
+            return importJobRepository.save(ImportJob.builder()
+                    .kind(kind)
+                    .status(ImportJob.Status.RUNNING)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+
+        ImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new BusinessException("Import job not found"));
+        if (job.getKind() != kind) {
+            throw new BusinessException("Import job " + jobId + " is a " + job.getKind() + " import");
+        }
+        if (job.getStatus() == ImportJob.Status.COMPLETED) {
+            throw new BusinessException("Import job " + jobId + " is already completed");
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setUpdatedAt(now);
+        return importJobRepository.save(job);
+    }
+
+    private void failJob(ImportJob job) {
+        try {
+            importJobRepository.findById(job.getId()).ifPresent(stored -> {
+                stored.setStatus(ImportJob.Status.FAILED);
+                stored.setUpdatedAt(Instant.now());
+                importJobRepository.save(stored);
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not mark import job {} as failed", job.getId(), e);
+        }
+    }
+
+    private ImportRecordReader openReader(ImportJob.Kind kind, ImportRecordReader.Format format,
+                                          InputStream in) throws IOException {
+        return switch (kind) {
+            case PATIENTS -> new ImportRecordReader(format, in, "firstName", "lastName");
+            case DOCTORS -> new ImportRecordReader(format, in, "firstName", "lastName", "timezone");
+            case VISITS -> new ImportRecordReader(format, in, "start", "end", "patientId", "doctorId");
+        };
+    }
+
+    private ChunkedInserter importPatients(ImportRecordReader reader, ImportJob job) throws IOException {
+        ChunkedInserter inserter = new ChunkedInserter(job, "patients", PATIENT_COLUMNS, job.getCommittedRows());
+        String[] record;
+        while ((record = reader.next()) != null) {
+            String error = validateName(record[0], "firstName");
+            if (error == null) {
+                error = validateName(record[1], "lastName");
+            }
+            if (error != null) {
+                inserter.reject(reader.recordNumber(), error);
+            } else {
+                inserter.accept(new Object[]{record[0], record[1]}, reader.recordNumber());
+            }
+        }
+        inserter.flush();
+        return inserter;
+    }
+
+    private ChunkedInserter importDoctors(ImportRecordReader reader, ImportJob job) throws IOException {
+        ChunkedInserter inserter = new ChunkedInserter(job, "doctors", DOCTOR_COLUMNS, job.getCommittedRows());
+        Map<String, Boolean> validTimezones = new HashMap<>();
+        String[] record;
+        while ((record = reader.next()) != null) {
+            String error = validateName(record[0], "firstName");
+            if (error == null) {
+                error = validateName(record[1], "lastName");
+            }
+            if (error == null) {
+                String timezone = record[2];
+                if (timezone == null) {
+                    error = "timezone is required";
+                } else if (!validTimezones.computeIfAbsent(timezone, ImportService::isValidTimezone)) {
+                    error = "invalid timezone '" + timezone + "'";
+                }
+            }
+            if (error != null) {
+                inserter.reject(reader.recordNumber(), error);
+            } else {
+                inserter.accept(new Object[]{record[0], record[1], record[2]}, reader.recordNumber());
+            }
+        }
+        inserter.flush();
+        return inserter;
+    }
+
+    private ChunkedInserter importVisits(ImportRecordReader reader, ImportJob job) throws IOException {
+        ChunkedInserter inserter = new ChunkedInserter(job, "visits", VISIT_COLUMNS, 0);
+        Set<Long> doctorIds = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM doctors", Long.class));
+        long[] patientIds = loadSortedIds("SELECT id FROM patients ORDER BY id");
+
+        VisitBuffer visits = new VisitBuffer();
+        String[] record;
+        while ((record = reader.next()) != null) {
+            long recordNumber = reader.recordNumber();
+            if (record[0] == null || record[1] == null || record[2] == null || record[3] == null) {
+                inserter.reject(recordNumber, "start, end, patientId and doctorId are required");
+                continue;
+            }
+            long start;
+            long end;
+            long patientId;
+            long doctorId;
+            try {
+                start = ZonedDateTime.parse(record[0]).toInstant().toEpochMilli();
+                end = ZonedDateTime.parse(record[1]).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                inserter.reject(recordNumber, "invalid date-time");
+                continue;
+            }
+            try {
+                patientId = Long.parseLong(record[2]);
+                doctorId = Long.parseLong(record[3]);
+            } catch (NumberFormatException e) {
+                inserter.reject(recordNumber, "invalid patientId or doctorId");
+                continue;
+            }
+            if (start >= end) {
+                inserter.reject(recordNumber, "start time must be before end time");
+            } else if (end - start > Visit.MAX_LENGTH.toMillis()) {
+                inserter.reject(recordNumber, "a visit can last at most 24 hours");
+            } else if (!doctorIds.contains(doctorId)) {
+                inserter.reject(recordNumber, "doctor " + doctorId + " not found");
+            } else if (Arrays.binarySearch(patientIds, patientId) < 0) {
+                inserter.reject(recordNumber, "patient " + patientId + " not found");
+            } else {
+                visits.add(start, end, patientId, doctorId, recordNumber);
+            }
+        }
+
+        int[] order = visits.sortedByDoctorAndStart();
+        for (int groupStart = 0; groupStart < order.length; ) {
+            long doctorId = visits.doctorId[order[groupStart]];
+            int groupEnd = groupStart;
+            while (groupEnd < order.length && visits.doctorId[order[groupEnd]] == doctorId) {
+                groupEnd++;
+            }
+            sweepDoctor(visits, order, groupStart, groupEnd, inserter);
+            groupStart = groupEnd;
+        }
+        inserter.flush();
+        return inserter;
+    }
+
+    /**
+     * Overlap check for one doctor's visits, {@code order[from, to)} sorted by start. Overlap is inclusive,
+     * as in {@code VisitRepository.countOverlappingVisits}: visits touching at an endpoint conflict.
+     */
+    private void sweepDoctor(VisitBuffer visits, int[] order, int from, int to, ChunkedInserter inserter) {
+        long doctorId = visits.doctorId[order[from]];
+        long minStart = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            minStart = Math.min(minStart, visits.start[order[i]]);
+            maxEnd = Math.max(maxEnd, visits.end[order[i]]);
+        }
+        StoredVisits stored = loadStoredVisits(doctorId, minStart, maxEnd);
+
+        long acceptedMaxEnd = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            int visit = order[i];
+            long start = visits.start[visit];
+            long end = visits.end[visit];
+
+            int duplicate = stored.indexOf(start, end, visits.patientId[visit]);
+            if (duplicate >= 0) {
+                inserter.skipped++;
+                acceptedMaxEnd = Math.max(acceptedMaxEnd, end);
+            } else if (stored.overlaps(start, end)) {
+                inserter.reject(visits.recordNumber[visit], "overlaps an existing visit of doctor " + doctorId);
+            } else if (start <= acceptedMaxEnd) {
+                inserter.reject(visits.recordNumber[visit], "overlaps another visit of doctor " + doctorId
+                        + " in this import");
+            } else {
+                acceptedMaxEnd = end;
+                inserter.accept(new Object[]{
+                        start,
+                        end,
+                        visits.patientId[visit],
+                        doctorId
+                }, visits.recordNumber[visit]);
+            }
+        }
+    }
+
+    private StoredVisits loadStoredVisits(long doctorId, long fromMillis, long toMillis) {
+        StoredVisits stored = new StoredVisits();
+        jdbcTemplate.query("""
+                        SELECT start_date_time, end_date_time, patient_id
+                        FROM visits
+                        WHERE doctor_id = ? AND start_date_time <= ? AND end_date_time >= ?
+                        ORDER BY start_date_time
+                        """,
+                rs -> {
+                    stored.add(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+                },
+                doctorId, toMillis, fromMillis);
+        stored.computePrefixMaxEnd();
+        return stored;
+    }
+
+    /**
+     * Locks the doctors of a visit chunk in id order, before anything is read, so the overlap re-check and the
+     * rollup days recomputed at the end of the chunk see every visit of those doctors committed before.
+     */
+    private void lockDoctors(List<Object[]> visitRows) {
+        Set<Long> doctorIds = new TreeSet<>();
+        for (Object[] row : visitRows) {
+            doctorIds.add((Long) row[3]);
+        }
+        for (Long doctorId : doctorIds) {
+            jdbcTemplate.queryForObject("SELECT id FROM doctors WHERE id = ? FOR UPDATE", Long.class, doctorId);
+        }
+    }
+
+    /**
+     * Checks the rows of a visit chunk, under the doctor locks, against the visits stored since the sweep:
+     * one range query per doctor, as in {@link #sweepDoctor}.
+     *
+     * @param outcome set to {@link #STORED_DUPLICATE} or {@link #STORED_OVERLAP} per row; left 0 for rows to insert
+     */
+    private void recheckStoredVisits(List<Object[]> visitRows, int[] outcome) {
+        Map<Long, long[]> spans = new HashMap<>();
+        for (Object[] row : visitRows) {
+            spans.merge((Long) row[3], new long[]{(Long) row[0], (Long) row[1]},
+                    (a, b) -> new long[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+        }
+        Map<Long, StoredVisits> storedByDoctor = new HashMap<>();
+        spans.forEach((doctorId, span) -> storedByDoctor.put(doctorId, loadStoredVisits(doctorId, span[0], span[1])));
+        for (int i = 0; i < visitRows.size(); i++) {
+            Object[] row = visitRows.get(i);
+            long start = (Long) row[0];
+            long end = (Long) row[1];
+            StoredVisits stored = storedByDoctor.get((Long) row[3]);
+            if (stored.indexOf(start, end, (Long) row[2]) >= 0) {
+                outcome[i] = STORED_DUPLICATE;
+            } else if (stored.overlaps(start, end)) {
+                outcome[i] = STORED_OVERLAP;
+            }
+        }
+    }
+
+    private static Map<Long, List<Instant>> startsByDoctor(List<Object[]> visitRows) {
+        Map<Long, List<Instant>> startsByDoctor = new TreeMap<>();
+        for (Object[] row : visitRows) {
+            startsByDoctor.computeIfAbsent((Long) row[3], doctorId -> new ArrayList<>())
+                    .add(Instant.ofEpochMilli((Long) row[0]));
+        }
+        return startsByDoctor;
+    }
+
+    /**
+     * Raises {@code patients.last_visit_at} to the latest start among the imported visits of each patient.
+     */
+    private void raiseLastVisits(List<Object[]> visitRows) {
+        Map<Long, Long> latestStarts = new HashMap<>();
+        for (Object[] row : visitRows) {
+            latestStarts.merge((Long) row[2], (Long) row[0], Math::max);
+        }
+        List<Object[]> updates = new ArrayList<>(latestStarts.size());
+        latestStarts.forEach((patientId, start) -> updates.add(new Object[]{start, patientId}));
+        jdbcTemplate.batchUpdate("UPDATE patients SET last_visit_at = GREATEST(last_visit_at, ?) WHERE id = ?",
+                updates);
+    }
+
+    private long[] loadSortedIds(String sql) {
+        long[][] ids = {new long[1024]};
+        int[] size = {0};
+        jdbcTemplate.query(sql, rs -> {
+            if (size[0] == ids[0].length) {
+                ids[0] = Arrays.copyOf(ids[0], size[0] * 2);
+            }
+            ids[0][size[0]++] = rs.getLong(1);
+        });
+        return Arrays.copyOf(ids[0], size[0]);
+    }
+
+    private static String validateName(String value, String field) {
+        if (value == null) {
+            return field + " is required";
+        }
+        if (value.length() > MAX_NAME_LENGTH) {
+            return field + " is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isValidTimezone(String timezone) {
+        if (timezone.length() > MAX_TIMEZONE_LENGTH) {
+            return false;
+        }
+        try {
+            ZoneId.of(timezone);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Buffers accepted rows and writes them a chunk at a time; each chunk and the job progress commit together.
+     */
+    private final class ChunkedInserter {
+        private final ImportJob job;
+        private final String table;
+        private final String[] columns;
+        private final List<Object[]> pending = new ArrayList<>();
+        private final List<Long> pendingRecords = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long toSkip;
+        private long committed;
+        private long inserted;
+        private long skipped;
+        private long rejected;
+
+        ChunkedInserter(ImportJob job, String table, String[] columns, long toSkip) {
+            this.job = job;
+            this.table = table;
+            this.columns = columns;
+            this.toSkip = toSkip;
+            this.committed = toSkip;
+        }
+
+        void reject(long recordNumber, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Record " + recordNumber + ": " + reason);
+            }
+        }
+
+        void accept(Object[] row, long recordNumber) {
+            if (toSkip > 0) {
+                toSkip--;
+                skipped++;
+                return;
+            }
+            pending.add(row);
+            pendingRecords.add(recordNumber);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            boolean visits = table.equals("visits");
+            int[] outcome = new int[pending.size()];
+            List<Object[]> rows = new ArrayList<>(pending.size());
+            transactionTemplate.executeWithoutResult(status -> {
+                Arrays.fill(outcome, 0);
+                rows.clear();
+                if (visits) {
+                    lockDoctors(pending);
+                    recheckStoredVisits(pending, outcome);
+                }
+                long overlapping = 0;
+                for (int i = 0; i < pending.size(); i++) {
+                    if (outcome[i] == 0) {
+                        rows.add(pending.get(i));
+                    } else if (outcome[i] == STORED_OVERLAP) {
+                        overlapping++;
+                    }
+                }
+                batchWriter.insert(table, columns, rows);
+                if (visits) {
+                    raiseLastVisits(rows);
+                    startsByDoctor(rows).forEach(doctorStatsRollup::refreshDaysOf);
+                }
+                jdbcTemplate.update(
+                        "UPDATE import_jobs SET committed_rows = ?, rejected_rows = ?, updated_at = ? WHERE id = ?",
+                        committed + rows.size(), rejected + overlapping, Timestamp.from(Instant.now()), job.getId());
+            });
+            for (int i = 0; i < outcome.length; i++) {
+                if (outcome[i] == STORED_DUPLICATE) {
+                    skipped++;
+                } else if (outcome[i] == STORED_OVERLAP) {
+                    reject(pendingRecords.get(i), "overlaps an existing visit of doctor " + pending.get(i)[3]);
+                }
+            }
+            inserted += rows.size();
+            committed += rows.size();
+            pending.clear();
+            pendingRecords.clear();
+        }
+    }
+
+    /**
+     * Columnar buffer of parsed visits; a million visits take ~40 MB.
+     */
+    private static final class VisitBuffer {
+        long[] start = new long[1024];
+        long[] end = new long[1024];
+        long[] patientId = new long[1024];
+        long[] doctorId = new long[1024];
+        long[] recordNumber = new long[1024];
+        int size;
+
+        void add(long visitStart, long visitEnd, long patient, long doctor, long record) {
+            if (size == start.length) {
+                int capacity = size * 2;
+                start = Arrays.copyOf(start, capacity);
+                end = Arrays.copyOf(end, capacity);
+                patientId = Arrays.copyOf(patientId, capacity);
+                doctorId = Arrays.copyOf(doctorId, capacity);
+                recordNumber = Arrays.copyOf(recordNumber, capacity);
+            }
+            start[size] = visitStart;
+            end[size] = visitEnd;
+            patientId[size] = patient;
+            doctorId[size] = doctor;
+            recordNumber[size] = record;
+            size++;
+        }
+
+        int[] sortedByDoctorAndStart() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            mergeSort(order, new int[size], 0, size);
+            return order;
+        }
+
+        private void mergeSort(int[] order, int[] scratch, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(order, scratch, from, middle);
+            mergeSort(order, scratch, middle, to);
+            if (compare(order[middle - 1], order[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, scratch, from, to - from);
+            for (int i = from, left = from, right = middle; i < to; i++) {
+                if (right >= to || (left < middle && compare(scratch[left], scratch[right]) <= 0)) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+
+        private int compare(int a, int b) {
+            int byDoctor = Long.compare(doctorId[a], doctorId[b]);
+            if (byDoctor != 0) {
+                return byDoctor;
+            }
+            int byStart = Long.compare(start[a], start[b]);
+            return byStart != 0 ? byStart : Long.compare(recordNumber[a], recordNumber[b]);
+        }
+    }
+
+    /**
+     * A doctor's stored visits in the imported time span, sorted by start, with the running maximum of
+     * their ends so that "does any stored visit overlap [s, e]" is a binary search.
+     */
+    private static final class StoredVisits {
+        long[] start = new long[16];
+        long[] end = new long[16];
+        long[] patientId = new long[16];
+        long[] prefixMaxEnd;
+        int size;
+
+        void add(long visitStart, long visitEnd, long patient) {
+            if (size == start.length) {
+                start = Arrays.copyOf(start, size * 2);
+                end = Arrays.copyOf(end, size * 2);
+                patientId = Arrays.copyOf(patientId, size * 2);
+            }
+            start[size] = visitStart;
+            end[size] = visitEnd;
+            patientId[size] = patient;
+            size++;
+        }
+
+        void computePrefixMaxEnd() {
+            prefixMaxEnd = new long[size];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, end[i]);
+                prefixMaxEnd[i] = max;
+            }
+        }
+
+        int indexOf(long visitStart, long visitEnd, long patient) {
+            for (int i = lastStartAtOrBefore(visitStart); i >= 0 && start[i] == visitStart; i--) {
+                if (end[i] == visitEnd && patientId[i] == patient) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        boolean overlaps(long visitStart, long visitEnd) {
+            int last = lastStartAtOrBefore(visitEnd);
+            return last >= 0 && prefixMaxEnd[last] >= visitStart;
+        }
+
+        private int lastStartAtOrBefore(long value) {
+            int low = 0;
+            int high = size - 1;
+            int result = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (start[middle] <= value) {
+                    result = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.meditrack.services;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocation-light rendering of instants as {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME} strings in a
+ * given zone. The listing formats two timestamps per visit, and going through {@code ZonedDateTime} and the
+ * generic formatter allocates several intermediate objects per call; this writes the characters directly
+ * and produces exactly the same text.
+ */
+public final class IsoDateTimes {
+
+    private static final Map<String, ZoneId> ZONES = new ConcurrentHashMap<>();
+
+    private IsoDateTimes() {
+    }
+
+    public static ZoneId zone(String timezone) {
+        return ZONES.computeIfAbsent(timezone, ZoneId::of);
+    }
+
+    /**
+     * Formats a stored visit time (see {@code InstantEpochMillisConverter}) straight from its column value.
+     */
+    public static String formatEpochMilli(long epochMilli, ZoneId zone) {
+        return format(Instant.ofEpochMilli(epochMilli), zone);
+    }
+
+    public static String format(Instant instant, ZoneId zone) {
+        ZoneOffset offset = zone.getRules().getOffset(instant);
+        int nanos = instant.getNano();
+        long localSecond = instant.getEpochSecond() + offset.getTotalSeconds();
+        long epochDay = Math.floorDiv(localSecond, 86_400L);
+        int secondOfDay = (int) Math.floorMod(localSecond, 86_400L);
+
+        // Civil-from-days conversion (proleptic Gregorian), as used by LocalDate.ofEpochDay.
+        long zeroDay = epochDay + 719_528L - 60L;
+        long era = Math.floorDiv(zeroDay, 146_097L);
+        long dayOfEra = zeroDay - era * 146_097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460L + dayOfEra / 36_524L - dayOfEra / 146_096L) / 365L;
+        long dayOfYear = dayOfEra - (365L * yearOfEra + yearOfEra / 4L - yearOfEra / 100L);
+        int marchMonth = (int) ((5L * dayOfYear + 2L) / 153L);
+        int day = (int) (dayOfYear - (153L * marchMonth + 2L) / 5L + 1L);
+        int month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        long year = yearOfEra + era * 400L + (month <= 2 ? 1 : 0);
+
+        if (year < 0 || year > 9999) {
+            return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(instant.atZone(zone));
+        }
+
+        char[] buf = new char[40];
+        int pos = 0;
+        pos = digits(buf, pos, (int) year, 4);
+        buf[pos++] = '-';
+        pos = digits(buf, pos, month, 2);
+        buf[pos++] = '-';
+        pos = digits(buf, pos, day, 2);
+        buf[pos++] = 'T';
+        pos = digits(buf, pos, secondOfDay / 3600, 2);
+        buf[pos++] = ':';
+        pos = digits(buf, pos, secondOfDay / 60 % 60, 2);
+        buf[pos++] = ':';
+        pos = digits(buf, pos, secondOfDay % 60, 2);
+        if (nanos != 0) {
+            int fraction = nanos;
+            int width = 9;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                width--;
+            }
+            buf[pos++] = '.';
+            pos = digits(buf, pos, fraction, width);
+        }
+
+        int totalOffset = offset.getTotalSeconds();
+        if (totalOffset == 0) {
+            buf[pos++] = 'Z';
+        } else {
+            int absOffset = Math.abs(totalOffset);
+            buf[pos++] = totalOffset < 0 ? '-' : '+';
+            pos = digits(buf, pos, absOffset / 3600, 2);
+            buf[pos++] = ':';
+            pos = digits(buf, pos, absOffset / 60 % 60, 2);
+            if (absOffset % 60 != 0) {
+                buf[pos++] = ':';
+                pos = digits(buf, pos, absOffset % 60, 2);
+            }
+        }
+        return new String(buf, 0, pos);
+    }
+
+    private static int digits(char[] buf, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
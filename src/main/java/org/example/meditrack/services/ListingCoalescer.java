@@ -0,0 +1,176 @@
+package org.example.meditrack.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientSort;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.tracing.Trace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight in front of {@link VisitService#getPatients}: concurrent listings with the same normalized
+ * parameters share one execution. The first caller of a key runs the listing on its own thread; callers that
+ * arrive while it runs wait for its response instead of sending the same query. Nothing is kept once the
+ * flight lands, so this coalesces identical polls but never serves a response that was complete before the
+ * request arrived.
+ * <ul>
+ *     <li>A failure of the flight is rethrown to every caller waiting on it, so a bad search fails alike.</li>
+ *     <li>A waiting caller gives up after {@code meditrack.listing.coalescing.timeout-ms} and runs the
+ *     listing itself, so a stuck flight delays its followers by at most that long.</li>
+ * </ul>
+ * Callers receive the same response instance, which is not modified after it is built.
+ */
+@Component
+public class ListingCoalescer {
+
+    /**
+     * Search is lower-cased like the SQL comparison; doctor ids are sorted and deduplicated since they only
+     * form an {@code IN} list. Sort and cursor are null for offset pages, the patients window without one.
+     */
+    record Key(int page, int size, String search, List<Long> doctorIds, PatientFields fields,
+               PatientSort sort, String cursor, Integer patientsWindow) {
+
+        static Key of(Integer page, Integer size, String search, List<Long> doctorIds, PatientFields fields) {
+            return of(page, size, search, doctorIds, fields, null, null, null);
+        }
+
+        static Key of(Integer page, Integer size, String search, List<Long> doctorIds, PatientFields fields,
+                      PatientSort sort, String cursor, Integer patientsWindow) {
+            return new Key(page != null ? page : 0, size != null ? size : 20,
+                    search != null ? search.toLowerCase(Locale.ROOT) : null,
+                    doctorIds != null && !doctorIds.isEmpty() ? doctorIds.stream().sorted().distinct().toList() : null,
+                    fields, sort, cursor != null && !cursor.isBlank() ? cursor : null, patientsWindow);
+        }
+    }
+
+    private final VisitService visitService;
+    private final Map<Key, CompletableFuture<PatientsListResponse>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    @Value("${meditrack.listing.coalescing.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${meditrack.listing.coalescing.timeout-ms:5000}")
+    private long timeoutMillis = 5_000;
+
+    public ListingCoalescer(VisitService visitService, MeterRegistry meterRegistry) {
+        this.visitService = visitService;
+        FunctionCounter.builder("meditrack.listing.coalescing.requests", executions, AtomicLong::get)
+                .tag("role", "leader")
+                .description("Listings that ran the query")
+                .register(meterRegistry);
+        FunctionCounter.builder("meditrack.listing.coalescing.requests", coalesced, AtomicLong::get)
+                .tag("role", "follower")
+                .description("Listings answered by the query of a concurrent identical listing")
+                .register(meterRegistry);
+        FunctionCounter.builder("meditrack.listing.coalescing.timeouts", timeouts, AtomicLong::get)
+                .description("Followers that stopped waiting and ran the query themselves")
+                .register(meterRegistry);
+        Gauge.builder("meditrack.listing.coalescing.waiting", waiting, AtomicInteger::get)
+                .description("Followers currently waiting for a flight")
+                .register(meterRegistry);
+        Gauge.builder("meditrack.listing.coalescing.ratio", this, ListingCoalescer::coalescingRatio)
+                .description("Share of listings answered without a query of their own")
+                .register(meterRegistry);
+    }
+
+    public PatientsListResponse getPatients(Integer page, Integer size, String search, List<Long> doctorIds,
+                                            PatientFields fields, Integer patientsWindow) {
+        return coalesce(Key.of(page, size, search, doctorIds, fields, null, null, patientsWindow),
+                () -> visitService.getPatients(null, page, size, search, doctorIds, fields, patientsWindow));
+    }
+
+    public PatientsListResponse getSortedPatients(PatientSort sort, String cursor, Integer size, String search,
+                                                  List<Long> doctorIds, PatientFields fields,
+                                                  Integer patientsWindow) {
+        return coalesce(Key.of(null, size, search, doctorIds, fields, sort, cursor, patientsWindow),
+                () -> visitService.getSortedPatients(sort, cursor, size, search, doctorIds, fields, patientsWindow));
+    }
+
+    private PatientsListResponse coalesce(Key key, Supplier<PatientsListResponse> listing) {
+        if (!enabled) {
+            return listing.get();
+        }
+        CompletableFuture<PatientsListResponse> flight = new CompletableFuture<>();
+        CompletableFuture<PatientsListResponse> current = flights.putIfAbsent(key, flight);
+        if (current == null) {
+            return lead(key, flight, listing);
+        }
+        waiting.incrementAndGet();
+        try {
+            PatientsListResponse response = current.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            coalesced.incrementAndGet();
+            Trace.current().parameter("coalesced", true);
+            return response;
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+        } catch (ExecutionException e) {
+            coalesced.incrementAndGet();
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a concurrent listing", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        executions.incrementAndGet();
+        return listing.get();
+    }
+
+    private PatientsListResponse lead(Key key, CompletableFuture<PatientsListResponse> flight,
+                                      Supplier<PatientsListResponse> listing) {
+        executions.incrementAndGet();
+        try {
+            PatientsListResponse response = listing.get();
+            flight.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    long executions() {
+        return executions.get();
+    }
+
+    long coalesced() {
+        return coalesced.get();
+    }
+
+    long timeouts() {
+        return timeouts.get();
+    }
+
+    private double coalescingRatio() {
+        long followers = coalesced.get();
+        long total = followers + executions.get();
+        return total == 0 ? 0 : (double) followers / total;
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new CompletionException(cause);
+    }
+}
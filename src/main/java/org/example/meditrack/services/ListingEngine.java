@@ -0,0 +1,14 @@
+package org.example.meditrack.services;
+
+/**
+ * Where {@link VisitService#getPatients} reads the listing from.
+ * <ul>
+ *     <li>{@code DATABASE} - the listing queries, run as the {@link ListingStrategy} says.</li>
+ *     <li>{@code MEMORY} - the in-memory read model of {@link MemoryPatientListing}, falling back to the
+ *     database until it is loaded.</li>
+ * </ul>
+ */
+public enum ListingEngine {
+    DATABASE,
+    MEMORY
+}
@@ -0,0 +1,14 @@
+package org.example.meditrack.services;
+
+/**
+ * Execution strategy for {@link VisitService#getPatients}.
+ * <ul>
+ *     <li>{@code SINGLE_QUERY} - one CTE statement computes page, count, latest visits and doctor stats.</li>
+ *     <li>{@code FAN_OUT} - the page is fetched first, the remaining lookups run concurrently on separate
+ *     connections and are merged in memory, so latency is bounded by the slowest sub-query.</li>
+ * </ul>
+ */
+public enum ListingStrategy {
+    SINGLE_QUERY,
+    FAN_OUT
+}
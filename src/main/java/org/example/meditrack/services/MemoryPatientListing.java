@@ -0,0 +1,199 @@
+package org.example.meditrack.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.meditrack.readmodel.PatientReadModel;
+import org.example.meditrack.readmodel.ReadModelLoader;
+import org.example.meditrack.readmodel.ReadModelSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Serves the patient listing from a {@link PatientReadModel} when {@code meditrack.listing.engine} is
+ * {@code memory}. Until the model is loaded, {@link #isActive()} is false and the listing stays on the database.
+ * <ul>
+ *     <li>On startup the model is read from the snapshot file if there is one, otherwise loaded from the
+ *     database; either way it is then caught up and published, on a background thread.</li>
+ *     <li>Visits booked, cancelled or moved on this node are applied once their transaction commits, so the
+ *     change shows up in the next listing.</li>
+ *     <li>A periodic catch-up reads rows added by imports, other nodes or bookings that were not applied,
+ *     and the cancellations and reschedules of the visit outbox.</li>
+ *     <li>The snapshot is rewritten periodically and on shutdown.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class MemoryPatientListing {
+
+    private final ReadModelLoader loader;
+
+    @Value("${meditrack.listing.engine:database}")
+    private ListingEngine engine = ListingEngine.DATABASE;
+
+    @Value("${meditrack.listing.memory.snapshot-path:data/read-model.bin}")
+    private String snapshotPath = "data/read-model.bin";
+
+    private volatile PatientReadModel model;
+
+    public MemoryPatientListing(ReadModelLoader loader) {
+        this.loader = loader;
+    }
+
+    public boolean isActive() {
+        return model != null;
+    }
+
+    public List<Object[]> fetchRows(String search, List<Long> doctorIds, int offset, int pageSize) {
+        return model.fetchRows(search, doctorIds, offset, pageSize);
+    }
+
+    /**
+     * Applies a booked visit to the model after the surrounding transaction commits.
+     */
+    public void applyAfterCommit(long visitId, long patientId, long doctorId, long start, long end) {
+        if (engine != ListingEngine.MEMORY) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(visitId, patientId, doctorId, start, end);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(visitId, patientId, doctorId, start, end);
+            }
+        });
+    }
+
+    /**
+     * Looks up the latest visit of a (patient, doctor) pair again after the surrounding transaction, which
+     * cancelled or moved one of its visits, commits.
+     */
+    public void refreshPairAfterCommit(long patientId, long doctorId) {
+        if (engine != ListingEngine.MEMORY) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshPair(patientId, doctorId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshPair(patientId, doctorId);
+            }
+        });
+    }
+
+    private void refreshPair(long patientId, long doctorId) {
+        PatientReadModel current = model;
+        if (current == null) {
+            return;
+        }
+        // not applied when the model is busy or the lookup fails; the catch-up reads the change from the outbox
+        try {
+            loader.refreshPair(current, patientId, doctorId);
+        } catch (RuntimeException e) {
+            log.warn("Read model refresh of patient {} and doctor {} failed, left to the catch-up",
+                    patientId, doctorId, e);
+        }
+    }
+
+    private void apply(long visitId, long patientId, long doctorId, long start, long end) {
+        PatientReadModel current = model;
+        if (current != null) {
+            // not applied when the patient is new to the model or the model is busy; the catch-up reads it
+            current.tryApply(visitId, patientId, doctorId, start, end);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (engine != ListingEngine.MEMORY) {
+            return;
+        }
+        Thread thread = new Thread(this::load, "read-model");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void load() {
+        long started = System.nanoTime();
+        try {
+            PatientReadModel loaded = readSnapshot();
+            boolean fromSnapshot = loaded != null;
+            if (loaded == null) {
+                loaded = loader.load();
+            }
+            loader.catchUp(loaded);
+            model = loaded;
+            log.info("Read model with {} patients and {} visit pairs loaded from {} in {} ms",
+                    loaded.patientCount(), loaded.pairCount(), fromSnapshot ? "snapshot" : "database",
+                    (System.nanoTime() - started) / 1_000_000L);
+            if (!fromSnapshot) {
+                snapshot();
+            }
+        } catch (RuntimeException e) {
+            log.error("Loading the read model failed, the listing stays on the database", e);
+        }
+    }
+
+    private PatientReadModel readSnapshot() {
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            PatientReadModel snapshot = ReadModelSnapshot.read(path, loader.shardCount());
+            if (snapshot == null) {
+                log.warn("Read model snapshot {} was taken with another shard count, loading from the database",
+                        path);
+            }
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Read model snapshot {} is unreadable, loading from the database", path, e);
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${meditrack.listing.memory.refresh-interval-ms:5000}")
+    public void refresh() {
+        PatientReadModel current = model;
+        if (current == null) {
+            return;
+        }
+        try {
+            loader.catchUp(current);
+        } catch (RuntimeException e) {
+            log.warn("Read model catch-up failed, retrying on the next refresh", e);
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${meditrack.listing.memory.snapshot-interval-ms:600000}",
+            initialDelayString = "${meditrack.listing.memory.snapshot-interval-ms:600000}")
+    public void snapshot() {
+        PatientReadModel current = model;
+        if (current == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            ReadModelSnapshot.write(current, Path.of(snapshotPath));
+            log.info("Read model snapshot written in {} ms", (System.nanoTime() - started) / 1_000_000L);
+        } catch (IOException e) {
+            log.warn("Writing the read model snapshot {} failed", snapshotPath, e);
+        }
+    }
+}
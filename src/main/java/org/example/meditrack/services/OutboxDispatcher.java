@@ -0,0 +1,188 @@
+package org.example.meditrack.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.meditrack.events.VisitCancelled;
+import org.example.meditrack.events.VisitCreated;
+import org.example.meditrack.events.VisitEventListener;
+import org.example.meditrack.events.VisitRescheduled;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.OutboxOffset;
+import org.example.meditrack.models.VisitEvent;
+import org.example.meditrack.repositories.OutboxOffsetRepository;
+import org.example.meditrack.repositories.VisitEventRepository;
+import org.example.meditrack.sharding.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single in-process dispatcher of the visit outbox. On every poll each {@link VisitEventListener} receives
+ * the events after its own offset, in order and in batches; the offset is stored after each successful
+ * batch, so delivery is at-least-once. A failing listener is retried from its offset on the next poll
+ * without holding back the others.
+ * <p>
+ * Event ids are allocated when a row is inserted, not when its transaction commits, so bookings of different
+ * doctors can commit event N+1 before event N. An offset past N+1 would then skip N for good. Events are
+ * therefore only delivered once they are {@code meditrack.outbox.commit-lag-ms} old: by then every
+ * transaction that inserted a lower id has committed or rolled back, as long as none stays open longer than
+ * that after writing its events. {@code created_at} is set before the insert, so it never trails the id.
+ * <p>
+ * Scheduled tasks share one scheduler thread, so polls never overlap. With clinic sharding every shard has
+ * its own outbox and offsets, and each poll drains the shards one after the other.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final int MAX_BATCHES_PER_POLL = 100;
+
+    private final VisitEventRepository visitEventRepository;
+    private final OutboxOffsetRepository outboxOffsetRepository;
+    private final ObjectProvider<VisitEventListener> listeners;
+    private final ShardRouter shardRouter;
+
+    @Value("${meditrack.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${meditrack.outbox.commit-lag-ms:5000}")
+    private long commitLagMs = 5000;
+
+    @Value("${meditrack.outbox.retention-hours:168}")
+    private long retentionHours = 168;
+
+    public OutboxDispatcher(VisitEventRepository visitEventRepository,
+                            OutboxOffsetRepository outboxOffsetRepository,
+                            ObjectProvider<VisitEventListener> listeners,
+                            ShardRouter shardRouter) {
+        this.visitEventRepository = visitEventRepository;
+        this.outboxOffsetRepository = outboxOffsetRepository;
+        this.listeners = listeners;
+        this.shardRouter = shardRouter;
+    }
+
+    @Scheduled(fixedDelayString = "${meditrack.outbox.poll-interval-ms:500}")
+    public void poll() {
+        shardRouter.onEachShard(() -> {
+            for (int i = 0; i < MAX_BATCHES_PER_POLL && dispatchBatch(); i++) {
+                // keep draining while some listener received a full batch
+            }
+        });
+    }
+
+    /**
+     * Delivers at most one batch to every listener from the outbox of the current shard.
+     *
+     * @return true if some listener received a full batch and more events may be pending
+     */
+    public boolean dispatchBatch() {
+        List<VisitEventListener> registered = listeners.orderedStream().toList();
+        if (registered.isEmpty()) {
+            return false;
+        }
+
+        Instant committedBefore = Instant.now().minusMillis(commitLagMs);
+        Map<Long, List<VisitEvent>> batchesByOffset = new HashMap<>();
+        boolean morePending = false;
+        for (VisitEventListener listener : registered) {
+            OutboxOffset offset = loadOffset(listener.name());
+            List<VisitEvent> batch = batchesByOffset.computeIfAbsent(offset.getLastEventId(),
+                    from -> visitEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(from,
+                            committedBefore, PageRequest.of(0, batchSize)));
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            long delivered = offset.getLastEventId();
+            try {
+                for (VisitEvent event : batch) {
+                    deliver(listener, event);
+                    delivered = event.getId();
+                }
+            } catch (RuntimeException e) {
+                log.error("Outbox listener '{}' failed on event {}, will retry", listener.name(), delivered + 1, e);
+            }
+
+            if (delivered != offset.getLastEventId()) {
+                offset.setLastEventId(delivered);
+                outboxOffsetRepository.save(offset);
+            }
+            morePending |= delivered == batch.get(batch.size() - 1).getId() && batch.size() == batchSize;
+        }
+        return morePending;
+    }
+
+    /**
+     * Makes the listener receive every event with an id of at least {@code fromEventId} again, starting with
+     * the next poll. Events older than the retention period may already be purged.
+     */
+    public void replayFrom(String listenerName, long fromEventId) {
+        boolean known = listeners.orderedStream().anyMatch(listener -> listener.name().equals(listenerName));
+        if (!known) {
+            throw new BusinessException("Unknown outbox listener: " + listenerName);
+        }
+        shardRouter.onEachShard(() -> outboxOffsetRepository.save(OutboxOffset.builder()
+                .listener(listenerName)
+                .lastEventId(Math.max(0, fromEventId - 1))
+                .build()));
+        log.info("Outbox listener '{}' will replay from event {}", listenerName, fromEventId);
+    }
+
+    /**
+     * Removes events that every listener has consumed and that are older than the retention period, which
+     * bounds how far back {@link #replayFrom} can go.
+     */
+    @Scheduled(fixedDelayString = "${meditrack.outbox.purge-interval-ms:3600000}")
+    public void purgeDelivered() {
+        List<VisitEventListener> registered = listeners.orderedStream().toList();
+        if (registered.isEmpty()) {
+            return;
+        }
+        shardRouter.onEachShard(() -> purgeDelivered(registered));
+    }
+
+    private void purgeDelivered(List<VisitEventListener> registered) {
+        long consumedByAll = Long.MAX_VALUE;
+        for (VisitEventListener listener : registered) {
+            consumedByAll = Math.min(consumedByAll, loadOffset(listener.name()).getLastEventId());
+        }
+        int deleted = visitEventRepository.deleteDelivered(consumedByAll,
+                Instant.now().minus(Duration.ofHours(retentionHours)));
+        if (deleted > 0) {
+            log.info("Purged {} delivered outbox events", deleted);
+        }
+    }
+
+    private OutboxOffset loadOffset(String listenerName) {
+        return outboxOffsetRepository.findById(listenerName).orElseGet(() -> {
+            // A new listener starts at the head; history can be requested with replayFrom.
+            OutboxOffset offset = OutboxOffset.builder()
+                    .listener(listenerName)
+                    .lastEventId(visitEventRepository.findMaxId())
+                    .build();
+            return outboxOffsetRepository.save(offset);
+        });
+    }
+
+    private void deliver(VisitEventListener listener, VisitEvent event) {
+        switch (event.getType()) {
+            case CREATED -> listener.onVisitCreated(new VisitCreated(event.getId(), event.getVisitId(),
+                    event.getPatientId(), event.getDoctorId(),
+                    event.getStartDateTime(), event.getEndDateTime()));
+            case CANCELLED -> listener.onVisitCancelled(new VisitCancelled(event.getId(), event.getVisitId(),
+                    event.getPatientId(), event.getDoctorId(),
+                    event.getStartDateTime(), event.getEndDateTime()));
+            case RESCHEDULED -> listener.onVisitRescheduled(new VisitRescheduled(event.getId(), event.getVisitId(),
+                    event.getPatientId(), event.getDoctorId(),
+                    event.getPreviousStartDateTime(), event.getPreviousEndDateTime(),
+                    event.getStartDateTime(), event.getEndDateTime()));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.config.ListingConfig;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.tracing.Phase;
+import org.example.meditrack.tracing.Trace;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Fan-out implementation of the patient listing. The page of patients is fetched first, then the latest
+ * visits and the doctor stats for that page are looked up concurrently (the total count is started right
+ * away since it does not depend on the page). Every sub-query runs on its own connection, so the page
+ * latency is the longest chain instead of the sum of all lookups.
+ * <p>
+ * Results are merged into the same row layout the single-query strategy returns, so both strategies share
+ * the assembly code in {@link VisitService}.
+ */
+@Component
+public class ParallelPatientListing {
+
+    private final PatientRepository patientRepository;
+    private final Executor executor;
+
+    public ParallelPatientListing(PatientRepository patientRepository,
+                                  @Qualifier(ListingConfig.LISTING_EXECUTOR) Executor executor) {
+        this.patientRepository = patientRepository;
+        this.executor = executor;
+    }
+
+    public List<Object[]> fetchRows(String search, List<Long> doctorIds, int offset, int pageSize) {
+        boolean filterByDoctors = doctorIds != null && !doctorIds.isEmpty();
+        Trace trace = Trace.current();
+
+        CompletableFuture<Long> totalFuture = CompletableFuture.supplyAsync(() -> {
+            Trace.Span span = trace.begin(Phase.SQL_COUNT);
+            long total = filterByDoctors
+                    ? patientRepository.countPatientsByDoctors(search, doctorIds)
+                    : patientRepository.countPatients(search);
+            span.end(1);
+            return total;
+        }, executor);
+
+        List<Object[]> page = filterByDoctors
+                ? patientRepository.findPatientPageByDoctors(search, doctorIds, offset, pageSize)
+                : patientRepository.findPatientPage(search, offset, pageSize);
+
+        if (page.isEmpty()) {
+            totalFuture.cancel(false);
+            return Collections.emptyList();
+        }
+
+        List<Long> patientIds = new ArrayList<>(page.size());
+        for (Object[] patient : page) {
+            patientIds.add(((Number) patient[0]).longValue());
+        }
+
+        CompletableFuture<List<Object[]>> visitsFuture = CompletableFuture.supplyAsync(() -> {
+            Trace.Span span = trace.begin(Phase.SQL_LATEST_VISITS);
+            List<Object[]> visits = patientRepository.findLatestVisitsForPatients(patientIds);
+            span.end(visits.size());
+            return visits;
+        }, executor);
+        CompletableFuture<List<Object[]>> statsFuture = CompletableFuture.supplyAsync(() -> {
+            Trace.Span span = trace.begin(Phase.SQL_DOCTOR_STATS);
+            List<Object[]> stats = patientRepository.countDistinctPatientsForDoctorsOf(patientIds);
+            span.end(stats.size());
+            return stats;
+        }, executor);
+
+        long total = join(totalFuture);
+        List<Object[]> latestVisits = join(visitsFuture);
+        Map<Long, Integer> patientCounts = new HashMap<>();
+        for (Object[] stat : join(statsFuture)) {
+            patientCounts.put(((Number) stat[0]).longValue(), ((Number) stat[1]).intValue());
+        }
+
+        Trace.Span mapping = trace.begin(Phase.MAPPING);
+        List<Object[]> rows = merge(page, latestVisits, patientCounts, total);
+        mapping.end(rows.size());
+        return rows;
+    }
+
+    /**
+     * Merges the sub-query results into rows shaped like the single-query result:
+     * [patient_id, first_name, last_name, visit_id, start, end, doctor_id, doctor_first_name,
+     * doctor_last_name, timezone, patient_count, total]. Both the page and the latest visits are ordered
+     * by patient id, so a single merge pass is enough.
+     */
+    private List<Object[]> merge(List<Object[]> page, List<Object[]> latestVisits,
+                                 Map<Long, Integer> patientCounts, long total) {
+        List<Object[]> rows = new ArrayList<>(Math.max(page.size(), latestVisits.size()));
+        int visitIndex = 0;
+        for (Object[] patient : page) {
+            long patientId = ((Number) patient[0]).longValue();
+            while (visitIndex < latestVisits.size()
+                    && ((Number) latestVisits.get(visitIndex)[0]).longValue() < patientId) {
+                visitIndex++;
+            }
+            boolean hasVisits = false;
+            while (visitIndex < latestVisits.size()
+                    && ((Number) latestVisits.get(visitIndex)[0]).longValue() == patientId) {
+                Object[] visit = latestVisits.get(visitIndex++);
+                long doctorId = ((Number) visit[4]).longValue();
+                rows.add(new Object[]{
+                        patient[0], patient[1], patient[2],
+                        visit[1], visit[2], visit[3],
+                        visit[4], visit[5], visit[6], visit[7],
+                        patientCounts.getOrDefault(doctorId, 0),
+                        total
+                });
+                hasVisits = true;
+            }
+            if (!hasVisits) {
+                rows.add(new Object[]{
+                        patient[0], patient[1], patient[2],
+                        null, null, null, null, null, null, null, null,
+                        total
+                });
+            }
+        }
+        return rows;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to load patients", e.getCause());
+        }
+    }
+}
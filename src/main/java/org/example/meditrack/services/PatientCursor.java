@@ -0,0 +1,62 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.PatientSort;
+import org.example.meditrack.exceptions.BusinessException;
+
+import java.io.*;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset position in a sorted patient listing: the sort key of the last patient of a page followed by its
+ * id, i.e. {@code [name, name, id]} for the name sorts and {@code [lastVisitAt, id]} for {@code lastVisit}.
+ * Encoded for clients as URL-safe Base64 and treated as opaque by them; a cursor only decodes under the
+ * sort that produced it.
+ */
+public record PatientCursor(PatientSort sort, List<Object> keys) {
+
+    /**
+     * Position of the patient of a sorted listing row, whose sort key columns follow the 12 listing columns.
+     */
+    public static PatientCursor of(PatientSort sort, Object[] row) {
+        long id = ((Number) row[0]).longValue();
+        return sort.byName()
+                ? new PatientCursor(sort, List.of(row[12], row[13], id))
+                : new PatientCursor(sort, List.of(((Number) row[12]).longValue(), id));
+    }
+
+    public static PatientCursor decode(PatientSort sort, String cursor) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            if (in.readUnsignedByte() != sort.ordinal()) {
+                throw new BusinessException("Cursor belongs to a different sort");
+            }
+            List<Object> keys = sort.byName()
+                    ? List.of(in.readUTF(), in.readUTF(), in.readLong())
+                    : List.of(in.readLong(), in.readLong());
+            if (in.read() != -1) {
+                throw new IOException("Trailing bytes");
+            }
+            return new PatientCursor(sort, keys);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(sort.ordinal());
+            for (Object key : keys) {
+                if (key instanceof String name) {
+                    out.writeUTF(name);
+                } else {
+                    out.writeLong(((Number) key).longValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+}
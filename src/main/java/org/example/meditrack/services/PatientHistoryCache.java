@@ -0,0 +1,91 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.PatientVisitResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most recent visits of recently viewed patients, bounded by patient count and evicted least recently
+ * used first. Entries are dropped when the patient books a visit.
+ * <p>
+ * A load that started before an invalidation may have read the old rows, so fills carry the
+ * {@link #stamp()} taken before the query and are discarded if any invalidation happened since.
+ */
+@Component
+public class PatientHistoryCache {
+
+    record HistoryVisit(VisitCursor position, PatientVisitResponse response) {
+    }
+
+    /**
+     * Newest visits first; {@code complete} when they are all the visits the patient has.
+     */
+    record Entry(List<HistoryVisit> visits, boolean complete) {
+    }
+
+    private final int visitsPerPatient;
+    private final Map<Long, Entry> entries;
+    private long invalidations;
+
+    public PatientHistoryCache(@Value("${meditrack.history.cache-size:10000}") int maxPatients,
+                               @Value("${meditrack.history.cached-visits:20}") int visitsPerPatient) {
+        this.visitsPerPatient = visitsPerPatient;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxPatients;
+            }
+        };
+    }
+
+    public int visitsPerPatient() {
+        return visitsPerPatient;
+    }
+
+    synchronized Entry get(long patientId) {
+        return entries.get(patientId);
+    }
+
+    synchronized long stamp() {
+        return invalidations;
+    }
+
+    synchronized void put(long patientId, Entry entry, long stamp) {
+        if (stamp == invalidations) {
+            entries.put(patientId, entry);
+        }
+    }
+
+    public synchronized void invalidate(long patientId) {
+        entries.remove(patientId);
+        invalidations++;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        invalidations++;
+    }
+
+    /**
+     * Invalidates once the surrounding transaction has completed, so a reader cannot re-cache the history
+     * between the invalidation and the commit of the new visit.
+     */
+    public void invalidateAfterCommit(long patientId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(patientId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(patientId);
+            }
+        });
+    }
+}
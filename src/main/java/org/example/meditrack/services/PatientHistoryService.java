@@ -0,0 +1,107 @@
+package org.example.meditrack.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.PatientVisitResponse;
+import org.example.meditrack.dtos.PatientVisitsResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A patient's visit history, newest first, in keyset pages. First pages that fit in
+ * {@link PatientHistoryCache#visitsPerPatient()} are served from the cache; later pages are a range scan
+ * over idx_visit_patient. Not transactional, so cache hits never touch a connection.
+ */
+@Service
+@RequiredArgsConstructor
+public class PatientHistoryService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 1000;
+
+    private final PatientRepository patientRepository;
+    private final VisitRepository visitRepository;
+    private final PatientHistoryCache cache;
+
+    public PatientVisitsResponse getHistory(Long patientId, String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new BusinessException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        VisitCursor before = cursor != null && !cursor.isBlank() ? VisitCursor.decode(cursor) : null;
+
+        if (before == null && pageSize <= cache.visitsPerPatient()) {
+            PatientHistoryCache.Entry entry = cache.get(patientId);
+            if (entry == null) {
+                entry = loadEntry(patientId);
+            }
+            return page(patientId, entry.visits(), pageSize, !entry.complete());
+        }
+
+        requirePatient(patientId);
+        return page(patientId, load(patientId, before, pageSize + 1), pageSize, false);
+    }
+
+    private PatientHistoryCache.Entry loadEntry(Long patientId) {
+        long stamp = cache.stamp();
+        requirePatient(patientId);
+        int cached = cache.visitsPerPatient();
+        List<PatientHistoryCache.HistoryVisit> visits = load(patientId, null, cached + 1);
+        boolean complete = visits.size() <= cached;
+        PatientHistoryCache.Entry entry = new PatientHistoryCache.Entry(
+                complete ? visits : List.copyOf(visits.subList(0, cached)), complete);
+        cache.put(patientId, entry, stamp);
+        return entry;
+    }
+
+    private void requirePatient(Long patientId) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new BusinessException("Patient not found");
+        }
+    }
+
+    private List<PatientHistoryCache.HistoryVisit> load(Long patientId, VisitCursor before, int limit) {
+        long beforeStart = before != null ? before.start().toEpochMilli() : Long.MAX_VALUE;
+        long beforeId = before != null ? before.id() : Long.MAX_VALUE;
+        List<Object[]> rows = visitRepository.findPatientHistory(patientId, beforeStart, beforeId, limit);
+
+        List<PatientHistoryCache.HistoryVisit> visits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long visitId = ((Number) row[0]).longValue();
+            long start = ((Number) row[1]).longValue();
+            ZoneId zone = IsoDateTimes.zone((String) row[6]);
+            PatientVisitResponse response = PatientVisitResponse.builder()
+                    .id(visitId)
+                    .start(IsoDateTimes.formatEpochMilli(start, zone))
+                    .end(IsoDateTimes.formatEpochMilli(((Number) row[2]).longValue(), zone))
+                    .doctorId(((Number) row[3]).longValue())
+                    .doctorFirstName((String) row[4])
+                    .doctorLastName((String) row[5])
+                    .build();
+            visits.add(new PatientHistoryCache.HistoryVisit(
+                    new VisitCursor(Instant.ofEpochMilli(start), visitId), response));
+        }
+        return visits;
+    }
+
+    private PatientVisitsResponse page(Long patientId, List<PatientHistoryCache.HistoryVisit> visits,
+                                       int pageSize, boolean moreBeyond) {
+        int size = Math.min(pageSize, visits.size());
+        List<PatientVisitResponse> responses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            responses.add(visits.get(i).response());
+        }
+        boolean hasMore = visits.size() > pageSize || moreBeyond;
+        return PatientVisitsResponse.builder()
+                .patientId(patientId)
+                .visits(responses)
+                .nextCursor(hasMore && size > 0 ? visits.get(size - 1).position().encode() : null)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.DoctorResponse;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.dtos.VisitResponse;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass conversion of listing rows into {@link PatientResponse}s.
+ * <p>
+ * Rows arrive ordered by patient id, or by a sort key ending with it, so the rows of a patient are adjacent and
+ * are grouped without a map, and each visit list is sized from the length of that run. Doctors
+ * repeat across patients of a page, so one {@link DoctorResponse} is shared per doctor.
+ * <p>
+ * Row layout: [patient_id, first_name, last_name, visit_id, start, end, doctor_id, doctor_first_name,
+ * doctor_last_name, timezone, patient_count, total], with start and end in epoch milliseconds. Fields left
+ * out of the {@link PatientFields} projection stay null and are not serialized, as does
+ * {@code recentPatients} unless the listing asked for a patients window.
+ */
+final class PatientListAssembler {
+
+    private final DoctorTable doctors = new DoctorTable();
+    private final PatientFields fields;
+    private final Map<Long, Integer> recentPatients;
+
+    PatientListAssembler() {
+        this(PatientFields.ALL, null);
+    }
+
+    /**
+     * @param recentPatients distinct patients per doctor id over the requested window, or null without one
+     */
+    PatientListAssembler(PatientFields fields, Map<Long, Integer> recentPatients) {
+        this.fields = fields;
+        this.recentPatients = recentPatients;
+    }
+
+    List<PatientResponse> assemble(List<Object[]> rows, int pageSize) {
+        List<PatientResponse> patients = new ArrayList<>(Math.min(pageSize, rows.size()));
+        int size = rows.size();
+        int runStart = 0;
+        while (runStart < size) {
+            Object[] first = rows.get(runStart);
+            long patientId = ((Number) first[0]).longValue();
+            int runEnd = runStart + 1;
+            while (runEnd < size && ((Number) rows.get(runEnd)[0]).longValue() == patientId) {
+                runEnd++;
+            }
+
+            List<VisitResponse> visits = null;
+            if (fields.visits()) {
+                visits = new ArrayList<>(first[3] != null ? runEnd - runStart : 0);
+                for (int i = runStart; i < runEnd; i++) {
+                    Object[] row = rows.get(i);
+                    if (row[3] != null) {
+                        visits.add(toVisit(row));
+                    }
+                }
+            }
+            patients.add(new PatientResponse((String) first[1], (String) first[2], visits));
+            runStart = runEnd;
+        }
+        return patients;
+    }
+
+    private VisitResponse toVisit(Object[] row) {
+        DoctorResponse doctor = null;
+        if (fields.doctor()) {
+            long doctorId = ((Number) row[6]).longValue();
+            doctor = doctors.get(doctorId);
+            if (doctor == null) {
+                Integer patientCount = fields.doctorTotalPatients()
+                        ? (row[10] != null ? ((Number) row[10]).intValue() : 0)
+                        : null;
+                doctor = new DoctorResponse((String) row[7], (String) row[8], patientCount,
+                        recentPatients != null ? recentPatients.getOrDefault(doctorId, 0) : null);
+                doctors.put(doctorId, doctor);
+            }
+        }
+        ZoneId zone = row[9] != null ? IsoDateTimes.zone((String) row[9]) : null;
+        return new VisitResponse(
+                row[4] != null ? IsoDateTimes.formatEpochMilli(((Number) row[4]).longValue(), zone) : null,
+                row[5] != null ? IsoDateTimes.formatEpochMilli(((Number) row[5]).longValue(), zone) : null,
+                doctor);
+    }
+
+    /**
+     * Open-addressing map from doctor id to the shared response, keyed by a primitive long.
+     */
+    private static final class DoctorTable {
+        private long[] keys = new long[16];
+        private DoctorResponse[] values = new DoctorResponse[16];
+        private int size;
+
+        DoctorResponse get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, DoctorResponse value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            DoctorResponse[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new DoctorResponse[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
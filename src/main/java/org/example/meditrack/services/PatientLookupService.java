@@ -0,0 +1,69 @@
+package org.example.meditrack.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.PatientLookupResponse;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.sharding.ShardRouter;
+import org.example.meditrack.tracing.Phase;
+import org.example.meditrack.tracing.Trace;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Resolves a batch of patient ids to the listing's {@link PatientResponse}s. The ids of each clinic shard go
+ * to that shard in a single statement, which reads the patients, their latest visit per doctor and the
+ * doctors through the primary key and idx_visit_patient, instead of one listing call per patient.
+ */
+@Service
+@RequiredArgsConstructor
+public class PatientLookupService {
+
+    private final PatientRepository patientRepository;
+    private final ShardRouter shardRouter;
+
+    public PatientLookupResponse lookup(List<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            idsByShard.computeIfAbsent(shardRouter.shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+
+        Trace trace = Trace.current();
+        trace.parameter("ids", ids.size());
+        Map<Long, PatientResponse> found = new HashMap<>(ids.size() * 2);
+        PatientListAssembler assembler = new PatientListAssembler();
+        idsByShard.forEach((shard, shardIds) -> {
+            Trace.Span sql = trace.begin(Phase.SQL);
+            List<Object[]> rows = shardRouter.onShard(shard,
+                    () -> patientRepository.findPatientsWithLatestVisits(shardIds));
+            sql.end(rows.size());
+            Trace.Span assembly = trace.begin(Phase.ASSEMBLY);
+            List<PatientResponse> patients = assembler.assemble(rows, shardIds.size());
+            // the assembler returns one patient per run of rows, in row order
+            int patient = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                long patientId = ((Number) rows.get(i)[0]).longValue();
+                if (i == 0 || patientId != ((Number) rows.get(i - 1)[0]).longValue()) {
+                    found.put(patientId, patients.get(patient++));
+                }
+            }
+            assembly.end(patients.size());
+        });
+
+        Map<Long, PatientResponse> patients = new LinkedHashMap<>();
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            PatientResponse response = found.get(id);
+            if (response != null) {
+                patients.put(id, response);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return PatientLookupResponse.builder()
+                .patients(patients)
+                .notFound(notFound)
+                .build();
+    }
+}
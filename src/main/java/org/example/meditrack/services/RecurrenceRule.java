@@ -0,0 +1,169 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.exceptions.BusinessException;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * The subset of an iCalendar RRULE (RFC 5545) that visit series use: {@code FREQ=DAILY|WEEKLY}, {@code INTERVAL},
+ * {@code BYDAY} (weekly only) and exactly one of {@code COUNT} or {@code UNTIL}, e.g.
+ * {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;COUNT=12}.
+ * <p>
+ * Occurrences are expanded as wall-clock times in the doctor's zone, so a 10:00 visit stays at 10:00 across
+ * a DST change. A time that falls into a spring-forward gap moves forward by the length of the gap, and one
+ * that occurs twice at fall-back takes the earlier offset, as RFC 5545 prescribes.
+ */
+public record RecurrenceRule(Frequency frequency, int interval, Integer count, Instant until,
+                             LocalDate untilDate, SortedSet<DayOfWeek> byDay) {
+
+    public enum Frequency {
+        DAILY, WEEKLY
+    }
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssX");
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY,
+            "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.isBlank()) {
+            throw new BusinessException("Recurrence rule is required");
+        }
+        String body = rule.trim();
+        if (body.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            body = body.substring(6);
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        Instant until = null;
+        LocalDate untilDate = null;
+        SortedSet<DayOfWeek> byDay = new TreeSet<>();
+        for (String part : body.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals < 1) {
+                throw new BusinessException("Invalid recurrence rule part: " + part);
+            }
+            String name = part.substring(0, equals).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(equals + 1).trim().toUpperCase(Locale.ROOT);
+            switch (name) {
+                case "FREQ" -> frequency = parseFrequency(value);
+                case "INTERVAL" -> interval = parsePositive(name, value);
+                case "COUNT" -> count = parsePositive(name, value);
+                case "UNTIL" -> {
+                    try {
+                        if (value.length() == 8) {
+                            untilDate = LocalDate.parse(value, DATE);
+                        } else {
+                            until = OffsetDateTime.parse(value, UTC_DATE_TIME).toInstant();
+                        }
+                    } catch (DateTimeParseException e) {
+                        throw new BusinessException("UNTIL must be a date (yyyyMMdd) or a UTC time (yyyyMMddTHHmmssZ)");
+                    }
+                }
+                case "BYDAY" -> {
+                    for (String day : value.split(",")) {
+                        DayOfWeek dayOfWeek = DAYS.get(day.trim());
+                        if (dayOfWeek == null) {
+                            throw new BusinessException("Unsupported BYDAY value: " + day);
+                        }
+                        byDay.add(dayOfWeek);
+                    }
+                }
+                default -> throw new BusinessException("Unsupported recurrence rule part: " + name);
+            }
+        }
+
+        if (frequency == null) {
+            throw new BusinessException("Recurrence rule needs FREQ");
+        }
+        if ((count == null) == (until == null && untilDate == null)) {
+            throw new BusinessException("Recurrence rule needs exactly one of COUNT or UNTIL");
+        }
+        if (!byDay.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new BusinessException("BYDAY is only supported with FREQ=WEEKLY");
+        }
+        return new RecurrenceRule(frequency, interval, count, until, untilDate, byDay);
+    }
+
+    /**
+     * Occurrence starts from {@code first} on, in order. {@code first} is the first occurrence when it matches
+     * the rule; with BYDAY, days of its week before it are skipped.
+     *
+     * @throws BusinessException when the rule yields more than {@code maxOccurrences}
+     */
+    public List<ZonedDateTime> expand(LocalDateTime first, ZoneId zone, int maxOccurrences) {
+        if (count != null && count > maxOccurrences) {
+            throw tooMany(maxOccurrences);
+        }
+        List<ZonedDateTime> occurrences = new ArrayList<>();
+        LocalTime time = first.toLocalTime();
+        LocalDate period = frequency == Frequency.WEEKLY
+                ? first.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : first.toLocalDate();
+        while (true) {
+            for (LocalDate date : datesIn(period, first.toLocalDate())) {
+                if (date.isBefore(first.toLocalDate())) {
+                    continue;
+                }
+                ZonedDateTime start = ZonedDateTime.of(date, time, zone);
+                if (count != null ? occurrences.size() == count : isAfterUntil(start)) {
+                    return occurrences;
+                }
+                if (occurrences.size() == maxOccurrences) {
+                    throw tooMany(maxOccurrences);
+                }
+                occurrences.add(start);
+            }
+            period = frequency == Frequency.WEEKLY ? period.plusWeeks(interval) : period.plusDays(interval);
+        }
+    }
+
+    private List<LocalDate> datesIn(LocalDate period, LocalDate first) {
+        if (frequency == Frequency.DAILY) {
+            return List.of(period);
+        }
+        if (byDay.isEmpty()) {
+            return List.of(period.with(TemporalAdjusters.nextOrSame(first.getDayOfWeek())));
+        }
+        List<LocalDate> dates = new ArrayList<>(byDay.size());
+        for (DayOfWeek day : byDay) {
+            dates.add(period.with(TemporalAdjusters.nextOrSame(day)));
+        }
+        return dates;
+    }
+
+    private boolean isAfterUntil(ZonedDateTime start) {
+        return untilDate != null ? start.toLocalDate().isAfter(untilDate) : start.toInstant().isAfter(until);
+    }
+
+    private static BusinessException tooMany(int maxOccurrences) {
+        return new BusinessException("A series can have at most " + maxOccurrences + " visits");
+    }
+
+    private static Frequency parseFrequency(String value) {
+        try {
+            return Frequency.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Unsupported FREQ: " + value + " (DAILY or WEEKLY)");
+        }
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new BusinessException(name + " must be a positive integer");
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.config.ListingConfig;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientSort;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.sharding.ShardRouter;
+import org.example.meditrack.tracing.Phase;
+import org.example.meditrack.tracing.Trace;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.text.Collator;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Scatter-gather implementation of the patient listing across clinic shards. Every shard runs the
+ * single-query listing for the first {@code offset + pageSize} of its patients in parallel. The ordered
+ * results are then k-way merged by patient id, the first {@code offset} patients are skipped, and the
+ * per-shard totals are summed into the total column.
+ * <p>
+ * A patient's visits all live on the shard of the patient's clinic, so the latest visit and the doctor
+ * stats a shard returns are already global. The cost of a deep page grows with the shard count, since
+ * each shard has to return every patient up to the end of the page. Sorted listings avoid that: every
+ * shard returns one keyset page after the cursor, and the pages are merged in the sort order.
+ */
+@Component
+public class ShardedPatientListing {
+
+    private final PatientRepository patientRepository;
+    private final ShardRouter shardRouter;
+    private final Executor executor;
+
+    public ShardedPatientListing(PatientRepository patientRepository, ShardRouter shardRouter,
+                                 @Qualifier(ListingConfig.LISTING_EXECUTOR) Executor executor) {
+        this.patientRepository = patientRepository;
+        this.shardRouter = shardRouter;
+        this.executor = executor;
+    }
+
+    public boolean isActive() {
+        return shardRouter.isSharded();
+    }
+
+    public List<Object[]> fetchRows(String search, List<Long> doctorIds, int offset, int pageSize) {
+        return fetchRows(search, doctorIds, PatientFields.ALL, offset, pageSize);
+    }
+
+    public List<Object[]> fetchRows(String search, List<Long> doctorIds, PatientFields fields,
+                                    int offset, int pageSize) {
+        boolean filterByDoctors = doctorIds != null && !doctorIds.isEmpty();
+        int window = offset + pageSize;
+
+        List<CompletableFuture<List<Object[]>>> futures = new ArrayList<>(shardRouter.shardCount());
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> shardRouter.onShard(target, () -> {
+                if (!fields.isAll()) {
+                    return patientRepository.findPatientRows(search, doctorIds, fields, 0, window);
+                }
+                return filterByDoctors
+                        ? patientRepository.findPatientsWithAllDataOptimized(
+                                search, doctorIds, doctorIds.size(), 0, window)
+                        : patientRepository.findAllPatientsWithDataOptimized(search, 0, window);
+            }), executor));
+        }
+
+        List<List<Object[]>> shardRows = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<Object[]>> future : futures) {
+            shardRows.add(join(future));
+        }
+        Trace.Span mapping = Trace.current().begin(Phase.MAPPING);
+        List<Object[]> page = merge(shardRows, offset, pageSize);
+        mapping.end(page.size());
+        return page;
+    }
+
+    /**
+     * The first {@code limit} patients after {@code after} in the sort order, across all shards.
+     */
+    public List<Object[]> fetchSortedRows(String search, List<Long> doctorIds, PatientFields fields,
+                                          PatientSort sort, List<Object> after, int limit) {
+        List<CompletableFuture<List<Object[]>>> futures = new ArrayList<>(shardRouter.shardCount());
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> shardRouter.onShard(target, () ->
+                    patientRepository.findSortedPatientRows(search, doctorIds, fields, sort, after, limit)), executor));
+        }
+
+        List<List<Object[]>> shardRows = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<Object[]>> future : futures) {
+            shardRows.add(join(future));
+        }
+        Trace.Span mapping = Trace.current().begin(Phase.MAPPING);
+        List<Object[]> page = merge(shardRows, 0, limit, order(sort));
+        mapping.end(page.size());
+        return page;
+    }
+
+    static List<Object[]> merge(List<List<Object[]>> shardRows, int offset, int pageSize) {
+        return merge(shardRows, offset, pageSize, Comparator.comparingLong(row -> ((Number) row[0]).longValue()));
+    }
+
+    /**
+     * Merges per-shard rows, each ordered by {@code order}, into one page. Rows of one patient stay together
+     * and a patient appears on exactly one shard, so the merge moves whole patient groups. The total stays
+     * null when the projection did not select it.
+     */
+    static List<Object[]> merge(List<List<Object[]>> shardRows, int offset, int pageSize, Comparator<Object[]> order) {
+        Long total = null;
+        PriorityQueue<ShardCursor> queue = new PriorityQueue<>(Comparator.comparing(ShardCursor::peek, order));
+        for (List<Object[]> rows : shardRows) {
+            if (!rows.isEmpty()) {
+                Object shardTotal = rows.get(0)[11];
+                if (shardTotal != null) {
+                    total = (total != null ? total : 0L) + ((Number) shardTotal).longValue();
+                }
+                queue.add(new ShardCursor(rows));
+            }
+        }
+
+        List<Object[]> page = new ArrayList<>();
+        int patients = 0;
+        while (!queue.isEmpty() && patients < offset + pageSize) {
+            ShardCursor cursor = queue.poll();
+            long patientId = cursor.patientId();
+            boolean onPage = patients >= offset;
+            while (cursor.hasNext() && cursor.patientId() == patientId) {
+                Object[] row = cursor.next();
+                if (onPage) {
+                    Object[] copy = row.clone();
+                    copy[11] = total;
+                    page.add(copy);
+                }
+            }
+            patients++;
+            if (cursor.hasNext()) {
+                queue.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    private static final class ShardCursor {
+        private final List<Object[]> rows;
+        private int position;
+
+        ShardCursor(List<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        boolean hasNext() {
+            return position < rows.size();
+        }
+
+        long patientId() {
+            return ((Number) rows.get(position)[0]).longValue();
+        }
+
+        Object[] peek() {
+            return rows.get(position);
+        }
+
+        Object[] next() {
+            return rows.get(position++);
+        }
+    }
+
+    /**
+     * Order of sorted listing rows by their sort key columns (from index 12) and patient id. Names are
+     * compared at primary strength, like the accent- and case-insensitive collation of the name columns,
+     * so the merged order agrees with the order each shard returned.
+     */
+    static Comparator<Object[]> order(PatientSort sort) {
+        Comparator<Object[]> byId = Comparator.comparingLong(row -> ((Number) row[0]).longValue());
+        if (!sort.byName()) {
+            return Comparator.<Object[]>comparingLong(row -> ((Number) row[12]).longValue())
+                    .thenComparing(byId)
+                    .reversed();
+        }
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return Comparator.<Object[], String>comparing(row -> (String) row[12], collator)
+                .thenComparing(row -> (String) row[13], collator)
+                .thenComparing(byId);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to load patients", e.getCause());
+        }
+    }
+}
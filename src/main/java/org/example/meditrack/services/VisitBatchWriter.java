@@ -0,0 +1,92 @@
+package org.example.meditrack.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.models.VisitEvent;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Inserts the visits of a series and their {@code CREATED} outbox events as one JDBC batch each. Hibernate
+ * cannot batch inserts of IDENTITY entities, so these go through JDBC in the caller's transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class VisitBatchWriter {
+
+    /**
+     * Visit times in epoch milliseconds.
+     */
+    public record Slot(long start, long end) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the generated visit ids, in the order of {@code slots}
+     */
+    public List<Long> insertVisits(long patientId, long doctorId, List<Slot> slots) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(
+                        "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, slots.get(i).start());
+                        ps.setLong(2, slots.get(i).end());
+                        ps.setLong(3, patientId);
+                        ps.setLong(4, doctorId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return slots.size();
+                    }
+                }, keys);
+
+        List<Long> ids = new ArrayList<>(slots.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        if (ids.size() != slots.size()) {
+            throw new IllegalStateException("Expected " + slots.size() + " generated visit ids, got " + ids.size());
+        }
+        return ids;
+    }
+
+    public void insertCreatedEvents(List<Long> visitIds, long patientId, long doctorId, List<Slot> slots,
+                                    Instant createdAt) {
+        // bound in UTC, the way Hibernate writes VisitEvent.createdAt
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        Timestamp created = Timestamp.from(createdAt);
+        jdbcTemplate.batchUpdate("INSERT INTO visit_events (type, visit_id, patient_id, doctor_id, "
+                        + "start_date_time, end_date_time, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, VisitEvent.Type.CREATED.name());
+                        ps.setLong(2, visitIds.get(i));
+                        ps.setLong(3, patientId);
+                        ps.setLong(4, doctorId);
+                        ps.setLong(5, slots.get(i).start());
+                        ps.setLong(6, slots.get(i).end());
+                        ps.setTimestamp(7, created, utc);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return slots.size();
+                    }
+                });
+    }
+}
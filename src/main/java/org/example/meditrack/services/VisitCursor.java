@@ -0,0 +1,30 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.exceptions.BusinessException;
+
+import java.time.Instant;
+
+/**
+ * Keyset position in a list of visits ordered by (start, id), ascending or descending. Encoded for clients as
+ * {@code <epochMillis>:<visitId>} and treated as opaque by them.
+ */
+public record VisitCursor(Instant start, long id) {
+
+    public static VisitCursor decode(String cursor) {
+        int separator = cursor.indexOf(':');
+        try {
+            if (separator < 0) {
+                throw new NumberFormatException();
+            }
+            return new VisitCursor(
+                    Instant.ofEpochMilli(Long.parseLong(cursor.substring(0, separator))),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        return start.toEpochMilli() + ":" + id;
+    }
+}
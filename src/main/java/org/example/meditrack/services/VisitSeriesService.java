@@ -0,0 +1,149 @@
+package org.example.meditrack.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.meditrack.dtos.BookedVisitResponse;
+import org.example.meditrack.dtos.CreateVisitSeriesRequest;
+import org.example.meditrack.dtos.VisitSeriesResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.Doctor;
+import org.example.meditrack.models.Patient;
+import org.example.meditrack.repositories.DoctorRepository;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.example.meditrack.services.VisitBatchWriter.Slot;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Books a recurring series of visits ({@link RecurrenceRule}) for one patient with one doctor, all or nothing.
+ * Instead of one overlap query per visit, the doctor's visits over the whole span of the series are read with
+ * a single range query and swept against the occurrences in memory. The visits are then inserted as one batch.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitSeriesService {
+
+    public static final int MAX_OCCURRENCES = 100;
+    private static final int MAX_REPORTED_CONFLICTS = 10;
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final VisitRepository visitRepository;
+    private final VisitBatchWriter visitBatchWriter;
+    private final PatientHistoryCache patientHistoryCache;
+    private final MemoryPatientListing memoryPatientListing;
+
+    @Transactional
+    public VisitSeriesResponse createSeries(CreateVisitSeriesRequest request) {
+        Doctor doctor = doctorRepository.findByIdForUpdate(request.getDoctorId())
+                .orElseThrow(() -> new BusinessException("Doctor not found"));
+
+        Patient patient = patientRepository.findById(request.getPatientId())
+                .orElseThrow(() -> new BusinessException("Patient not found"));
+
+        ZoneId zone = IsoDateTimes.zone(doctor.getTimezone());
+        LocalDateTime first = parseStart(request.getStart(), zone);
+        RecurrenceRule rule = RecurrenceRule.parse(request.getRrule());
+        long durationMillis = Duration.ofMinutes(request.getDurationMinutes()).toMillis();
+
+        List<Slot> slots = new ArrayList<>();
+        for (ZonedDateTime start : rule.expand(first, zone, MAX_OCCURRENCES)) {
+            long startMillis = start.toInstant().toEpochMilli();
+            slots.add(new Slot(startMillis, startMillis + durationMillis));
+        }
+        if (slots.isEmpty()) {
+            throw new BusinessException("Recurrence rule yields no visits");
+        }
+        for (int i = 1; i < slots.size(); i++) {
+            if (slots.get(i).start() <= slots.get(i - 1).end()) {
+                throw new BusinessException("Visits of the series overlap each other");
+            }
+        }
+
+        List<Object[]> booked = visitRepository.findVisitTimesOverlapping(
+                doctor.getId(), slots.get(0).start(), slots.get(slots.size() - 1).end());
+        List<Slot> conflicts = findConflicts(slots, booked);
+        if (!conflicts.isEmpty()) {
+            throw new BusinessException("Doctor already has a visit scheduled at this time: "
+                    + describe(conflicts, zone));
+        }
+
+        List<Long> ids = visitBatchWriter.insertVisits(patient.getId(), doctor.getId(), slots);
+        visitBatchWriter.insertCreatedEvents(ids, patient.getId(), doctor.getId(), slots, Instant.now());
+        patientRepository.raiseLastVisitAt(patient.getId(), slots.get(slots.size() - 1).start());
+        patientHistoryCache.invalidateAfterCommit(patient.getId());
+        // the listing shows the latest visit of the pair, which is the last of the series
+        int last = slots.size() - 1;
+        memoryPatientListing.applyAfterCommit(ids.get(last), patient.getId(), doctor.getId(),
+                slots.get(last).start(), slots.get(last).end());
+
+        List<BookedVisitResponse> visits = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            visits.add(BookedVisitResponse.builder()
+                    .id(ids.get(i))
+                    .start(IsoDateTimes.formatEpochMilli(slots.get(i).start(), zone))
+                    .end(IsoDateTimes.formatEpochMilli(slots.get(i).end(), zone))
+                    .build());
+        }
+        return VisitSeriesResponse.builder()
+                .doctorId(doctor.getId())
+                .patientId(patient.getId())
+                .timezone(doctor.getTimezone())
+                .visits(visits)
+                .build();
+    }
+
+    /**
+     * Occurrences that overlap a booked visit (inclusive, like {@code countOverlappingVisits}). Both lists are
+     * ordered by start and swept in one pass: a booked visit that ends before an occurrence starts cannot
+     * overlap any later occurrence, so the sweep never moves back.
+     *
+     * @param booked [start, end] epoch milliseconds
+     */
+    static List<Slot> findConflicts(List<Slot> series, List<Object[]> booked) {
+        List<Slot> conflicts = new ArrayList<>();
+        int first = 0;
+        for (Slot slot : series) {
+            while (first < booked.size() && ((Number) booked.get(first)[1]).longValue() < slot.start()) {
+                first++;
+            }
+            for (int i = first; i < booked.size() && ((Number) booked.get(i)[0]).longValue() <= slot.end(); i++) {
+                if (((Number) booked.get(i)[1]).longValue() >= slot.start()) {
+                    conflicts.add(slot);
+                    break;
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static String describe(List<Slot> conflicts, ZoneId zone) {
+        String starts = conflicts.stream()
+                .limit(MAX_REPORTED_CONFLICTS)
+                .map(slot -> IsoDateTimes.formatEpochMilli(slot.start(), zone))
+                .collect(Collectors.joining(", "));
+        int unlisted = conflicts.size() - MAX_REPORTED_CONFLICTS;
+        return unlisted > 0 ? starts + " and " + unlisted + " more" : starts;
+    }
+
+    /**
+     * A local date-time is taken as the doctor's wall-clock time; one with an offset or zone is converted to it.
+     */
+    private static LocalDateTime parseStart(String start, ZoneId zone) {
+        try {
+            return LocalDateTime.parse(start);
+        } catch (DateTimeParseException e) {
+            try {
+                return ZonedDateTime.parse(start).withZoneSameInstant(zone).toLocalDateTime();
+            } catch (DateTimeParseException invalid) {
+                throw new BusinessException("Invalid start time: " + start);
+            }
+        }
+    }
+}
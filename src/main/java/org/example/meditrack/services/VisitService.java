@@ -6,18 +6,21 @@ import org.example.meditrack.exceptions.BusinessException;
 import org.example.meditrack.models.Doctor;
 import org.example.meditrack.models.Patient;
 import org.example.meditrack.models.Visit;
+import org.example.meditrack.models.VisitEvent;
 import org.example.meditrack.repositories.DoctorRepository;
 import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitEventRepository;
 import org.example.meditrack.repositories.VisitRepository;
+import org.example.meditrack.tracing.Phase;
+import org.example.meditrack.tracing.Trace;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Timestamp;
-import java.time.ZoneId;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,33 +29,46 @@ public class VisitService {
     private final VisitRepository visitRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final ParallelPatientListing parallelPatientListing;
+    private final ShardedPatientListing shardedPatientListing;
+    private final VisitEventRepository visitEventRepository;
+    private final PatientHistoryCache patientHistoryCache;
+    private final MemoryPatientListing memoryPatientListing;
+    private final DoctorStatsService doctorStatsService;
+
+    @Value("${meditrack.listing.strategy:single-query}")
+    private ListingStrategy listingStrategy = ListingStrategy.SINGLE_QUERY;
 
     @Transactional
     public void createVisit(CreateVisitRequest request) {
-        Doctor doctor = doctorRepository.findById(request.getDoctorId())
+        Trace trace = Trace.current();
+        trace.parameter("doctorId", request.getDoctorId());
+        trace.parameter("patientId", request.getPatientId());
+        trace.parameter("start", request.getStart());
+
+        Trace.Span lookup = trace.begin(Phase.LOOKUP);
+        Doctor doctor = doctorRepository.findByIdForUpdate(request.getDoctorId())
                 .orElseThrow(() -> new BusinessException("Doctor not found"));
 
         Patient patient = patientRepository.findById(request.getPatientId())
                 .orElseThrow(() -> new BusinessException("Patient not found"));
+        lookup.end(2);
 
-        ZoneId doctorTimezone = ZoneId.of(doctor.getTimezone());
+        Instant startDateTime = ZonedDateTime.parse(request.getStart()).toInstant();
+        Instant endDateTime = ZonedDateTime.parse(request.getEnd()).toInstant();
 
-        ZonedDateTime startDateTime = ZonedDateTime.parse(request.getStart())
-                .withZoneSameInstant(doctorTimezone);
-        ZonedDateTime endDateTime = ZonedDateTime.parse(request.getEnd())
-                .withZoneSameInstant(doctorTimezone);
-
-        if (startDateTime.isAfter(endDateTime) || startDateTime.equals(endDateTime)) {
-            throw new BusinessException("Start time must be before end time");
-        }
+        validateSlot(startDateTime, endDateTime);
 
+        Trace.Span overlapCheck = trace.begin(Phase.OVERLAP_CHECK);
         long overlappingVisits = visitRepository.countOverlappingVisits(
                 doctor.getId(), startDateTime, endDateTime);
+        overlapCheck.end();
 
         if (overlappingVisits > 0) {
             throw new BusinessException("Doctor already has a visit scheduled at this time");
         }
 
+        Trace.Span insert = trace.begin(Phase.INSERT);
         Visit visit = Visit.builder()
                 .startDateTime(startDateTime)
                 .endDateTime(endDateTime)
@@ -60,108 +76,287 @@ public class VisitService {
                 .doctor(doctor)
                 .build();
         visitRepository.save(visit);
+
+        visitEventRepository.save(VisitEvent.builder()
+                .type(VisitEvent.Type.CREATED)
+                .visitId(visit.getId())
+                .patientId(patient.getId())
+                .doctorId(doctor.getId())
+                .startDateTime(startDateTime)
+                .endDateTime(endDateTime)
+                .createdAt(Instant.now())
+                .build());
+        insert.end(2);
+
+        patientRepository.raiseLastVisitAt(patient.getId(), startDateTime.toEpochMilli());
+
+        patientHistoryCache.invalidateAfterCommit(patient.getId());
+        memoryPatientListing.applyAfterCommit(visit.getId(), patient.getId(), doctor.getId(),
+                startDateTime.toEpochMilli(), endDateTime.toEpochMilli());
+    }
+
+    /**
+     * Deletes a visit under the doctor lock bookings take. The patient's {@code last_visit_at}, history and
+     * read model pair are updated for this one patient and doctor; the doctor stats rollup follows the
+     * {@code CANCELLED} outbox event.
+     */
+    @Transactional
+    public void cancelVisit(Long visitId) {
+        Trace trace = Trace.current();
+        trace.parameter("visitId", visitId);
+
+        Trace.Span lookup = trace.begin(Phase.LOOKUP);
+        Visit visit = lockVisit(visitId);
+        lookup.end(2);
+
+        long patientId = visit.getPatient().getId();
+        long doctorId = visit.getDoctor().getId();
+        Trace.Span update = trace.begin(Phase.UPDATE);
+        visitRepository.delete(visit);
+        visitRepository.flush();
+        visitEventRepository.save(VisitEvent.builder()
+                .type(VisitEvent.Type.CANCELLED)
+                .visitId(visitId)
+                .patientId(patientId)
+                .doctorId(doctorId)
+                .startDateTime(visit.getStartDateTime())
+                .endDateTime(visit.getEndDateTime())
+                .createdAt(Instant.now())
+                .build());
+        patientRepository.resetLastVisitAt(patientId);
+        update.end(3);
+
+        patientHistoryCache.invalidateAfterCommit(patientId);
+        memoryPatientListing.refreshPairAfterCommit(patientId, doctorId);
+    }
+
+    /**
+     * Moves a visit to another slot of its doctor in one transaction: under the doctor lock bookings take,
+     * a single overlap check that leaves out the visit itself, then an update of the row, so the old slot is
+     * freed exactly when the new one is claimed. Derived data follows as for {@link #cancelVisit}.
+     */
+    @Transactional
+    public void rescheduleVisit(Long visitId, RescheduleVisitRequest request) {
+        Trace trace = Trace.current();
+        trace.parameter("visitId", visitId);
+        trace.parameter("start", request.getStart());
+
+        Trace.Span lookup = trace.begin(Phase.LOOKUP);
+        Visit visit = lockVisit(visitId);
+        lookup.end(2);
+
+        Instant startDateTime = ZonedDateTime.parse(request.getStart()).toInstant();
+        Instant endDateTime = ZonedDateTime.parse(request.getEnd()).toInstant();
+
+        validateSlot(startDateTime, endDateTime);
+
+        long patientId = visit.getPatient().getId();
+        long doctorId = visit.getDoctor().getId();
+        Trace.Span overlapCheck = trace.begin(Phase.OVERLAP_CHECK);
+        long overlappingVisits = visitRepository.countOverlappingVisitsExcluding(
+                doctorId, startDateTime, endDateTime, visitId);
+        overlapCheck.end();
+
+        if (overlappingVisits > 0) {
+            throw new BusinessException("Doctor already has a visit scheduled at this time");
+        }
+
+        Trace.Span update = trace.begin(Phase.UPDATE);
+        Instant previousStart = visit.getStartDateTime();
+        Instant previousEnd = visit.getEndDateTime();
+        visit.setStartDateTime(startDateTime);
+        visit.setEndDateTime(endDateTime);
+        visitRepository.saveAndFlush(visit);
+        visitEventRepository.save(VisitEvent.builder()
+                .type(VisitEvent.Type.RESCHEDULED)
+                .visitId(visitId)
+                .patientId(patientId)
+                .doctorId(doctorId)
+                .startDateTime(startDateTime)
+                .endDateTime(endDateTime)
+                .previousStartDateTime(previousStart)
+                .previousEndDateTime(previousEnd)
+                .createdAt(Instant.now())
+                .build());
+        // moving the latest visit earlier lowers last_visit_at, which raiseLastVisitAt cannot do
+        patientRepository.resetLastVisitAt(patientId);
+        update.end(3);
+
+        patientHistoryCache.invalidateAfterCommit(patientId);
+        memoryPatientListing.refreshPairAfterCommit(patientId, doctorId);
+    }
+
+    /**
+     * Locks the visit and then its doctor, and only then reads the visit, so the overlap check and the
+     * derived updates see every visit of the doctor that committed before.
+     */
+    private Visit lockVisit(Long visitId) {
+        Long doctorId = visitRepository.lockDoctorIdById(visitId)
+                .orElseThrow(() -> new BusinessException("Visit not found"));
+        doctorRepository.findByIdForUpdate(doctorId)
+                .orElseThrow(() -> new BusinessException("Doctor not found"));
+        return visitRepository.findById(visitId)
+                .orElseThrow(() -> new BusinessException("Visit not found"));
     }
 
-    @Transactional(readOnly = true)
     public PatientsListResponse getPatients(Integer page, Integer size, String search, List<Long> doctorIds) {
+        return getPatients(null, page, size, search, doctorIds, PatientFields.ALL, null);
+    }
+
+    /**
+     * Not transactional on purpose: each repository call runs in its own read-only transaction, so the
+     * fan-out strategy does not pin an idle connection on the calling thread while its sub-queries run.
+     * With more than one clinic shard the strategy is ignored and the page is gathered from every shard.
+     * Once the in-memory read model is loaded it answers instead of the database, for every shard.
+     * A projection that leaves out fields runs as one statement built for those fields, whatever the strategy.
+     *
+     * @param strategy       listing strategy, or null for {@code meditrack.listing.strategy}
+     * @param fields         projection of the response, {@link PatientFields#ALL} for every field
+     * @param patientsWindow days over which each listed doctor's {@code recentPatients} are counted, or null
+     */
+    public PatientsListResponse getPatients(ListingStrategy strategy, Integer page, Integer size, String search,
+                                            List<Long> doctorIds, PatientFields fields, Integer patientsWindow) {
+        ListingStrategy actualStrategy = strategy != null ? strategy : listingStrategy;
         int actualPage = page != null ? page : 0;
         int actualSize = size != null ? size : 20;
         int offset = actualPage * actualSize;
 
+        Trace trace = Trace.current();
+        trace.parameter("search", search);
+        trace.parameter("doctorIds", doctorIds);
+        trace.parameter("offset", offset);
+        trace.parameter("size", actualSize);
+
+        Trace.Span sql = trace.begin(Phase.SQL);
         List<Object[]> results;
 
-        if (doctorIds == null || doctorIds.isEmpty()) {
+        if (memoryPatientListing.isActive()) {
+            results = memoryPatientListing.fetchRows(search, doctorIds, offset, actualSize);
+        } else if (shardedPatientListing.isActive()) {
+            results = shardedPatientListing.fetchRows(search, doctorIds, fields, offset, actualSize);
+        } else if (!fields.isAll()) {
+            results = patientRepository.findPatientRows(search, doctorIds, fields, offset, actualSize);
+        } else if (actualStrategy == ListingStrategy.FAN_OUT) {
+            results = parallelPatientListing.fetchRows(search, doctorIds, offset, actualSize);
+        } else if (doctorIds == null || doctorIds.isEmpty()) {
             results = patientRepository.findAllPatientsWithDataOptimized(search, offset, actualSize);
         } else {
             results = patientRepository.findPatientsWithAllDataOptimized(
                     search, doctorIds, doctorIds.size(), offset, actualSize);
         }
+        sql.end(results.size());
 
         if (results.isEmpty()) {
             return PatientsListResponse.builder()
                     .data(Collections.emptyList())
-                    .count(0L)
+                    .count(fields.count() ? 0L : null)
                     .build();
         }
 
+        Long totalCount = fields.count() ? ((Number) results.get(0)[11]).longValue() : null;
+        Map<Long, Integer> recentPatients = countRecentPatients(results, fields, patientsWindow);
+        Trace.Span assembly = trace.begin(Phase.ASSEMBLY);
+        List<PatientResponse> patientResponses =
+                new PatientListAssembler(fields, recentPatients).assemble(results, actualSize);
+        assembly.end(patientResponses.size());
 
-        long totalCount = ((Number) results.get(0)[11]).longValue();
-
-        Map<Long, PatientData> patientDataMap = new LinkedHashMap<>();
-
-        for (Object[] row : results) {
-            Long patientId = ((Number) row[0]).longValue();
-            String patientFirstName = (String) row[1];
-            String patientLastName = (String) row[2];
-
-            PatientData patientData = patientDataMap.computeIfAbsent(
-                    patientId, id -> PatientData.builder()
-                            .firstName(patientFirstName)
-                            .lastName(patientLastName)
-                            .visits(new ArrayList<>())
-                            .build()
-            );
-
-            if (row[3] != null) {
-                Timestamp startTimestamp = (Timestamp) row[4];
-                Timestamp endTimestamp = (Timestamp) row[5];
-                ZonedDateTime startDateTime = startTimestamp.toInstant().atZone(ZoneId.systemDefault());
-                ZonedDateTime endDateTime = endTimestamp.toInstant().atZone(ZoneId.systemDefault());
-
-                String doctorFirstName = (String) row[7];
-                String doctorLastName = (String) row[8];
-                String timezone = (String) row[9];
-                Integer patientCount = row[10] != null ? ((Number) row[10]).intValue() : 0;
-
-                VisitData visitData = VisitData.builder()
-                        .startDateTime(startDateTime)
-                        .endDateTime(endDateTime)
-                        .doctorFirstName(doctorFirstName)
-                        .doctorLastName(doctorLastName)
-                        .timezone(timezone)
-                        .patientCount(patientCount)
-                        .build();
-
-                patientData.addVisit(visitData);
-            }
-        }
+        return PatientsListResponse.builder()
+                .data(patientResponses)
+                .count(totalCount)
+                .build();
+    }
+
+    /**
+     * Keyset page of the listing in {@code sort} order, continuing after {@code cursor} (null for the first
+     * page). One patient more than the page is fetched to tell whether a next page exists. Served by the
+     * database, also with the in-memory engine, whose columns are ordered by id only.
+     *
+     * @param patientsWindow days over which each listed doctor's {@code recentPatients} are counted, or null
+     */
+    public PatientsListResponse getSortedPatients(PatientSort sort, String cursor, Integer size, String search,
+                                                  List<Long> doctorIds, PatientFields fields,
+                                                  Integer patientsWindow) {
+        int actualSize = size != null ? size : 20;
+        PatientCursor after = cursor != null && !cursor.isBlank() ? PatientCursor.decode(sort, cursor) : null;
+        List<Object> afterKeys = after != null ? after.keys() : null;
+
+        Trace trace = Trace.current();
+        trace.parameter("search", search);
+        trace.parameter("doctorIds", doctorIds);
+        trace.parameter("sort", sort.parameter());
+        trace.parameter("size", actualSize);
+
+        Trace.Span sql = trace.begin(Phase.SQL);
+        List<Object[]> results = shardedPatientListing.isActive()
+                ? shardedPatientListing.fetchSortedRows(search, doctorIds, fields, sort, afterKeys, actualSize + 1)
+                : patientRepository.findSortedPatientRows(search, doctorIds, fields, sort, afterKeys, actualSize + 1);
+        sql.end(results.size());
+
+        int pageRows = rowsOfFirstPatients(results, actualSize);
+        boolean hasMore = pageRows < results.size();
+        List<Object[]> page = hasMore ? results.subList(0, pageRows) : results;
+        Long totalCount = fields.count()
+                ? (results.isEmpty() ? 0L : ((Number) results.get(0)[11]).longValue())
+                : null;
 
-        List<PatientResponse> patientResponses = patientDataMap.values().stream()
-                .map(this::convertToPatientResponse)
-                .collect(Collectors.toList());
+        Map<Long, Integer> recentPatients = countRecentPatients(page, fields, patientsWindow);
+        Trace.Span assembly = trace.begin(Phase.ASSEMBLY);
+        List<PatientResponse> patientResponses =
+                new PatientListAssembler(fields, recentPatients).assemble(page, actualSize);
+        assembly.end(patientResponses.size());
 
         return PatientsListResponse.builder()
                 .data(patientResponses)
                 .count(totalCount)
+                .nextCursor(hasMore && pageRows > 0 ? PatientCursor.of(sort, page.get(pageRows - 1)).encode() : null)
                 .build();
     }
 
-    private PatientResponse convertToPatientResponse(PatientData patientData) {
-        List<VisitResponse> visitResponses = patientData.getVisits().stream()
-                .map(visitData -> {
-                    DoctorResponse doctorResponse = DoctorResponse.builder()
-                            .firstName(visitData.getDoctorFirstName())
-                            .lastName(visitData.getDoctorLastName())
-                            .totalPatients(visitData.getPatientCount())
-                            .build();
-
-                    return VisitResponse.builder()
-                            .start(formatDate(visitData.getStartDateTime(), visitData.getTimezone()))
-                            .end(formatDate(visitData.getEndDateTime(), visitData.getTimezone()))
-                            .doctor(doctorResponse)
-                            .build();
-                })
-                .collect(Collectors.toList());
-
-        return PatientResponse.builder()
-                .firstName(patientData.getFirstName())
-                .lastName(patientData.getLastName())
-                .lastVisits(visitResponses)
-                .build();
+    /**
+     * Distinct patients over the window of the doctors in {@code rows}, from the daily sketches of the stats
+     * rollup; null without a window or without doctors in the projection.
+     */
+    private Map<Long, Integer> countRecentPatients(List<Object[]> rows, PatientFields fields, Integer patientsWindow) {
+        if (patientsWindow == null || !fields.doctor()) {
+            return null;
+        }
+        Set<Long> doctorIds = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[6] != null) {
+                doctorIds.add(((Number) row[6]).longValue());
+            }
+        }
+        Trace.Span span = Trace.current().begin(Phase.SQL_RECENT_PATIENTS);
+        Map<Long, Integer> counts = doctorStatsService.countRecentPatients(doctorIds, patientsWindow);
+        span.end(counts.size());
+        return counts;
     }
 
-    private String formatDate(ZonedDateTime dateTime, String timezone) {
-        return dateTime.withZoneSameInstant(ZoneId.of(timezone))
-                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    /**
+     * Number of leading rows that belong to the first {@code patients} patients; rows of a patient are adjacent.
+     */
+    private static int rowsOfFirstPatients(List<Object[]> rows, int patients) {
+        int seen = 0;
+        long previous = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            long patientId = ((Number) rows.get(i)[0]).longValue();
+            if (i == 0 || patientId != previous) {
+                if (seen == patients) {
+                    return i;
+                }
+                seen++;
+                previous = patientId;
+            }
+        }
+        return rows.size();
+    }
+
+    private static void validateSlot(Instant start, Instant end) {
+        if (!start.isBefore(end)) {
+            throw new BusinessException("Start time must be before end time");
+        }
+        if (Duration.between(start, end).compareTo(Visit.MAX_LENGTH) > 0) {
+            throw new BusinessException("A visit can last at most 24 hours");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package org.example.meditrack.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.meditrack.sharding.ShardRouter;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Work kept off the startup path and done once the application is up, on a background thread: checking
+ * that no migration is pending (on every shard), then running a first listing page so the connection pool,
+ * the deferred JPA repositories, the database buffer pool and the JIT are warm before traffic arrives.
+ * <p>
+ * Exposed as the {@code warmup} health indicator, which the readiness group includes, so instances only
+ * receive traffic once this is done. A pending migration keeps the instance out of service and is checked
+ * again on every probe.
+ */
+@Slf4j
+@Component("warmup")
+public class WarmupService implements HealthIndicator {
+
+    enum State { PENDING, RUNNING, SCHEMA_BEHIND, READY }
+
+    private final VisitService visitService;
+    private final DataSource dataSource;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+
+    private volatile State state = State.PENDING;
+    private volatile List<String> pendingMigrations = List.of();
+
+    public WarmupService(VisitService visitService, DataSource dataSource, ShardRouter shardRouter,
+                         @Value("${meditrack.warmup.enabled:true}") boolean enabled) {
+        this.visitService = visitService;
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            state = State.READY;
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void warmUp() {
+        state = State.RUNNING;
+        long started = System.nanoTime();
+        if (!checkSchema()) {
+            return;
+        }
+        try {
+            visitService.getPatients(0, 20, null, null);
+        } catch (RuntimeException e) {
+            // not fatal: the database health indicator reports connectivity, readiness only waits for warm-up
+            log.warn("Warm-up listing failed", e);
+        }
+        state = State.READY;
+        log.info("Warm-up finished in {} ms", (System.nanoTime() - started) / 1_000_000L);
+    }
+
+    @Override
+    public Health health() {
+        if (state == State.SCHEMA_BEHIND) {
+            checkSchema();
+        }
+        return switch (state) {
+            case READY -> Health.up().build();
+            case SCHEMA_BEHIND -> Health.outOfService()
+                    .withDetail("pendingMigrations", pendingMigrations)
+                    .build();
+            default -> Health.outOfService().withDetail("state", state.name().toLowerCase()).build();
+        };
+    }
+
+    private synchronized boolean checkSchema() {
+        List<String> pending = new ArrayList<>();
+        shardRouter.onEachShard(() -> Arrays.stream(Flyway.configure()
+                        .dataSource(dataSource)
+                        .baselineVersion("1")
+                        .load()
+                        .info()
+                        .pending())
+                .map(MigrationInfo::getVersion)
+                .map(String::valueOf)
+                .forEach(pending::add));
+        pendingMigrations = List.copyOf(pending);
+        if (!pending.isEmpty()) {
+            if (state != State.SCHEMA_BEHIND) {
+                log.warn("Pending migrations {}, run mvn compile flyway:migrate; staying out of service", pending);
+            }
+            state = State.SCHEMA_BEHIND;
+            return false;
+        }
+        if (state == State.SCHEMA_BEHIND) {
+            state = State.READY;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.meditrack.sharding;
+
+/**
+ * Shard the current thread works on, read by {@link ShardRoutingDataSource} when a connection is opened.
+ * Unset means the default shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    /**
+     * Task decorator for executors: runs the task on the shard that was current when it was submitted.
+     */
+    public static Runnable propagate(Runnable task) {
+        Integer shard = current();
+        return () -> {
+            Integer previous = current();
+            set(shard);
+            try {
+                task.run();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+}
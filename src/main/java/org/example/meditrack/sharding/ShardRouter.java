@@ -0,0 +1,80 @@
+package org.example.meditrack.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Maps ids to shards and scopes work to a shard. Every shard allocates ids congruent to its index
+ * ({@code auto_increment_increment} = shard count, {@code auto_increment_offset} = index + 1), so the id of
+ * a doctor, patient or visit is its own shard key and routing needs no directory lookup.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id - 1, (long) shardCount);
+    }
+
+    /**
+     * Makes the calling thread use {@code shard} until the returned scope is closed.
+     */
+    public Scope enter(int shard) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("No shard " + shard);
+        }
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        return () -> ShardContext.set(previous);
+    }
+
+    public Scope enterShardOf(long id) {
+        return enter(shardOf(id));
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        try (Scope ignored = enter(shard)) {
+            return work.get();
+        }
+    }
+
+    public <T> T onShardOf(long id, Supplier<T> work) {
+        return onShard(shardOf(id), work);
+    }
+
+    public void onShardOf(long id, Runnable work) {
+        try (Scope ignored = enterShardOf(id)) {
+            work.run();
+        }
+    }
+
+    /**
+     * Runs {@code work} once per shard, one shard after the other.
+     */
+    public void onEachShard(Runnable work) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            try (Scope ignored = enter(shard)) {
+                work.run();
+            }
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.meditrack.tracing;
+
+/**
+ * Phases of the traced hot paths. {@link #SQL} covers fetching the listing rows whatever the strategy; a
+ * single-query listing reads and maps its rows inside that one Hibernate call. The fan-out sub-queries and
+ * the merge of fan-out or per-shard results ({@link #MAPPING}) run inside it and are reported on their own.
+ */
+public enum Phase {
+    REQUEST("request"),
+    SQL("sql"),
+    SQL_COUNT("sql.count"),
+    SQL_LATEST_VISITS("sql.latest-visits"),
+    SQL_DOCTOR_STATS("sql.doctor-stats"),
+    SQL_RECENT_PATIENTS("sql.recent-patients"),
+    MAPPING("mapping"),
+    ASSEMBLY("assembly"),
+    ENCODING("encoding"),
+    SERIALIZATION("serialization"),
+    LOOKUP("lookup"),
+    OVERLAP_CHECK("overlap-check"),
+    INSERT("insert"),
+    UPDATE("update");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
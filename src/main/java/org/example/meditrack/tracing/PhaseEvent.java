@@ -0,0 +1,32 @@
+package org.example.meditrack.tracing;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for one phase of a traced request. Like other custom events it is enabled by default, so it
+ * is recorded whenever a flight recording is running ({@code -XX:StartFlightRecording} or {@code jcmd JFR.start})
+ * and costs nothing otherwise.
+ */
+@Name("meditrack.Phase")
+@Label("Hot Path Phase")
+@Category("MediTrack")
+@Description("One phase of a booking or patient listing request")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(PhaseEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Rows")
+    @Description("Rows read or objects produced by the phase, -1 when not applicable")
+    int rows;
+
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.meditrack.tracing;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Phase timings of one traced request. {@link TracingFilter} binds a trace to the request thread while a
+ * flight recording is running or the slow-query log is on; otherwise {@link #current()} returns an inactive
+ * trace whose spans do nothing, so the instrumented code pays for a thread-local lookup per request and
+ * nothing per phase.
+ * <p>
+ * Spans may end on other threads (the fan-out sub-queries), so the accumulated timings are guarded by the
+ * trace. A phase that runs more than once adds up its time and rows.
+ */
+public final class Trace implements AutoCloseable {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    private static final Trace OFF = new Trace(null, 0, null);
+
+    private final String operation;
+    private final long slowThresholdNanos;
+    private final Consumer<String> slowLog;
+    private final Span request;
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] rows = new long[Phase.values().length];
+    private final boolean[] recorded = new boolean[Phase.values().length];
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    private Trace(String operation, long slowThresholdNanos, Consumer<String> slowLog) {
+        this.operation = operation;
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.slowLog = slowLog;
+        Arrays.fill(rows, -1);
+        this.request = begin(Phase.REQUEST);
+    }
+
+    /**
+     * The trace of the request running on this thread, or an inactive one.
+     */
+    public static Trace current() {
+        Trace trace = CURRENT.get();
+        return trace != null ? trace : OFF;
+    }
+
+    /**
+     * Starts a trace and binds it to the current thread until it is closed. Requests that take at least
+     * {@code slowThresholdNanos} are reported to {@code slowLog}; zero or less turns the report off.
+     */
+    static Trace start(String operation, long slowThresholdNanos, Consumer<String> slowLog) {
+        Trace trace = new Trace(operation, slowThresholdNanos, slowLog);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public boolean isActive() {
+        return operation != null;
+    }
+
+    public Span begin(Phase phase) {
+        return isActive() ? new Span(this, phase) : Span.NOOP;
+    }
+
+    /**
+     * Records a bound parameter of the request for the slow-query log.
+     */
+    public void parameter(String name, Object value) {
+        if (isActive()) {
+            synchronized (this) {
+                parameters.put(name, value);
+            }
+        }
+    }
+
+    private synchronized void record(Phase phase, long elapsedNanos, int phaseRows) {
+        int i = phase.ordinal();
+        nanos[i] += elapsedNanos;
+        if (phaseRows >= 0) {
+            rows[i] = Math.max(rows[i], 0) + phaseRows;
+        }
+        recorded[i] = true;
+    }
+
+    synchronized long elapsedNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    @Override
+    public void close() {
+        if (!isActive()) {
+            return;
+        }
+        CURRENT.remove();
+        request.end();
+        if (slowThresholdNanos > 0 && elapsedNanos(Phase.REQUEST) >= slowThresholdNanos) {
+            slowLog.accept(summary());
+        }
+    }
+
+    /**
+     * One line for the slow-query log: operation, total time, parameters and every phase that ran, e.g.
+     * {@code GET /api/patients took 812 ms {search=an, offset=0} sql 790 ms 21 rows, assembly 2 ms 20 rows}.
+     */
+    synchronized String summary() {
+        StringBuilder line = new StringBuilder(operation)
+                .append(" took ").append(TimeUnit.NANOSECONDS.toMillis(nanos[Phase.REQUEST.ordinal()])).append(" ms ")
+                .append(parameters);
+        String separator = " ";
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            if (phase == Phase.REQUEST || !recorded[i]) {
+                continue;
+            }
+            line.append(separator).append(phase.label()).append(' ')
+                    .append(TimeUnit.NANOSECONDS.toMillis(nanos[i])).append(" ms");
+            if (rows[i] >= 0) {
+                line.append(' ').append(rows[i]).append(" rows");
+            }
+            separator = ", ";
+        }
+        return line.toString();
+    }
+
+    /**
+     * A running phase. Ending it records the elapsed time on the trace and commits a {@link PhaseEvent}
+     * when a recording is running.
+     */
+    public static final class Span {
+
+        private static final Span NOOP = new Span(null, null);
+
+        private final Trace trace;
+        private final Phase phase;
+        private final long startedNanos;
+        private final PhaseEvent event;
+
+        private Span(Trace trace, Phase phase) {
+            this.trace = trace;
+            this.phase = phase;
+            this.startedNanos = trace != null ? System.nanoTime() : 0;
+            if (trace != null && PhaseEvent.isRecording()) {
+                event = new PhaseEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        public void end() {
+            end(-1);
+        }
+
+        /**
+         * @param rows rows read or objects produced by the phase
+         */
+        public void end(int rows) {
+            if (trace == null) {
+                return;
+            }
+            trace.record(phase, System.nanoTime() - startedNanos, rows);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = trace.operation;
+                    event.phase = phase.label();
+                    event.rows = rows;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
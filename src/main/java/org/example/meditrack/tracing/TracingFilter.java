@@ -0,0 +1,50 @@
+package org.example.meditrack.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Opens a {@link Trace} around {@code POST /api/visits}, {@code GET /api/patients} and
+ * {@code POST /api/patients/lookup}, so the phases
+ * recorded by the services and the JSON serialization end up on one trace. Requests slower than the
+ * threshold are logged at WARN with their bound parameters, row counts and phase times.
+ * <p>
+ * With no flight recording running and the slow-query log off, requests pass straight through.
+ */
+@Slf4j
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final long slowThresholdNanos;
+
+    public TracingFilter(Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !("POST".equals(request.getMethod()) && path.equals("/api/visits"))
+                && !("GET".equals(request.getMethod()) && path.equals("/api/patients"))
+                && !("POST".equals(request.getMethod()) && path.equals("/api/patients/lookup"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (slowThresholdNanos <= 0 && !PhaseEvent.isRecording()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try (Trace ignored = Trace.start(request.getMethod() + " " + request.getRequestURI(),
+                slowThresholdNanos, line -> log.warn("Slow request: {}", line))) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+-- Schema as of the first versioned migration. Databases created earlier by ddl-auto: update or from
+-- dump.sql are baselined at this version (spring.flyway.baseline-on-migrate) and skip this script;
+-- V1_1, V1_2 and V1_3 then convert their visit times and add what they lack of this schema.
+
+CREATE TABLE patients (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL
+);
+
+CREATE INDEX idx_patient_name ON patients (first_name, last_name);
+
+CREATE TABLE doctors (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    timezone VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE visits (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    start_date_time BIGINT NOT NULL, -- epoch milliseconds
+    end_date_time BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    CONSTRAINT fk_visit_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+    CONSTRAINT fk_visit_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id),
+    CONSTRAINT uk_visit_doctor_time UNIQUE (doctor_id, start_date_time, end_date_time)
+);
+
+CREATE INDEX idx_visit_doctor_time ON visits (doctor_id, start_date_time);
+CREATE INDEX idx_visit_patient ON visits (patient_id, start_date_time);
+CREATE INDEX idx_visit_start_time ON visits (start_date_time);
+
+CREATE TABLE visit_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    visit_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    start_date_time BIGINT NOT NULL,
+    end_date_time BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_visit_event_created ON visit_events (created_at);
+
+CREATE TABLE outbox_offsets (
+    listener VARCHAR(100) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL
+);
+
+CREATE TABLE import_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    kind VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    committed_rows BIGINT NOT NULL,
+    rejected_rows BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL
+);
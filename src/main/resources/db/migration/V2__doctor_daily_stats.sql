@@ -0,0 +1,11 @@
+-- Visits per doctor per local day (in the doctor's timezone), maintained from the visit outbox and
+-- rebuilt by the stats backfill. A visit counts on the day it starts.
+
+CREATE TABLE doctor_daily_stats (
+    doctor_id BIGINT NOT NULL,
+    visit_date DATE NOT NULL,
+    visits INT NOT NULL,
+    booked_minutes BIGINT NOT NULL,
+    patients INT NOT NULL,
+    PRIMARY KEY (doctor_id, visit_date)
+);
@@ -0,0 +1,15 @@
+-- Sort keys of the patient listing (GET /api/patients?sort=). Every order is an index ending with the id,
+-- which InnoDB appends to secondary indexes, so a page after a cursor is a range scan of page size rows:
+--   lastName  -> idx_patient_last_name (last_name, first_name, id)
+--   firstName -> idx_patient_name (first_name, last_name, id)
+--   lastVisit -> idx_patient_last_visit (last_visit_at, id), read backwards
+-- last_visit_at is the start of the patient's latest visit in epoch milliseconds, 0 without visits. It is
+-- raised in the transaction that inserts a visit.
+
+ALTER TABLE patients ADD COLUMN last_visit_at BIGINT NOT NULL DEFAULT 0;
+
+UPDATE patients p
+SET last_visit_at = COALESCE((SELECT MAX(v.start_date_time) FROM visits v WHERE v.patient_id = p.id), 0);
+
+CREATE INDEX idx_patient_last_name ON patients (last_name, first_name);
+CREATE INDEX idx_patient_last_visit ON patients (last_visit_at);
@@ -0,0 +1,5 @@
+-- HyperLogLog sketch of the patients of each doctor-day (see HyperLogLog), merged to count the distinct
+-- patients of a doctor over any range of days without reading the visits. Days rolled up before this
+-- migration have no sketch and count no patients until the stats backfill rebuilds them.
+
+ALTER TABLE doctor_daily_stats ADD COLUMN patient_sketch VARBINARY(1025);
@@ -0,0 +1,6 @@
+-- Visits can be cancelled (DELETE /api/visits/{id}) and rescheduled (PATCH /api/visits/{id}). A RESCHEDULED
+-- outbox event carries the new slot in start/end and the slot it left in previous_start/previous_end, so
+-- listeners can update both days. The previous slot is null for the other event types.
+
+ALTER TABLE visit_events ADD COLUMN previous_start_date_time BIGINT;
+ALTER TABLE visit_events ADD COLUMN previous_end_date_time BIGINT;
@@ -0,0 +1,51 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrates a database loaded from dump.sql, which Flyway baselines at version 1, against H2.
+ */
+class LegacySchemaMigrationTest {
+
+    @Test
+    void migrate_DumpSchemaBaselinedAtV1_AddsMissingTablesAndIndexes() throws Exception {
+        // Given
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new FileSystemResource("dump.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // When
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        // Then
+        assertEquals(8, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits", Integer.class));
+        jdbcTemplate.update("INSERT INTO visit_events (type, visit_id, patient_id, doctor_id, start_date_time, "
+                + "end_date_time, created_at) VALUES ('CREATED', 1, 1, 1, 1757944800000, 1757946600000, ?)",
+                Timestamp.from(Instant.now()));
+        jdbcTemplate.update("INSERT INTO outbox_offsets VALUES ('rollup', 1)");
+        jdbcTemplate.update("INSERT INTO import_jobs (kind, status, committed_rows, rejected_rows, created_at, "
+                + "updated_at) VALUES ('VISITS', 'DONE', 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+        assertEquals(Map.of("LAST_VISIT_AT", 1758117600000L), jdbcTemplate.queryForMap(
+                "SELECT last_visit_at FROM patients WHERE id = 2"));
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(2, LegacySchema.indexColumns(connection, "visits", "idx_visit_patient"));
+            assertEquals(2, LegacySchema.indexColumns(connection, "visits", "idx_visit_doctor_time"));
+            assertEquals(1, LegacySchema.indexColumns(connection, "visits", "idx_visit_start_time"));
+            assertEquals(2, LegacySchema.indexColumns(connection, "patients", "idx_patient_name"));
+            assertEquals(1, LegacySchema.indexColumns(connection, "visit_events", "idx_visit_event_created"));
+        }
+    }
+}
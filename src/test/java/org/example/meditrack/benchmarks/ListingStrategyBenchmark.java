@@ -0,0 +1,78 @@
+package org.example.meditrack.benchmarks;
+
+import org.example.meditrack.MediTrackApplication;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.services.ListingStrategy;
+import org.example.meditrack.services.VisitService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-query and fan-out listing strategies against the database configured in
+ * {@code application.yml} (the MySQL from {@code docker-compose.yml}).
+ * <p>
+ * Run with: {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath org.example.meditrack.benchmarks.ListingStrategyBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingStrategyBenchmark {
+
+    @Param({"SINGLE_QUERY", "FAN_OUT"})
+    public ListingStrategy strategy;
+
+    @Param({"", "john"})
+    public String search;
+
+    @Param({"", "1,2"})
+    public String doctorIds;
+
+    @Param({"0", "500"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private VisitService visitService;
+    private List<Long> doctorIdList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(MediTrackApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run("--logging.level.root=WARN");
+        visitService = context.getBean(VisitService.class);
+        doctorIdList = doctorIds.isEmpty() ? null : Arrays.stream(doctorIds.split(","))
+                .map(Long::parseLong)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PatientsListResponse getPatients() {
+        return visitService.getPatients(strategy, page, 20, search.isEmpty() ? null : search, doctorIdList,
+                PatientFields.ALL, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ListingStrategyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
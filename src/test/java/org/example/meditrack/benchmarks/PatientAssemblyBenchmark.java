@@ -0,0 +1,97 @@
+package org.example.meditrack.benchmarks;
+
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.repositories.DoctorRepository;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.example.meditrack.services.ListingStrategy;
+import org.example.meditrack.services.MemoryPatientListing;
+import org.example.meditrack.services.ShardedPatientListing;
+import org.example.meditrack.services.VisitService;
+import org.example.meditrack.sharding.ShardRouter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory part of {@link VisitService#getPatients}: turning the rows of the listing query
+ * into the response DTOs. The repository is a canned stub, so database time is excluded.
+ * <p>
+ * Runs with the GC profiler to report bytes allocated per request: {@code mvn test-compile exec:exec
+ * -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath org.example.meditrack.benchmarks.PatientAssemblyBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientAssemblyBenchmark {
+
+    private static final String[] TIMEZONES = {"America/New_York", "Europe/Kiev", "Europe/London"};
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"3"})
+    public int visitsPerPatient;
+
+    private VisitService visitService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Object[]> rows = new ArrayList<>(pageSize * visitsPerPatient);
+        long start = Instant.parse("2025-09-15T14:00:00Z").toEpochMilli();
+        for (long patientId = 1; patientId <= pageSize; patientId++) {
+            for (int visit = 0; visit < visitsPerPatient; visit++) {
+                long doctorId = visit + 1;
+                long visitStart = start + (patientId * visitsPerPatient + visit) * 3_600_000L;
+                rows.add(new Object[]{
+                        patientId, "First" + patientId, "Last" + patientId,
+                        patientId * 10 + visit,
+                        visitStart, visitStart + 1_800_000L,
+                        doctorId, "Doctor" + doctorId, "Surname" + doctorId,
+                        TIMEZONES[visit % TIMEZONES.length], 42,
+                        10_000L
+                });
+            }
+        }
+
+        PatientRepository patientRepository = (PatientRepository) Proxy.newProxyInstance(
+                PatientRepository.class.getClassLoader(),
+                new Class<?>[]{PatientRepository.class},
+                (proxy, method, args) -> rows);
+        visitService = new VisitService(stub(VisitRepository.class), patientRepository,
+                stub(DoctorRepository.class), null,
+                new ShardedPatientListing(patientRepository, new ShardRouter(1), Runnable::run), null, null,
+                new MemoryPatientListing(null), null);
+    }
+
+    @Benchmark
+    public PatientsListResponse assemble() {
+        return visitService.getPatients(ListingStrategy.SINGLE_QUERY, 0, pageSize, null, null, PatientFields.ALL, null);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PatientAssemblyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
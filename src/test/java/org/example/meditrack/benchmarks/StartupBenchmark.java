@@ -0,0 +1,90 @@
+package org.example.meditrack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures process start to context refresh of the extracted fast-start jar, in a fresh JVM per run:
+ * <ul>
+ *     <li>{@code jit}: the fast-start profile alone,</li>
+ *     <li>{@code aot}: plus the AOT-generated bean definitions,</li>
+ *     <li>{@code aot+cds}: plus the class data sharing archive from the training run.</li>
+ * </ul>
+ * Every run stops right after refresh ({@code spring.context.exit=onRefresh}), so no database is needed.
+ * Runs in the verify phase of {@code mvn -Pfast-start verify}; standalone:
+ * {@code java -cp target/test-classes org.example.meditrack.benchmarks.StartupBenchmark
+ * target/fast-start/MediTrack-0.0.1-SNAPSHOT-exec.jar [runs]}
+ */
+public class StartupBenchmark {
+
+    private static final int DEFAULT_RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        Path archive = jar.resolveSibling("application.jsa");
+
+        List<String> common = List.of("-Dspring.profiles.active=fast-start", "-Dspring.context.exit=onRefresh",
+                "-Dlogging.level.root=WARN");
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("jit", common));
+        variants.add(new Variant("aot", concat(common, "-Dspring.aot.enabled=true")));
+        if (Files.exists(archive)) {
+            variants.add(new Variant("aot+cds", concat(common, "-Dspring.aot.enabled=true",
+                    "-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off")));
+        }
+
+        // one untimed run each, so the file system cache is warm for all variants alike
+        for (Variant variant : variants) {
+            start(jar, variant);
+        }
+        System.out.printf("%-10s %10s %10s%n", "variant", "median ms", "min ms");
+        for (Variant variant : variants) {
+            long[] millis = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                millis[i] = start(jar, variant);
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-10s %10d %10d%n", variant.name(), millis[runs / 2], millis[0]);
+        }
+    }
+
+    private static long start(Path jar, Variant variant) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(variant.jvmArgs());
+        command.add("-jar");
+        command.add(jar.toString());
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.to(new File(jar.getParent().toFile(), "startup-benchmark.err")))
+                .start();
+        if (!process.waitFor(2, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IllegalStateException(variant.name() + " did not start within 2 minutes");
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000L;
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException(variant.name() + " exited with " + process.exitValue()
+                    + ", see startup-benchmark.err");
+        }
+        return millis;
+    }
+
+    private static List<String> concat(List<String> base, String... more) {
+        List<String> all = new ArrayList<>(base);
+        all.addAll(List.of(more));
+        return all;
+    }
+
+    private record Variant(String name, List<String> jvmArgs) {
+    }
+}
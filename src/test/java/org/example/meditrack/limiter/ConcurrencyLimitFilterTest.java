@@ -0,0 +1,156 @@
+package org.example.meditrack.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimiter bookings;
+    private ConcurrencyLimiter listings;
+    private ConcurrencyLimitFilter filter;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        bookings = new ConcurrencyLimiter("bookings", new GradientLimit(2, 1, 10));
+        listings = new ConcurrencyLimiter("listings", new GradientLimit(2, 1, 10));
+        filter = new ConcurrencyLimitFilter(bookings, listings, 3);
+        registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+    }
+
+    @Test
+    void listing_UnderLimit_PassesThroughAndReleases() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/patients"), response, new MockFilterChain());
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(0, listings.getInflight());
+        assertEquals(0, listings.getRejected());
+    }
+
+    @Test
+    void listing_OverLimit_Returns503WithRetryAfter() throws Exception {
+        // Given
+        listings.tryAcquire();
+        listings.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/patients"), response, chain);
+
+        // Then
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+        assertEquals(1.0, registry.get("meditrack.limiter.rejected").tag("endpoint", "listings")
+                .functionCounter().count());
+    }
+
+    @Test
+    void listing_WhileBookingsSaturated_IsShed() throws Exception {
+        // Given
+        bookings.tryAcquire();
+        bookings.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/patients"), response, new MockFilterChain());
+
+        // Then
+        assertEquals(503, response.getStatus());
+        assertEquals(0, listings.getInflight());
+    }
+
+    @Test
+    void lookup_OverListingsLimit_Returns503() throws Exception {
+        // Given
+        listings.tryAcquire();
+        listings.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/patients/lookup"), response, new MockFilterChain());
+
+        // Then
+        assertEquals(503, response.getStatus());
+        assertEquals(1, listings.getRejected());
+    }
+
+    @Test
+    void booking_WhileListingsSaturated_IsAdmitted() throws Exception {
+        // Given
+        listings.tryAcquire();
+        listings.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/visits"), response, new MockFilterChain());
+
+        // Then
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void rescheduleAndCancel_WhileBookingsSaturated_AreShed() throws Exception {
+        // Given
+        bookings.tryAcquire();
+        bookings.tryAcquire();
+        MockHttpServletResponse rescheduled = new MockHttpServletResponse();
+        MockHttpServletResponse cancelled = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("PATCH", "/api/visits/7"), rescheduled, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/api/visits/7"), cancelled, new MockFilterChain());
+
+        // Then
+        assertEquals(503, rescheduled.getStatus());
+        assertEquals(503, cancelled.getStatus());
+        assertEquals(2, bookings.getRejected());
+    }
+
+    @Test
+    void booking_ServerError_BacksOffLimit() throws Exception {
+        // Given
+        bookings = new ConcurrencyLimiter("bookings", new GradientLimit(10, 1, 10));
+        filter = new ConcurrencyLimitFilter(bookings, listings, 1);
+        FilterChain failing = (request, response) ->
+                ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/visits"), new MockHttpServletResponse(), failing);
+
+        // Then
+        assertEquals(9, bookings.getLimit());
+        assertEquals(0, bookings.getInflight());
+    }
+
+    @Test
+    void otherEndpoints_AreNotLimited() throws Exception {
+        // Given
+        listings.tryAcquire();
+        listings.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/patients/1/visits"), response,
+                new MockFilterChain());
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(2.0, registry.get("meditrack.limiter.limit").tag("endpoint", "listings").gauge().value());
+    }
+}
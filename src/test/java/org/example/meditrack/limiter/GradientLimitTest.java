@@ -0,0 +1,77 @@
+package org.example.meditrack.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientLimitTest {
+
+    private static final long FAST = 10_000_000L;
+
+    @Test
+    void onSample_SteadyLatencyAtFullUse_GrowsLimit() {
+        // Given
+        GradientLimit limit = new GradientLimit(10, 2, 100);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(FAST, limit.getLimit(), false);
+        }
+
+        // Then
+        assertTrue(limit.getLimit() > 10, "limit " + limit.getLimit());
+        assertTrue(limit.getLimit() <= 100);
+    }
+
+    @Test
+    void onSample_LatencyRises_ShrinksLimit() {
+        // Given
+        GradientLimit limit = new GradientLimit(50, 2, 100);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(FAST, 25, false);
+        }
+        int before = limit.getLimit();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(FAST * 10, limit.getLimit(), false);
+        }
+
+        // Then
+        assertTrue(limit.getLimit() < before, before + " -> " + limit.getLimit());
+    }
+
+    @Test
+    void onSample_MostlyIdle_DoesNotGrow() {
+        // Given
+        GradientLimit limit = new GradientLimit(20, 2, 100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, 1, false);
+        }
+
+        // Then
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void onSample_Dropped_BacksOffToMinimum() {
+        // Given
+        GradientLimit limit = new GradientLimit(20, 3, 100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, 20, true);
+        }
+
+        // Then
+        assertEquals(3, limit.getLimit());
+    }
+
+    @Test
+    void constructor_InitialOutsideBounds_Throws() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> new GradientLimit(1, 2, 10));
+    }
+}
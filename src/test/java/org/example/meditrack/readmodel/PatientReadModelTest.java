@@ -0,0 +1,318 @@
+package org.example.meditrack.readmodel;
+
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the read model against the single-query listing: both run on the same seeded H2 database, the SQL
+ * taken from the {@code @Query} annotations of {@link PatientRepository}, and must return the same rows.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PatientReadModelTest {
+
+    private static final int DOCTORS = 8;
+    private static final int PATIENTS = 300;
+    private static final int VISITS = 1_200;
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Emily", "David", "Anna", "Oleh", "Sophia"};
+    private static final String[] LAST_NAMES = {"Doe", "Smith", "Brown", "Clark", "Johnson", "Miller", "Wilson", "Taylor"};
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private ReadModelLoader loader;
+
+    @BeforeAll
+    void seed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:readmodel;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        loader = new ReadModelLoader(dataSource, new ShardRouter(1));
+
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= DOCTORS; i++) {
+            rows.add(new Object[]{"Doctor" + i, LAST_NAMES[i % LAST_NAMES.length], i % 2 == 0 ? "Europe/Kyiv" : "UTC"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO doctors (first_name, last_name, timezone) VALUES (?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 0; i < PATIENTS; i++) {
+            rows.add(new Object[]{FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO patients (first_name, last_name) VALUES (?, ?)", rows);
+
+        rows.clear();
+        long start = 1_735_689_600_000L;
+        for (int i = 0; i < VISITS; i++) {
+            // visits are inserted out of start order, so the latest visit is not always the highest id
+            long visitStart = start + random.nextInt(VISITS * 4) * 900_000L;
+            rows.add(new Object[]{visitStart, visitStart + 600_000L + i,
+                    1 + random.nextInt(PATIENTS - 20), 1 + random.nextInt(DOCTORS)});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+            "null, null, 0",
+            "null, null, 280",
+            "an, null, 0",
+            "AN, null, 20",
+            "'jane s', null, 0",
+            "j_n, null, 0",
+            "null, 1;2;3, 0",
+            "null, 1;2;3, 100",
+            "smith, 4, 0",
+            "null, 999, 0",
+            "nobody, null, 0"
+    })
+    void fetchRows_MatchesListingQuery(String search, String doctors, int offset) {
+        // Given
+        List<Long> doctorIds = doctors != null ? Arrays.stream(doctors.split(";")).map(Long::valueOf).toList() : null;
+        PatientReadModel model = loader.load();
+
+        // When
+        List<Object[]> rows = model.fetchRows(search, doctorIds, offset, 20);
+
+        // Then
+        assertEquals(normalize(sqlRows(search, doctorIds, offset, 20)), normalize(rows));
+    }
+
+    @Test
+    void load_KeepsLatestVisitOfEveryPair() {
+        // When
+        PatientReadModel model = loader.load();
+
+        // Then
+        long pairs = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT DISTINCT patient_id, doctor_id FROM visits) pairs", Long.class);
+        assertEquals(count("patients"), model.patientCount());
+        assertEquals(count("doctors"), model.doctorCount());
+        assertEquals(pairs, model.pairCount());
+    }
+
+    @Test
+    void tryApply_NewLatestVisit_ReplacesPairVisit() {
+        // Given
+        PatientReadModel model = loader.load();
+        long start = 1_900_000_000_000L;
+        long visitId = insertVisit(1, 1, start);
+
+        // When
+        boolean applied = model.tryApply(visitId, 1, 1, start, start + 600_000L);
+
+        // Then
+        assertTrue(applied);
+        assertEquals(normalize(sqlRows(null, null, 0, 5)), normalize(model.fetchRows(null, null, 0, 5)));
+        assertEquals(visitId, ((Number) model.fetchRows(null, List.of(1L), 0, 1).stream()
+                .filter(row -> ((Number) row[6]).longValue() == 1L)
+                .findFirst().orElseThrow()[3]).longValue());
+    }
+
+    @Test
+    void tryApply_OlderVisitTwice_ChangesNothing() {
+        // Given
+        PatientReadModel model = loader.load();
+        Map<String, Object> visit = jdbcTemplate.queryForMap("SELECT patient_id, doctor_id FROM visits WHERE id = 1");
+        long patientId = ((Number) visit.get("patient_id")).longValue();
+        long doctorId = ((Number) visit.get("doctor_id")).longValue();
+        List<Object> before = normalize(model.fetchRows(null, null, 0, PATIENTS));
+
+        // When
+        boolean applied = model.tryApply(50_000, patientId, doctorId, 0, 1)
+                && model.tryApply(50_000, patientId, doctorId, 0, 1);
+
+        // Then
+        assertTrue(applied);
+        assertEquals(before, normalize(model.fetchRows(null, null, 0, PATIENTS)));
+    }
+
+    @Test
+    void tryApply_UnknownPatient_IsNotApplied() {
+        // Given
+        PatientReadModel model = loader.load();
+
+        // When / Then
+        assertFalse(model.tryApply(99_999, 99_999, 1, 0, 1));
+        assertFalse(model.tryApply(99_999, 1, 99_999, 0, 1));
+    }
+
+    @Test
+    void catchUp_ReadsRowsAddedSinceLoad() {
+        // Given
+        PatientReadModel model = loader.load();
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES ('Late', 'Doctor', 'UTC')");
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('Zed', 'Newcomer')");
+        long doctorId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM doctors", Long.class);
+        long patientId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM patients", Long.class);
+        insertVisit(patientId, doctorId, 1_800_000_000_000L);
+
+        // When
+        long visits = loader.catchUp(model);
+
+        // Then
+        assertTrue(visits > 0);
+        assertEquals(normalize(sqlRows("newcomer", null, 0, 20)), normalize(model.fetchRows("newcomer", null, 0, 20)));
+        assertEquals(normalize(sqlRows(null, List.of(doctorId), 0, 20)),
+                normalize(model.fetchRows(null, List.of(doctorId), 0, 20)));
+    }
+
+    @Test
+    void catchUp_VisitCommittedAfterFarHigherIds_IsRead() {
+        // Given
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('Sam', 'Straggler')");
+        long patientId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM patients", Long.class);
+        PatientReadModel model = loader.load();
+        long highId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Long.class) + 5_000;
+        insertVisit(highId, 1, 1, 1_800_000_000_000L);
+        loader.catchUp(model);
+        // a bulk import chunk holding back thousands of ids commits after the higher visit was read
+        insertVisit(highId - 3_000, patientId, 4, 1_800_000_000_000L);
+
+        // When
+        loader.catchUp(model);
+
+        // Then
+        assertEquals(1, sqlRows("straggler", null, 0, 20).size());
+        assertEquals(normalize(sqlRows("straggler", null, 0, 20)),
+                normalize(model.fetchRows("straggler", null, 0, 20)));
+    }
+
+    @Test
+    void catchUp_CancelledVisits_FallsBackToEarlierVisitThenRemovesPair() {
+        // Given
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('Cora', 'Cancelled')");
+        long patientId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM patients", Long.class);
+        long earlier = insertVisit(patientId, 2, 1_700_000_000_000L);
+        long later = insertVisit(patientId, 2, 1_700_100_000_000L);
+        PatientReadModel model = loader.load();
+        int pairs = model.pairCount();
+
+        // When
+        cancel(later);
+        loader.catchUp(model);
+        List<Object> afterFirst = normalize(model.fetchRows("cancelled", null, 0, 20));
+        cancel(earlier);
+        loader.catchUp(model);
+
+        // Then
+        assertEquals(normalize(sqlRows("cancelled", null, 0, 20)), normalize(model.fetchRows("cancelled", null, 0, 20)));
+        assertNotEquals(afterFirst, normalize(model.fetchRows("cancelled", null, 0, 20)));
+        assertEquals(pairs - 1, model.pairCount());
+        assertEquals(normalize(sqlRows(null, List.of(2L), 0, PATIENTS)),
+                normalize(model.fetchRows(null, List.of(2L), 0, PATIENTS)));
+    }
+
+    @Test
+    void refreshPair_RescheduledLatestVisit_MovesPairVisit() {
+        // Given
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('Remy', 'Rescheduled')");
+        long patientId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM patients", Long.class);
+        insertVisit(patientId, 3, 1_700_000_000_000L);
+        long moved = insertVisit(patientId, 3, 1_700_100_000_000L);
+        PatientReadModel model = loader.load();
+        jdbcTemplate.update("UPDATE visits SET start_date_time = ?, end_date_time = ? WHERE id = ?",
+                1_600_000_000_000L, 1_600_000_600_000L, moved);
+
+        // When
+        boolean refreshed = loader.refreshPair(model, patientId, 3);
+
+        // Then
+        assertTrue(refreshed);
+        assertEquals(normalize(sqlRows("rescheduled", null, 0, 20)),
+                normalize(model.fetchRows("rescheduled", null, 0, 20)));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private long insertVisit(long patientId, long doctorId, long start) {
+        jdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (?, ?, ?, ?)",
+                start, start + 600_000L, patientId, doctorId);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Long.class);
+    }
+
+    private void insertVisit(long id, long patientId, long doctorId, long start) {
+        jdbcTemplate.update("INSERT INTO visits (id, start_date_time, end_date_time, patient_id, doctor_id) "
+                + "VALUES (?, ?, ?, ?, ?)", id, start, start + 600_000L, patientId, doctorId);
+    }
+
+    private void cancel(long visitId) {
+        Map<String, Object> visit = jdbcTemplate.queryForMap("SELECT * FROM visits WHERE id = ?", visitId);
+        jdbcTemplate.update("DELETE FROM visits WHERE id = ?", visitId);
+        jdbcTemplate.update("INSERT INTO visit_events (type, visit_id, patient_id, doctor_id, start_date_time, "
+                        + "end_date_time, created_at) VALUES ('CANCELLED', ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)",
+                visitId, visit.get("PATIENT_ID"), visit.get("DOCTOR_ID"), visit.get("START_DATE_TIME"),
+                visit.get("END_DATE_TIME"));
+    }
+
+    private List<Object[]> sqlRows(String search, List<Long> doctorIds, int offset, int pageSize) {
+        boolean filter = doctorIds != null && !doctorIds.isEmpty();
+        String sql = listingSql(filter ? "findPatientsWithAllDataOptimized" : "findAllPatientsWithDataOptimized");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("search", search)
+                .addValue("doctorIds", doctorIds)
+                .addValue("doctorIdsSize", filter ? doctorIds.size() : null)
+                .addValue("offset", offset)
+                .addValue("pageSize", pageSize);
+        return namedJdbcTemplate.query(sql, params, (rs, rowNum) -> {
+            Object[] row = new Object[12];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        });
+    }
+
+    private static String listingSql(String methodName) {
+        return Arrays.stream(PatientRepository.class.getMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class).value()
+                .replaceAll("IN :(\\w+)", "IN (:$1)");
+    }
+
+    /**
+     * Rows as comparable lists ordered by patient and doctor id; numbers as longs, and the doctor columns
+     * of a patient without visits as nulls whatever placeholder the source uses.
+     */
+    private static List<Object> normalize(List<Object[]> rows) {
+        List<List<Object>> normalized = new ArrayList<>();
+        for (Object[] row : rows) {
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                if (row[3] == null && i == 10) {
+                    value = null;
+                }
+                values.add(value instanceof Number number ? (Object) number.longValue() : value);
+            }
+            normalized.add(values);
+        }
+        normalized.sort(Comparator.<List<Object>>comparingLong(row -> (Long) row.get(0))
+                .thenComparingLong(row -> row.get(6) != null ? (Long) row.get(6) : -1L));
+        return new ArrayList<>(normalized);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.meditrack.readmodel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadModelSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeThenRead_RestoresSameListing() throws IOException {
+        // Given
+        PatientReadModel model = model();
+        Path file = dir.resolve("read-model.bin");
+
+        // When
+        ReadModelSnapshot.write(model, file);
+        PatientReadModel restored = ReadModelSnapshot.read(file, 2);
+
+        // Then
+        assertNotNull(restored);
+        assertEquals(model.patientCount(), restored.patientCount());
+        assertEquals(model.pairCount(), restored.pairCount());
+        assertArrayEquals(model.highWater, restored.highWater);
+        assertArrayEquals(model.settled, restored.settled);
+        assertRowsEqual(model.fetchRows(null, null, 0, 10), restored.fetchRows(null, null, 0, 10));
+        assertRowsEqual(model.fetchRows("zoë", List.of(20L), 0, 10), restored.fetchRows("zoë", List.of(20L), 0, 10));
+        assertTrue(restored.tryApply(500, 3, 10, 9_000, 9_500));
+        assertEquals(500L, restored.fetchRows(null, null, 2, 1).get(0)[3]);
+    }
+
+    @Test
+    void read_OtherShardCount_ReturnsNull() throws IOException {
+        // Given
+        Path file = dir.resolve("read-model.bin");
+        ReadModelSnapshot.write(model(), file);
+
+        // When / Then
+        assertNull(ReadModelSnapshot.read(file, 1));
+    }
+
+    @Test
+    void read_TruncatedFile_Throws() throws IOException {
+        // Given
+        Path file = dir.resolve("read-model.bin");
+        ReadModelSnapshot.write(model(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 12));
+
+        // When / Then
+        assertThrows(IOException.class, () -> ReadModelSnapshot.read(file, 2));
+    }
+
+    private static PatientReadModel model() {
+        PatientReadModel model = new PatientReadModel(2);
+        model.lock.writeLock().lock();
+        try {
+            model.putDoctor(10, "Gregory", "House", "America/New_York");
+            model.putDoctor(20, "Zoë", "Berger", "Europe/Kyiv");
+            model.putPatients(List.of(
+                    new Object[]{3L, "Ann", "Lee"},
+                    new Object[]{1L, "Zoë", "Doe"},
+                    new Object[]{2L, "John", "Doe"}));
+            model.applyVisit(100, 1, 10, 1_000, 1_500);
+            model.applyVisit(101, 1, 20, 2_000, 2_500);
+            model.applyVisit(102, 2, 20, 3_000, 3_500);
+            model.highWater[PatientReadModel.VISITS] = 102;
+            model.settled[PatientReadModel.VISITS] = 97;
+            model.highWater[PatientReadModel.MARKS + PatientReadModel.PATIENTS] = 3;
+        } finally {
+            model.lock.writeLock().unlock();
+        }
+        return model;
+    }
+
+    private static void assertRowsEqual(List<Object[]> expected, List<Object[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+}
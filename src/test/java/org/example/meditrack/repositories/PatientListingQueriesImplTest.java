@@ -0,0 +1,245 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientSort;
+import org.example.meditrack.exceptions.BusinessException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PatientListingQueriesImplTest {
+
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private PatientListingQueriesImpl queries;
+    private JdbcTemplate sortedJdbcTemplate;
+    private PatientListingQueriesImpl sortedQueries;
+
+    @BeforeAll
+    void seed() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:projection;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES "
+                + "('Greg', 'House', 'America/New_York'), ('Olena', 'Shevchenko', 'Europe/Kyiv')");
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES "
+                + "('John', 'Doe'), ('Jane', 'Smith'), ('Anna', 'Brown'), ('Oleh', 'Koval')");
+        jdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES "
+                + "(1735722000000, 1735723800000, 1, 1), (1735808400000, 1735810200000, 1, 1), "
+                + "(1735894800000, 1735896600000, 1, 2), (1735981200000, 1735983000000, 2, 2), "
+                + "(1736067600000, 1736069400000, 3, 1)");
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        queries = new PatientListingQueriesImpl(namedJdbcTemplate);
+
+        // names and latest visit times repeat, so pages have to break ties by id
+        DriverManagerDataSource sortedDataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:sorted;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(sortedDataSource);
+        sortedJdbcTemplate = new JdbcTemplate(sortedDataSource);
+        sortedJdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES "
+                + "('Greg', 'House', 'UTC'), ('Olena', 'Shevchenko', 'Europe/Kyiv')");
+        String[][] names = {{"John", "Doe"}, {"Anna", "Brown"}, {"Jane", "Smith"}, {"Anna", "Brown"}, {"Oleh", "Koval"},
+                {"Jane", "Doe"}, {"Anna", "Brown"}, {"Bob", "Adams"}, {"Zoe", "Doe"}, {"Jane", "Smith"}};
+        for (int i = 0; i < names.length; i++) {
+            sortedJdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES (?, ?)",
+                    names[i][0], names[i][1]);
+            // every third patient has no visits; patients 2 and 5 share their latest visit start
+            if (i % 3 != 2) {
+                long start = 1_735_722_000_000L + (i == 4 ? 1 : i) * 3_600_000L;
+                sortedJdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) "
+                        + "VALUES (?, ?, ?, ?)", start, start + 1_800_000L, i + 1, i % 2 + 1);
+            }
+        }
+        sortedJdbcTemplate.update("UPDATE patients p SET last_visit_at = "
+                + "COALESCE((SELECT MAX(v.start_date_time) FROM visits v WHERE v.patient_id = p.id), 0)");
+        sortedQueries = new PatientListingQueriesImpl(new NamedParameterJdbcTemplate(sortedDataSource));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PatientSort.class)
+    void findSortedPatientRows_PagesWithCursor_VisitEveryPatientInSortOrder(PatientSort sort) {
+        // Given
+        String order = switch (sort) {
+            case LAST_NAME -> "last_name, first_name, id";
+            case FIRST_NAME -> "first_name, last_name, id";
+            case LAST_VISIT -> "last_visit_at DESC, id DESC";
+        };
+        List<Long> expected = sortedJdbcTemplate.queryForList("SELECT id FROM patients ORDER BY " + order, Long.class);
+
+        // When
+        List<Long> listed = new ArrayList<>();
+        List<Object> after = null;
+        List<Object[]> page;
+        do {
+            page = sortedQueries.findSortedPatientRows(null, null, PatientFields.ALL, sort, after, 3);
+            for (Object[] row : page) {
+                long patientId = ((Number) row[0]).longValue();
+                if (listed.isEmpty() || listed.get(listed.size() - 1) != patientId) {
+                    listed.add(patientId);
+                }
+            }
+            if (!page.isEmpty()) {
+                Object[] last = page.get(page.size() - 1);
+                after = sort.byName() ? List.of(last[12], last[13], last[0]) : List.of(last[12], last[0]);
+            }
+        } while (!page.isEmpty());
+
+        // Then
+        assertEquals(expected, listed);
+    }
+
+    @Test
+    void findSortedPatientRows_FiltersAndAllFields_MatchUnsortedRowsOfSamePatients() {
+        // Given
+        List<Long> doctorIds = List.of(2L);
+        List<Object[]> unsorted = sortedQueries.findPatientRows("o", doctorIds, PatientFields.ALL, 0, 100);
+
+        // When
+        List<Object[]> sorted = new ArrayList<>(sortedQueries.findSortedPatientRows("o", doctorIds, PatientFields.ALL,
+                PatientSort.LAST_VISIT, null, 100));
+
+        // Then
+        sorted.sort(Comparator.comparingLong(row -> ((Number) row[0]).longValue()));
+        assertRowsEqual(unsorted, sorted);
+    }
+
+    @Test
+    void buildSortedSql_PageAfterCursor_ReadsSortIndex() {
+        // Given
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("limit", 3);
+        String sql = PatientListingQueriesImpl.buildSortedSql(null, null, PatientFields.parse("firstName,lastName"),
+                PatientSort.LAST_NAME, List.of("Doe", "Jane", 6L), params);
+
+        // When
+        String plan = new NamedParameterJdbcTemplate(sortedJdbcTemplate).queryForObject(
+                "EXPLAIN " + sql, params, String.class);
+
+        // Then
+        assertTrue(plan.contains("IDX_PATIENT_LAST_NAME"), plan);
+        assertFalse(sql.contains("total_count"));
+    }
+
+    @Test
+    void findPatientRows_AllFields_MatchesStaticQuery() {
+        // Given
+        List<Object[]> expected = staticQuery("findAllPatientsWithDataOptimized", new MapSqlParameterSource()
+                .addValue("search", null).addValue("offset", 0).addValue("pageSize", 3));
+
+        // When
+        List<Object[]> rows = queries.findPatientRows(null, null, PatientFields.ALL, 0, 3);
+
+        // Then
+        assertRowsEqual(expected, rows);
+    }
+
+    @Test
+    void findPatientRows_AllFieldsWithDoctorFilter_MatchesStaticQuery() {
+        // Given
+        List<Long> doctorIds = List.of(2L);
+        List<Object[]> expected = staticQuery("findPatientsWithAllDataOptimized", new MapSqlParameterSource()
+                .addValue("search", "o").addValue("doctorIds", doctorIds).addValue("doctorIdsSize", 1)
+                .addValue("offset", 0).addValue("pageSize", 10));
+
+        // When
+        List<Object[]> rows = queries.findPatientRows("o", doctorIds, PatientFields.ALL, 0, 10);
+
+        // Then
+        assertRowsEqual(expected, rows);
+    }
+
+    @Test
+    void findPatientRows_WithoutTotalPatients_SkipsDoctorStats() {
+        // Given
+        PatientFields fields = PatientFields.parse("firstName,lastVisits.start,doctor.lastName,count");
+
+        // When
+        String sql = PatientListingQueriesImpl.buildSql(null, null, fields, new MapSqlParameterSource());
+        List<Object[]> rows = queries.findPatientRows(null, null, fields, 0, 2);
+
+        // Then
+        assertFalse(sql.contains("doc_stats"));
+        assertEquals(3, rows.size()); // John has visits with two doctors, Jane with one
+        Object[] first = rows.get(0);
+        assertEquals("John", first[1]);
+        assertNull(first[2]);
+        assertNotNull(first[4]);
+        assertNull(first[5]);
+        assertEquals("House", first[8]);
+        assertEquals("America/New_York", first[9]);
+        assertNull(first[10]);
+        assertEquals(4L, ((Number) first[11]).longValue());
+    }
+
+    @Test
+    void findPatientRows_NamesOnly_SkipsVisitsAndCount() {
+        // Given
+        PatientFields fields = PatientFields.parse("firstName,lastName");
+
+        // When
+        String sql = PatientListingQueriesImpl.buildSql(null, null, fields, new MapSqlParameterSource());
+        List<Object[]> rows = queries.findPatientRows(null, null, fields, 0, 10);
+
+        // Then
+        assertFalse(sql.contains("total_count"));
+        assertFalse(sql.contains("visits v1"));
+        assertEquals(4, rows.size());
+        assertNull(rows.get(0)[3]);
+        assertNull(rows.get(0)[11]);
+    }
+
+    @Test
+    void parse_UnknownField_ThrowsBusinessException() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> PatientFields.parse("firstName,doctor.age"));
+        assertEquals("Unknown field: doctor.age", exception.getMessage());
+    }
+
+    private List<Object[]> staticQuery(String methodName, MapSqlParameterSource params) {
+        String sql = Arrays.stream(PatientRepository.class.getMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class).value()
+                .replaceAll("IN :(\\w+)", "IN (:$1)");
+        return namedJdbcTemplate.query(sql, params, (rs, rowNum) -> {
+            Object[] row = new Object[12];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        });
+    }
+
+    private static void assertRowsEqual(List<Object[]> expected, List<Object[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (int column = 0; column < 12; column++) {
+                Object want = expected.get(i)[column];
+                Object got = actual.get(i)[column];
+                if (want instanceof Number number) {
+                    assertEquals(number.longValue(), ((Number) got).longValue(), "row " + i + " column " + column);
+                } else {
+                    assertEquals(want, got, "row " + i + " column " + column);
+                }
+            }
+        }
+    }
+}
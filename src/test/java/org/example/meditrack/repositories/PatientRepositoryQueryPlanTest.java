@@ -0,0 +1,300 @@
+package org.example.meditrack.repositories;
+
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientSort;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the plans of the listing statements: the single-query ones of {@link PatientRepository}, taken from
+ * their {@code @Query} annotations, and the projected and sorted ones built by
+ * {@link PatientListingQueriesImpl}. Each runs against a seeded schema and its plan is compared with the
+ * baselines in {@code src/test/resources/query-plans/<engine>.properties}:
+ * <ul>
+ *     <li>no table may be scanned that was reached through an index in the baseline,</li>
+ *     <li>every index lookup of the baseline must still be used,</li>
+ *     <li>rows touched may not exceed the baseline by more than the factor.</li>
+ * </ul>
+ * Rows touched are counted by the engine, so the checks do not depend on the machine. Median execution
+ * time is recorded too but only asserted on request, against a baseline recorded on the same machine.
+ * Runs on H2 in MySQL mode by default. System properties:
+ * <ul>
+ *     <li>{@code meditrack.plan-test.url} / {@code .username} / {@code .password}: run against MySQL
+ *     instead, e.g. the docker-compose instance. Use a scratch database, its tables are recreated.</li>
+ *     <li>{@code meditrack.plan-test.patients}: seeded patients (5 visits each), default 2000.</li>
+ *     <li>{@code meditrack.plan-test.factor}: allowed regression factor, default 3.</li>
+ *     <li>{@code meditrack.plan-test.timing=true}: also fail on a median time above the baseline times the
+ *     factor.</li>
+ *     <li>{@code meditrack.plan-test.record=true}: rewrite the baseline file instead of asserting.</li>
+ * </ul>
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PatientRepositoryQueryPlanTest {
+
+    private static final String BASELINE_DIR = "src/test/resources/query-plans/";
+    private static final int DOCTORS = 50;
+    private static final int VISITS_PER_PATIENT = 5;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_RUNS = 1;
+    private static final int TIMED_RUNS = 3;
+    /** Timings below this are noise and are compared as if they took this long. */
+    private static final long MIN_BASELINE_MILLIS = 20;
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Emily", "David", "Anna", "Oleh", "Sophia"};
+    private static final String[] LAST_NAMES = {"Doe", "Smith", "Brown", "Clark", "Johnson", "Miller", "Wilson", "Taylor"};
+
+    /**
+     * A listing statement: static when it names a repository method, otherwise built from its fields, and
+     * paged with a keyset cursor when it has a sort.
+     */
+    enum Shape {
+        NO_SEARCH("findAllPatientsWithDataOptimized", null, null, false),
+        SEARCH("findAllPatientsWithDataOptimized", "an", null, false),
+        DOCTOR_FILTER("findPatientsWithAllDataOptimized", null, List.of(1L, 2L, 3L), false),
+        DEEP_PAGE("findAllPatientsWithDataOptimized", null, null, true),
+        PROJECTED_NAMES("firstName,lastName", "an", null, null, null),
+        PROJECTED_DOCTOR_FILTER("firstName,lastName,lastVisits.start,doctor.lastName", null, List.of(1L, 2L, 3L),
+                null, null),
+        SORTED_LAST_NAME(null, null, null, PatientSort.LAST_NAME, List.of("M", "A", 0L)),
+        SORTED_LAST_VISIT(null, null, List.of(1L, 2L, 3L), PatientSort.LAST_VISIT, null);
+
+        private final String method;
+        private final String search;
+        private final List<Long> doctorIds;
+        private final boolean lastPage;
+        private final String fields;
+        private final PatientSort sort;
+        private final List<Object> after;
+
+        Shape(String method, String search, List<Long> doctorIds, boolean lastPage) {
+            this.method = method;
+            this.search = search;
+            this.doctorIds = doctorIds;
+            this.lastPage = lastPage;
+            this.fields = null;
+            this.sort = null;
+            this.after = null;
+        }
+
+        Shape(String fields, String search, List<Long> doctorIds, PatientSort sort, List<Object> after) {
+            this.method = null;
+            this.search = search;
+            this.doctorIds = doctorIds;
+            this.lastPage = false;
+            this.fields = fields;
+            this.sort = sort;
+            this.after = after;
+        }
+
+        String key() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private final boolean mysql = System.getProperty("meditrack.plan-test.url") != null;
+    private final String engine = mysql ? "mysql" : "h2";
+    private final int patients = Integer.getInteger("meditrack.plan-test.patients", 2_000);
+    private final double factor = Double.parseDouble(System.getProperty("meditrack.plan-test.factor", "3"));
+    private final boolean record = Boolean.getBoolean("meditrack.plan-test.record");
+    private final boolean timing = Boolean.getBoolean("meditrack.plan-test.timing");
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private Properties baseline;
+    private final Map<String, String> recorded = new TreeMap<>();
+
+    @BeforeAll
+    void seed() {
+        DriverManagerDataSource dataSource = mysql
+                ? new DriverManagerDataSource(System.getProperty("meditrack.plan-test.url"),
+                        System.getProperty("meditrack.plan-test.username", "app_user"),
+                        System.getProperty("meditrack.plan-test.password", "AppUserPass456@"))
+                : new DriverManagerDataSource("jdbc:h2:mem:plans;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS visit_events");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS doctor_daily_stats");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS visits");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS patients");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS doctors");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS import_jobs");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= DOCTORS; i++) {
+            rows.add(new Object[]{"Doctor" + i, LAST_NAMES[i % LAST_NAMES.length], "Europe/Kyiv"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO doctors (first_name, last_name, timezone) VALUES (?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 0; i < patients; i++) {
+            rows.add(new Object[]{FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)] + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO patients (first_name, last_name) VALUES (?, ?)", rows);
+
+        rows.clear();
+        long start = 1_735_689_600_000L;
+        for (int i = 0; i < patients * VISITS_PER_PATIENT; i++) {
+            long visitStart = start + i * 1_800_000L;
+            rows.add(new Object[]{visitStart, visitStart + 1_200_000L,
+                    1 + random.nextInt(patients), 1 + random.nextInt(DOCTORS)});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (?, ?, ?, ?)", rows);
+        jdbcTemplate.update("UPDATE patients p SET last_visit_at = "
+                + "COALESCE((SELECT MAX(v.start_date_time) FROM visits v WHERE v.patient_id = p.id), 0)");
+
+        if (mysql) {
+            jdbcTemplate.execute("ANALYZE TABLE patients, doctors, visits");
+        } else {
+            jdbcTemplate.execute("ANALYZE");
+        }
+        baseline = loadBaseline();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Shape.class)
+    void listingQuery_StaysWithinBaseline(Shape shape) {
+        // Given
+        MapSqlParameterSource params = parameters(shape);
+        String sql = listingSql(shape, params);
+
+        // When
+        QueryPlan plan = explain(sql, params);
+        long millis = record || timing ? medianMillis(sql, params) : 0;
+
+        // Then
+        String key = shape.key();
+        if (record) {
+            recorded.put(key + ".access", plan.accessList());
+            recorded.put(key + ".rows", Long.toString(plan.rows()));
+            recorded.put(key + ".millis", Long.toString(millis));
+            writeBaseline();
+            return;
+        }
+        assumeTrue(baseline.containsKey(key + ".access"),
+                "No " + engine + " baseline for " + key + "; record one with -Dmeditrack.plan-test.record=true");
+
+        QueryPlan expected = QueryPlan.of(baseline.getProperty(key + ".access"),
+                Long.parseLong(baseline.getProperty(key + ".rows")));
+        SortedSet<String> newScans = new TreeSet<>(plan.fullScans());
+        newScans.removeAll(expected.fullScans());
+        assertTrue(newScans.isEmpty(), key + ": new full scan of " + newScans + ", plan " + plan.accessList());
+
+        SortedSet<String> lostIndexes = new TreeSet<>(expected.indexLookups());
+        lostIndexes.removeAll(plan.indexLookups());
+        assertTrue(lostIndexes.isEmpty(), key + ": no longer uses " + lostIndexes + ", plan " + plan.accessList());
+
+        assertTrue(plan.rows() <= expected.rows() * factor,
+                key + ": touches " + plan.rows() + " rows, baseline " + expected.rows());
+
+        if (timing) {
+            long baselineMillis = Math.max(MIN_BASELINE_MILLIS,
+                    Long.parseLong(baseline.getProperty(key + ".millis")));
+            assertTrue(millis <= baselineMillis * factor,
+                    key + ": median " + millis + " ms, baseline " + baselineMillis + " ms");
+        }
+    }
+
+    /**
+     * The statement the application runs for the shape. Static SQL gets the parentheses Hibernate adds around
+     * an expanded collection parameter; built SQL adds its own parameters.
+     */
+    private static String listingSql(Shape shape, MapSqlParameterSource params) {
+        if (shape.method == null) {
+            PatientFields fields = shape.fields != null ? PatientFields.parse(shape.fields) : PatientFields.ALL;
+            return shape.sort != null
+                    ? PatientListingQueriesImpl.buildSortedSql(shape.search, shape.doctorIds, fields, shape.sort,
+                            shape.after, params)
+                    : PatientListingQueriesImpl.buildSql(shape.search, shape.doctorIds, fields, params);
+        }
+        Method method = Arrays.stream(PatientRepository.class.getMethods())
+                .filter(candidate -> candidate.getName().equals(shape.method))
+                .findFirst()
+                .orElseThrow();
+        return method.getAnnotation(Query.class).value().replaceAll("IN :(\\w+)", "IN (:$1)");
+    }
+
+    private MapSqlParameterSource parameters(Shape shape) {
+        return new MapSqlParameterSource()
+                .addValue("search", shape.search)
+                .addValue("doctorIds", shape.doctorIds)
+                .addValue("doctorIdsSize", shape.doctorIds != null ? shape.doctorIds.size() : null)
+                .addValue("offset", shape.lastPage ? patients - PAGE_SIZE : 0)
+                .addValue("pageSize", PAGE_SIZE)
+                .addValue("limit", PAGE_SIZE + 1);
+    }
+
+    private QueryPlan explain(String sql, MapSqlParameterSource params) {
+        if (mysql) {
+            return QueryPlan.fromMySql(namedJdbcTemplate.queryForList("EXPLAIN " + sql, params));
+        }
+        return QueryPlan.fromH2(namedJdbcTemplate.queryForObject("EXPLAIN ANALYZE " + sql, params, String.class));
+    }
+
+    private long medianMillis(String sql, MapSqlParameterSource params) {
+        long[] runs = new long[TIMED_RUNS];
+        for (int i = -WARMUP_RUNS; i < TIMED_RUNS; i++) {
+            long started = System.nanoTime();
+            namedJdbcTemplate.query(sql, params, rs -> {
+            });
+            if (i >= 0) {
+                runs[i] = (System.nanoTime() - started) / 1_000_000L;
+            }
+        }
+        Arrays.sort(runs);
+        return runs[TIMED_RUNS / 2];
+    }
+
+    private Properties loadBaseline() {
+        Properties properties = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/query-plans/" + engine + ".properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+
+    private void writeBaseline() {
+        StringBuilder out = new StringBuilder()
+                .append("# Recorded by PatientRepositoryQueryPlanTest with ")
+                .append(patients).append(" patients, ")
+                .append(patients * VISITS_PER_PATIENT).append(" visits, ")
+                .append(DOCTORS).append(" doctors.\n")
+                .append("# Re-record with -Dmeditrack.plan-test.record=true after an intended plan change.\n");
+        recorded.forEach((key, value) -> out.append(key).append('=').append(value).append('\n'));
+        try {
+            Path file = Path.of(BASELINE_DIR + engine + ".properties");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
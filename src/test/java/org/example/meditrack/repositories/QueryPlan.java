@@ -0,0 +1,108 @@
+package org.example.meditrack.repositories;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Engine-neutral summary of an execution plan: how each base table is reached ({@code TABLE:INDEX} for an
+ * index lookup, {@code TABLE:scan} for a full table or full index scan) and the number of rows the plan
+ * touches (actual scan counts on H2, optimizer estimates on MySQL). H2 names tables, MySQL names the
+ * aliases used in the query.
+ */
+record QueryPlan(SortedSet<String> accesses, long rows) {
+
+    static final String SCAN = "scan";
+
+    private static final Pattern H2_TABLE = Pattern.compile("(?:FROM|JOIN) PUBLIC\\.(\\w+)");
+    private static final Pattern H2_ACCESS = Pattern.compile("^/\\* PUBLIC\\.(\\w+?)(?:_\\d+)?(\\.tableScan|:| \\*/|$)");
+    private static final Pattern H2_SCAN_COUNT = Pattern.compile("/\\* scanCount: (\\d+) \\*/");
+
+    SortedSet<String> fullScans() {
+        return accesses.stream()
+                .filter(access -> access.endsWith(":" + SCAN))
+                .map(access -> access.substring(0, access.indexOf(':')))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    SortedSet<String> indexLookups() {
+        return accesses.stream()
+                .filter(access -> !access.endsWith(":" + SCAN))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    String accessList() {
+        return String.join(",", accesses);
+    }
+
+    static QueryPlan of(String accessList, long rows) {
+        return new QueryPlan(Arrays.stream(accessList.split(","))
+                .map(String::trim)
+                .filter(access -> !access.isEmpty())
+                .collect(Collectors.toCollection(TreeSet::new)), rows);
+    }
+
+    /**
+     * Parses {@code EXPLAIN ANALYZE} output. H2 prints each table reference followed by a comment naming
+     * the index it used (with the lookup condition after a colon) or {@code TABLE.tableScan}. An index
+     * named without a condition is walked in its order, as far as a limit lets it: it counts as a scan, and
+     * also as a use of that index, so a sorted page that stops reading its sort index is caught. Generated
+     * index names carry a numeric suffix that depends on table creation order and is dropped.
+     */
+    static QueryPlan fromH2(String plan) {
+        SortedSet<String> accesses = new TreeSet<>();
+        long rows = 0;
+        String table = null;
+        for (String line : plan.split("\n")) {
+            String trimmed = line.trim();
+            Matcher tableMatcher = H2_TABLE.matcher(trimmed);
+            if (tableMatcher.find()) {
+                table = tableMatcher.group(1);
+            }
+            Matcher access = H2_ACCESS.matcher(trimmed);
+            if (table != null && access.find()) {
+                boolean lookup = ":".equals(access.group(2));
+                boolean indexWalk = !lookup && !".tableScan".equals(access.group(2));
+                accesses.add(table + ":" + (lookup ? access.group(1) : SCAN));
+                if (indexWalk) {
+                    accesses.add(table + ":" + access.group(1));
+                }
+                table = null;
+            }
+            Matcher scanCount = H2_SCAN_COUNT.matcher(trimmed);
+            while (scanCount.find()) {
+                rows += Long.parseLong(scanCount.group(1));
+            }
+        }
+        return new QueryPlan(accesses, rows);
+    }
+
+    /**
+     * Parses the rows of a traditional MySQL {@code EXPLAIN}. Derived tables and CTE materializations
+     * ({@code <derived2>}) are not base tables and only contribute their row estimates.
+     */
+    static QueryPlan fromMySql(List<Map<String, Object>> plan) {
+        SortedSet<String> accesses = new TreeSet<>();
+        long rows = 0;
+        for (Map<String, Object> step : plan) {
+            Object estimate = step.get("rows");
+            if (estimate != null) {
+                rows += ((Number) estimate).longValue();
+            }
+            String table = (String) step.get("table");
+            if (table == null || table.startsWith("<")) {
+                continue;
+            }
+            String type = (String) step.get("type");
+            String key = (String) step.get("key");
+            boolean scan = "ALL".equals(type) || "index".equals(type) || key == null;
+            accesses.add(table.toUpperCase() + ":" + (scan ? SCAN : key.toUpperCase()));
+        }
+        return new QueryPlan(accesses, rows);
+    }
+}
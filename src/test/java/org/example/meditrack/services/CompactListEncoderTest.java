@@ -0,0 +1,58 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactListEncoderTest {
+
+    @Test
+    void encode_AllFields_SendsEachDoctorOnce() {
+        // Given
+        DoctorResponse house = new DoctorResponse("Greg", "House", 3, null);
+        PatientsListResponse response = PatientsListResponse.builder()
+                .data(List.of(
+                        new PatientResponse("John", "Doe", List.of(
+                                new VisitResponse("2025-01-01T09:00:00-05:00", "2025-01-01T09:30:00-05:00", house))),
+                        new PatientResponse("Jane", "Smith", List.of(
+                                new VisitResponse("2025-01-02T09:00:00-05:00", "2025-01-02T09:30:00-05:00", house))),
+                        new PatientResponse("Anna", "Brown", List.of())))
+                .count(3L)
+                .build();
+
+        // When
+        CompactPatientsListResponse compact = CompactListEncoder.encode(response, PatientFields.ALL);
+
+        // Then
+        assertEquals(List.of("firstName", "lastName", "lastVisits"), compact.getColumns());
+        assertEquals(List.of("start", "end", "doctor"), compact.getVisitColumns());
+        assertEquals(List.of(List.of("Greg", "House", 3)), compact.getDoctors());
+        assertEquals(List.of("John", "Doe",
+                        List.of(List.of("2025-01-01T09:00:00-05:00", "2025-01-01T09:30:00-05:00", 0))),
+                compact.getData().get(0));
+        assertEquals(0, ((List<?>) ((List<?>) compact.getData().get(1).get(2)).get(0)).get(2));
+        assertEquals(List.of("Anna", "Brown", List.of()), compact.getData().get(2));
+        assertEquals(3L, compact.getCount());
+    }
+
+    @Test
+    void encode_NamesOnly_LeavesOutVisitsAndDoctors() {
+        // Given
+        PatientsListResponse response = PatientsListResponse.builder()
+                .data(List.of(new PatientResponse("John", "Doe", null)))
+                .build();
+
+        // When
+        CompactPatientsListResponse compact = CompactListEncoder.encode(response,
+                PatientFields.parse("firstName,lastName"));
+
+        // Then
+        assertEquals(List.of(List.of("John", "Doe")), compact.getData());
+        assertNull(compact.getVisitColumns());
+        assertNull(compact.getDoctors());
+        assertNull(compact.getCount());
+    }
+}
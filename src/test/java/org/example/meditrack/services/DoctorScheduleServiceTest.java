@@ -0,0 +1,147 @@
+package org.example.meditrack.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.Doctor;
+import org.example.meditrack.repositories.DoctorRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DoctorScheduleServiceTest {
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DoctorScheduleService doctorScheduleService;
+
+    private Doctor testDoctor;
+
+    @BeforeEach
+    void setUp() {
+        doctorScheduleService = new DoctorScheduleService(doctorRepository, visitRepository, objectMapper);
+        testDoctor = Doctor.builder()
+                .id(1L)
+                .firstName("Robert")
+                .lastName("Wilson")
+                .timezone("Europe/Kiev")
+                .build();
+    }
+
+    @Test
+    void prepareSchedule_DateBoundaries_StartOfDayInDoctorTimezone() {
+        // Given
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+
+        // When
+        DoctorScheduleService.ScheduleRequest request =
+                doctorScheduleService.prepareSchedule(1L, "2025-09-15", "2025-09-22", null, null);
+
+        // Then
+        assertEquals(Instant.parse("2025-09-14T21:00:00Z"), request.from().toInstant());
+        assertEquals(Instant.parse("2025-09-21T21:00:00Z"), request.to().toInstant());
+        assertNull(request.after());
+    }
+
+    @Test
+    void prepareSchedule_Validation() {
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        when(doctorRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertEquals("Doctor not found", assertThrows(BusinessException.class,
+                () -> doctorScheduleService.prepareSchedule(999L, "2025-09-15", "2025-09-16", null, null))
+                .getMessage());
+        assertEquals("'from' must be before 'to'", assertThrows(BusinessException.class,
+                () -> doctorScheduleService.prepareSchedule(1L, "2025-09-16", "2025-09-15", null, null))
+                .getMessage());
+        assertEquals("Invalid date: tomorrow", assertThrows(BusinessException.class,
+                () -> doctorScheduleService.prepareSchedule(1L, "tomorrow", "2025-09-15", null, null))
+                .getMessage());
+        assertThrows(BusinessException.class,
+                () -> doctorScheduleService.prepareSchedule(1L, "2025-09-15", "2025-09-16", null, 0));
+        assertEquals("Invalid cursor", assertThrows(BusinessException.class,
+                () -> doctorScheduleService.prepareSchedule(1L, "2025-09-15", "2025-09-16", "abc", 10))
+                .getMessage());
+    }
+
+    @Test
+    void writeSchedule_WithLimit_WritesPageAndNextCursor() throws Exception {
+        // Given
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        DoctorScheduleService.ScheduleRequest request =
+                doctorScheduleService.prepareSchedule(1L, "2025-09-15", "2025-09-16", null, 2);
+
+        Instant first = Instant.parse("2025-09-15T07:00:00Z");
+        long from = request.from().toInstant().toEpochMilli();
+        // Row structure: [visit_id, start, end, patient_id, patient_first_name, patient_last_name]
+        when(visitRepository.streamDoctorSchedule(eq(1L), eq(from - 86_400_000L), eq(from), anyLong(),
+                eq(Long.MIN_VALUE), eq(0L), eq(3)))
+                .thenReturn(Stream.of(
+                        row(10L, first, 1L, "John"),
+                        row(11L, first.plusSeconds(3600), 2L, "Jane"),
+                        row(12L, first.plusSeconds(7200), 3L, "Michael")));
+
+        // When
+        JsonNode json = write(request);
+
+        // Then
+        assertEquals("Europe/Kiev", json.get("timezone").asText());
+        assertEquals("2025-09-15T00:00:00+03:00", json.get("from").asText());
+        assertEquals(2, json.get("visits").size());
+        assertEquals("2025-09-15T10:00:00+03:00", json.get("visits").get(0).get("start").asText());
+        assertEquals("John", json.get("visits").get(0).get("patientFirstName").asText());
+        assertEquals(first.plusSeconds(3600).toEpochMilli() + ":11", json.get("nextCursor").asText());
+    }
+
+    @Test
+    void writeSchedule_WithCursorAndNoLimit_StreamsRemainingRange() throws Exception {
+        // Given
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        Instant cursorStart = Instant.parse("2025-09-15T08:00:00Z");
+        DoctorScheduleService.ScheduleRequest request = doctorScheduleService.prepareSchedule(
+                1L, "2025-09-15T00:00:00Z", "2025-09-16T00:00:00Z", cursorStart.toEpochMilli() + ":11", null);
+
+        when(visitRepository.streamDoctorSchedule(eq(1L), anyLong(), anyLong(), anyLong(), anyLong(),
+                eq(11L), eq(Integer.MAX_VALUE)))
+                .thenReturn(Stream.<Object[]>of(row(12L, cursorStart.plusSeconds(3600), 3L, "Michael")));
+
+        // When
+        JsonNode json = write(request);
+
+        // Then
+        assertEquals(1, json.get("visits").size());
+        assertTrue(json.get("nextCursor").isNull());
+        verify(visitRepository).streamDoctorSchedule(eq(1L), anyLong(), anyLong(), anyLong(),
+                eq(cursorStart.toEpochMilli()), eq(11L), eq(Integer.MAX_VALUE));
+    }
+
+    private JsonNode write(DoctorScheduleService.ScheduleRequest request) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doctorScheduleService.writeSchedule(request, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static Object[] row(long visitId, Instant start, long patientId, String firstName) {
+        return new Object[]{visitId, start.toEpochMilli(), start.plusSeconds(1800).toEpochMilli(),
+                patientId, firstName, "Doe"};
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.DoctorStatsResponse;
+import org.example.meditrack.dtos.StatsBackfillReport;
+import org.example.meditrack.events.VisitCancelled;
+import org.example.meditrack.events.VisitCreated;
+import org.example.meditrack.events.VisitRescheduled;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the rollup and its backfill against H2 with the Flyway migrations.
+ */
+class DoctorStatsServiceTest {
+
+    private static final String STORED_DAYS = "SELECT doctor_id, visit_date, visits, booked_minutes, patients "
+            + "FROM doctor_daily_stats ORDER BY doctor_id, visit_date";
+    private static final String STORED_SKETCHES =
+            "SELECT patient_sketch FROM doctor_daily_stats ORDER BY doctor_id, visit_date";
+
+    private JdbcTemplate jdbcTemplate;
+    private DoctorStatsRollup rollup;
+    private DoctorStatsService doctorStatsService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:doctor-stats-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(
+                new ClassPathResource("db/migration/V1__baseline_schema.sql"),
+                new ClassPathResource("db/migration/V2__doctor_daily_stats.sql"),
+                new ClassPathResource("db/migration/V4__doctor_daily_patient_sketches.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES ('Olena', 'Koval', 'Europe/Kyiv')");
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES ('Alice', 'Miller', 'UTC')");
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('John', 'Doe')");
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('Jane', 'Smith')");
+        rollup = new DoctorStatsRollup(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        doctorStatsService = new DoctorStatsService(rollup, jdbcTemplate, new ShardRouter(1));
+    }
+
+    @Test
+    void onVisitCreated_CountsVisitOnLocalDayOfDoctor() {
+        // Given - 22:30 UTC is already the next day in Kyiv
+        VisitCreated late = insertVisit(1, 1, "2025-03-10T22:30:00Z", 30);
+        VisitCreated morning = insertVisit(1, 2, "2025-03-11T07:00:00Z", 45);
+        insertVisit(1, 1, "2025-03-11T09:00:00Z", 15);
+
+        // When
+        rollup.onVisitCreated(late);
+        rollup.onVisitCreated(morning);
+        rollup.onVisitCreated(morning);
+
+        // Then
+        assertEquals(List.of(Map.of("VISIT_DATE", java.sql.Date.valueOf("2025-03-11"), "VISITS", 3,
+                        "BOOKED_MINUTES", 90L, "PATIENTS", 2)),
+                jdbcTemplate.queryForList("SELECT visit_date, visits, booked_minutes, patients FROM doctor_daily_stats"));
+    }
+
+    @Test
+    void onVisitRescheduledAndCancelled_RefreshesDayLeftAndDayMovedTo() {
+        // Given - one visit moved from the 11th to the 12th in Kyiv, the other cancelled
+        VisitCreated moved = insertVisit(1, 1, "2025-03-11T07:00:00Z", 30);
+        VisitCreated cancelled = insertVisit(1, 2, "2025-03-11T09:00:00Z", 15);
+        rollup.onVisitCreated(moved);
+        rollup.onVisitCreated(cancelled);
+        Instant start = Instant.parse("2025-03-12T07:00:00Z");
+        jdbcTemplate.update("UPDATE visits SET start_date_time = ?, end_date_time = ? WHERE id = ?",
+                start.toEpochMilli(), start.plusSeconds(2_700).toEpochMilli(), moved.visitId());
+        jdbcTemplate.update("DELETE FROM visits WHERE id = ?", cancelled.visitId());
+
+        // When
+        rollup.onVisitRescheduled(new VisitRescheduled(3L, moved.visitId(), 1L, 1L, moved.start(), moved.end(),
+                start, start.plusSeconds(2_700)));
+        rollup.onVisitCancelled(new VisitCancelled(4L, cancelled.visitId(), 2L, 1L, cancelled.start(),
+                cancelled.end()));
+
+        // Then
+        assertEquals(List.of(Map.of("VISIT_DATE", java.sql.Date.valueOf("2025-03-12"), "VISITS", 1,
+                        "BOOKED_MINUTES", 45L, "PATIENTS", 1)),
+                jdbcTemplate.queryForList("SELECT visit_date, visits, booked_minutes, patients FROM doctor_daily_stats"));
+    }
+
+    @Test
+    void backfill_InSmallChunks_MatchesRollupOfEveryEvent() {
+        // Given
+        ReflectionTestUtils.setField(doctorStatsService, "chunkDays", 2);
+        List<VisitCreated> events = List.of(
+                insertVisit(1, 1, "2025-01-01T08:00:00Z", 30),
+                insertVisit(1, 2, "2025-01-01T09:00:00Z", 30),
+                insertVisit(1, 1, "2025-01-02T21:59:00Z", 20),
+                insertVisit(1, 2, "2025-01-05T10:00:00Z", 60),
+                insertVisit(2, 1, "2025-01-02T23:30:00Z", 30),
+                insertVisit(2, 1, "2025-01-03T10:00:00Z", 30));
+        events.forEach(rollup::onVisitCreated);
+        List<Map<String, Object>> fromEvents = jdbcTemplate.queryForList(STORED_DAYS);
+        List<byte[]> sketchesFromEvents = jdbcTemplate.queryForList(STORED_SKETCHES, byte[].class);
+        jdbcTemplate.update("UPDATE doctor_daily_stats SET visits = 99, patient_sketch = NULL");
+        jdbcTemplate.update("INSERT INTO doctor_daily_stats VALUES (1, DATE '2025-01-04', 7, 7, 7, NULL)");
+        jdbcTemplate.update("INSERT INTO doctor_daily_stats VALUES (1, DATE '2024-12-20', 7, 7, 7, NULL)");
+        jdbcTemplate.update("INSERT INTO doctor_daily_stats VALUES (2, DATE '2025-02-01', 7, 7, 7, NULL)");
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES ('Idle', 'Doctor', 'UTC')");
+        jdbcTemplate.update("INSERT INTO doctor_daily_stats VALUES (3, DATE '2025-01-01', 7, 7, 7, NULL)");
+
+        // When
+        StatsBackfillReport report = doctorStatsService.backfill();
+
+        // Then
+        assertEquals(fromEvents, jdbcTemplate.queryForList(STORED_DAYS));
+        List<byte[]> sketches = jdbcTemplate.queryForList(STORED_SKETCHES, byte[].class);
+        assertEquals(sketchesFromEvents.size(), sketches.size());
+        for (int i = 0; i < sketches.size(); i++) {
+            assertArrayEquals(sketchesFromEvents.get(i), sketches.get(i));
+        }
+        assertEquals(2, report.getDoctors());
+        assertEquals(5, report.getDays());
+        assertEquals(6, report.getVisits());
+    }
+
+    @Test
+    void getStats_SumsStoredDaysOfRange() {
+        // Given
+        insertVisit(1, 1, "2025-01-01T08:00:00Z", 30);
+        insertVisit(1, 2, "2025-01-01T09:00:00Z", 30);
+        insertVisit(1, 1, "2025-01-10T09:00:00Z", 15);
+        insertVisit(1, 1, "2025-02-01T09:00:00Z", 15);
+        doctorStatsService.backfill();
+
+        // When
+        DoctorStatsResponse stats = doctorStatsService.getStats(1L, "2025-01-01", "2025-02-01");
+
+        // Then
+        assertEquals("Europe/Kyiv", stats.getTimezone());
+        assertEquals(3, stats.getVisits());
+        assertEquals(75, stats.getBookedMinutes());
+        assertEquals(2, stats.getPatients());
+        assertEquals(2, stats.getDays().size());
+        assertEquals("2025-01-01", stats.getDays().get(0).getDate());
+        assertEquals(2, stats.getDays().get(0).getPatients());
+    }
+
+    @Test
+    void countRecentPatients_MergesDaysOfWindowUpToLocalToday() {
+        // Given
+        ZoneId kyiv = ZoneId.of("Europe/Kyiv");
+        rollup.onVisitCreated(insertVisit(1, 1, noon(kyiv, -2), 30));
+        rollup.onVisitCreated(insertVisit(1, 1, noon(kyiv, -20), 30));
+        rollup.onVisitCreated(insertVisit(1, 2, noon(kyiv, -40), 30));
+        rollup.onVisitCreated(insertVisit(2, 2, noon(ZoneOffset.UTC, 0), 30));
+        rollup.onVisitCreated(insertVisit(2, 1, noon(ZoneOffset.UTC, 3), 30));
+
+        // When
+        Map<Long, Integer> month = doctorStatsService.countRecentPatients(List.of(1L, 2L), 30);
+        Map<Long, Integer> quarter = doctorStatsService.countRecentPatients(List.of(1L, 2L), 90);
+        Map<Long, Integer> day = doctorStatsService.countRecentPatients(List.of(1L, 2L), 1);
+
+        // Then - a visit booked ahead has not happened yet
+        assertEquals(Map.of(1L, 1, 2L, 1), month);
+        assertEquals(Map.of(1L, 2, 2L, 1), quarter);
+        assertEquals(Map.of(2L, 1), day);
+    }
+
+    @Test
+    void getStats_InvalidRange_ThrowsException() {
+        // When / Then
+        assertEquals("A stats range can span at most 366 days", assertThrows(BusinessException.class,
+                () -> doctorStatsService.getStats(1L, "2024-01-01", "2025-06-01")).getMessage());
+        assertEquals("'from' must be before 'to'", assertThrows(BusinessException.class,
+                () -> doctorStatsService.getStats(1L, "2025-01-02", "2025-01-01")).getMessage());
+        assertEquals("Invalid date: 2025-13-01", assertThrows(BusinessException.class,
+                () -> doctorStatsService.getStats(1L, "2025-13-01", "2026-01-01")).getMessage());
+        assertEquals("Doctor not found", assertThrows(BusinessException.class,
+                () -> doctorStatsService.getStats(99L, "2025-01-01", "2025-02-01")).getMessage());
+    }
+
+    private static String noon(ZoneId zone, int daysFromToday) {
+        return LocalDate.now(zone).plusDays(daysFromToday).atTime(12, 0).atZone(zone).toInstant().toString();
+    }
+
+    private VisitCreated insertVisit(long doctorId, long patientId, String start, int minutes) {
+        Instant startInstant = Instant.parse(start);
+        Instant endInstant = startInstant.plusSeconds(minutes * 60L);
+        jdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (?, ?, ?, ?)",
+                startInstant.toEpochMilli(), endInstant.toEpochMilli(), patientId, doctorId);
+        long visitId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Long.class);
+        return new VisitCreated(visitId, visitId, patientId, doctorId, startInstant, endInstant);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.meditrack.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    /**
+     * Three standard errors of a sketch with 2^10 registers.
+     */
+    private static final double TOLERANCE = 3 * 1.04 / Math.sqrt(HyperLogLog.REGISTERS);
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1_000, 5_000, 20_000, 100_000})
+    void merge_YearOfDailySketches_EstimatesExactDistinctCount(int patients) {
+        // Given - a year of days, each with patients drawn from a pool that repeats across days
+        Random random = new Random(patients);
+        byte[][] days = new byte[365][];
+        Set<Long> exact = new HashSet<>();
+        for (int day = 0; day < days.length; day++) {
+            HyperLogLog sketch = new HyperLogLog();
+            int visits = 1 + random.nextInt(Math.max(1, patients / 50));
+            for (int visit = 0; visit < visits; visit++) {
+                long patientId = 1 + random.nextInt(patients);
+                sketch.add(patientId);
+                exact.add(patientId);
+            }
+            days[day] = sketch.encode();
+        }
+
+        // When
+        HyperLogLog year = new HyperLogLog();
+        for (byte[] day : days) {
+            year.merge(day);
+        }
+
+        // Then
+        double error = Math.abs(year.estimate() - exact.size()) / (double) exact.size();
+        assertTrue(error <= TOLERANCE, "estimate " + year.estimate() + " of " + exact.size());
+    }
+
+    @Test
+    void estimate_FewIds_IsWithinTwoOfExact() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (long id = 1; id <= 50; id++) {
+            // When
+            sketch.add(id);
+            sketch.add(id);
+
+            // Then
+            assertEquals(id, sketch.estimate(), 2, "estimate of " + id);
+        }
+    }
+
+    @Test
+    void encode_SparseAndDense_RoundTripRegisters() {
+        // Given
+        HyperLogLog small = new HyperLogLog();
+        HyperLogLog large = new HyperLogLog();
+        for (long id = 1; id <= 50_000; id++) {
+            if (id <= 200) {
+                small.add(id);
+            }
+            large.add(id);
+        }
+
+        // When
+        HyperLogLog copy = new HyperLogLog();
+        copy.merge(small.encode());
+        copy.merge(large.encode());
+        copy.merge(null);
+
+        // Then
+        assertEquals(HyperLogLog.MAX_ENCODED_BYTES, large.encode().length);
+        assertTrue(small.encode().length <= 1 + 2 * 200);
+        assertArrayEquals(large.encode(), copy.encode());
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.ImportReport;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.ImportJob;
+import org.example.meditrack.repositories.ImportJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceTest {
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:import-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        ImportBatchWriter batchWriter = new ImportBatchWriter(jdbcTemplate);
+        ReflectionTestUtils.setField(batchWriter, "rowsPerStatement", 2);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        importService = new ImportService(importJobRepository, batchWriter, jdbcTemplate, transactionTemplate,
+                new PatientHistoryCache(100, 20), new DoctorStatsRollup(jdbcTemplate, transactionTemplate));
+        ReflectionTestUtils.setField(importService, "chunkSize", 3);
+
+        lenient().when(importJobRepository.save(any(ImportJob.class))).thenAnswer(invocation -> {
+            ImportJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(1L);
+            }
+            return job;
+        });
+    }
+
+    @Test
+    void importDoctors_Csv_ValidatesTimezones() {
+        // Given
+        String csv = """
+                timezone,firstName,lastName
+                America/New_York,Alice,Miller
+                Europe/Kiev,Robert,Wilson
+                Mars/Olympus,Sophia,Taylor
+                America/New_York,,Clark
+                "Europe/London","Anna ""Ann""\",Smith
+                """;
+
+        // When
+        ImportReport report = importService.importData(ImportJob.Kind.DOCTORS, ImportRecordReader.Format.CSV,
+                stream(csv), null);
+
+        // Then
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(3, report.getInserted());
+        assertEquals(2, report.getRejected());
+        assertEquals("Record 4: invalid timezone 'Mars/Olympus'", report.getErrors().get(0));
+        assertEquals("Record 5: firstName is required", report.getErrors().get(1));
+        assertEquals("Anna \"Ann\"", jdbcTemplate.queryForObject(
+                "SELECT first_name FROM doctors WHERE timezone = 'Europe/London'", String.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM doctors", Integer.class));
+    }
+
+    @Test
+    void importPatients_NdjsonResume_SkipsCommittedRows() {
+        // Given - job 7 already committed the first two patients
+        ImportJob job = ImportJob.builder()
+                .id(7L)
+                .kind(ImportJob.Kind.PATIENTS)
+                .status(ImportJob.Status.FAILED)
+                .committedRows(2)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+        when(importJobRepository.findById(7L)).thenReturn(Optional.of(job));
+        String ndjson = """
+                {"firstName":"John","lastName":"Doe"}
+                {"firstName":"Jane","lastName":"Smith","extra":{"ignored":true}}
+                {"firstName":"Michael"}
+                {"firstName":"Emily","lastName":"Clark"}
+                {"firstName":"David","lastName":"Johnson"}
+                """;
+
+        // When
+        ImportReport report = importService.importData(ImportJob.Kind.PATIENTS, ImportRecordReader.Format.NDJSON,
+                stream(ndjson), 7L);
+
+        // Then
+        assertEquals(7L, report.getJobId());
+        assertEquals(2, report.getSkipped());
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getRejected());
+        assertEquals("Record 3: lastName is required", report.getErrors().get(0));
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(4, job.getCommittedRows());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients", Integer.class));
+    }
+
+    @Test
+    void importVisits_DetectsOverlapsAndSkipsDuplicates() {
+        // Given
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('John', 'Doe'), ('Jane', 'Smith')");
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES "
+                + "('Alice', 'Miller', 'America/New_York'), ('Robert', 'Wilson', 'Europe/Kiev')");
+        jdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES (?, ?, 1, 1)",
+                Instant.parse("2025-09-15T14:00:00Z").toEpochMilli(),
+                Instant.parse("2025-09-15T14:30:00Z").toEpochMilli());
+
+        String csv = """
+                start,end,patientId,doctorId
+                2025-09-15T10:00:00-04:00,2025-09-15T10:30:00-04:00,1,1
+                2025-09-15T10:15:00-04:00,2025-09-15T10:45:00-04:00,2,1
+                2025-09-15T12:00:00-04:00,2025-09-15T13:00:00-04:00,2,1
+                2025-09-15T11:00:00-04:00,2025-09-15T12:00:00-04:00,1,1
+                2025-09-15T18:00:00+03:00,2025-09-15T18:30:00+03:00,1,2
+                2025-09-15T18:00:00+03:00,2025-09-15T18:30:00+03:00,9,2
+                2025-09-15T19:00:00+03:00,2025-09-15T18:30:00+03:00,1,2
+                not-a-date,2025-09-15T18:30:00+03:00,1,2
+                """;
+
+        // When
+        ImportReport report = importService.importData(ImportJob.Kind.VISITS, ImportRecordReader.Format.CSV,
+                stream(csv), null);
+
+        // Then
+        assertEquals(1, report.getSkipped()); // identical to the stored visit
+        assertEquals(2, report.getInserted()); // 11:00-12:00 for doctor 1, the visit for doctor 2
+        assertEquals(5, report.getRejected());
+        assertTrue(report.getErrors().contains("Record 3: overlaps an existing visit of doctor 1"));
+        assertTrue(report.getErrors().contains("Record 4: overlaps another visit of doctor 1 in this import"));
+        assertTrue(report.getErrors().contains("Record 7: patient 9 not found"));
+        assertTrue(report.getErrors().contains("Record 8: start time must be before end time"));
+        assertTrue(report.getErrors().contains("Record 9: invalid date-time"));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits", Integer.class));
+        assertEquals(Instant.parse("2025-09-15T15:00:00Z").toEpochMilli(), jdbcTemplate.queryForObject(
+                "SELECT last_visit_at FROM patients WHERE id = 1", Long.class));
+        // the day of doctor 1 is recomputed from all its visits, the one stored before the import included
+        assertEquals(List.of(Map.of("DOCTOR_ID", 1L, "VISIT_DATE", java.sql.Date.valueOf("2025-09-15"), "VISITS", 2,
+                        "BOOKED_MINUTES", 90L, "PATIENTS", 1),
+                        Map.of("DOCTOR_ID", 2L, "VISIT_DATE", java.sql.Date.valueOf("2025-09-15"), "VISITS", 1,
+                                "BOOKED_MINUTES", 30L, "PATIENTS", 1)),
+                jdbcTemplate.queryForList("SELECT doctor_id, visit_date, visits, booked_minutes, patients "
+                        + "FROM doctor_daily_stats ORDER BY doctor_id"));
+
+        // Re-running the same file inserts nothing new
+        ImportReport rerun = importService.importData(ImportJob.Kind.VISITS, ImportRecordReader.Format.CSV,
+                stream(csv), null);
+        assertEquals(0, rerun.getInserted());
+        assertEquals(3, rerun.getSkipped());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits", Integer.class));
+    }
+
+    @Test
+    void importDoctors_ResumeCompletedJob_ThrowsException() {
+        // Given
+        ImportJob job = ImportJob.builder()
+                .id(3L)
+                .kind(ImportJob.Kind.DOCTORS)
+                .status(ImportJob.Status.COMPLETED)
+                .build();
+        when(importJobRepository.findById(3L)).thenReturn(Optional.of(job));
+
+        // When & Then
+        assertThrows(BusinessException.class,
+                () -> importService.importData(ImportJob.Kind.DOCTORS, ImportRecordReader.Format.CSV,
+                        stream("firstName,lastName,timezone\n"), 3L));
+    }
+
+    @Test
+    void importVisits_BookingCommittedAfterSweep_RejectsOverlappingRowUnderDoctorLock() {
+        // Given
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('John', 'Doe'), ('Jane', 'Smith')");
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES ('Alice', 'Miller', 'UTC')");
+        DataSourceTransactionManager transactionManager =
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+        // a booking commits after the sweep read the doctor's visits, right before the chunk transaction
+        TransactionTemplate bookingFirst = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                jdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) "
+                                + "VALUES (?, ?, 2, 1)",
+                        Instant.parse("2025-09-15T10:15:00Z").toEpochMilli(),
+                        Instant.parse("2025-09-15T10:45:00Z").toEpochMilli());
+                return super.execute(action);
+            }
+        };
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ImportService racingImport = new ImportService(importJobRepository, new ImportBatchWriter(jdbcTemplate),
+                jdbcTemplate, bookingFirst, new PatientHistoryCache(100, 20),
+                new DoctorStatsRollup(jdbcTemplate, transactionTemplate));
+
+        String csv = """
+                start,end,patientId,doctorId
+                2025-09-15T10:00:00Z,2025-09-15T10:30:00Z,1,1
+                2025-09-15T11:00:00Z,2025-09-15T11:30:00Z,1,1
+                """;
+
+        // When
+        ImportReport report = racingImport.importData(ImportJob.Kind.VISITS, ImportRecordReader.Format.CSV,
+                stream(csv), null);
+
+        // Then
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getRejected());
+        assertEquals(List.of("Record 2: overlaps an existing visit of doctor 1"), report.getErrors());
+        assertEquals(List.of(Instant.parse("2025-09-15T10:15:00Z").toEpochMilli(),
+                        Instant.parse("2025-09-15T11:00:00Z").toEpochMilli()),
+                jdbcTemplate.queryForList("SELECT start_date_time FROM visits ORDER BY start_date_time", Long.class));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
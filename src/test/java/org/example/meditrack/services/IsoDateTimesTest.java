@@ -0,0 +1,50 @@
+package org.example.meditrack.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsoDateTimesTest {
+
+    private static final String[] ZONES = {
+            "America/New_York", "Europe/Kiev", "Europe/London", "Asia/Kolkata", "Australia/Lord_Howe",
+            "Pacific/Chatham", "UTC", "America/St_Johns", "Africa/Monrovia"
+    };
+
+    @Test
+    void format_MatchesIsoOffsetDateTime_ForRandomInstants() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            Instant instant = Instant.ofEpochSecond(
+                    random.nextLong(-5_000_000_000L, 10_000_000_000L),
+                    random.nextInt(4) == 0 ? random.nextInt(1_000_000_000) : 0);
+            ZoneId zone = ZoneId.of(ZONES[random.nextInt(ZONES.length)]);
+
+            assertEquals(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(instant.atZone(zone)),
+                    IsoDateTimes.format(instant, zone), instant + " in " + zone);
+        }
+    }
+
+    @Test
+    void format_DstTransitionsAndUtc() {
+        ZoneId newYork = IsoDateTimes.zone("America/New_York");
+        assertEquals("2025-03-09T01:59:59-05:00",
+                IsoDateTimes.format(Instant.parse("2025-03-09T06:59:59Z"), newYork));
+        assertEquals("2025-03-09T03:00:00-04:00",
+                IsoDateTimes.format(Instant.parse("2025-03-09T07:00:00Z"), newYork));
+        assertEquals("2025-09-15T14:00:00.5Z",
+                IsoDateTimes.format(Instant.parse("2025-09-15T14:00:00.500Z"), IsoDateTimes.zone("UTC")));
+        assertEquals("1849-12-31T19:03:58-04:56:02",
+                IsoDateTimes.format(Instant.parse("1850-01-01T00:00:00Z"), newYork));
+    }
+
+    @Test
+    void zone_IsCached() {
+        assertSame(IsoDateTimes.zone("Europe/London"), IsoDateTimes.zone("Europe/London"));
+    }
+}
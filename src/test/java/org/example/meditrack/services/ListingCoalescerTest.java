@@ -0,0 +1,150 @@
+package org.example.meditrack.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.*;
+
+class ListingCoalescerTest {
+
+    private final VisitService visitService = mock(VisitService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch queryStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseQuery = new CountDownLatch(1);
+    private ListingCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new ListingCoalescer(visitService, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseQuery.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void getPatients_IdenticalConcurrentCalls_ShareOneQuery() throws Exception {
+        // Given
+        PatientsListResponse response = response();
+        when(visitService.getPatients(isNull(), nullable(Integer.class), any(), any(), any(), any(PatientFields.class), nullable(Integer.class))).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await();
+            return response;
+        });
+
+        // When
+        Future<PatientsListResponse> leader = callers.submit(() ->
+                coalescer.getPatients(0, 20, "Jane", List.of(2L, 1L), PatientFields.ALL, null));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        Future<PatientsListResponse> follower = callers.submit(() ->
+                coalescer.getPatients(null, null, "jane", List.of(1L, 2L, 2L), PatientFields.ALL, null));
+        awaitFollowers(1);
+        releaseQuery.countDown();
+
+        // Then
+        assertSame(response, leader.get(5, TimeUnit.SECONDS));
+        assertSame(response, follower.get(5, TimeUnit.SECONDS));
+        verify(visitService, times(1)).getPatients(isNull(), nullable(Integer.class), any(), any(), any(), any(PatientFields.class), nullable(Integer.class));
+        assertEquals(1, coalescer.executions());
+        assertEquals(1, coalescer.coalesced());
+        assertEquals(0.5, meterRegistry.get("meditrack.listing.coalescing.ratio").gauge().value());
+        assertEquals(1.0, meterRegistry.get("meditrack.listing.coalescing.requests")
+                .tag("role", "follower").functionCounter().count());
+    }
+
+    @Test
+    void getPatients_DifferentParameters_RunSeparately() {
+        // Given
+        when(visitService.getPatients(isNull(), nullable(Integer.class), any(), any(), any(), any(PatientFields.class), nullable(Integer.class))).thenReturn(response());
+
+        // When
+        coalescer.getPatients(0, 20, "jane", null, PatientFields.ALL, null);
+        coalescer.getPatients(0, 20, "jane", null, PatientFields.ALL, null);
+        coalescer.getPatients(1, 20, "jane", null, PatientFields.ALL, null);
+
+        // Then
+        verify(visitService, times(3)).getPatients(isNull(), nullable(Integer.class), any(), any(), any(), any(PatientFields.class), nullable(Integer.class));
+        assertEquals(0, coalescer.coalesced());
+    }
+
+    @Test
+    void getPatients_LeaderFails_FollowerGetsSameError() throws Exception {
+        // Given
+        BusinessException failure = new BusinessException("Unknown field: x");
+        when(visitService.getPatients(isNull(), nullable(Integer.class), any(), any(), any(), any(PatientFields.class), nullable(Integer.class))).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await();
+            throw failure;
+        });
+        Future<PatientsListResponse> leader = callers.submit(() ->
+                coalescer.getPatients(0, 20, null, null, PatientFields.ALL, null));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        Future<PatientsListResponse> follower = callers.submit(() ->
+                coalescer.getPatients(0, 20, null, null, PatientFields.ALL, null));
+        awaitFollowers(1);
+
+        // When
+        releaseQuery.countDown();
+
+        // Then
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class,
+                () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderError.getCause());
+        assertSame(failure, followerError.getCause());
+    }
+
+    @Test
+    void getPatients_FlightTooSlow_FollowerRunsOwnQuery() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(coalescer, "timeoutMillis", 50L);
+        PatientsListResponse own = response();
+        when(visitService.getPatients(isNull(), eq(0), eq(20), any(), any(), any(PatientFields.class), nullable(Integer.class)))
+                .thenAnswer(invocation -> {
+                    queryStarted.countDown();
+                    releaseQuery.await();
+                    return response();
+                })
+                .thenReturn(own);
+        callers.submit(() -> coalescer.getPatients(0, 20, null, null, PatientFields.ALL, null));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        PatientsListResponse response = coalescer.getPatients(0, 20, null, null, PatientFields.ALL, null);
+
+        // Then
+        assertSame(own, response);
+        assertEquals(1, coalescer.timeouts());
+        assertEquals(2, coalescer.executions());
+    }
+
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("meditrack.listing.coalescing.waiting").gauge().value() < followers) {
+            assertTrue(System.nanoTime() < deadline, "followers did not join the flight");
+            Thread.sleep(5);
+        }
+    }
+
+    private static PatientsListResponse response() {
+        return PatientsListResponse.builder().data(Collections.emptyList()).count(0L).build();
+    }
+}
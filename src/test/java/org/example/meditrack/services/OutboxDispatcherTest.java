@@ -0,0 +1,233 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.events.VisitCancelled;
+import org.example.meditrack.events.VisitCreated;
+import org.example.meditrack.events.VisitEventListener;
+import org.example.meditrack.events.VisitRescheduled;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.OutboxOffset;
+import org.example.meditrack.models.VisitEvent;
+import org.example.meditrack.repositories.OutboxOffsetRepository;
+import org.example.meditrack.repositories.VisitEventRepository;
+import org.example.meditrack.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private VisitEventRepository visitEventRepository;
+
+    @Mock
+    private OutboxOffsetRepository outboxOffsetRepository;
+
+    @Mock
+    private ObjectProvider<VisitEventListener> listenerProvider;
+
+    private final Map<String, OutboxOffset> offsets = new HashMap<>();
+    private final List<VisitEvent> events = new ArrayList<>();
+
+    private OutboxDispatcher outboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxDispatcher = new OutboxDispatcher(visitEventRepository, outboxOffsetRepository, listenerProvider,
+                new ShardRouter(1));
+
+        lenient().when(outboxOffsetRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(offsets.get(invocation.<String>getArgument(0)))
+                        .map(offset -> new OutboxOffset(offset.getListener(), offset.getLastEventId())));
+        lenient().when(outboxOffsetRepository.save(any(OutboxOffset.class))).thenAnswer(invocation -> {
+            OutboxOffset offset = invocation.getArgument(0);
+            offsets.put(offset.getListener(), new OutboxOffset(offset.getListener(), offset.getLastEventId()));
+            return offset;
+        });
+        lenient().when(visitEventRepository.findMaxId()).thenAnswer(invocation -> (long) events.size());
+        lenient().when(visitEventRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(),
+                        any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    long after = invocation.getArgument(0);
+                    Instant before = invocation.getArgument(1);
+                    Pageable page = invocation.getArgument(2);
+                    return events.stream()
+                            .filter(event -> event.getId() > after && event.getCreatedAt().isBefore(before))
+                            .limit(page.getPageSize())
+                            .collect(Collectors.toList());
+                });
+    }
+
+    @Test
+    void dispatchBatch_NewListenerStartsAtHead_ThenReceivesNewEvents() {
+        // Given
+        addEvents(3);
+        RecordingListener listener = register(new RecordingListener("projection"));
+
+        // When - first poll registers the listener at the head
+        outboxDispatcher.poll();
+        addEvents(2);
+        outboxDispatcher.poll();
+
+        // Then
+        assertEquals(List.of(4L, 5L), listener.received);
+        assertEquals(5L, offsets.get("projection").getLastEventId());
+    }
+
+    @Test
+    void dispatchBatch_FailingListener_RetriedWithoutBlockingOthers() {
+        // Given
+        offsets.put("healthy", new OutboxOffset("healthy", 0));
+        offsets.put("flaky", new OutboxOffset("flaky", 0));
+        addEvents(3);
+        RecordingListener healthy = new RecordingListener("healthy");
+        RecordingListener flaky = new RecordingListener("flaky");
+        flaky.failOn = 2L;
+        register(healthy, flaky);
+
+        // When
+        outboxDispatcher.poll();
+
+        // Then - the flaky listener stopped before event 2, the other one got everything
+        assertEquals(List.of(1L, 2L, 3L), healthy.received);
+        assertEquals(List.of(1L), flaky.received);
+        assertEquals(1L, offsets.get("flaky").getLastEventId());
+
+        // When - the failure is gone, event 2 is delivered again (at-least-once)
+        flaky.failOn = null;
+        outboxDispatcher.poll();
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), flaky.received);
+        assertEquals(3L, offsets.get("flaky").getLastEventId());
+    }
+
+    @Test
+    void poll_DrainsBacklogInBatches() {
+        // Given
+        offsets.put("projection", new OutboxOffset("projection", 0));
+        addEvents(1200);
+        RecordingListener listener = register(new RecordingListener("projection"));
+
+        // When
+        outboxDispatcher.poll();
+
+        // Then
+        assertEquals(LongStream.rangeClosed(1, 1200).boxed().toList(), listener.received);
+        verify(visitEventRepository, times(3)).findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(anyLong(), any(),
+                any(Pageable.class));
+    }
+
+    @Test
+    void poll_EventsCommittedOutOfIdOrder_DeliversBothOnceOlderThanCommitLag() {
+        // Given - event 2 has committed while the transaction that took id 1 is still open
+        offsets.put("projection", new OutboxOffset("projection", 0));
+        addEvents(2);
+        VisitEvent uncommitted = events.remove(0);
+        events.forEach(event -> event.setCreatedAt(Instant.now()));
+        uncommitted.setCreatedAt(Instant.now());
+        RecordingListener listener = register(new RecordingListener("projection"));
+
+        // When
+        outboxDispatcher.poll();
+
+        // Then - nothing within the commit lag is delivered, so the offset cannot pass event 1
+        assertEquals(List.of(), listener.received);
+        assertEquals(0L, offsets.get("projection").getLastEventId());
+
+        // When - event 1 commits and both age past the commit lag
+        events.add(0, uncommitted);
+        events.forEach(event -> event.setCreatedAt(Instant.now().minusSeconds(60)));
+        outboxDispatcher.poll();
+
+        // Then
+        assertEquals(List.of(1L, 2L), listener.received);
+        assertEquals(2L, offsets.get("projection").getLastEventId());
+    }
+
+    @Test
+    void replayFrom_ResetsOffset() {
+        // Given
+        offsets.put("projection", new OutboxOffset("projection", 5));
+        addEvents(5);
+        RecordingListener listener = register(new RecordingListener("projection"));
+
+        // When
+        outboxDispatcher.replayFrom("projection", 4);
+        outboxDispatcher.poll();
+
+        // Then
+        assertEquals(List.of(4L, 5L), listener.received);
+        assertThrows(BusinessException.class, () -> outboxDispatcher.replayFrom("unknown", 1));
+    }
+
+    private RecordingListener register(RecordingListener... listeners) {
+        when(listenerProvider.orderedStream()).thenAnswer(invocation -> Stream.of(listeners));
+        return listeners[0];
+    }
+
+    private void addEvents(int count) {
+        Instant start = Instant.parse("2025-09-15T14:00:00Z");
+        for (int i = 0; i < count; i++) {
+            long id = events.size() + 1;
+            events.add(VisitEvent.builder()
+                    .id(id)
+                    .type(VisitEvent.Type.CREATED)
+                    .visitId(100 + id)
+                    .patientId(1L)
+                    .doctorId(1L)
+                    .startDateTime(start.plusSeconds(id * 3600))
+                    .endDateTime(start.plusSeconds(id * 3600 + 1800))
+                    // committed long enough ago to be past the commit lag
+                    .createdAt(Instant.now().minusSeconds(60))
+                    .build());
+        }
+    }
+
+    private static final class RecordingListener implements VisitEventListener {
+        private final String name;
+        private final List<Long> received = new ArrayList<>();
+        private Long failOn;
+
+        RecordingListener(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void onVisitCreated(VisitCreated event) {
+            if (failOn != null && failOn == event.eventId()) {
+                throw new IllegalStateException("projection unavailable");
+            }
+            received.add(event.eventId());
+        }
+
+        @Override
+        public void onVisitCancelled(VisitCancelled event) {
+            received.add(event.eventId());
+        }
+
+        @Override
+        public void onVisitRescheduled(VisitRescheduled event) {
+            received.add(event.eventId());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.repositories.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelPatientListingTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private ParallelPatientListing parallelPatientListing;
+
+    @BeforeEach
+    void setUp() {
+        parallelPatientListing = new ParallelPatientListing(patientRepository, Runnable::run);
+    }
+
+    @Test
+    void fetchRows_MergesPageVisitsAndStats() {
+        // Given
+        long start = ZonedDateTime.parse("2024-07-01T10:00:00-04:00").toInstant().toEpochMilli();
+        long end = ZonedDateTime.parse("2024-07-01T11:00:00-04:00").toInstant().toEpochMilli();
+        List<Long> patientIds = Arrays.asList(1L, 2L, 3L);
+
+        when(patientRepository.countPatients(null)).thenReturn(42L);
+        when(patientRepository.findPatientPage(null, 0, 3)).thenReturn(Arrays.asList(
+                new Object[]{1L, "Jane", "Smith"},
+                new Object[]{2L, "John", "Doe"},
+                new Object[]{3L, "Emily", "Clark"}));
+        // Row structure: [patient_id, visit_id, start, end, doctor_id, doctor_first_name, doctor_last_name, timezone]
+        when(patientRepository.findLatestVisitsForPatients(patientIds)).thenReturn(Arrays.asList(
+                new Object[]{1L, 10L, start, end, 1L, "Alice", "Miller", "America/New_York"},
+                new Object[]{1L, 11L, start, end, 2L, "Robert", "Wilson", "Europe/Kiev"},
+                new Object[]{3L, 12L, start, end, 2L, "Robert", "Wilson", "Europe/Kiev"}));
+        when(patientRepository.countDistinctPatientsForDoctorsOf(patientIds)).thenReturn(Arrays.asList(
+                new Object[]{1L, 2L},
+                new Object[]{2L, 7L}));
+
+        // When
+        List<Object[]> rows = parallelPatientListing.fetchRows(null, null, 0, 3);
+
+        // Then
+        assertEquals(4, rows.size());
+        assertArrayEquals(new Object[]{1L, "Jane", "Smith", 10L, start, end, 1L, "Alice", "Miller",
+                "America/New_York", 2, 42L}, rows.get(0));
+        assertEquals(7, rows.get(1)[10]);
+        assertEquals(2L, rows.get(2)[0]);
+        assertNull(rows.get(2)[3]); // patient without visits
+        assertEquals(42L, rows.get(2)[11]);
+        assertEquals(12L, rows.get(3)[3]);
+    }
+
+    @Test
+    void fetchRows_WithDoctorFilter_UsesFilteredQueries() {
+        // Given
+        List<Long> doctorIds = Arrays.asList(1L, 2L);
+        when(patientRepository.countPatientsByDoctors("jane", doctorIds)).thenReturn(1L);
+        when(patientRepository.findPatientPageByDoctors("jane", doctorIds, 0, 20))
+                .thenReturn(Collections.singletonList(new Object[]{1L, "Jane", "Smith"}));
+        when(patientRepository.findLatestVisitsForPatients(anyList())).thenReturn(Collections.emptyList());
+        when(patientRepository.countDistinctPatientsForDoctorsOf(anyList())).thenReturn(Collections.emptyList());
+
+        // When
+        List<Object[]> rows = parallelPatientListing.fetchRows("jane", doctorIds, 0, 20);
+
+        // Then
+        assertEquals(1, rows.size());
+        assertEquals(1L, rows.get(0)[11]);
+        verify(patientRepository, never()).findPatientPage(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void fetchRows_EmptyPage_SkipsDependentLookups() {
+        // Given
+        when(patientRepository.countPatients(null)).thenReturn(5L);
+        when(patientRepository.findPatientPage(null, 100, 20)).thenReturn(Collections.emptyList());
+
+        // When
+        List<Object[]> rows = parallelPatientListing.fetchRows(null, null, 100, 20);
+
+        // Then
+        assertTrue(rows.isEmpty());
+        verify(patientRepository, never()).findLatestVisitsForPatients(anyList());
+        verify(patientRepository, never()).countDistinctPatientsForDoctorsOf(anyList());
+    }
+
+    @Test
+    void fetchRows_SubQueryFailure_PropagatesCause() {
+        // Given
+        when(patientRepository.countPatients(null)).thenThrow(new IllegalArgumentException("boom"));
+        when(patientRepository.findPatientPage(null, 0, 20))
+                .thenReturn(Collections.singletonList(new Object[]{1L, "Jane", "Smith"}));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parallelPatientListing.fetchRows(null, null, 0, 20));
+        assertEquals("boom", exception.getMessage());
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.PatientVisitResponse;
+import org.example.meditrack.dtos.PatientVisitsResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientHistoryServiceTest {
+
+    private static final Instant LATEST = Instant.parse("2025-09-17T14:00:00Z");
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    private PatientHistoryCache cache;
+
+    private PatientHistoryService patientHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PatientHistoryCache(2, 3);
+        patientHistoryService = new PatientHistoryService(patientRepository, visitRepository, cache);
+    }
+
+    @Test
+    void getHistory_FirstPage_IsServedFromCacheOnRepeat() {
+        // Given
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(visitRepository.findPatientHistory(1L, Long.MAX_VALUE, Long.MAX_VALUE, 4)).thenReturn(rows(5));
+
+        // When
+        PatientVisitsResponse first = patientHistoryService.getHistory(1L, null, 2);
+        PatientVisitsResponse second = patientHistoryService.getHistory(1L, null, 3);
+
+        // Then
+        assertEquals(List.of(5L, 4L), ids(first));
+        assertEquals(LATEST.minusSeconds(3600).toEpochMilli() + ":4", first.getNextCursor());
+        assertEquals(List.of(5L, 4L, 3L), ids(second));
+        assertNotNull(second.getNextCursor());
+        assertEquals("2025-09-17T10:00:00-04:00", first.getVisits().get(0).getStart());
+        verify(visitRepository, times(1)).findPatientHistory(anyLong(), anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getHistory_CompleteHistory_HasNoNextCursor() {
+        // Given
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(visitRepository.findPatientHistory(1L, Long.MAX_VALUE, Long.MAX_VALUE, 4)).thenReturn(rows(3));
+
+        // When
+        PatientVisitsResponse response = patientHistoryService.getHistory(1L, null, 3);
+
+        // Then
+        assertEquals(List.of(3L, 2L, 1L), ids(response));
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void getHistory_WithCursor_QueriesBeforeKeyset() {
+        // Given
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        Instant cursorStart = LATEST.minusSeconds(3600);
+        when(visitRepository.findPatientHistory(1L, cursorStart.toEpochMilli(), 4L, 3)).thenReturn(rows(3));
+
+        // When
+        PatientVisitsResponse response =
+                patientHistoryService.getHistory(1L, cursorStart.toEpochMilli() + ":4", 2);
+
+        // Then
+        assertEquals(List.of(3L, 2L), ids(response));
+        assertNotNull(response.getNextCursor());
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void getHistory_InvalidatedDuringLoad_IsNotCached() {
+        // Given
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(visitRepository.findPatientHistory(1L, Long.MAX_VALUE, Long.MAX_VALUE, 4)).thenAnswer(invocation -> {
+            cache.invalidate(1L);
+            return rows(2);
+        });
+
+        // When
+        patientHistoryService.getHistory(1L, null, 3);
+
+        // Then
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void getHistory_EvictsLeastRecentlyUsedPatient() {
+        // Given
+        when(patientRepository.existsById(anyLong())).thenReturn(true);
+        when(visitRepository.findPatientHistory(anyLong(), anyLong(), anyLong(), anyInt())).thenReturn(rows(1));
+
+        // When
+        patientHistoryService.getHistory(1L, null, 3);
+        patientHistoryService.getHistory(2L, null, 3);
+        patientHistoryService.getHistory(1L, null, 3);
+        patientHistoryService.getHistory(3L, null, 3);
+
+        // Then
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+    }
+
+    @Test
+    void getHistory_UnknownPatient_ThrowsException() {
+        // Given
+        when(patientRepository.existsById(9L)).thenReturn(false);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> patientHistoryService.getHistory(9L, null, null));
+        assertEquals("Patient not found", exception.getMessage());
+    }
+
+    @Test
+    void getHistory_InvalidLimit_ThrowsException() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> patientHistoryService.getHistory(1L, null, 0));
+        assertEquals("Limit must be between 1 and 1000", exception.getMessage());
+        verifyNoInteractions(visitRepository);
+    }
+
+    /**
+     * Visits with ids count..1, newest first and one hour apart, all with a doctor in New York.
+     */
+    private static List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long start = LATEST.minusSeconds(3600L * i).toEpochMilli();
+            rows.add(new Object[]{(long) (count - i), start, start + 1_800_000L,
+                    1L, "Alice", "Miller", "America/New_York"});
+        }
+        return rows;
+    }
+
+    private static List<Long> ids(PatientVisitsResponse response) {
+        return response.getVisits().stream().map(PatientVisitResponse::getId).toList();
+    }
+}
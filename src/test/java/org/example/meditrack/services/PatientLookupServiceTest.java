@@ -0,0 +1,104 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.PatientLookupResponse;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.sharding.ShardContext;
+import org.example.meditrack.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the lookup statement of {@link PatientRepository} on H2 through a repository mock.
+ */
+class PatientLookupServiceTest {
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final List<Integer> queriedShards = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:lookup-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES "
+                + "('Greg', 'House', 'America/New_York'), ('Olena', 'Shevchenko', 'Europe/Kyiv'), "
+                + "('Alice', 'Miller', 'UTC')");
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES "
+                + "('John', 'Doe'), ('Jane', 'Smith'), ('Anna', 'Brown'), ('Oleh', 'Koval')");
+        // patient 4 is never looked up, but counts toward the totalPatients of doctor 1
+        jdbcTemplate.update("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) VALUES "
+                + "(1735722000000, 1735723800000, 1, 1), (1735808400000, 1735810200000, 1, 1), "
+                + "(1735894800000, 1735896600000, 1, 2), (1735981200000, 1735983000000, 2, 2), "
+                + "(1736067600000, 1736069400000, 4, 3), (1736154000000, 1736155800000, 4, 1)");
+
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        String sql = Arrays.stream(PatientRepository.class.getMethods())
+                .filter(method -> method.getName().equals("findPatientsWithLatestVisits"))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class).value()
+                .replaceAll("IN :(\\w+)", "IN (:$1)");
+        when(patientRepository.findPatientsWithLatestVisits(anyList())).thenAnswer(invocation -> {
+            queriedShards.add(ShardContext.current());
+            return namedJdbcTemplate.query(sql,
+                    new MapSqlParameterSource("patientIds", invocation.getArgument(0)),
+                    (rs, rowNum) -> {
+                        Object[] row = new Object[11];
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        return row;
+                    });
+        });
+    }
+
+    @Test
+    void lookup_KnownAndUnknownIds_ReturnsPatientsInRequestOrder() {
+        // Given
+        PatientLookupService service = new PatientLookupService(patientRepository, new ShardRouter(1));
+
+        // When
+        PatientLookupResponse response = service.lookup(List.of(3L, 1L, 99L, 2L, 1L));
+
+        // Then
+        assertEquals(List.of(3L, 1L, 2L), new ArrayList<>(response.getPatients().keySet()));
+        assertEquals(List.of(99L), response.getNotFound());
+        PatientResponse john = response.getPatients().get(1L);
+        assertEquals("Doe", john.getLastName());
+        assertEquals(2, john.getLastVisits().size());
+        assertEquals("2025-01-02T04:00:00-05:00", john.getLastVisits().get(0).getStart());
+        assertEquals(2, john.getLastVisits().get(0).getDoctor().getTotalPatients());
+        assertTrue(response.getPatients().get(3L).getLastVisits().isEmpty());
+        verify(patientRepository, times(1)).findPatientsWithLatestVisits(anyList());
+    }
+
+    @Test
+    void lookup_Sharded_SendsEachShardItsOwnIdsOnce() {
+        // Given
+        PatientLookupService service = new PatientLookupService(patientRepository, new ShardRouter(2));
+
+        // When
+        PatientLookupResponse response = service.lookup(List.of(4L, 1L, 2L, 3L));
+
+        // Then
+        verify(patientRepository).findPatientsWithLatestVisits(List.of(1L, 3L));
+        verify(patientRepository).findPatientsWithLatestVisits(List.of(4L, 2L));
+        assertEquals(List.of(0, 1), queriedShards);
+        assertEquals(List.of(4L, 1L, 2L, 3L), new ArrayList<>(response.getPatients().keySet()));
+    }
+}
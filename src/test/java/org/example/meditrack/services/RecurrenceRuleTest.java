@@ -0,0 +1,96 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.exceptions.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    @Test
+    void weekly_AcrossDstEnd_KeepsWallClockTime() {
+        // Given: DST ends in New York on 2025-11-02
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;COUNT=3");
+
+        // When
+        List<ZonedDateTime> starts = rule.expand(LocalDateTime.of(2025, 10, 27, 10, 0), NEW_YORK, 100);
+
+        // Then
+        assertEquals(List.of(
+                OffsetDateTime.parse("2025-10-27T10:00-04:00").toInstant(),
+                OffsetDateTime.parse("2025-11-03T10:00-05:00").toInstant(),
+                OffsetDateTime.parse("2025-11-10T10:00-05:00").toInstant()),
+                starts.stream().map(ZonedDateTime::toInstant).toList());
+    }
+
+    @Test
+    void daily_InSpringForwardGap_MovesForwardByGap() {
+        // Given: 02:30 does not exist in New York on 2025-03-09
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=DAILY;COUNT=3");
+
+        // When
+        List<ZonedDateTime> starts = rule.expand(LocalDateTime.of(2025, 3, 8, 2, 30), NEW_YORK, 100);
+
+        // Then
+        assertEquals(List.of(LocalTime.of(2, 30), LocalTime.of(3, 30), LocalTime.of(2, 30)),
+                starts.stream().map(ZonedDateTime::toLocalTime).toList());
+    }
+
+    @Test
+    void weeklyByDayWithInterval_UntilDate_ExpandsInOrder() {
+        // Given
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=TH,MO;UNTIL=20251120");
+
+        // When: starts on a Thursday, so the Monday of that week is skipped
+        List<ZonedDateTime> starts = rule.expand(LocalDateTime.of(2025, 10, 23, 9, 0), NEW_YORK, 100);
+
+        // Then
+        assertEquals(List.of(LocalDate.of(2025, 10, 23), LocalDate.of(2025, 11, 3), LocalDate.of(2025, 11, 6),
+                        LocalDate.of(2025, 11, 17), LocalDate.of(2025, 11, 20)),
+                starts.stream().map(ZonedDateTime::toLocalDate).toList());
+    }
+
+    @Test
+    void untilUtcTime_IsInclusive() {
+        // Given: 10:00 in New York is 15:00 UTC in November
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20251105T150000Z");
+
+        // When
+        List<ZonedDateTime> starts = rule.expand(LocalDateTime.of(2025, 11, 3, 10, 0), NEW_YORK, 100);
+
+        // Then
+        assertEquals(3, starts.size());
+    }
+
+    @Test
+    void expand_MoreThanMaximum_ThrowsException() {
+        // Given
+        RecurrenceRule byCount = RecurrenceRule.parse("FREQ=DAILY;COUNT=101");
+        RecurrenceRule byUntil = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20300101");
+        LocalDateTime first = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+        // When & Then
+        assertThrows(BusinessException.class, () -> byCount.expand(first, NEW_YORK, 100));
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> byUntil.expand(first, NEW_YORK, 100));
+        assertEquals("A series can have at most 100 visits", exception.getMessage());
+    }
+
+    @Test
+    void parse_InvalidRules_ThrowException() {
+        // When & Then
+        assertEquals("Recurrence rule needs exactly one of COUNT or UNTIL",
+                assertThrows(BusinessException.class, () -> RecurrenceRule.parse("FREQ=WEEKLY")).getMessage());
+        assertEquals("Unsupported recurrence rule part: BYMONTH",
+                assertThrows(BusinessException.class,
+                        () -> RecurrenceRule.parse("FREQ=WEEKLY;COUNT=2;BYMONTH=1")).getMessage());
+        assertThrows(BusinessException.class, () -> RecurrenceRule.parse("FREQ=MONTHLY;COUNT=2"));
+        assertThrows(BusinessException.class, () -> RecurrenceRule.parse("FREQ=DAILY;BYDAY=MO;COUNT=2"));
+        assertThrows(BusinessException.class, () -> RecurrenceRule.parse("FREQ=DAILY;COUNT=0"));
+    }
+}
@@ -0,0 +1,246 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.PatientSort;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.sharding.ShardContext;
+import org.example.meditrack.sharding.ShardRouter;
+import org.example.meditrack.sharding.ShardRoutingDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the sharded listing against three embedded H2 databases behind a {@link ShardRoutingDataSource}.
+ * The repository is a mock that executes the SQL of its {@code @Query} annotations on the routed data
+ * source, so the shard picked on the worker threads decides which database answers.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardedPatientListingTest {
+
+    private static final int SHARDS = 3;
+    private static final int PATIENTS_PER_SHARD = 4;
+
+    private final ShardRouter shardRouter = new ShardRouter(SHARDS);
+    private final Map<Integer, List<Long>> patientIdsByShard = new HashMap<>();
+    private JdbcTemplate jdbcTemplate;
+    private ThreadPoolTaskExecutor executor;
+    private ShardedPatientListing shardedPatientListing;
+
+    @BeforeAll
+    void setUpShards() {
+        List<DriverManagerDataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard" + shard + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+            // H2 counterpart of auto_increment_increment / auto_increment_offset on the MySQL shards
+            JdbcTemplate shardJdbc = new JdbcTemplate(dataSource);
+            for (String table : List.of("doctors", "patients", "visits")) {
+                shardJdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (shard + 1)
+                        + " SET INCREMENT BY " + SHARDS);
+            }
+            shards.add(dataSource);
+        }
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shards);
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+
+        long visitStart = 1_735_689_600_000L;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            try (ShardRouter.Scope ignored = shardRouter.enter(shard)) {
+                long doctorId = insert("INSERT INTO doctors (first_name, last_name, timezone) VALUES (?, ?, ?)",
+                        "Doctor" + shard, "Clinic" + shard, "Europe/Kyiv");
+                List<Long> patientIds = new ArrayList<>();
+                for (int i = 0; i < PATIENTS_PER_SHARD; i++) {
+                    long patientId = insert("INSERT INTO patients (first_name, last_name) VALUES (?, ?)",
+                            "Patient" + shard, "Number" + i);
+                    patientIds.add(patientId);
+                    // the last patient of every clinic has no visits yet
+                    if (i < PATIENTS_PER_SHARD - 1) {
+                        visitStart += 3_600_000L;
+                        insert("INSERT INTO visits (start_date_time, end_date_time, patient_id, doctor_id) "
+                                + "VALUES (?, ?, ?, ?)", visitStart, visitStart + 1_800_000L, patientId, doctorId);
+                    }
+                }
+                patientIdsByShard.put(shard, patientIds);
+            }
+        }
+
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(routingDataSource);
+        PatientRepository patientRepository = mock(PatientRepository.class);
+        when(patientRepository.findAllPatientsWithDataOptimized(any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> namedJdbcTemplate.query(listingSql("findAllPatientsWithDataOptimized"),
+                        parameters(invocation.getArgument(0), null, invocation.getArgument(1),
+                                invocation.getArgument(2)),
+                        (rs, rowNum) -> row(rs)));
+        when(patientRepository.findPatientsWithAllDataOptimized(any(), anyList(), anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> namedJdbcTemplate.query(listingSql("findPatientsWithAllDataOptimized"),
+                        parameters(invocation.getArgument(0), invocation.getArgument(1),
+                                invocation.getArgument(3), invocation.getArgument(4)),
+                        (rs, rowNum) -> row(rs)));
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(SHARDS);
+        executor.setTaskDecorator(ShardContext::propagate);
+        executor.initialize();
+        shardedPatientListing = new ShardedPatientListing(patientRepository, shardRouter, executor);
+    }
+
+    @AfterAll
+    void shutDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void insertsOnShard_AllocateIdsThatRouteBackToIt() {
+        // Then
+        patientIdsByShard.forEach((shard, ids) ->
+                ids.forEach(id -> assertEquals(shard, shardRouter.shardOf(id), "patient " + id)));
+        Long doctorsOnShard1 = shardRouter.onShard(1,
+                () -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM doctors WHERE id = 2", Long.class));
+        assertEquals(1L, doctorsOnShard1);
+    }
+
+    @Test
+    void fetchRows_FirstPage_MergesShardsByPatientId() {
+        // When
+        List<Object[]> rows = shardedPatientListing.fetchRows(null, null, 0, 5);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), patientIds(rows));
+        rows.forEach(row -> assertEquals((long) SHARDS * PATIENTS_PER_SHARD, ((Number) row[11]).longValue()));
+    }
+
+    @Test
+    void fetchRows_DeepPage_SkipsPatientsOfAllShards() {
+        // When
+        List<Object[]> rows = shardedPatientListing.fetchRows(null, null, 10, 5);
+
+        // Then
+        assertEquals(List.of(11L, 12L), patientIds(rows));
+        assertNull(rows.get(0)[3]);
+        assertEquals(12L, ((Number) rows.get(0)[11]).longValue());
+    }
+
+    @Test
+    void fetchRows_DoctorFilter_SumsMatchingPatientsOfEachShard() {
+        // When
+        List<Object[]> rows = shardedPatientListing.fetchRows(null, List.of(1L, 2L), 0, 20);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 4L, 5L, 7L, 8L, 10L, 11L, 12L), patientIds(rows));
+        assertEquals(9L, ((Number) rows.get(0)[11]).longValue());
+    }
+
+    @Test
+    void fetchRows_SearchMatchingOneShard_ReturnsOnlyThatClinic() {
+        // When
+        List<Object[]> rows = shardedPatientListing.fetchRows("Patient2", null, 0, 20);
+
+        // Then
+        assertEquals(patientIdsByShard.get(2), patientIds(rows));
+        assertEquals(4L, ((Number) rows.get(0)[11]).longValue());
+    }
+
+    @Test
+    void fetchRows_PastLastPage_ReturnsNoRows() {
+        // When
+        List<Object[]> rows = shardedPatientListing.fetchRows(null, null, 20, 5);
+
+        // Then
+        assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    void merge_SortedShardPages_InterleavesBySortKeyAndKeepsLimit() {
+        // Given - keyset pages of two shards, each in lastName order; names differ in case only
+        List<Object[]> shard0 = List.of(sortedRow(1, "adams", "Bob", 4), sortedRow(4, "Doe", "Jane", 4),
+                sortedRow(4, "Doe", "Jane", 4), sortedRow(7, "Smith", "Zoe", 4));
+        List<Object[]> shard1 = List.of(sortedRow(2, "Adams", "Amy", 3), sortedRow(5, "doe", "Jane", 3),
+                sortedRow(8, "Koval", "Oleh", 3));
+
+        // When
+        List<Object[]> rows = ShardedPatientListing.merge(List.of(shard0, shard1), 0, 4,
+                ShardedPatientListing.order(PatientSort.LAST_NAME));
+
+        // Then
+        assertEquals(List.of(2L, 1L, 4L, 5L), patientIds(rows));
+        assertEquals(5, rows.size());
+        assertEquals(7L, ((Number) rows.get(0)[11]).longValue());
+    }
+
+    private long insert(String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keys);
+        return Objects.requireNonNull(keys.getKey()).longValue();
+    }
+
+    private static Object[] sortedRow(long patientId, String lastName, String firstName, long shardTotal) {
+        return new Object[]{patientId, firstName, lastName, null, null, null, null, null, null, null, null,
+                shardTotal, lastName, firstName};
+    }
+
+    private static String listingSql(String methodName) {
+        return Arrays.stream(PatientRepository.class.getMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class).value()
+                .replaceAll("IN :(\\w+)", "IN (:$1)");
+    }
+
+    private static MapSqlParameterSource parameters(String search, List<Long> doctorIds, int offset, int pageSize) {
+        return new MapSqlParameterSource()
+                .addValue("search", search)
+                .addValue("doctorIds", doctorIds)
+                .addValue("doctorIdsSize", doctorIds != null ? doctorIds.size() : null)
+                .addValue("offset", offset)
+                .addValue("pageSize", pageSize);
+    }
+
+    private static Object[] row(ResultSet rs) throws SQLException {
+        Object[] row = new Object[12];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = rs.getObject(i + 1);
+        }
+        return row;
+    }
+
+    private static List<Long> patientIds(List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>();
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
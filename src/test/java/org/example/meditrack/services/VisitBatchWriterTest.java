@@ -0,0 +1,52 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.services.VisitBatchWriter.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the batched inserts against H2 with the Flyway baseline schema.
+ */
+class VisitBatchWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private VisitBatchWriter visitBatchWriter;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:visit-batch-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO doctors (first_name, last_name, timezone) VALUES ('Alice', 'Miller', 'UTC')");
+        jdbcTemplate.update("INSERT INTO patients (first_name, last_name) VALUES ('John', 'Doe')");
+        visitBatchWriter = new VisitBatchWriter(jdbcTemplate);
+    }
+
+    @Test
+    void insertVisitsAndEvents_ReturnsIdsInOrderAndLinksEvents() {
+        // Given
+        List<Slot> slots = List.of(new Slot(1_000L, 2_000L), new Slot(3_000L, 4_000L), new Slot(5_000L, 6_000L));
+
+        // When
+        List<Long> ids = visitBatchWriter.insertVisits(1L, 1L, slots);
+        visitBatchWriter.insertCreatedEvents(ids, 1L, 1L, slots, Instant.parse("2025-10-27T14:00:00Z"));
+
+        // Then
+        assertEquals(jdbcTemplate.queryForList("SELECT id FROM visits ORDER BY start_date_time", Long.class), ids);
+        assertEquals(ids, jdbcTemplate.queryForList(
+                "SELECT visit_id FROM visit_events WHERE type = 'CREATED' ORDER BY start_date_time", Long.class));
+        assertEquals(5_000L, jdbcTemplate.queryForObject(
+                "SELECT start_date_time FROM visit_events WHERE visit_id = ?", Long.class, ids.get(2)));
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.dtos.CreateVisitSeriesRequest;
+import org.example.meditrack.dtos.VisitSeriesResponse;
+import org.example.meditrack.exceptions.BusinessException;
+import org.example.meditrack.models.Doctor;
+import org.example.meditrack.models.Patient;
+import org.example.meditrack.repositories.DoctorRepository;
+import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitRepository;
+import org.example.meditrack.services.VisitBatchWriter.Slot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitSeriesServiceTest {
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @Mock
+    private VisitBatchWriter visitBatchWriter;
+
+    @Mock
+    private PatientHistoryCache patientHistoryCache;
+
+    @Mock
+    private MemoryPatientListing memoryPatientListing;
+
+    @InjectMocks
+    private VisitSeriesService visitSeriesService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(Doctor.builder()
+                .id(1L).firstName("Alice").lastName("Miller").timezone("America/New_York").build()));
+        lenient().when(patientRepository.findById(1L)).thenReturn(Optional.of(Patient.builder()
+                .id(1L).firstName("John").lastName("Doe").build()));
+    }
+
+    @Test
+    void createSeries_Weekly_ChecksOnceAndInsertsAllInDoctorZone() {
+        // Given
+        CreateVisitSeriesRequest request = request("2025-10-27T10:00", "FREQ=WEEKLY;COUNT=12");
+        when(visitRepository.findVisitTimesOverlapping(eq(1L), anyLong(), anyLong())).thenReturn(List.of());
+        when(visitBatchWriter.insertVisits(eq(1L), eq(1L), anyList()))
+                .thenAnswer(invocation -> ids(invocation.<List<Slot>>getArgument(2).size()));
+
+        // When
+        VisitSeriesResponse response = visitSeriesService.createSeries(request);
+
+        // Then
+        assertEquals(12, response.getVisits().size());
+        assertEquals("2025-10-27T10:00:00-04:00", response.getVisits().get(0).getStart());
+        assertEquals("2025-11-03T10:00:00-05:00", response.getVisits().get(1).getStart());
+        assertEquals("2025-11-03T10:30:00-05:00", response.getVisits().get(1).getEnd());
+        assertEquals(101L, response.getVisits().get(0).getId());
+        verify(visitRepository).findVisitTimesOverlapping(1L,
+                Instant.parse("2025-10-27T14:00:00Z").toEpochMilli(),
+                Instant.parse("2026-01-12T15:30:00Z").toEpochMilli());
+        verify(visitBatchWriter).insertCreatedEvents(eq(ids(12)), eq(1L), eq(1L), anyList(), any());
+        verify(memoryPatientListing).applyAfterCommit(112L, 1L, 1L,
+                Instant.parse("2026-01-12T15:00:00Z").toEpochMilli(),
+                Instant.parse("2026-01-12T15:30:00Z").toEpochMilli());
+        verify(patientHistoryCache).invalidateAfterCommit(1L);
+    }
+
+    @Test
+    void createSeries_OneOccurrenceTaken_BooksNothing() {
+        // Given: a visit at 10:15-10:45 on the third Monday
+        long taken = Instant.parse("2025-11-10T15:15:00Z").toEpochMilli();
+        when(visitRepository.findVisitTimesOverlapping(eq(1L), anyLong(), anyLong()))
+                .thenReturn(List.<Object[]>of(new Object[]{taken, taken + 1_800_000L}));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> visitSeriesService.createSeries(request("2025-10-27T10:00", "FREQ=WEEKLY;COUNT=4")));
+        assertEquals("Doctor already has a visit scheduled at this time: 2025-11-10T10:00:00-05:00",
+                exception.getMessage());
+        verifyNoInteractions(visitBatchWriter, patientHistoryCache);
+    }
+
+    @Test
+    void createSeries_OccurrencesOverlapEachOther_ThrowsException() {
+        // Given: daily visits of 25 hours
+        CreateVisitSeriesRequest request = request("2025-10-27T10:00", "FREQ=DAILY;COUNT=2");
+        request.setDurationMinutes(25 * 60);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> visitSeriesService.createSeries(request));
+        assertEquals("Visits of the series overlap each other", exception.getMessage());
+        verifyNoInteractions(visitRepository, visitBatchWriter);
+    }
+
+    @Test
+    void createSeries_DoctorNotFound_ThrowsException() {
+        // Given
+        CreateVisitSeriesRequest request = request("2025-10-27T10:00", "FREQ=WEEKLY;COUNT=2");
+        request.setDoctorId(999L);
+        when(doctorRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> visitSeriesService.createSeries(request));
+        assertEquals("Doctor not found", exception.getMessage());
+    }
+
+    @Test
+    void findConflicts_TouchingAndLongVisits_AreConflicts() {
+        // Given
+        List<Slot> series = List.of(new Slot(100, 200), new Slot(300, 400), new Slot(500, 600), new Slot(700, 800));
+        List<Object[]> booked = List.of(
+                new Object[]{10L, 50L},
+                new Object[]{150L, 160L},
+                new Object[]{400L, 450L},
+                new Object[]{610L, 650L},
+                new Object[]{650L, 1_000L});
+
+        // When
+        List<Slot> conflicts = VisitSeriesService.findConflicts(series, booked);
+
+        // Then
+        assertEquals(List.of(new Slot(100, 200), new Slot(300, 400), new Slot(700, 800)), conflicts);
+    }
+
+    private static CreateVisitSeriesRequest request(String start, String rrule) {
+        return CreateVisitSeriesRequest.builder()
+                .start(start)
+                .durationMinutes(30)
+                .rrule(rrule)
+                .patientId(1L)
+                .doctorId(1L)
+                .build();
+    }
+
+    private static List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(101L + i);
+        }
+        return ids;
+    }
+}
@@ -1,22 +1,30 @@
 package org.example.meditrack.services;
 
 import org.example.meditrack.dtos.CreateVisitRequest;
+import org.example.meditrack.dtos.PatientFields;
+import org.example.meditrack.dtos.PatientResponse;
+import org.example.meditrack.dtos.PatientSort;
 import org.example.meditrack.dtos.PatientsListResponse;
+import org.example.meditrack.dtos.RescheduleVisitRequest;
+import org.example.meditrack.dtos.VisitResponse;
 import org.example.meditrack.exceptions.BusinessException;
 import org.example.meditrack.models.Doctor;
 import org.example.meditrack.models.Patient;
 import org.example.meditrack.models.Visit;
+import org.example.meditrack.models.VisitEvent;
 import org.example.meditrack.repositories.DoctorRepository;
 import org.example.meditrack.repositories.PatientRepository;
+import org.example.meditrack.repositories.VisitEventRepository;
 import org.example.meditrack.repositories.VisitRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.*;
 
@@ -36,6 +44,24 @@ class VisitServiceTest {
     @Mock
     private DoctorRepository doctorRepository;
 
+    @Mock
+    private ParallelPatientListing parallelPatientListing;
+
+    @Mock
+    private ShardedPatientListing shardedPatientListing;
+
+    @Mock
+    private VisitEventRepository visitEventRepository;
+
+    @Mock
+    private PatientHistoryCache patientHistoryCache;
+
+    @Mock
+    private MemoryPatientListing memoryPatientListing;
+
+    @Mock
+    private DoctorStatsService doctorStatsService;
+
     @InjectMocks
     private VisitService visitService;
 
@@ -70,13 +96,25 @@ class VisitServiceTest {
                 .doctorId(1L)
                 .build();
 
-        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
         when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
         when(visitRepository.countOverlappingVisits(anyLong(), any(), any())).thenReturn(0L);
+        when(visitRepository.save(any(Visit.class))).thenAnswer(invocation -> {
+            Visit visit = invocation.getArgument(0);
+            visit.setId(10L);
+            return visit;
+        });
 
         // When & Then
         assertDoesNotThrow(() -> visitService.createVisit(request));
         verify(visitRepository).save(any(Visit.class));
+        verify(visitEventRepository).save(argThat(event -> event.getType() == VisitEvent.Type.CREATED
+                && event.getDoctorId() == 1L && event.getPatientId() == 1L
+                && event.getStartDateTime().equals(Instant.parse("2024-07-01T14:00:00Z"))));
+        verify(patientHistoryCache).invalidateAfterCommit(1L);
+        verify(memoryPatientListing).applyAfterCommit(eq(10L), eq(1L), eq(1L),
+                eq(Instant.parse("2024-07-01T14:00:00Z").toEpochMilli()),
+                eq(Instant.parse("2024-07-01T15:00:00Z").toEpochMilli()));
     }
 
     @Test
@@ -89,7 +127,7 @@ class VisitServiceTest {
                 .doctorId(1L)
                 .build();
 
-        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
         when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
         when(visitRepository.countOverlappingVisits(eq(1L), any(), any())).thenReturn(1L);
 
@@ -98,6 +136,8 @@ class VisitServiceTest {
                 () -> visitService.createVisit(request));
         assertEquals("Doctor already has a visit scheduled at this time", exception.getMessage());
         verify(visitRepository, never()).save(any());
+        verify(visitEventRepository, never()).save(any());
+        verify(patientHistoryCache, never()).invalidateAfterCommit(anyLong());
     }
 
     @Test
@@ -110,7 +150,7 @@ class VisitServiceTest {
                 .doctorId(999L)
                 .build();
 
-        when(doctorRepository.findById(999L)).thenReturn(Optional.empty());
+        when(doctorRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
 
         // When & Then
         BusinessException exception = assertThrows(BusinessException.class,
@@ -129,7 +169,7 @@ class VisitServiceTest {
                 .doctorId(1L)
                 .build();
 
-        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
         when(patientRepository.findById(999L)).thenReturn(Optional.empty());
 
         // When & Then
@@ -149,7 +189,7 @@ class VisitServiceTest {
                 .doctorId(1L)
                 .build();
 
-        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
         when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
 
         // When & Then
@@ -159,6 +199,26 @@ class VisitServiceTest {
         verify(visitRepository, never()).save(any());
     }
 
+    @Test
+    void createVisit_LongerThanMaxLength_ThrowsException() {
+        // Given
+        CreateVisitRequest request = CreateVisitRequest.builder()
+                .start("2024-07-01T10:00:00-04:00")
+                .end("2024-07-02T10:01:00-04:00")
+                .patientId(1L)
+                .doctorId(1L)
+                .build();
+
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> visitService.createVisit(request));
+        assertEquals("A visit can last at most 24 hours", exception.getMessage());
+        verify(visitRepository, never()).save(any());
+    }
+
     @Test
     void createVisit_EqualStartEndTime_ThrowsException() {
         // Given - Equal start and end time
@@ -169,7 +229,7 @@ class VisitServiceTest {
                 .doctorId(1L)
                 .build();
 
-        when(doctorRepository.findById(1L)).thenReturn(Optional.of(testDoctor));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
         when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
 
         // When & Then
@@ -179,6 +239,122 @@ class VisitServiceTest {
         verify(visitRepository, never()).save(any());
     }
 
+    // ========== CANCEL AND RESCHEDULE TESTS ==========
+
+    @Test
+    void cancelVisit_Success() {
+        // Given
+        Visit visit = existingVisit();
+        when(visitRepository.lockDoctorIdById(10L)).thenReturn(Optional.of(1L));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
+        when(visitRepository.findById(10L)).thenReturn(Optional.of(visit));
+
+        // When
+        visitService.cancelVisit(10L);
+
+        // Then
+        verify(visitRepository).delete(visit);
+        verify(visitEventRepository).save(argThat(event -> event.getType() == VisitEvent.Type.CANCELLED
+                && event.getVisitId() == 10L && event.getDoctorId() == 1L
+                && event.getStartDateTime().equals(Instant.parse("2024-07-01T14:00:00Z"))));
+        verify(patientRepository).resetLastVisitAt(1L);
+        verify(patientHistoryCache).invalidateAfterCommit(1L);
+        verify(memoryPatientListing).refreshPairAfterCommit(1L, 1L);
+    }
+
+    @Test
+    void cancelVisit_VisitNotFound_ThrowsException() {
+        // Given
+        when(visitRepository.lockDoctorIdById(99L)).thenReturn(Optional.empty());
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, () -> visitService.cancelVisit(99L));
+        assertEquals("Visit not found", exception.getMessage());
+        verify(doctorRepository, never()).findByIdForUpdate(anyLong());
+        verify(visitEventRepository, never()).save(any());
+    }
+
+    @Test
+    void rescheduleVisit_Success_ChecksOverlapExcludingItselfUnderDoctorLock() {
+        // Given
+        Visit visit = existingVisit();
+        RescheduleVisitRequest request = RescheduleVisitRequest.builder()
+                .start("2024-07-01T10:30:00-04:00")
+                .end("2024-07-01T11:30:00-04:00")
+                .build();
+        when(visitRepository.lockDoctorIdById(10L)).thenReturn(Optional.of(1L));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
+        when(visitRepository.findById(10L)).thenReturn(Optional.of(visit));
+        when(visitRepository.countOverlappingVisitsExcluding(anyLong(), any(), any(), anyLong())).thenReturn(0L);
+
+        // When
+        visitService.rescheduleVisit(10L, request);
+
+        // Then
+        InOrder order = inOrder(visitRepository, doctorRepository);
+        order.verify(visitRepository).lockDoctorIdById(10L);
+        order.verify(doctorRepository).findByIdForUpdate(1L);
+        order.verify(visitRepository).countOverlappingVisitsExcluding(1L, Instant.parse("2024-07-01T14:30:00Z"),
+                Instant.parse("2024-07-01T15:30:00Z"), 10L);
+        order.verify(visitRepository).saveAndFlush(visit);
+        assertEquals(Instant.parse("2024-07-01T14:30:00Z"), visit.getStartDateTime());
+        verify(visitEventRepository).save(argThat(event -> event.getType() == VisitEvent.Type.RESCHEDULED
+                && event.getStartDateTime().equals(Instant.parse("2024-07-01T14:30:00Z"))
+                && event.getPreviousStartDateTime().equals(Instant.parse("2024-07-01T14:00:00Z"))));
+        verify(patientRepository).resetLastVisitAt(1L);
+        verify(memoryPatientListing).refreshPairAfterCommit(1L, 1L);
+    }
+
+    @Test
+    void rescheduleVisit_OverlappingVisit_ThrowsExceptionAndKeepsSlot() {
+        // Given
+        Visit visit = existingVisit();
+        RescheduleVisitRequest request = RescheduleVisitRequest.builder()
+                .start("2024-07-01T12:00:00-04:00")
+                .end("2024-07-01T13:00:00-04:00")
+                .build();
+        when(visitRepository.lockDoctorIdById(10L)).thenReturn(Optional.of(1L));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
+        when(visitRepository.findById(10L)).thenReturn(Optional.of(visit));
+        when(visitRepository.countOverlappingVisitsExcluding(eq(1L), any(), any(), eq(10L))).thenReturn(1L);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> visitService.rescheduleVisit(10L, request));
+        assertEquals("Doctor already has a visit scheduled at this time", exception.getMessage());
+        assertEquals(Instant.parse("2024-07-01T14:00:00Z"), visit.getStartDateTime());
+        verify(visitRepository, never()).saveAndFlush(any());
+        verify(visitEventRepository, never()).save(any());
+    }
+
+    @Test
+    void rescheduleVisit_InvalidTimeRange_ThrowsException() {
+        // Given
+        RescheduleVisitRequest request = RescheduleVisitRequest.builder()
+                .start("2024-07-01T11:00:00-04:00")
+                .end("2024-07-01T10:00:00-04:00")
+                .build();
+        when(visitRepository.lockDoctorIdById(10L)).thenReturn(Optional.of(1L));
+        when(doctorRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testDoctor));
+        when(visitRepository.findById(10L)).thenReturn(Optional.of(existingVisit()));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> visitService.rescheduleVisit(10L, request));
+        assertEquals("Start time must be before end time", exception.getMessage());
+        verify(visitRepository, never()).countOverlappingVisitsExcluding(anyLong(), any(), any(), anyLong());
+    }
+
+    private Visit existingVisit() {
+        return Visit.builder()
+                .id(10L)
+                .startDateTime(Instant.parse("2024-07-01T14:00:00Z"))
+                .endDateTime(Instant.parse("2024-07-01T15:00:00Z"))
+                .patient(testPatient)
+                .doctor(testDoctor)
+                .build();
+    }
+
     // ========== GET PATIENTS TESTS ==========
 
     @Test
@@ -191,8 +367,8 @@ class VisitServiceTest {
         //                 doctor_id, doctor_first_name, doctor_last_name, timezone, patient_count, total_count]
         Object[] row = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(visitStart.toInstant()),
-                Timestamp.from(visitEnd.toInstant()),
+                visitStart.toInstant().toEpochMilli(),
+                visitEnd.toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 5L // total_count from CTE
         };
@@ -215,6 +391,32 @@ class VisitServiceTest {
         verify(patientRepository).findAllPatientsWithDataOptimized(null, 0, 20);
     }
 
+    @Test
+    void getPatients_WithProjection_UsesProjectedQueryAndOmitsFields() {
+        // Given
+        PatientFields fields = PatientFields.parse("firstName,doctor.lastName");
+        Object[] row = {
+                1L, "Jane", null, 1L, null, null,
+                1L, null, "Doe", null, null, null
+        };
+        when(patientRepository.findPatientRows(null, null, fields, 0, 20))
+                .thenReturn(Collections.singletonList(row));
+
+        // When
+        PatientsListResponse response = visitService.getPatients(null, 0, 20, null, null, fields, null);
+
+        // Then
+        assertNull(response.getCount());
+        PatientResponse patient = response.getData().get(0);
+        assertEquals("Jane", patient.getFirstName());
+        assertNull(patient.getLastName());
+        VisitResponse visit = patient.getLastVisits().get(0);
+        assertNull(visit.getStart());
+        assertEquals("Doe", visit.getDoctor().getLastName());
+        assertNull(visit.getDoctor().getTotalPatients());
+        verify(patientRepository, never()).findAllPatientsWithDataOptimized(any(), anyInt(), anyInt());
+    }
+
     @Test
     void getPatients_WithDoctorFilter_Success() {
         // Given
@@ -223,16 +425,16 @@ class VisitServiceTest {
 
         Object[] row1 = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(visitStart.toInstant()),
-                Timestamp.from(visitStart.plusHours(1).toInstant()),
+                visitStart.toInstant().toEpochMilli(),
+                visitStart.plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 2L // total_count
         };
 
         Object[] row2 = {
                 1L, "Jane", "Smith", 2L,
-                Timestamp.from(visitStart.plusHours(2).toInstant()),
-                Timestamp.from(visitStart.plusHours(3).toInstant()),
+                visitStart.plusHours(2).toInstant().toEpochMilli(),
+                visitStart.plusHours(3).toInstant().toEpochMilli(),
                 2L, "Alice", "Johnson", "Europe/London", 2,
                 2L // total_count
         };
@@ -257,8 +459,8 @@ class VisitServiceTest {
         String search = "jane";
         Object[] row = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(ZonedDateTime.now().toInstant()),
-                Timestamp.from(ZonedDateTime.now().plusHours(1).toInstant()),
+                ZonedDateTime.now().toInstant().toEpochMilli(),
+                ZonedDateTime.now().plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 1L // total_count
         };
@@ -284,8 +486,8 @@ class VisitServiceTest {
 
         Object[] row = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(ZonedDateTime.now().toInstant()),
-                Timestamp.from(ZonedDateTime.now().plusHours(1).toInstant()),
+                ZonedDateTime.now().toInstant().toEpochMilli(),
+                ZonedDateTime.now().plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 1L // total_count
         };
@@ -328,8 +530,8 @@ class VisitServiceTest {
 
         Object[] row = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(ZonedDateTime.now().toInstant()),
-                Timestamp.from(ZonedDateTime.now().plusHours(1).toInstant()),
+                ZonedDateTime.now().toInstant().toEpochMilli(),
+                ZonedDateTime.now().plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 25L // total_count
         };
@@ -352,8 +554,8 @@ class VisitServiceTest {
         // Given - null page and size should default to 0 and 20
         Object[] row = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(ZonedDateTime.now().toInstant()),
-                Timestamp.from(ZonedDateTime.now().plusHours(1).toInstant()),
+                ZonedDateTime.now().toInstant().toEpochMilli(),
+                ZonedDateTime.now().plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 1L // total_count
         };
@@ -402,24 +604,24 @@ class VisitServiceTest {
 
         Object[] row1 = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(visitStart.toInstant()),
-                Timestamp.from(visitStart.plusHours(1).toInstant()),
+                visitStart.toInstant().toEpochMilli(),
+                visitStart.plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "America/New_York", 3,
                 1L // total_count
         };
 
         Object[] row2 = {
                 1L, "Jane", "Smith", 2L,
-                Timestamp.from(visitStart.plusDays(1).toInstant()),
-                Timestamp.from(visitStart.plusDays(1).plusHours(1).toInstant()),
+                visitStart.plusDays(1).toInstant().toEpochMilli(),
+                visitStart.plusDays(1).plusHours(1).toInstant().toEpochMilli(),
                 2L, "Alice", "Johnson", "Europe/London", 2,
                 1L // total_count
         };
 
         Object[] row3 = {
                 1L, "Jane", "Smith", 3L,
-                Timestamp.from(visitStart.plusDays(2).toInstant()),
-                Timestamp.from(visitStart.plusDays(2).plusHours(1).toInstant()),
+                visitStart.plusDays(2).toInstant().toEpochMilli(),
+                visitStart.plusDays(2).plusHours(1).toInstant().toEpochMilli(),
                 3L, "Bob", "Wilson", "Asia/Tokyo", 1,
                 1L // total_count
         };
@@ -453,8 +655,8 @@ class VisitServiceTest {
         ZonedDateTime visitStart = ZonedDateTime.parse("2024-07-01T14:00:00+00:00"); // UTC time
         Object[] row = {
                 1L, "Jane", "Smith", 1L,
-                Timestamp.from(visitStart.toInstant()),
-                Timestamp.from(visitStart.plusHours(1).toInstant()),
+                visitStart.toInstant().toEpochMilli(),
+                visitStart.plusHours(1).toInstant().toEpochMilli(),
                 1L, "John", "Doe", "Europe/London", 3, // London timezone
                 1L // total_count
         };
@@ -475,4 +677,187 @@ class VisitServiceTest {
 
         verify(patientRepository).findAllPatientsWithDataOptimized(null, 0, 20);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPatients_FanOutStrategy_UsesParallelListing() {
+        // Given
+        List<Long> doctorIds = Collections.singletonList(1L);
+        Object[] row = {
+                1L, "Jane", "Smith", 1L,
+                ZonedDateTime.now().toInstant().toEpochMilli(),
+                ZonedDateTime.now().plusHours(1).toInstant().toEpochMilli(),
+                1L, "John", "Doe", "America/New_York", 3,
+                4L // total_count
+        };
+
+        when(parallelPatientListing.fetchRows("jane", doctorIds, 20, 10))
+                .thenReturn(Collections.singletonList(row));
+
+        // When
+        PatientsListResponse response = visitService.getPatients(ListingStrategy.FAN_OUT, 2, 10, "jane", doctorIds,
+                PatientFields.ALL, null);
+
+        // Then
+        assertEquals(4L, response.getCount());
+        assertEquals(1, response.getData().size());
+        assertEquals(3, response.getData().get(0).getLastVisits().get(0).getDoctor().getTotalPatients());
+
+        verify(parallelPatientListing).fetchRows("jane", doctorIds, 20, 10);
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void getPatients_MemoryEngineLoaded_ServesFromReadModel() {
+        // Given
+        Object[] row = {
+                1L, "Jane", "Smith", 1L,
+                ZonedDateTime.now().toInstant().toEpochMilli(),
+                ZonedDateTime.now().plusHours(1).toInstant().toEpochMilli(),
+                1L, "John", "Doe", "America/New_York", 3,
+                1L // total_count
+        };
+
+        when(memoryPatientListing.isActive()).thenReturn(true);
+        when(memoryPatientListing.fetchRows("jane", null, 0, 20)).thenReturn(Collections.singletonList(row));
+
+        // When
+        PatientsListResponse response = visitService.getPatients(0, 20, "jane", null);
+
+        // Then
+        assertEquals(1L, response.getCount());
+        assertEquals("Jane", response.getData().get(0).getFirstName());
+        verifyNoInteractions(patientRepository, shardedPatientListing, parallelPatientListing);
+    }
+
+    @Test
+    void getPatients_SameDoctorAcrossPatients_SharesDoctorResponse() {
+        // Given - two patients with a visit to the same doctor, plus a patient without visits in between
+        ZonedDateTime visitStart = ZonedDateTime.parse("2024-07-01T10:00:00-04:00");
+        Object[] row1 = {
+                1L, "Jane", "Smith", 1L,
+                visitStart.toInstant().toEpochMilli(),
+                visitStart.plusHours(1).toInstant().toEpochMilli(),
+                1L, "John", "Doe", "America/New_York", 2,
+                3L
+        };
+        Object[] row2 = {
+                2L, "Emily", "Clark", null,
+                null, null, null, null, null, null, null,
+                3L
+        };
+        Object[] row3 = {
+                3L, "David", "Johnson", 2L,
+                visitStart.plusDays(1).toInstant().toEpochMilli(),
+                visitStart.plusDays(1).plusHours(1).toInstant().toEpochMilli(),
+                1L, "John", "Doe", "America/New_York", 2,
+                3L
+        };
+
+        when(patientRepository.findAllPatientsWithDataOptimized(null, 0, 20))
+                .thenReturn(Arrays.asList(row1, row2, row3));
+
+        // When
+        PatientsListResponse response = visitService.getPatients(0, 20, null, null);
+
+        // Then
+        assertEquals(3, response.getData().size());
+        assertEquals("Emily", response.getData().get(1).getFirstName());
+        assertTrue(response.getData().get(1).getLastVisits().isEmpty());
+        assertSame(response.getData().get(0).getLastVisits().get(0).getDoctor(),
+                response.getData().get(2).getLastVisits().get(0).getDoctor());
+        assertEquals("2024-07-02T10:00:00-04:00", response.getData().get(2).getLastVisits().get(0).getStart());
+    }
+
+    @Test
+    void getPatients_WithPatientsWindow_CountsRecentPatientsOfListedDoctors() {
+        // Given
+        ZonedDateTime visitStart = ZonedDateTime.parse("2024-07-01T10:00:00-04:00");
+        Object[] row1 = {
+                1L, "Jane", "Smith", 1L,
+                visitStart.toInstant().toEpochMilli(),
+                visitStart.plusHours(1).toInstant().toEpochMilli(),
+                1L, "John", "Doe", "America/New_York", 2,
+                2L
+        };
+        Object[] row2 = {
+                2L, "David", "Johnson", 2L,
+                visitStart.toInstant().toEpochMilli(),
+                visitStart.plusHours(1).toInstant().toEpochMilli(),
+                2L, "Sarah", "Wilson", "Europe/London", 1,
+                2L
+        };
+        when(patientRepository.findAllPatientsWithDataOptimized(null, 0, 20)).thenReturn(Arrays.asList(row1, row2));
+        when(doctorStatsService.countRecentPatients(Set.of(1L, 2L), 30)).thenReturn(Map.of(1L, 17));
+
+        // When
+        PatientsListResponse response = visitService.getPatients(null, 0, 20, null, null, PatientFields.ALL, 30);
+        PatientsListResponse withoutWindow = visitService.getPatients(0, 20, null, null);
+
+        // Then
+        assertEquals(17, response.getData().get(0).getLastVisits().get(0).getDoctor().getRecentPatients());
+        assertEquals(0, response.getData().get(1).getLastVisits().get(0).getDoctor().getRecentPatients());
+        assertNull(withoutWindow.getData().get(0).getLastVisits().get(0).getDoctor().getRecentPatients());
+        verify(doctorStatsService, times(1)).countRecentPatients(any(), anyInt());
+    }
+
+    // ========== SORTED LISTING TESTS ==========
+
+    @Test
+    void getSortedPatients_MorePatientsThanPage_ReturnsCursorOfLastListedPatient() {
+        // Given - three patients for a page of two; Jane has visits with two doctors
+        long start = ZonedDateTime.parse("2024-07-01T10:00:00-04:00").toInstant().toEpochMilli();
+        Object[] jane1 = {4L, "Jane", "Brown", 1L, start, start + 3_600_000L, 1L, "John", "Doe", "America/New_York", 2, 9L,
+                "Brown", "Jane"};
+        Object[] jane2 = {4L, "Jane", "Brown", 2L, start, start + 3_600_000L, 2L, "Greg", "House", "UTC", 1, 9L,
+                "Brown", "Jane"};
+        Object[] emily = {2L, "Emily", "Clark", null, null, null, null, null, null, null, null, 9L, "Clark", "Emily"};
+        Object[] david = {7L, "David", "Clark", null, null, null, null, null, null, null, null, 9L, "Clark", "David"};
+        when(patientRepository.findSortedPatientRows(null, null, PatientFields.ALL, PatientSort.LAST_NAME, null, 3))
+                .thenReturn(Arrays.asList(jane1, jane2, emily, david));
+
+        // When
+        PatientsListResponse response = visitService.getSortedPatients(PatientSort.LAST_NAME, null, 2, null, null,
+                PatientFields.ALL, null);
+
+        // Then
+        assertEquals(2, response.getData().size());
+        assertEquals(2, response.getData().get(0).getLastVisits().size());
+        assertEquals("Emily", response.getData().get(1).getFirstName());
+        assertEquals(9L, response.getCount());
+        assertEquals(List.of("Clark", "Emily", 2L),
+                PatientCursor.decode(PatientSort.LAST_NAME, response.getNextCursor()).keys());
+    }
+
+    @Test
+    void getSortedPatients_WithCursor_ContinuesAfterItAndEndsWithoutCursor() {
+        // Given
+        String cursor = new PatientCursor(PatientSort.LAST_VISIT, List.of(1_719_842_400_000L, 5L)).encode();
+        Object[] row = {3L, "Emily", "Clark", null, null, null, null, null, null, null, null, 4L, 0L};
+        when(patientRepository.findSortedPatientRows(eq("em"), isNull(), any(PatientFields.class),
+                eq(PatientSort.LAST_VISIT), eq(List.of(1_719_842_400_000L, 5L)), eq(21)))
+                .thenReturn(Collections.singletonList(row));
+
+        // When
+        PatientsListResponse response = visitService.getSortedPatients(PatientSort.LAST_VISIT, cursor, null, "em",
+                null, PatientFields.ALL, null);
+
+        // Then
+        assertEquals(1, response.getData().size());
+        assertNull(response.getNextCursor());
+        verify(memoryPatientListing, never()).fetchRows(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getSortedPatients_CursorOfOtherSortOrGarbage_ThrowsException() {
+        // Given
+        String lastVisitCursor = new PatientCursor(PatientSort.LAST_VISIT, List.of(0L, 5L)).encode();
+
+        // When & Then
+        assertThrows(BusinessException.class, () -> visitService.getSortedPatients(PatientSort.LAST_NAME,
+                lastVisitCursor, 20, null, null, PatientFields.ALL, null));
+        BusinessException exception = assertThrows(BusinessException.class, () -> visitService.getSortedPatients(
+                PatientSort.FIRST_NAME, "%%", 20, null, null, PatientFields.ALL, null));
+        assertEquals("Invalid cursor", exception.getMessage());
+        verifyNoInteractions(patientRepository);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.meditrack.services;
+
+import org.example.meditrack.sharding.ShardRouter;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WarmupServiceTest {
+
+    @Mock
+    private VisitService visitService;
+
+    private DriverManagerDataSource dataSource;
+    private WarmupService warmupService;
+
+    @BeforeEach
+    void setUp(TestInfo testInfo) {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:warmup-" + testInfo.getDisplayName().hashCode()
+                + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        warmupService = new WarmupService(visitService, dataSource, new ShardRouter(1), true);
+    }
+
+    @Test
+    void health_BeforeWarmUp_IsOutOfService() {
+        // When
+        Health health = warmupService.health();
+
+        // Then
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+    }
+
+    @Test
+    void warmUp_MigratedSchema_RunsListingAndBecomesReady() {
+        // Given
+        migrate();
+
+        // When
+        warmupService.warmUp();
+
+        // Then
+        assertEquals(Status.UP, warmupService.health().getStatus());
+        verify(visitService).getPatients(0, 20, null, null);
+    }
+
+    @Test
+    void warmUp_PendingMigration_StaysOutOfServiceUntilMigrated() {
+        // When
+        warmupService.warmUp();
+        Health behind = warmupService.health();
+        migrate();
+        Health migrated = warmupService.health();
+
+        // Then
+        assertEquals(Status.OUT_OF_SERVICE, behind.getStatus());
+        List<?> pending = (List<?>) behind.getDetails().get("pendingMigrations");
+        assertFalse(pending.isEmpty());
+        assertTrue(pending.contains("1"));
+        assertEquals(Status.UP, migrated.getStatus());
+        verifyNoInteractions(visitService);
+    }
+
+    @Test
+    void warmUp_ListingFails_StillBecomesReady() {
+        // Given
+        migrate();
+        when(visitService.getPatients(0, 20, null, null)).thenThrow(new IllegalStateException("db down"));
+
+        // When
+        warmupService.warmUp();
+
+        // Then
+        assertEquals(Status.UP, warmupService.health().getStatus());
+    }
+
+    private void migrate() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.meditrack.tracing;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void current_WithoutStartedTrace_IsInactive() {
+        // When
+        Trace trace = Trace.current();
+        Trace.Span span = trace.begin(Phase.SQL);
+        span.end(10);
+        trace.parameter("search", "an");
+
+        // Then
+        assertFalse(trace.isActive());
+        assertSame(span, Trace.current().begin(Phase.ASSEMBLY));
+    }
+
+    @Test
+    void close_OverThreshold_LogsParametersRowsAndPhases() {
+        // Given
+        List<String> slowLog = new ArrayList<>();
+        Trace trace = Trace.start("GET /api/patients", 1, slowLog::add);
+        trace.parameter("search", "an");
+        trace.parameter("offset", 40);
+
+        // When
+        assertSame(trace, Trace.current());
+        trace.begin(Phase.SQL).end(21);
+        trace.begin(Phase.ASSEMBLY).end(20);
+        trace.begin(Phase.SERIALIZATION).end();
+        trace.close();
+
+        // Then
+        assertFalse(Trace.current().isActive());
+        assertEquals(1, slowLog.size());
+        String line = slowLog.get(0);
+        assertTrue(line.startsWith("GET /api/patients took "), line);
+        assertTrue(line.contains("{search=an, offset=40}"), line);
+        assertTrue(line.matches(".* sql \\d+ ms 21 rows, assembly \\d+ ms 20 rows, serialization \\d+ ms"), line);
+    }
+
+    @Test
+    void close_UnderThreshold_DoesNotLog() {
+        // Given
+        List<String> slowLog = new ArrayList<>();
+        Trace trace = Trace.start("POST /api/visits", 60_000_000_000L, slowLog::add);
+
+        // When
+        trace.begin(Phase.LOOKUP).end(2);
+        trace.close();
+
+        // Then
+        assertTrue(slowLog.isEmpty());
+        assertTrue(trace.elapsedNanos(Phase.LOOKUP) > 0);
+    }
+
+    @Test
+    void span_WhileRecording_CommitsPhaseEvent() throws Exception {
+        // Given
+        Path file = tempDir.resolve("trace.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("meditrack.Phase");
+            recording.start();
+
+            // When
+            try (Trace trace = Trace.start("GET /api/patients", 0, line -> fail("slow log is off"))) {
+                trace.begin(Phase.SQL).end(21);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Optional<RecordedEvent> sql = events.stream()
+                .filter(event -> "sql".equals(event.getString("phase")))
+                .findFirst();
+        assertTrue(sql.isPresent());
+        assertEquals("GET /api/patients", sql.get().getString("operation"));
+        assertEquals(21, sql.get().getInt("rows"));
+        assertTrue(events.stream().anyMatch(event -> "request".equals(event.getString("phase"))));
+    }
+}
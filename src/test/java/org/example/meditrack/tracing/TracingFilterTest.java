@@ -0,0 +1,66 @@
+package org.example.meditrack.tracing;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracingFilterTest {
+
+    @Test
+    void listingRequest_SlowLogOn_IsTracedUntilResponseIsWritten() throws Exception {
+        // When
+        Trace trace = traceSeenBy(new TracingFilter(Duration.ofSeconds(1)), "GET", "/api/patients");
+
+        // Then
+        assertTrue(trace.isActive());
+        assertFalse(Trace.current().isActive());
+    }
+
+    @Test
+    void lookupRequest_SlowLogOn_IsTraced() throws Exception {
+        // When
+        Trace trace = traceSeenBy(new TracingFilter(Duration.ofSeconds(1)), "POST", "/api/patients/lookup");
+
+        // Then
+        assertTrue(trace.isActive());
+    }
+
+    @Test
+    void otherRequest_SlowLogOn_IsNotTraced() throws Exception {
+        // When
+        Trace trace = traceSeenBy(new TracingFilter(Duration.ofSeconds(1)), "GET", "/api/doctors/1/visits");
+
+        // Then
+        assertFalse(trace.isActive());
+    }
+
+    @Test
+    void bookingRequest_SlowLogOffAndNoRecording_IsNotTraced() throws Exception {
+        // When
+        Trace trace = traceSeenBy(new TracingFilter(Duration.ZERO), "POST", "/api/visits");
+
+        // Then
+        assertFalse(trace.isActive());
+    }
+
+    private static Trace traceSeenBy(TracingFilter filter, String method, String path) throws Exception {
+        AtomicReference<Trace> seen = new AtomicReference<>();
+        filter.doFilter(new MockHttpServletRequest(method, path), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest request, HttpServletResponse response) {
+                        seen.set(Trace.current());
+                    }
+                }));
+        return seen.get();
+    }
+}
@@ -0,0 +1,65 @@
+CREATE TABLE patients (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    last_visit_at BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_patient_name ON patients (first_name, last_name);
+CREATE INDEX idx_patient_last_name ON patients (last_name, first_name);
+CREATE INDEX idx_patient_last_visit ON patients (last_visit_at);
+
+CREATE TABLE doctors (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    timezone VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE visits (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    start_date_time BIGINT NOT NULL,
+    end_date_time BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    CONSTRAINT fk_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+    CONSTRAINT fk_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id),
+    CONSTRAINT uk_visit_doctor_time UNIQUE (doctor_id, start_date_time, end_date_time)
+);
+
+CREATE INDEX idx_visit_doctor_time ON visits (doctor_id, start_date_time);
+CREATE INDEX idx_visit_patient ON visits (patient_id, start_date_time);
+CREATE INDEX idx_visit_start_time ON visits (start_date_time);
+
+CREATE TABLE visit_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    visit_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    start_date_time BIGINT NOT NULL,
+    end_date_time BIGINT NOT NULL,
+    previous_start_date_time BIGINT,
+    previous_end_date_time BIGINT,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE doctor_daily_stats (
+    doctor_id BIGINT NOT NULL,
+    visit_date DATE NOT NULL,
+    visits INT NOT NULL,
+    booked_minutes BIGINT NOT NULL,
+    patients INT NOT NULL,
+    patient_sketch VARBINARY(1025),
+    PRIMARY KEY (doctor_id, visit_date)
+);
+
+CREATE TABLE import_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    kind VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    committed_rows BIGINT NOT NULL,
+    rejected_rows BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);